@@ -0,0 +1,84 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.imaging;
+
+import com.drew.lang.annotations.NotNull;
+
+/**
+ * The format, pixel dimensions and orientation of an image, as read by {@link ImageDimensionsReader}.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public final class ImageDimensions
+{
+    @NotNull
+    private final FileType _fileType;
+    private final int _width;
+    private final int _height;
+    private final int _orientation;
+
+    public ImageDimensions(@NotNull FileType fileType, int width, int height, int orientation)
+    {
+        _fileType = fileType;
+        _width = width;
+        _height = height;
+        _orientation = orientation;
+    }
+
+    @NotNull
+    public FileType getFileType()
+    {
+        return _fileType;
+    }
+
+    /**
+     * Gets the width of the image in pixels, or zero if it was not found.
+     */
+    public int getWidth()
+    {
+        return _width;
+    }
+
+    /**
+     * Gets the height of the image in pixels, or zero if it was not found.
+     */
+    public int getHeight()
+    {
+        return _height;
+    }
+
+    /**
+     * Gets the Exif/TIFF orientation of the image, from 1 (top, left) to 8 (left, bottom), or zero if the image
+     * does not specify one.
+     */
+    public int getOrientation()
+    {
+        return _orientation;
+    }
+
+    @Override
+    @NotNull
+    public String toString()
+    {
+        return String.format("%s %dx%d orientation=%d", _fileType, _width, _height, _orientation);
+    }
+}
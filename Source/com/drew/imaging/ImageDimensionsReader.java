@@ -0,0 +1,369 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.imaging;
+
+import com.drew.lang.SequentialReader;
+import com.drew.lang.StreamReader;
+import com.drew.lang.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Obtains the format, pixel dimensions and orientation of an image from the headers of all supported file formats.
+ * <p/>
+ * This is considerably cheaper than obtaining the equivalent values via {@link ImageMetadataReader}, and should be
+ * preferred where nothing else is needed. Only the following structures are read, and all other data is skipped
+ * over rather than read:
+ * <ul>
+ *     <li>JPEG: the SOF<i>n</i> segment, plus the orientation from IFD0 of the first Exif APP1 segment</li>
+ *     <li>TIFF (and most RAW formats): the width, height and orientation entries of IFD0</li>
+ *     <li>PSD: the file header</li>
+ *     <li>PNG: the IHDR chunk</li>
+ *     <li>BMP: the bitmap info header</li>
+ *     <li>GIF: the logical screen descriptor</li>
+ * </ul>
+ * No {@link com.drew.metadata.Metadata}, {@link com.drew.metadata.Directory} or
+ * {@link com.drew.metadata.TagDescriptor} instances are created, and values are decoded directly from the stream
+ * without copying them into intermediate arrays.
+ * <p/>
+ * As values are read in a single forward pass, a TIFF whose IFD0 precedes the end of its header, or whose entries
+ * are out of order, may yield zero for values which {@link ImageMetadataReader} would find.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class ImageDimensionsReader
+{
+    private static final int JPEG_FILE_MAGIC_NUMBER = 0xFFD8;
+    private static final int MOTOROLA_TIFF_MAGIC_NUMBER = 0x4D4D;  // "MM"
+    private static final int INTEL_TIFF_MAGIC_NUMBER = 0x4949;     // "II"
+    private static final int PSD_MAGIC_NUMBER = 0x3842;            // "8B"
+    private static final int PNG_MAGIC_NUMBER = 0x8950;            // "?P"
+    private static final int BMP_MAGIC_NUMBER = 0x424D;            // "BM"
+    private static final int GIF_MAGIC_NUMBER = 0x4749;            // "GI"
+
+    /**
+     * Most reads are of a few header bytes. Larger regions, such as JPEG segments which are not of interest,
+     * are skipped rather than read, so a large buffer is of little benefit.
+     */
+    private static final int FILE_BUFFER_SIZE = 1024;
+
+    private static final int TIFF_BIG_TIFF_MARKER = 0x002B;
+    private static final int TIFF_FORMAT_SHORT = 3;
+    private static final int TIFF_FORMAT_LONG = 4;
+    private static final int TIFF_TAG_IMAGE_WIDTH = 0x0100;
+    private static final int TIFF_TAG_IMAGE_HEIGHT = 0x0101;
+    private static final int TIFF_TAG_ORIENTATION = 0x0112;
+
+    private static final int JPEG_MARKER_EOI = 0xD9;
+    private static final int JPEG_MARKER_SOS = 0xDA;
+    private static final int JPEG_MARKER_APP1 = 0xE1;
+
+    @NotNull
+    private static final byte[] JPEG_EXIF_SEGMENT_PREAMBLE = { 'E', 'x', 'i', 'f', 0, 0 };
+
+    @NotNull
+    private final SequentialReader _reader;
+    private int _width;
+    private int _height;
+    private int _orientation;
+
+    /**
+     * Reads the format, pixel dimensions and orientation of an image file.
+     *
+     * @param file a file from which the image data may be read.
+     * @return the values found, with zero for any not present in the file.
+     * @throws ImageProcessingException if the file type is unknown, or the file's headers are invalid.
+     */
+    @NotNull
+    public static ImageDimensions readDimensions(@NotNull File file) throws ImageProcessingException, IOException
+    {
+        InputStream inputStream = new BufferedInputStream(new FileInputStream(file), FILE_BUFFER_SIZE);
+        try {
+            return new ImageDimensionsReader(new StreamReader(inputStream)).read();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Reads the format, pixel dimensions and orientation of an image from an {@link InputStream}.
+     * <p/>
+     * Only as much of the stream as is needed is consumed.
+     *
+     * @param inputStream a stream from which the image data may be read.  The stream must be positioned at the
+     *                    beginning of the file's data.
+     * @return the values found, with zero for any not present in the data.
+     * @throws ImageProcessingException if the file type is unknown, or the file's headers are invalid.
+     */
+    @NotNull
+    public static ImageDimensions readDimensions(@NotNull InputStream inputStream) throws ImageProcessingException, IOException
+    {
+        InputStream bufferedInputStream = inputStream instanceof BufferedInputStream ? inputStream : new BufferedInputStream(inputStream, FILE_BUFFER_SIZE);
+
+        return new ImageDimensionsReader(new StreamReader(bufferedInputStream)).read();
+    }
+
+    private ImageDimensionsReader(@NotNull SequentialReader reader)
+    {
+        _reader = reader;
+    }
+
+    @NotNull
+    private ImageDimensions read() throws ImageProcessingException, IOException
+    {
+        int magicNumber;
+        try {
+            magicNumber = _reader.getUInt16();
+        } catch (EOFException e) {
+            throw new ImageProcessingException("Could not determine file's magic number.");
+        }
+
+        if ((magicNumber & JPEG_FILE_MAGIC_NUMBER) == JPEG_FILE_MAGIC_NUMBER) {
+            readJpeg();
+            return new ImageDimensions(FileType.JPEG, _width, _height, _orientation);
+        }
+
+        if (magicNumber == INTEL_TIFF_MAGIC_NUMBER || magicNumber == MOTOROLA_TIFF_MAGIC_NUMBER) {
+            _reader.setMotorolaByteOrder(magicNumber == MOTOROLA_TIFF_MAGIC_NUMBER);
+            readTiff(Long.MAX_VALUE);
+            return new ImageDimensions(FileType.TIFF, _width, _height, _orientation);
+        }
+
+        if (magicNumber == PSD_MAGIC_NUMBER) {
+            // "PS", version, reserved bytes and channel count
+            _reader.skip(2 + 2 + 6 + 2);
+            _height = _reader.getInt32();
+            _width = _reader.getInt32();
+            return new ImageDimensions(FileType.PSD, _width, _height, 0);
+        }
+
+        if (magicNumber == PNG_MAGIC_NUMBER) {
+            // the remainder of the signature, then the length of the first chunk
+            _reader.skip(6 + 4);
+            if (_reader.getInt32() != 0x49484452) // "IHDR"
+                throw new ImageProcessingException("PNG data is expected to begin with an IHDR chunk");
+            _width = _reader.getInt32();
+            _height = _reader.getInt32();
+            return new ImageDimensions(FileType.PNG, _width, _height, 0);
+        }
+
+        if (magicNumber == BMP_MAGIC_NUMBER) {
+            _reader.setMotorolaByteOrder(false);
+            // skip past the rest of the file header
+            _reader.skip(4 + 2 + 2 + 4);
+            int headerSize = _reader.getInt32();
+            if (headerSize == 12) {
+                // BITMAPCOREHEADER
+                _width = _reader.getUInt16();
+                _height = _reader.getUInt16();
+            } else if (headerSize >= 40) {
+                // BITMAPINFOHEADER and its later extensions, in which a negative height denotes a top-down bitmap
+                _width = _reader.getInt32();
+                _height = Math.abs(_reader.getInt32());
+            } else {
+                throw new ImageProcessingException("Unexpected DIB header size: " + headerSize);
+            }
+            return new ImageDimensions(FileType.BMP, _width, _height, 0);
+        }
+
+        if (magicNumber == GIF_MAGIC_NUMBER) {
+            _reader.setMotorolaByteOrder(false);
+            // the remainder of the signature and version
+            _reader.skip(4);
+            _width = _reader.getUInt16();
+            _height = _reader.getUInt16();
+            return new ImageDimensions(FileType.GIF, _width, _height, 0);
+        }
+
+        throw new ImageProcessingException("File format is not supported");
+    }
+
+    /**
+     * Reads JPEG segments up to and including the first SOF<i>n</i> segment, having already read the SOI marker.
+     */
+    private void readJpeg() throws ImageProcessingException, IOException
+    {
+        // Exif data is held in the first APP1 segment, with any others holding XMP
+        boolean app1Read = false;
+
+        while (true) {
+            if (_reader.getUInt8() != 0xFF)
+                throw new ImageProcessingException("Expected JPEG segment start identifier 0xFF");
+
+            // any number of 0xFF fill bytes may precede the marker
+            int marker;
+            do {
+                marker = _reader.getUInt8();
+            } while (marker == 0xFF);
+
+            // the scan data follows SOS, so if no SOFn segment has been seen by now then there is none
+            if (marker == JPEG_MARKER_SOS || marker == JPEG_MARKER_EOI)
+                return;
+
+            // RST0-7 and TEM have no length
+            if ((marker >= 0xD0 && marker <= 0xD7) || marker == 0x01)
+                continue;
+
+            int segmentLength = _reader.getUInt16() - 2;
+            if (segmentLength < 0)
+                throw new ImageProcessingException("JPEG segment size would be less than zero");
+
+            if (isJpegStartOfFrame(marker)) {
+                // skip the data precision
+                _reader.skip(1);
+                _height = _reader.getUInt16();
+                _width = _reader.getUInt16();
+                return;
+            }
+
+            long consumed = 0;
+            if (marker == JPEG_MARKER_APP1 && !app1Read) {
+                consumed = readJpegExif(segmentLength);
+                app1Read = true;
+            }
+            _reader.skip(segmentLength - consumed);
+        }
+    }
+
+    private static boolean isJpegStartOfFrame(int marker)
+    {
+        // SOF0-SOF15, other than DHT (0xC4), JPG (0xC8) and DAC (0xCC) which share the range
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    /**
+     * Reads the orientation from an APP1 segment if it holds Exif data, returning the number of bytes of the segment
+     * consumed.
+     */
+    private long readJpegExif(int segmentLength) throws IOException
+    {
+        long consumed = 0;
+
+        for (byte expected : JPEG_EXIF_SEGMENT_PREAMBLE) {
+            if (consumed == segmentLength)
+                return consumed;
+            consumed++;
+            if (_reader.getInt8() != expected)
+                return consumed;
+        }
+
+        long tiffLength = segmentLength - consumed;
+        if (tiffLength < 2)
+            return consumed;
+
+        int byteOrder = _reader.getUInt16();
+        if (byteOrder != INTEL_TIFF_MAGIC_NUMBER && byteOrder != MOTOROLA_TIFF_MAGIC_NUMBER)
+            return consumed + 2;
+
+        // only the orientation of IFD0 is of interest, as the SOFn segment gives the dimensions
+        _reader.setMotorolaByteOrder(byteOrder == MOTOROLA_TIFF_MAGIC_NUMBER);
+        consumed += readTiff(tiffLength);
+        _reader.setMotorolaByteOrder(true);
+
+        _width = 0;
+        _height = 0;
+        return consumed;
+    }
+
+    /**
+     * Reads values from IFD0 of TIFF data of at most <code>maxLength</code> bytes, having already read its byte
+     * order identifier. Returns the number of bytes of the TIFF data consumed, including that identifier.
+     */
+    private long readTiff(long maxLength) throws IOException
+    {
+        if (maxLength < 8)
+            return 2;
+
+        // Markers other than BigTIFF's, such as those of Olympus and Panasonic RAW files, lay out IFD0 as standard
+        // TIFF does
+        boolean isBigTiff = _reader.getUInt16() == TIFF_BIG_TIFF_MARKER;
+
+        long consumed;
+        long firstIfdOffset;
+        if (isBigTiff) {
+            if (maxLength < 16)
+                return 4;
+            // skip the offset byte size and reserved bytes
+            _reader.skip(4);
+            firstIfdOffset = _reader.getInt64();
+            consumed = 16;
+        } else {
+            firstIfdOffset = _reader.getUInt32();
+            consumed = 8;
+        }
+
+        // IFD0 can only be reached by skipping forward
+        if (firstIfdOffset < consumed || firstIfdOffset >= maxLength)
+            return consumed;
+
+        _reader.skip(firstIfdOffset - consumed);
+        consumed = firstIfdOffset;
+
+        int countLength = isBigTiff ? 8 : 2;
+        if (maxLength - consumed < countLength)
+            return consumed;
+
+        long entryCount = isBigTiff ? _reader.getInt64() : _reader.getUInt16();
+        consumed += countLength;
+
+        int valueLength = isBigTiff ? 8 : 4;
+        int entryLength = 2 + 2 + valueLength + valueLength;
+
+        for (long i = 0; i < entryCount && maxLength - consumed >= entryLength; i++) {
+            int tagId = _reader.getUInt16();
+            int format = _reader.getUInt16();
+            // skip the component count, as each value of interest has a single component held within the entry
+            _reader.skip(valueLength);
+
+            int value = 0;
+            if (format == TIFF_FORMAT_SHORT) {
+                value = _reader.getUInt16();
+                _reader.skip(valueLength - 2);
+            } else if (format == TIFF_FORMAT_LONG) {
+                value = (int)_reader.getUInt32();
+                _reader.skip(valueLength - 4);
+            } else {
+                _reader.skip(valueLength);
+            }
+            consumed += entryLength;
+
+            if (tagId == TIFF_TAG_IMAGE_WIDTH) {
+                _width = value;
+            } else if (tagId == TIFF_TAG_IMAGE_HEIGHT) {
+                _height = value;
+            } else if (tagId == TIFF_TAG_ORIENTATION) {
+                _orientation = value;
+            }
+
+            // entries are sorted by tag ID, so none after this are of interest
+            if (tagId >= TIFF_TAG_ORIENTATION)
+                break;
+        }
+
+        return consumed;
+    }
+}
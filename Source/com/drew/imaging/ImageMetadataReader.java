@@ -26,6 +26,9 @@ import com.drew.imaging.jpeg.JpegMetadataReader;
 import com.drew.imaging.png.PngMetadataReader;
 import com.drew.imaging.psd.PsdMetadataReader;
 import com.drew.imaging.tiff.TiffMetadataReader;
+import com.drew.lang.RandomAccessRangeSourceReader;
+import com.drew.lang.RandomAccessReader;
+import com.drew.lang.RangeSource;
 import com.drew.lang.StringUtil;
 import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.Directory;
@@ -54,6 +57,9 @@ import java.util.Collection;
  * </ul>
  * If you know the file type you're working with, you may use one of the above processors directly.
  * For most scenarios it is simpler, more convenient and more robust to use this class.
+ * <p/>
+ * Where only the format, dimensions and orientation of an image are needed, {@link ImageDimensionsReader}
+ * obtains them far more cheaply.
  *
  * @author Drew Noakes http://drewnoakes.com
  */
@@ -151,12 +157,83 @@ public class ImageMetadataReader
     @NotNull
     public static Metadata readMetadata(@NotNull final File file) throws ImageProcessingException, IOException
     {
+        int magicNumber;
         InputStream inputStream = new FileInputStream(file);
         try {
-            return readMetadata(inputStream);
+            magicNumber = readMagicNumber(inputStream);
         } finally {
             inputStream.close();
         }
+
+        if (magicNumber == -1)
+            throw new ImageProcessingException("Could not determine file's magic number.");
+
+        // Delegate to the file-based readers, which can seek within the file rather than stream through it
+
+        if ((magicNumber & JPEG_FILE_MAGIC_NUMBER) == JPEG_FILE_MAGIC_NUMBER) {
+            return JpegMetadataReader.readMetadata(file);
+        }
+
+        if (magicNumber == INTEL_TIFF_MAGIC_NUMBER || magicNumber == MOTOROLA_TIFF_MAGIC_NUMBER) {
+            return TiffMetadataReader.readMetadata(file);
+        }
+
+        if (magicNumber == PSD_MAGIC_NUMBER) {
+            return PsdMetadataReader.readMetadata(file);
+        }
+
+        if (magicNumber == PNG_MAGIC_NUMBER) {
+            return PngMetadataReader.readMetadata(file);
+        }
+
+        if (magicNumber == BMP_MAGIC_NUMBER) {
+            return BmpMetadataReader.readMetadata(file);
+        }
+
+        if (magicNumber == GIF_MAGIC_NUMBER) {
+            return GifMetadataReader.readMetadata(file);
+        }
+
+        throw new ImageProcessingException("File format is not supported");
+    }
+
+    /**
+     * Reads {@link Metadata} from a {@link RangeSource}, such as an object in a remote store.
+     * <p/>
+     * Data is fetched from the source on demand, so that only those parts of the file holding metadata are read.
+     * Parsing is delegated to one of:
+     * <ul>
+     *     <li>{@link JpegMetadataReader} for JPEG files</li>
+     *     <li>{@link TiffMetadataReader} for TIFF and (most) RAW files</li>
+     * </ul>
+     * Other file types are not currently supported by this method.
+     *
+     * @param source a source from which the image data may be read.
+     * @return a populated {@link Metadata} object containing directories of tags with values and any processing errors.
+     * @throws ImageProcessingException if the file type is unsupported, or for general processing errors.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull final RangeSource source) throws ImageProcessingException, IOException
+    {
+        RandomAccessReader reader = new RandomAccessRangeSourceReader(source);
+
+        if (!reader.isAvailable(0, 2))
+            throw new ImageProcessingException("Could not determine file's magic number.");
+
+        // The same reader is passed on, so that the leading bytes fetched here are not fetched again
+        int magicNumber = reader.getUInt16(0);
+
+        if ((magicNumber & JPEG_FILE_MAGIC_NUMBER) == JPEG_FILE_MAGIC_NUMBER) {
+            Metadata metadata = new Metadata();
+            JpegMetadataReader.process(metadata, reader, null);
+            return metadata;
+        }
+
+        if (magicNumber == INTEL_TIFF_MAGIC_NUMBER || magicNumber == MOTOROLA_TIFF_MAGIC_NUMBER) {
+            return TiffMetadataReader.readMetadata(reader);
+        }
+
+        throw new ImageProcessingException("File format is not supported");
     }
 
     /**
@@ -165,9 +242,20 @@ public class ImageMetadataReader
     private static int peekMagicNumber(@NotNull final InputStream inputStream) throws IOException
     {
         inputStream.mark(2);
+        final int magicNumber = readMagicNumber(inputStream);
+        inputStream.reset();
+
+        return magicNumber;
+    }
+
+    /**
+     * Reads the first two bytes from <code>inputStream</code> as a big-endian value, or returns -1 if the
+     * stream ends first.
+     */
+    private static int readMagicNumber(@NotNull final InputStream inputStream) throws IOException
+    {
         final int byte1 = inputStream.read();
         final int byte2 = inputStream.read();
-        inputStream.reset();
 
         if (byte1 == -1 || byte2 == -1)
             return -1;
@@ -21,6 +21,8 @@
 
 package com.drew.imaging.bmp;
 
+import com.drew.lang.ChannelReader;
+import com.drew.lang.SequentialReader;
 import com.drew.lang.StreamReader;
 import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.Metadata;
@@ -41,7 +43,7 @@ public class BmpMetadataReader
         FileInputStream stream = null;
         try {
             stream = new FileInputStream(file);
-            return readMetadata(stream);
+            return readMetadata(new ChannelReader(stream.getChannel()));
         } finally {
             if (stream != null) {
                 stream.close();
@@ -51,9 +53,15 @@ public class BmpMetadataReader
 
     @NotNull
     public static Metadata readMetadata(@NotNull InputStream inputStream)
+    {
+        return readMetadata(new StreamReader(inputStream));
+    }
+
+    @NotNull
+    private static Metadata readMetadata(@NotNull SequentialReader reader)
     {
         Metadata metadata = new Metadata();
-        new BmpReader().extract(new StreamReader(inputStream), metadata);
+        new BmpReader().extract(reader, metadata);
         return metadata;
     }
 }
@@ -21,6 +21,8 @@
 
 package com.drew.imaging.gif;
 
+import com.drew.lang.ChannelReader;
+import com.drew.lang.SequentialReader;
 import com.drew.lang.StreamReader;
 import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.Metadata;
@@ -44,7 +46,7 @@ public class GifMetadataReader
         FileInputStream stream = null;
         try {
             stream = new FileInputStream(file);
-            return readMetadata(stream);
+            return readMetadata(new ChannelReader(stream.getChannel()));
         } finally {
             if (stream != null) {
                 stream.close();
@@ -54,9 +56,15 @@ public class GifMetadataReader
 
     @NotNull
     public static Metadata readMetadata(@NotNull InputStream inputStream)
+    {
+        return readMetadata(new StreamReader(inputStream));
+    }
+
+    @NotNull
+    private static Metadata readMetadata(@NotNull SequentialReader reader)
     {
         Metadata metadata = new Metadata();
-        new GifReader().extract(new StreamReader(inputStream), metadata);
+        new GifReader().extract(reader, metadata);
         return metadata;
     }
 }
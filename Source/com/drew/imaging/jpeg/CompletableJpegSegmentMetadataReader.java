@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+package com.drew.imaging.jpeg;
+
+import com.drew.lang.annotations.NotNull;
+
+/**
+ * A {@link JpegSegmentMetadataReader} which can indicate that it requires no further segments.
+ * <p/>
+ * When every reader passed to {@link JpegMetadataReader} reports that it is complete, no further segments are read
+ * from the JPEG data. Readers which do not implement this interface are never considered complete.
+ * <p/>
+ * Completion is tracked by {@link JpegSegmentDispatchPlan} for each file processed, based on the segments the reader
+ * has extracted from that file. It does not depend on the contents of the {@link com.drew.metadata.Metadata} being
+ * populated, which may already hold directories from elsewhere.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public interface CompletableJpegSegmentMetadataReader extends JpegSegmentMetadataReader
+{
+    /**
+     * Gets a value indicating whether, having just extracted <code>segmentBytes</code>, this reader requires no
+     * further segments from the current file.
+     *
+     * @param segmentBytes the segment's data, excluding its marker and length
+     * @param segmentType the type of the segment
+     */
+    public boolean isCompletedBy(@NotNull final byte[] segmentBytes, @NotNull final JpegSegmentType segmentType);
+}
@@ -20,27 +20,39 @@
  */
 package com.drew.imaging.jpeg;
 
+import com.drew.lang.ChannelReader;
+import com.drew.lang.RandomAccessRangeSourceReader;
+import com.drew.lang.RandomAccessReader;
+import com.drew.lang.RangeSource;
+import com.drew.lang.SequentialReader;
 import com.drew.lang.StreamReader;
 import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Metadata;
 import com.drew.metadata.adobe.AdobeJpegReader;
 import com.drew.metadata.exif.ExifReader;
+import com.drew.metadata.exif.ThumbnailRetention;
 import com.drew.metadata.icc.IccReader;
 import com.drew.metadata.iptc.IptcReader;
 import com.drew.metadata.jfif.JfifReader;
 import com.drew.metadata.jpeg.JpegCommentReader;
+import com.drew.metadata.jpeg.JpegDirectory;
 import com.drew.metadata.jpeg.JpegReader;
+import com.drew.metadata.mpf.MpfReader;
 import com.drew.metadata.photoshop.PhotoshopReader;
+import com.drew.metadata.xmp.XmpDirectory;
 import com.drew.metadata.xmp.XmpReader;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Obtains all available metadata from JPEG formatted files.
@@ -56,11 +68,20 @@ public class JpegMetadataReader
             new ExifReader(),
             new XmpReader(),
             new IccReader(),
+            new MpfReader(),
             new PhotoshopReader(),
             new IptcReader(),
             new AdobeJpegReader()
     );
 
+    /** A dispatch plan for {@link #ALL_READERS}, compiled once as it is used whenever no readers are specified. */
+    @NotNull
+    private static final JpegSegmentDispatchPlan ALL_READERS_PLAN = new JpegSegmentDispatchPlan(ALL_READERS);
+
+    /** Dispatch plans for {@link #ALL_READERS} with each way of retaining Exif thumbnails, compiled once each. */
+    @NotNull
+    private static final Map<ThumbnailRetention, JpegSegmentDispatchPlan> ALL_READERS_PLAN_BY_THUMBNAIL_RETENTION = createAllReadersPlans();
+
     @NotNull
     public static Metadata readMetadata(@NotNull InputStream inputStream, @Nullable Iterable<JpegSegmentMetadataReader> readers) throws JpegProcessingException, IOException
     {
@@ -75,24 +96,136 @@ public class JpegMetadataReader
         return readMetadata(inputStream, null);
     }
 
+    /**
+     * Reads metadata from a JPEG stream, with any {@link ExifReader} retaining Exif thumbnails as specified for this
+     * call only.
+     *
+     * @param thumbnailRetention how thumbnail bytes are retained. Only use {@link ThumbnailRetention#LAZY} when
+     *                           keeping the segment holding the thumbnail reachable from the metadata is acceptable.
+     * @see #readMetadata(File, Iterable, ThumbnailRetention)
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull InputStream inputStream, @Nullable Iterable<JpegSegmentMetadataReader> readers, @NotNull ThumbnailRetention thumbnailRetention) throws JpegProcessingException, IOException
+    {
+        Metadata metadata = new Metadata();
+        process(metadata, new StreamReader(inputStream), createPlan(readers, thumbnailRetention), Long.MAX_VALUE);
+        return metadata;
+    }
+
+    /**
+     * Reads metadata from a JPEG stream, reading at most <code>maxHeaderBytes</code> bytes from it.
+     * <p/>
+     * If the budget is exhausted before all segments of interest have been read, an error is added to the
+     * {@link JpegDirectory} describing which part of the stream was not read.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull InputStream inputStream, @Nullable Iterable<JpegSegmentMetadataReader> readers, long maxHeaderBytes) throws JpegProcessingException, IOException
+    {
+        Metadata metadata = new Metadata();
+        process(metadata, new StreamReader(inputStream), readers, maxHeaderBytes);
+        return metadata;
+    }
+
+    /**
+     * Reads metadata from a JPEG stream, decoding its segments concurrently on <code>executor</code>.
+     * <p/>
+     * This reduces the latency of processing a single large file, such as one with big makernotes, XMP and ICC
+     * segments, on a machine with idle cores. For the default readers, the resulting metadata is the same as that of
+     * sequential processing.
+     * <p/>
+     * The readers' <code>extract</code> methods run concurrently, on the same reader instances, so readers must not
+     * hold state between extractions. The default readers hold none.
+     *
+     * @see #process(Metadata, SequentialReader, JpegSegmentDispatchPlan, long, Executor)
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull InputStream inputStream, @Nullable Iterable<JpegSegmentMetadataReader> readers, @NotNull Executor executor) throws JpegProcessingException, IOException
+    {
+        Metadata metadata = new Metadata();
+        process(metadata, new StreamReader(inputStream), readers == null ? ALL_READERS_PLAN : new JpegSegmentDispatchPlan(readers), Long.MAX_VALUE, executor);
+        return metadata;
+    }
+
     @NotNull
     public static Metadata readMetadata(@NotNull File file, @Nullable Iterable<JpegSegmentMetadataReader> readers) throws JpegProcessingException, IOException
     {
-        InputStream inputStream = null;
+        return read(file, readers == null ? ALL_READERS_PLAN : new JpegSegmentDispatchPlan(readers));
+    }
+
+    @NotNull
+    public static Metadata readMetadata(@NotNull File file) throws JpegProcessingException, IOException
+    {
+        return readMetadata(file, null);
+    }
+
+    /**
+     * Reads metadata from a JPEG file, with any {@link ExifReader} retaining Exif thumbnails as specified for this
+     * call only.
+     * <p/>
+     * Readers such as those of {@link #ALL_READERS} are shared, so this does not change their state. Instead, each
+     * {@link ExifReader} among <code>readers</code> is replaced for this call by
+     * {@link ExifReader#withThumbnailRetention(ThumbnailRetention)}.
+     *
+     * @param readers the readers to use, or <code>null</code> for {@link #ALL_READERS}
+     * @param thumbnailRetention how thumbnail bytes are retained. By default they are copied, whereas
+     *                           {@link ThumbnailRetention#LAZY} keeps the segment holding the thumbnail reachable
+     *                           from the metadata, and {@link ThumbnailRetention#NONE} discards them.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull File file, @Nullable Iterable<JpegSegmentMetadataReader> readers, @NotNull ThumbnailRetention thumbnailRetention) throws JpegProcessingException, IOException
+    {
+        return read(file, createPlan(readers, thumbnailRetention));
+    }
+
+    @NotNull
+    private static Metadata read(@NotNull File file, @NotNull JpegSegmentDispatchPlan plan) throws JpegProcessingException, IOException
+    {
+        FileInputStream inputStream = null;
         try
         {
             inputStream = new FileInputStream(file);
-            return readMetadata(inputStream, readers);
+            Metadata metadata = new Metadata();
+            process(metadata, new ChannelReader(inputStream.getChannel()), plan, Long.MAX_VALUE);
+            return metadata;
         } finally {
             if (inputStream != null)
                 inputStream.close();
         }
     }
 
+    /**
+     * Reads metadata from JPEG data held in a {@link RangeSource}, such as an object in a remote store.
+     * <p/>
+     * Only the segments required by <code>readers</code> are fetched from the source. Other segments, and the
+     * compressed image data, are skipped without being read.
+     */
     @NotNull
-    public static Metadata readMetadata(@NotNull File file) throws JpegProcessingException, IOException
+    public static Metadata readMetadata(@NotNull RangeSource source, @Nullable Iterable<JpegSegmentMetadataReader> readers) throws JpegProcessingException, IOException
     {
-        return readMetadata(file, null);
+        Metadata metadata = new Metadata();
+        process(metadata, new RandomAccessRangeSourceReader(source), readers);
+        return metadata;
+    }
+
+    @NotNull
+    public static Metadata readMetadata(@NotNull RangeSource source) throws JpegProcessingException, IOException
+    {
+        return readMetadata(source, null);
+    }
+
+    /**
+     * Reads metadata from JPEG data held in a {@link RangeSource}, with any {@link ExifReader} retaining Exif
+     * thumbnails as specified for this call only.
+     *
+     * @see #readMetadata(File, Iterable, ThumbnailRetention)
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull RangeSource source, @Nullable Iterable<JpegSegmentMetadataReader> readers, @NotNull ThumbnailRetention thumbnailRetention) throws JpegProcessingException, IOException
+    {
+        Metadata metadata = new Metadata();
+        RandomAccessReader reader = new RandomAccessRangeSourceReader(source);
+        process(metadata, reader.sliceSequential(0, (int)Math.min(reader.getLength(), Integer.MAX_VALUE)), createPlan(readers, thumbnailRetention), Long.MAX_VALUE);
+        return metadata;
     }
 
     public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream) throws JpegProcessingException, IOException
@@ -102,19 +235,82 @@ public class JpegMetadataReader
 
     public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream, @Nullable Iterable<JpegSegmentMetadataReader> readers) throws JpegProcessingException, IOException
     {
-        if (readers == null)
-            readers = ALL_READERS;
+        process(metadata, new StreamReader(inputStream), readers);
+    }
 
-        Set<JpegSegmentType> segmentTypes = new HashSet<JpegSegmentType>();
-        for (JpegSegmentMetadataReader reader : readers) {
-            for (JpegSegmentType type : reader.getSegmentTypes()) {
-                segmentTypes.add(type);
-            }
-        }
+    /**
+     * Processes JPEG data from a {@link RandomAccessReader}. Skipped segments are never read from
+     * <code>reader</code>, which benefits readers whose data is fetched on demand.
+     */
+    public static void process(@NotNull Metadata metadata, @NotNull RandomAccessReader reader, @Nullable Iterable<JpegSegmentMetadataReader> readers) throws JpegProcessingException, IOException
+    {
+        process(metadata, reader.sliceSequential(0, (int)Math.min(reader.getLength(), Integer.MAX_VALUE)), readers);
+    }
 
-        JpegSegmentData segmentData = JpegSegmentReader.readSegments(new StreamReader(inputStream), segmentTypes);
+    public static void process(@NotNull Metadata metadata, @NotNull SequentialReader sequentialReader, @Nullable Iterable<JpegSegmentMetadataReader> readers) throws JpegProcessingException, IOException
+    {
+        process(metadata, sequentialReader, readers, Long.MAX_VALUE);
+    }
 
-        processJpegSegmentData(metadata, readers, segmentData);
+    /**
+     * Processes JPEG data from a {@link SequentialReader}, reading at most <code>maxHeaderBytes</code> bytes from it.
+     * <p/>
+     * Reading also stops once every reader is a {@link CompletableJpegSegmentMetadataReader} which reports that it is
+     * complete. If the budget is exhausted first, an error is added to the {@link JpegDirectory} describing which part
+     * of the data was not read.
+     */
+    public static void process(@NotNull Metadata metadata, @NotNull SequentialReader sequentialReader, @Nullable Iterable<JpegSegmentMetadataReader> readers, long maxHeaderBytes) throws JpegProcessingException, IOException
+    {
+        process(metadata, sequentialReader, readers == null ? ALL_READERS_PLAN : new JpegSegmentDispatchPlan(readers), maxHeaderBytes);
+    }
+
+    /**
+     * Processes JPEG data from a {@link SequentialReader}, passing segments to readers according to a precompiled
+     * {@link JpegSegmentDispatchPlan}, and reading at most <code>maxHeaderBytes</code> bytes.
+     * <p/>
+     * Callers processing many files with the same readers should compile a plan once and reuse it.
+     */
+    public static void process(@NotNull Metadata metadata, @NotNull SequentialReader sequentialReader, @NotNull JpegSegmentDispatchPlan plan, long maxHeaderBytes) throws JpegProcessingException, IOException
+    {
+        // Pass each segment to the interested readers as soon as it is read, rather than holding all segments in
+        // memory at once
+        long unreadOffset = JpegSegmentReader.readSegments(sequentialReader, plan.getWantedMarkers(), plan.createHandler(metadata), maxHeaderBytes);
+
+        completeExtraction(metadata);
+
+        if (unreadOffset != -1)
+            addBudgetExhaustedError(metadata, maxHeaderBytes, unreadOffset);
+    }
+
+    /**
+     * Processes JPEG data from a {@link SequentialReader}, decoding its segments concurrently on <code>executor</code>,
+     * and reading at most <code>maxHeaderBytes</code> bytes.
+     * <p/>
+     * All wanted segments are read before decoding begins. Reading stops at the same point as for sequential
+     * processing, once every reader is a {@link CompletableJpegSegmentMetadataReader} which has completed. Each reader
+     * extracts each segment into a private {@link Metadata} fragment, and fragments are merged into
+     * <code>metadata</code> in the order sequential processing would have produced them, so directory and tag ordering
+     * match. This gives the same result as sequential processing for readers whose extraction of a segment does not
+     * depend on what was extracted from earlier segments, as is the case for the default readers.
+     * <p/>
+     * The readers' <code>extract</code> methods run concurrently, on the same reader instances, so readers must not
+     * hold state between extractions.
+     * <p/>
+     * The first extraction runs on the calling thread, which then waits for the others. If <code>executor</code> is a
+     * bounded pool, the calling thread should not be one of its workers.
+     */
+    public static void process(@NotNull Metadata metadata, @NotNull SequentialReader sequentialReader, @NotNull JpegSegmentDispatchPlan plan, long maxHeaderBytes, @NotNull Executor executor) throws JpegProcessingException, IOException
+    {
+        JpegSegmentDispatchPlan.ConcurrentDispatcher dispatcher = plan.createConcurrentHandler(metadata, executor);
+
+        long unreadOffset = JpegSegmentReader.readSegments(sequentialReader, plan.getWantedMarkers(), dispatcher, maxHeaderBytes);
+
+        dispatcher.complete();
+
+        completeExtraction(metadata);
+
+        if (unreadOffset != -1)
+            addBudgetExhaustedError(metadata, maxHeaderBytes, unreadOffset);
     }
 
     public static void processJpegSegmentData(Metadata metadata, Iterable<JpegSegmentMetadataReader> readers, JpegSegmentData segmentData)
@@ -129,6 +325,56 @@ public class JpegMetadataReader
                 }
             }
         }
+
+        completeExtraction(metadata);
+    }
+
+    @NotNull
+    @SuppressWarnings({ "ConstantConditions" })
+    private static JpegSegmentDispatchPlan createPlan(@Nullable Iterable<JpegSegmentMetadataReader> readers, @NotNull ThumbnailRetention thumbnailRetention)
+    {
+        if (thumbnailRetention == null)
+            throw new NullPointerException();
+
+        return readers == null
+                ? ALL_READERS_PLAN_BY_THUMBNAIL_RETENTION.get(thumbnailRetention)
+                : new JpegSegmentDispatchPlan(withThumbnailRetention(readers, thumbnailRetention));
+    }
+
+    @NotNull
+    private static Map<ThumbnailRetention, JpegSegmentDispatchPlan> createAllReadersPlans()
+    {
+        Map<ThumbnailRetention, JpegSegmentDispatchPlan> plans = new EnumMap<ThumbnailRetention, JpegSegmentDispatchPlan>(ThumbnailRetention.class);
+        for (ThumbnailRetention thumbnailRetention : ThumbnailRetention.values())
+            plans.put(thumbnailRetention, new JpegSegmentDispatchPlan(withThumbnailRetention(ALL_READERS, thumbnailRetention)));
+        return plans;
+    }
+
+    @NotNull
+    private static List<JpegSegmentMetadataReader> withThumbnailRetention(@NotNull Iterable<JpegSegmentMetadataReader> readers, @NotNull ThumbnailRetention thumbnailRetention)
+    {
+        List<JpegSegmentMetadataReader> result = new ArrayList<JpegSegmentMetadataReader>();
+        for (JpegSegmentMetadataReader reader : readers)
+            result.add(reader instanceof ExifReader ? ((ExifReader)reader).withThumbnailRetention(thumbnailRetention) : reader);
+        return result;
+    }
+
+    /**
+     * Releases state which readers retain between the segments of a file, once all of its segments have been
+     * extracted.
+     */
+    private static void completeExtraction(@NotNull Metadata metadata)
+    {
+        // Extended XMP chunks are retained until their packet is complete, which it may never be
+        XmpDirectory xmpDirectory = metadata.getDirectory(XmpDirectory.class);
+        if (xmpDirectory != null)
+            xmpDirectory.discardPendingExtendedXmp();
+    }
+
+    private static void addBudgetExhaustedError(@NotNull Metadata metadata, long maxHeaderBytes, long unreadOffset)
+    {
+        metadata.getOrCreateDirectory(JpegDirectory.class).addError(String.format(
+            "JPEG header byte budget of %d bytes exhausted; segments from offset %d onwards were not read", maxHeaderBytes, unreadOffset));
     }
 
     private JpegMetadataReader() throws Exception
@@ -41,9 +41,10 @@ import java.util.*;
  */
 public class JpegSegmentData
 {
-    // TODO key this on JpegSegmentType rather than Byte, and hopefully lose much of the use of 'byte' with this class
+    // Segment lists are indexed by unsigned marker byte, which avoids boxing and hashing the marker on each access
     @NotNull
-    private final HashMap<Byte, List<byte[]>> _segmentDataMap = new HashMap<Byte, List<byte[]>>(10);
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private final List<byte[]>[] _segmentLists = (List<byte[]>[])new List[256];
 
     /**
      * Adds segment bytes to the collection.
@@ -62,13 +63,15 @@ public class JpegSegmentData
      */
     public Iterable<JpegSegmentType> getSegmentTypes()
     {
-        Set<JpegSegmentType> segmentTypes = new HashSet<JpegSegmentType>();
+        Set<JpegSegmentType> segmentTypes = EnumSet.noneOf(JpegSegmentType.class);
 
-        for (Byte segmentTypeByte : _segmentDataMap.keySet())
+        for (int marker = 0; marker < _segmentLists.length; marker++)
         {
-            JpegSegmentType segmentType = JpegSegmentType.fromByte(segmentTypeByte);
+            if (_segmentLists[marker] == null)
+                continue;
+            JpegSegmentType segmentType = JpegSegmentType.fromByte((byte)marker);
             if (segmentType == null) {
-                throw new IllegalStateException("Should not have a segmentTypeByte that is not in the enum: " + Integer.toHexString(segmentTypeByte));
+                throw new IllegalStateException("Should not have a segmentTypeByte that is not in the enum: " + Integer.toHexString(marker));
             }
             segmentTypes.add(segmentType);
         }
@@ -160,19 +163,16 @@ public class JpegSegmentData
     @Nullable
     private List<byte[]> getSegmentList(byte segmentType)
     {
-        return _segmentDataMap.get(segmentType);
+        return _segmentLists[segmentType & 0xFF];
     }
 
     @NotNull
     private List<byte[]> getOrCreateSegmentList(byte segmentType)
     {
-
-        List<byte[]> segmentList;
-        if (_segmentDataMap.containsKey(segmentType)) {
-            segmentList = _segmentDataMap.get(segmentType);
-        } else {
+        List<byte[]> segmentList = _segmentLists[segmentType & 0xFF];
+        if (segmentList == null) {
             segmentList = new ArrayList<byte[]>();
-            _segmentDataMap.put(segmentType, segmentList);
+            _segmentLists[segmentType & 0xFF] = segmentList;
         }
         return segmentList;
     }
@@ -223,7 +223,7 @@ public class JpegSegmentData
     @SuppressWarnings({"MismatchedQueryAndUpdateOfCollection"})
     public void removeSegmentOccurrence(byte segmentType, int occurrence)
     {
-        final List<byte[]> segmentList = _segmentDataMap.get(segmentType);
+        final List<byte[]> segmentList = getSegmentList(segmentType);
         segmentList.remove(occurrence);
     }
 
@@ -244,7 +244,7 @@ public class JpegSegmentData
      */
     public void removeSegment(byte segmentType)
     {
-        _segmentDataMap.remove(segmentType);
+        _segmentLists[segmentType & 0xFF] = null;
     }
 
     /**
@@ -266,6 +266,6 @@ public class JpegSegmentData
      */
     public boolean containsSegment(byte segmentType)
     {
-        return _segmentDataMap.containsKey(segmentType);
+        return getSegmentList(segmentType) != null;
     }
 }
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+package com.drew.imaging.jpeg;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.Metadata;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * An immutable plan for passing JPEG segments to a set of {@link JpegSegmentMetadataReader}s.
+ * <p/>
+ * The reader set is compiled into a table, indexed by segment marker byte, of the readers interested in each segment
+ * type. Compiling a plan once and reusing it for many files avoids the cost of indexing the readers for each file,
+ * which dominates when processing small JPEGs. Plans hold no per-file state, and may be shared between threads. The
+ * state of processing a single file, such as which readers have completed, is held by the handler returned from
+ * {@link #createHandler(Metadata)}.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public final class JpegSegmentDispatchPlan
+{
+    @NotNull
+    private final JpegSegmentMetadataReader[][] _readersByMarker = new JpegSegmentMetadataReader[256][];
+    @NotNull
+    private final JpegSegmentType[] _segmentTypesByMarker = new JpegSegmentType[256];
+    @NotNull
+    private final boolean[] _isMarkerWanted = new boolean[256];
+    /**
+     * For each reader in {@link #_readersByMarker}, its index among the completable readers, or -1 if its completion
+     * is not tracked.
+     */
+    @NotNull
+    private final int[][] _completableIndexesByMarker = new int[256][];
+    /** The number of readers which must complete before reading may stop, or -1 if reading may not stop early. */
+    private final int _completableReaderCount;
+
+    @SuppressWarnings({ "ConstantConditions" })
+    public JpegSegmentDispatchPlan(@NotNull Iterable<JpegSegmentMetadataReader> readers)
+    {
+        if (readers == null)
+            throw new NullPointerException();
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        List<JpegSegmentMetadataReader>[] readerLists = (List<JpegSegmentMetadataReader>[])new List[256];
+        List<CompletableJpegSegmentMetadataReader> completableReaders = new ArrayList<CompletableJpegSegmentMetadataReader>();
+        boolean allReadersCompletable = true;
+
+        for (JpegSegmentMetadataReader reader : readers) {
+            for (JpegSegmentType segmentType : reader.getSegmentTypes()) {
+                int marker = segmentType.byteValue & 0xFF;
+                if (readerLists[marker] == null)
+                    readerLists[marker] = new ArrayList<JpegSegmentMetadataReader>();
+                // a reader may list a segment type more than once, but should only see each segment once
+                if (!readerLists[marker].contains(reader))
+                    readerLists[marker].add(reader);
+                _segmentTypesByMarker[marker] = segmentType;
+                _isMarkerWanted[marker] = true;
+            }
+
+            // Reading may stop early only if every reader can report its completion
+            if (reader instanceof CompletableJpegSegmentMetadataReader) {
+                completableReaders.add((CompletableJpegSegmentMetadataReader)reader);
+            } else {
+                allReadersCompletable = false;
+            }
+        }
+
+        for (int marker = 0; marker < 256; marker++) {
+            if (readerLists[marker] == null)
+                continue;
+            _readersByMarker[marker] = readerLists[marker].toArray(new JpegSegmentMetadataReader[readerLists[marker].size()]);
+            _completableIndexesByMarker[marker] = new int[_readersByMarker[marker].length];
+            for (int i = 0; i < _readersByMarker[marker].length; i++)
+                _completableIndexesByMarker[marker][i] = allReadersCompletable ? completableReaders.indexOf(_readersByMarker[marker][i]) : -1;
+        }
+
+        _completableReaderCount = allReadersCompletable ? completableReaders.size() : -1;
+    }
+
+    /**
+     * Gets a value indicating whether any reader in this plan is interested in segments of the specified type.
+     */
+    public boolean isWanted(byte segmentType)
+    {
+        return _isMarkerWanted[segmentType & 0xFF];
+    }
+
+    /**
+     * Creates a handler which passes the segments of a single file to each reader in this plan which is interested in
+     * them, and which can process them.
+     * <p/>
+     * The handler tracks which {@link CompletableJpegSegmentMetadataReader}s have completed, and returns
+     * <code>false</code> from {@link JpegSegmentHandler#handleSegment} once every reader in this plan is complete.
+     * A new handler must be created for each file.
+     *
+     * @param metadata the {@link Metadata} object into which extracted values should be merged
+     */
+    @NotNull
+    public JpegSegmentHandler createHandler(@NotNull Metadata metadata)
+    {
+        return new Dispatcher(metadata);
+    }
+
+    /**
+     * Creates a handler which, like {@link #createHandler(Metadata)}, passes the segments of a single file to the
+     * readers in this plan, but which defers extraction until {@link ConcurrentDispatcher#complete()} is called. The
+     * readers then run concurrently on <code>executor</code>.
+     *
+     * @param metadata the {@link Metadata} object into which extracted values should be merged
+     * @param executor the executor on which to run readers
+     */
+    @NotNull
+    ConcurrentDispatcher createConcurrentHandler(@NotNull Metadata metadata, @NotNull Executor executor)
+    {
+        return new ConcurrentDispatcher(metadata, executor);
+    }
+
+    /**
+     * Gets the table of wanted segment types, indexed by unsigned marker byte. The returned array must not be modified.
+     */
+    @NotNull
+    boolean[] getWantedMarkers()
+    {
+        return _isMarkerWanted;
+    }
+
+    /**
+     * Passes the segments of a single file to the readers which can process them, tracking the completion of readers
+     * for that file.
+     */
+    private abstract class AbstractDispatcher implements JpegSegmentHandler
+    {
+        @NotNull
+        private final boolean[] _isReaderComplete;
+        private int _incompleteReaderCount;
+
+        AbstractDispatcher()
+        {
+            _incompleteReaderCount = _completableReaderCount;
+            _isReaderComplete = new boolean[Math.max(_completableReaderCount, 0)];
+        }
+
+        public boolean handleSegment(byte segmentType, @NotNull byte[] segmentBytes)
+        {
+            final int marker = segmentType & 0xFF;
+            final JpegSegmentMetadataReader[] readers = _readersByMarker[marker];
+
+            if (readers == null)
+                return true;
+
+            final JpegSegmentType type = _segmentTypesByMarker[marker];
+            final int[] completableIndexes = _completableIndexesByMarker[marker];
+            for (int i = 0; i < readers.length; i++) {
+                final JpegSegmentMetadataReader reader = readers[i];
+                if (reader.canProcess(segmentBytes, type)) {
+                    extract(reader, segmentBytes, type);
+                    final int completableIndex = completableIndexes[i];
+                    if (completableIndex != -1 && !_isReaderComplete[completableIndex]
+                        && ((CompletableJpegSegmentMetadataReader)reader).isCompletedBy(segmentBytes, type)) {
+                        _isReaderComplete[completableIndex] = true;
+                        _incompleteReaderCount--;
+                    }
+                }
+            }
+
+            return _incompleteReaderCount != 0;
+        }
+
+        protected abstract void extract(@NotNull JpegSegmentMetadataReader reader, @NotNull byte[] segmentBytes, @NotNull JpegSegmentType type);
+    }
+
+    /**
+     * Extracts each segment as soon as it is handled.
+     */
+    private final class Dispatcher extends AbstractDispatcher
+    {
+        @NotNull
+        private final Metadata _metadata;
+
+        Dispatcher(@NotNull Metadata metadata)
+        {
+            _metadata = metadata;
+        }
+
+        @Override
+        protected void extract(@NotNull JpegSegmentMetadataReader reader, @NotNull byte[] segmentBytes, @NotNull JpegSegmentType type)
+        {
+            reader.extract(segmentBytes, _metadata, type);
+        }
+    }
+
+    /**
+     * Queues each extraction as its segment is handled, and runs them concurrently once all segments are read.
+     * <p/>
+     * Completion is tracked as segments are handled, just as for sequential dispatch, so reading stops at the same
+     * segment and the same extractions are performed. Each extraction populates a private {@link Metadata} fragment,
+     * and fragments are merged into the target metadata in the order in which sequential dispatch would have
+     * extracted them, so that the order of directories and tags matches too. The result is therefore the same as that
+     * of sequential dispatch for readers whose extraction of a segment does not depend on the values already extracted
+     * from earlier segments, other than via {@link com.drew.metadata.Directory} merging. The default readers satisfy
+     * this.
+     */
+    final class ConcurrentDispatcher extends AbstractDispatcher
+    {
+        @NotNull
+        private final Metadata _metadata;
+        @NotNull
+        private final Executor _executor;
+        @NotNull
+        private final List<FutureTask<Metadata>> _tasks = new ArrayList<FutureTask<Metadata>>();
+
+        ConcurrentDispatcher(@NotNull Metadata metadata, @NotNull Executor executor)
+        {
+            _metadata = metadata;
+            _executor = executor;
+        }
+
+        @Override
+        protected void extract(@NotNull final JpegSegmentMetadataReader reader, @NotNull final byte[] segmentBytes, @NotNull final JpegSegmentType type)
+        {
+            _tasks.add(new FutureTask<Metadata>(new Callable<Metadata>()
+            {
+                public Metadata call()
+                {
+                    Metadata fragment = new Metadata();
+                    reader.extract(segmentBytes, fragment, type);
+                    return fragment;
+                }
+            }));
+        }
+
+        /**
+         * Runs the queued extractions and merges their results. The first extraction is performed on the calling
+         * thread, which then waits for the others.
+         *
+         * @throws JpegProcessingException if the calling thread is interrupted while waiting for readers
+         */
+        void complete() throws JpegProcessingException
+        {
+            if (_tasks.isEmpty())
+                return;
+
+            for (int i = 1; i < _tasks.size(); i++)
+                _executor.execute(_tasks.get(i));
+            _tasks.get(0).run();
+
+            try {
+                for (FutureTask<Metadata> task : _tasks)
+                    _metadata.merge(task.get());
+            } catch (InterruptedException e) {
+                for (FutureTask<Metadata> task : _tasks)
+                    task.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new JpegProcessingException("Interrupted while waiting for JPEG segment readers", e);
+            } catch (ExecutionException e) {
+                // Readers report problems as directory errors, so anything thrown is unexpected, and is rethrown as it
+                // would be from sequential dispatch
+                for (FutureTask<Metadata> task : _tasks)
+                    task.cancel(true);
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException)cause;
+                if (cause instanceof Error)
+                    throw (Error)cause;
+                throw new JpegProcessingException(cause);
+            }
+        }
+    }
+}
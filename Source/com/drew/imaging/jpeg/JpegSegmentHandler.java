@@ -0,0 +1,44 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+package com.drew.imaging.jpeg;
+
+import com.drew.lang.annotations.NotNull;
+
+/**
+ * Receives JPEG segments from {@link JpegSegmentReader} as they are read.
+ * <p/>
+ * Segments are delivered one at a time, in the order in which they appear in the JPEG data, and are not retained by
+ * the reader. Unless a handler keeps them, each segment may be garbage collected as soon as it has been handled.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public interface JpegSegmentHandler
+{
+    /**
+     * Handles a single JPEG segment.
+     *
+     * @param segmentType the byte value identifying the type of segment
+     * @param segmentBytes the segment's data, excluding its marker and length
+     * @return <code>true</code> to continue reading segments, or <code>false</code> if no further segments are
+     *         required
+     */
+    boolean handleSegment(byte segmentType, @NotNull byte[] segmentBytes);
+}
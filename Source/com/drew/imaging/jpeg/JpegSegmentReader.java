@@ -20,16 +20,14 @@
  */
 package com.drew.imaging.jpeg;
 
+import com.drew.lang.ChannelReader;
 import com.drew.lang.SequentialReader;
-import com.drew.lang.StreamReader;
 import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * Performs read functions of JPEG files, returning specific file segments.
@@ -67,7 +65,7 @@ public class JpegSegmentReader
         FileInputStream stream = null;
         try {
             stream = new FileInputStream(file);
-            return readSegments(new StreamReader(stream), segmentTypes);
+            return readSegments(new ChannelReader(stream.getChannel()), segmentTypes);
         } finally {
             if (stream != null) {
                 stream.close();
@@ -87,26 +85,85 @@ public class JpegSegmentReader
      */
     @NotNull
     public static JpegSegmentData readSegments(@NotNull final SequentialReader reader, @Nullable Iterable<JpegSegmentType> segmentTypes) throws JpegProcessingException, IOException
+    {
+        final JpegSegmentData segmentData = new JpegSegmentData();
+
+        readSegments(reader, segmentTypes, new JpegSegmentHandler()
+        {
+            public boolean handleSegment(byte segmentType, @NotNull byte[] segmentBytes)
+            {
+                segmentData.addSegment(segmentType, segmentBytes);
+                return true;
+            }
+        });
+
+        return segmentData;
+    }
+
+    /**
+     * Processes the provided JPEG data, passing each of the specified JPEG segments to <code>handler</code> as soon
+     * as it has been read.
+     * <p/>
+     * Unlike {@link #readSegments(SequentialReader, Iterable)}, segments are not accumulated, so only one segment need
+     * be held in memory at a time. Will not pass SOS (start of scan) or EOI (end of image) segments.
+     *
+     * @param reader a {@link SequentialReader} from which the JPEG data will be read. It must be positioned at the
+     *               beginning of the JPEG data stream.
+     * @param segmentTypes the set of JPEG segments types that are to be handled. If this argument is <code>null</code>
+     *                     then all found segment types are handled.
+     * @param handler the recipient of each segment
+     */
+    public static void readSegments(@NotNull final SequentialReader reader, @Nullable Iterable<JpegSegmentType> segmentTypes, @NotNull final JpegSegmentHandler handler) throws JpegProcessingException, IOException
+    {
+        readSegments(reader, segmentTypes, handler, Long.MAX_VALUE);
+    }
+
+    /**
+     * Processes the provided JPEG data, passing each of the specified JPEG segments to <code>handler</code> as soon
+     * as it has been read, and reading no more than <code>maxHeaderBytes</code> bytes of the JPEG data.
+     * <p/>
+     * Reading stops when the start of scan is reached, when <code>handler</code> indicates that it requires no further
+     * segments, or when the next segment would extend beyond <code>maxHeaderBytes</code>. Bytes of unwanted segments
+     * count towards the budget, as they must still be read past.
+     *
+     * @param reader a {@link SequentialReader} from which the JPEG data will be read. It must be positioned at the
+     *               beginning of the JPEG data stream.
+     * @param segmentTypes the set of JPEG segments types that are to be handled. If this argument is <code>null</code>
+     *                     then all found segment types are handled.
+     * @param handler the recipient of each segment
+     * @param maxHeaderBytes the maximum number of bytes to read from <code>reader</code>
+     * @return the offset of the first segment that was not read because it would exceed <code>maxHeaderBytes</code>,
+     *         or -1 if the budget was not exhausted
+     */
+    public static long readSegments(@NotNull final SequentialReader reader, @Nullable Iterable<JpegSegmentType> segmentTypes, @NotNull final JpegSegmentHandler handler, long maxHeaderBytes) throws JpegProcessingException, IOException
+    {
+        boolean[] wantedMarkers = null;
+        if (segmentTypes != null) {
+            wantedMarkers = new boolean[256];
+            for (JpegSegmentType segmentType : segmentTypes) {
+                wantedMarkers[segmentType.byteValue & 0xFF] = true;
+            }
+        }
+
+        return readSegments(reader, wantedMarkers, handler, maxHeaderBytes);
+    }
+
+    /**
+     * Reads segments as for {@link #readSegments(SequentialReader, Iterable, JpegSegmentHandler, long)}, where the
+     * segment types of interest are given as a table indexed by unsigned marker byte, or <code>null</code> for all.
+     */
+    static long readSegments(@NotNull final SequentialReader reader, @Nullable boolean[] wantedMarkers, @NotNull final JpegSegmentHandler handler, long maxHeaderBytes) throws JpegProcessingException, IOException
     {
         // Must be big-endian
         assert (reader.isMotorolaByteOrder());
 
         // first two bytes should be JPEG magic number
         final int magicNumber = reader.getUInt16();
+        long offset = 2;
         if (magicNumber != 0xFFD8) {
             throw new JpegProcessingException("JPEG data is expected to begin with 0xFFD8 (ÿØ) not 0x" + Integer.toHexString(magicNumber));
         }
 
-        Set<Byte> segmentTypeBytes = null;
-        if (segmentTypes != null) {
-            segmentTypeBytes = new HashSet<Byte>();
-            for (JpegSegmentType segmentType : segmentTypes) {
-                segmentTypeBytes.add(segmentType.byteValue);
-            }
-        }
-
-        JpegSegmentData segmentData = new JpegSegmentData();
-
         do {
             // next byte is the segment identifier: 0xFF
             final short segmentIdentifier = reader.getUInt8();
@@ -121,12 +178,12 @@ public class JpegSegmentReader
                 // The 'Start-Of-Scan' segment's length doesn't include the image data, instead would
                 // have to search for the two bytes: 0xFF 0xD9 (EOI).
                 // It comes last so simply return at this point
-                return segmentData;
+                return -1;
             }
 
             if (segmentType == MARKER_EOI) {
                 // the 'End-Of-Image' segment -- this should never be found in this fashion
-                return segmentData;
+                return -1;
             }
 
             // next 2-bytes are <segment-size>: [high-byte] [low-byte]
@@ -138,15 +195,21 @@ public class JpegSegmentReader
             if (segmentLength < 0)
                 throw new JpegProcessingException("JPEG segment size would be less than zero");
 
+            // Stop before reading a segment that would exceed the budget
+            if (offset + 4 + segmentLength > maxHeaderBytes)
+                return offset;
+            offset += 4 + segmentLength;
+
             // Check whether we are interested in this segment
-            if (segmentTypeBytes == null || segmentTypeBytes.contains(segmentType)) {
+            if (wantedMarkers == null || wantedMarkers[segmentType & 0xFF]) {
                 byte[] segmentBytes = reader.getBytes(segmentLength);
                 assert (segmentLength == segmentBytes.length);
-                segmentData.addSegment(segmentType, segmentBytes);
+                if (!handler.handleSegment(segmentType, segmentBytes))
+                    return -1;
             } else {
                 // Some if the JPEG is truncated, just return what data we've already gathered
                 if (!reader.trySkip(segmentLength)) {
-                    return segmentData;
+                    return -1;
                 }
             }
 
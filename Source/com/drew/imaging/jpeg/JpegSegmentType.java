@@ -20,6 +20,7 @@
  */
 package com.drew.imaging.jpeg;
 
+import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
 
 import java.util.ArrayList;
@@ -153,6 +154,16 @@ public enum JpegSegmentType
         canContainMetadataTypes = segmentTypes;
     }
 
+    // Indexed by unsigned marker byte, so that lookups need not search all constants
+    @NotNull
+    private static final JpegSegmentType[] _typesByMarker = new JpegSegmentType[256];
+
+    static {
+        for (JpegSegmentType segmentType : JpegSegmentType.class.getEnumConstants()) {
+            _typesByMarker[segmentType.byteValue & 0xFF] = segmentType;
+        }
+    }
+
     public final byte byteValue;
     public final boolean canContainMetadata;
 
@@ -165,10 +176,6 @@ public enum JpegSegmentType
     @Nullable
     public static JpegSegmentType fromByte(byte segmentTypeByte)
     {
-        for (JpegSegmentType segmentType : JpegSegmentType.class.getEnumConstants()) {
-            if (segmentType.byteValue == segmentTypeByte)
-                return segmentType;
-        }
-        return null;
+        return _typesByMarker[segmentTypeByte & 0xFF];
     }
 }
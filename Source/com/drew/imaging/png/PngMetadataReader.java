@@ -20,10 +20,10 @@ public class PngMetadataReader
     @NotNull
     public static Metadata readMetadata(@NotNull File file) throws PngProcessingException, IOException
     {
-        InputStream inputStream = null;
+        FileInputStream inputStream = null;
         try {
             inputStream = new FileInputStream(file);
-            return readMetadata(inputStream);
+            return readMetadata(new ChannelReader(inputStream.getChannel()));
         } finally {
             if (inputStream != null)
                 inputStream.close();
@@ -32,6 +32,12 @@ public class PngMetadataReader
 
     @NotNull
     public static Metadata readMetadata(@NotNull InputStream inputStream) throws PngProcessingException, IOException
+    {
+        return readMetadata(new StreamReader(inputStream));
+    }
+
+    @NotNull
+    private static Metadata readMetadata(@NotNull SequentialReader sequentialReader) throws PngProcessingException, IOException
     {
         // TODO keep a single static hash of these
         Set<PngChunkType> desiredChunkTypes = new HashSet<PngChunkType>();
@@ -47,7 +53,7 @@ public class PngMetadataReader
         desiredChunkTypes.add(PngChunkType.iTXt);
         desiredChunkTypes.add(PngChunkType.tIME);
 
-        Iterable<PngChunk> chunks = new PngChunkReader().extract(new StreamReader(inputStream), desiredChunkTypes);
+        Iterable<PngChunk> chunks = new PngChunkReader().extract(sequentialReader, desiredChunkTypes);
 
         Metadata metadata = new Metadata();
         List<KeyValuePair> textPairs = new ArrayList<KeyValuePair>();
@@ -21,7 +21,9 @@
 
 package com.drew.imaging.psd;
 
-import com.drew.lang.RandomAccessFileReader;
+import com.drew.lang.RandomAccessBlockCachedFileReader;
+import com.drew.lang.RandomAccessMappedFileReader;
+import com.drew.lang.RandomAccessReader;
 import com.drew.lang.RandomAccessStreamReader;
 import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.Metadata;
@@ -38,13 +40,27 @@ public class PsdMetadataReader
 {
     @NotNull
     public static Metadata readMetadata(@NotNull File file) throws IOException
+    {
+        return readMetadata(file, true);
+    }
+
+    /**
+     * Reads metadata from a PSD file.
+     *
+     * @param file the file to read
+     * @param useMemoryMapping <code>true</code> to read the file via a memory mapping where possible, or
+     *                         <code>false</code> to use a block cache instead, which may be preferable for files
+     *                         on network file systems or where the process address space is constrained
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull File file, boolean useMemoryMapping) throws IOException
     {
         Metadata metadata = new Metadata();
 
         RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
 
         try {
-            new PsdReader().extract(new RandomAccessFileReader(randomAccessFile), metadata);
+            new PsdReader().extract(createReader(randomAccessFile, useMemoryMapping), metadata);
         } finally {
             randomAccessFile.close();
         }
@@ -59,4 +75,19 @@ public class PsdMetadataReader
         new PsdReader().extract(new RandomAccessStreamReader(inputStream), metadata);
         return metadata;
     }
+
+    @NotNull
+    private static RandomAccessReader createReader(@NotNull RandomAccessFile randomAccessFile, boolean useMemoryMapping) throws IOException
+    {
+        if (useMemoryMapping) {
+            try {
+                return new RandomAccessMappedFileReader(randomAccessFile);
+            } catch (IOException e) {
+                // Mapping can fail, for example when the address space of a 32-bit process is exhausted.
+                // Fall back to reading through a block cache.
+            }
+        }
+
+        return new RandomAccessBlockCachedFileReader(randomAccessFile);
+    }
 }
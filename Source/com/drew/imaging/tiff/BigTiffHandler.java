@@ -0,0 +1,40 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+package com.drew.imaging.tiff;
+
+import com.drew.lang.annotations.NotNull;
+
+/**
+ * A {@link TiffHandler} which accepts the 64-bit integer values introduced by BigTIFF.
+ * <p/>
+ * {@link TiffReader} passes such values to other handlers via {@link TiffHandler#setInt32u} and
+ * {@link TiffHandler#setInt32uArray}, which also accept <code>long</code> values.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public interface BigTiffHandler extends TiffHandler
+{
+    void setInt64s(int tagId, long int64s);
+    void setInt64sArray(int tagId, @NotNull long[] array);
+    /** Values above {@link Long#MAX_VALUE} are passed as their two's complement, negative, representation. */
+    void setInt64u(int tagId, long int64u);
+    void setInt64uArray(int tagId, @NotNull long[] array);
+}
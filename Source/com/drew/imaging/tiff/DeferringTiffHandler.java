@@ -0,0 +1,43 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+package com.drew.imaging.tiff;
+
+import com.drew.lang.RandomAccessReader;
+import com.drew.lang.annotations.NotNull;
+
+/**
+ * A {@link TiffHandler} which may record where tag values lie, rather than have {@link TiffReader} decode each value
+ * as it is read.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public interface DeferringTiffHandler extends TiffHandler
+{
+    /**
+     * Offers the handler the chance to record where a tag's value lies, rather than have it decoded now and passed
+     * to one of the setters of {@link TiffHandler}. A recorded value may be decoded later via
+     * {@link TiffReader#processTag}, for which <code>reader</code> must remain readable.
+     *
+     * @return <code>true</code> if the value's location was recorded, in which case it is not decoded, otherwise
+     *         <code>false</code>
+     */
+    boolean deferTag(int tagId, int formatCode, int componentCount, int tagValueOffset, @NotNull RandomAccessReader reader);
+}
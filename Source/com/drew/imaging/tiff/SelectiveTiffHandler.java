@@ -0,0 +1,39 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+package com.drew.imaging.tiff;
+
+/**
+ * A {@link TiffHandler} which is interested in only some of the tags of each IFD, allowing {@link TiffReader} to skip
+ * the others.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public interface SelectiveTiffHandler extends TiffHandler
+{
+    /**
+     * Indicates whether a tag of the current IFD is of interest. Tags which are not are skipped without their values
+     * being decoded, and any IFD to which such a tag points is not processed.
+     *
+     * @param tagId the tag's identifier
+     * @return <code>true</code> if the tag should be processed, otherwise <code>false</code>
+     */
+    boolean isTagSelected(int tagId);
+}
@@ -20,11 +20,18 @@
  */
 package com.drew.imaging.tiff;
 
-import com.drew.lang.RandomAccessFileReader;
+import com.drew.lang.RandomAccessBlockCachedFileReader;
+import com.drew.lang.RandomAccessMappedFileReader;
+import com.drew.lang.RandomAccessRangeSourceReader;
+import com.drew.lang.RandomAccessReader;
 import com.drew.lang.RandomAccessStreamReader;
+import com.drew.lang.RandomAccessWindowedFileReader;
+import com.drew.lang.RangeSource;
 import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.Metadata;
-import com.drew.metadata.exif.ExifReader;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifTiffHandler;
+import com.drew.metadata.exif.ThumbnailRetention;
 
 import java.io.File;
 import java.io.IOException;
@@ -41,12 +48,27 @@ public class TiffMetadataReader
 {
     @NotNull
     public static Metadata readMetadata(@NotNull File file) throws IOException
+    {
+        return readMetadata(file, true);
+    }
+
+    /**
+     * Reads metadata from a TIFF file.
+     *
+     * @param file the file to read
+     * @param useMemoryMapping <code>true</code> to read the file via a memory mapping where possible, or
+     *                         <code>false</code> to use a block cache instead, which may be preferable for files
+     *                         on network file systems or where the process address space is constrained
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull File file, boolean useMemoryMapping) throws IOException
     {
         Metadata metadata = new Metadata();
         RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
 
         try {
-            new ExifReader().extractTiff(new RandomAccessFileReader(randomAccessFile), metadata);
+            RandomAccessReader reader = createReader(randomAccessFile, useMemoryMapping);
+            extract(reader, metadata);
         } finally {
             randomAccessFile.close();
         }
@@ -62,7 +84,81 @@ public class TiffMetadataReader
         // We use RandomAccessStreamReader, which buffers data from the stream as we seek forward.
 
         Metadata metadata = new Metadata();
-        new ExifReader().extractTiff(new RandomAccessStreamReader(inputStream), metadata);
+        extract(new RandomAccessStreamReader(inputStream), metadata);
+        return metadata;
+    }
+
+    /**
+     * Reads metadata from a TIFF stream, buffering at most <code>maxBufferedBytes</code> of the stream at a time.
+     * <p/>
+     * This bounds heap usage for large streams, such as those read from pipes. Directories and values which lie
+     * further back in the stream than the buffer extends cannot be read, and are reported as errors on the
+     * resulting directories.
+     *
+     * @param inputStream the stream to read
+     * @param maxBufferedBytes the maximum number of bytes of the stream to retain in memory
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull InputStream inputStream, long maxBufferedBytes)
+    {
+        Metadata metadata = new Metadata();
+        extract(new RandomAccessStreamReader(inputStream, 2 * 1024, maxBufferedBytes), metadata);
+        return metadata;
+    }
+
+    /**
+     * Reads metadata from TIFF data held in a {@link RangeSource}, such as an object in a remote store.
+     * <p/>
+     * Only the header, directories and tag values are fetched from the source, rather than the entire file.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull RangeSource source) throws IOException
+    {
+        return readMetadata(new RandomAccessRangeSourceReader(source));
+    }
+
+    /**
+     * Reads metadata from TIFF data via a {@link RandomAccessReader}.
+     * <p/>
+     * Any thumbnail bytes are copied during extraction, so the returned metadata retains no reference to
+     * <code>reader</code>.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull RandomAccessReader reader)
+    {
+        Metadata metadata = new Metadata();
+        extract(reader, metadata);
         return metadata;
     }
+
+    private static void extract(@NotNull RandomAccessReader reader, @NotNull Metadata metadata)
+    {
+        try {
+            new TiffReader().processTiff(reader, new ExifTiffHandler(metadata, ThumbnailRetention.COPY, false), 0);
+        } catch (TiffProcessingException e) {
+            metadata.getOrCreateDirectory(ExifIFD0Directory.class).addError(e.getMessage());
+        } catch (IOException e) {
+            metadata.getOrCreateDirectory(ExifIFD0Directory.class).addError("IO problem: " + e.getMessage());
+        }
+    }
+
+    @NotNull
+    private static RandomAccessReader createReader(@NotNull RandomAccessFile randomAccessFile, boolean useMemoryMapping) throws IOException
+    {
+        if (useMemoryMapping) {
+            // A single mapping, like the block cache, addresses at most 2GB. Larger files, such as BigTIFF, are
+            // mapped through a bounded set of windows instead.
+            if (randomAccessFile.length() > Integer.MAX_VALUE)
+                return new RandomAccessWindowedFileReader(randomAccessFile);
+
+            try {
+                return new RandomAccessMappedFileReader(randomAccessFile);
+            } catch (IOException e) {
+                // Mapping can fail, for example when the address space of a 32-bit process is exhausted.
+                // Fall back to reading through a block cache.
+            }
+        }
+
+        return new RandomAccessBlockCachedFileReader(randomAccessFile);
+    }
 }
@@ -20,6 +20,8 @@
  */
 package com.drew.imaging.tiff;
 
+import com.drew.lang.BufferEvictedException;
+import com.drew.lang.ByteArrayReader;
 import com.drew.lang.RandomAccessReader;
 import com.drew.lang.Rational;
 import com.drew.lang.annotations.NotNull;
@@ -35,8 +37,15 @@ import java.util.Set;
  */
 public class TiffReader
 {
+    /** The marker which follows the byte order identifier in the header of BigTIFF data. */
+    public static final int BIG_TIFF_MARKER = 0x002B;
+
     /**
      * Processes a TIFF data sequence.
+     * <p/>
+     * Both classic TIFF and BigTIFF data are supported. BigTIFF offsets may exceed the range of <code>int</code>, in
+     * which case <code>reader</code> must support 64-bit offsets via {@link RandomAccessReader#slice(long, int)}, as
+     * {@link com.drew.lang.RandomAccessWindowedFileReader} does.
      *
      * @param reader the {@link RandomAccessReader} from which the data should be read
      * @param handler the {@link TiffHandler} that will coordinate processing and accept read values
@@ -64,11 +73,15 @@ public class TiffReader
         final int tiffMarker = reader.getUInt16(2 + tiffHeaderOffset);
         handler.setTiffMarker(tiffMarker);
 
+        if (tiffMarker == BIG_TIFF_MARKER) {
+            processBigTiff(reader, handler, tiffHeaderOffset);
+            return;
+        }
+
         int firstIfdOffset = reader.getInt32(4 + tiffHeaderOffset) + tiffHeaderOffset;
 
         // David Ekholm sent a digital camera image that has this problem
-        // TODO getLength should be avoided as it causes RandomAccessStreamReader to read to the end of the stream
-        if (firstIfdOffset >= reader.getLength() - 1) {
+        if (firstIfdOffset >= 0 && !reader.isAvailable(firstIfdOffset, 2)) {
             handler.warn("First IFD offset is beyond the end of the TIFF data segment -- trying default offset");
             // First directory normally starts immediately after the offset bytes, so try that
             firstIfdOffset = tiffHeaderOffset + 2 + 2 + 4;
@@ -118,7 +131,10 @@ public class TiffReader
             // remember that we've visited this directory so that we don't visit it again later
             processedIfdOffsets.add(ifdOffset);
 
-            if (ifdOffset >= reader.getLength() || ifdOffset < 0) {
+            final SelectiveTiffHandler selectiveHandler = handler instanceof SelectiveTiffHandler ? (SelectiveTiffHandler)handler : null;
+            final DeferringTiffHandler deferringHandler = handler instanceof DeferringTiffHandler ? (DeferringTiffHandler)handler : null;
+
+            if (ifdOffset < 0 || !reader.isAvailable(ifdOffset, 1)) {
                 handler.error("Ignored IFD marked to start outside data segment");
                 return;
             }
@@ -127,22 +143,31 @@ public class TiffReader
             int dirTagCount = reader.getUInt16(ifdOffset);
 
             int dirLength = (2 + (12 * dirTagCount) + 4);
-            if (dirLength + ifdOffset > reader.getLength()) {
+            if (!reader.isAvailable(ifdOffset, dirLength)) {
                 handler.error("Illegally sized IFD");
                 return;
             }
 
+            // Read the entry table and next IFD pointer at once, rather than making several small reads per entry
+            final RandomAccessReader ifd = new ByteArrayReader(reader.getBytes(ifdOffset, dirLength));
+            ifd.setMotorolaByteOrder(reader.isMotorolaByteOrder());
+
+            pinNextIfd(reader, ifd.getInt32(calculateTagOffset(0, dirTagCount)), ifdOffset, tiffHeaderOffset);
+
             //
             // Handle each tag in this directory
             //
             for (int tagNumber = 0; tagNumber < dirTagCount; tagNumber++) {
-                final int tagOffset = calculateTagOffset(ifdOffset, tagNumber);
+                final int entryOffset = calculateTagOffset(0, tagNumber);
 
                 // 2 bytes for the tag id
-                final int tagId = reader.getUInt16(tagOffset);
+                final int tagId = ifd.getUInt16(entryOffset);
+
+                if (selectiveHandler != null && !selectiveHandler.isTagSelected(tagId))
+                    continue;
 
                 // 2 bytes for the format code
-                final int formatCode = reader.getUInt16(tagOffset + 2);
+                final int formatCode = ifd.getUInt16(entryOffset + 2);
                 final TiffDataFormat format = TiffDataFormat.fromTiffFormatCode(formatCode);
 
                 if (format == null) {
@@ -153,7 +178,7 @@ public class TiffReader
                 }
 
                 // 4 bytes dictate the number of components in this tag's data
-                final int componentCount = reader.getInt32(tagOffset + 4);
+                final int componentCount = ifd.getInt32(entryOffset + 4);
                 if (componentCount < 0) {
                     handler.error("Negative TIFF tag component count");
                     continue;
@@ -164,49 +189,53 @@ public class TiffReader
                 final int tagValueOffset;
                 if (byteCount > 4) {
                     // If it's bigger than 4 bytes, the dir entry contains an offset.
-                    final int offsetVal = reader.getInt32(tagOffset + 8);
-                    if (offsetVal + byteCount > reader.getLength()) {
+                    final int offsetVal = ifd.getInt32(entryOffset + 8);
+                    if (offsetVal >= 0 && !reader.isAvailable(offsetVal, byteCount)) {
                         // Bogus pointer offset and / or byteCount value
                         handler.error("Illegal TIFF tag pointer offset");
                         continue;
                     }
                     tagValueOffset = tiffHeaderOffset + offsetVal;
-                } else {
-                    // 4 bytes or less and value is in the dir entry itself.
-                    tagValueOffset = tagOffset + 8;
-                }
-
-                if (tagValueOffset < 0 || tagValueOffset > reader.getLength()) {
-                    handler.error("Illegal TIFF tag pointer offset");
-                    continue;
-                }
 
-                // Check that this tag isn't going to allocate outside the bounds of the data array.
-                // This addresses an uncommon OutOfMemoryError.
-                if (byteCount < 0 || tagValueOffset + byteCount > reader.getLength()) {
+                    // Check that this tag isn't going to allocate outside the bounds of the data array.
+                    // This addresses an uncommon OutOfMemoryError.
+                    if (tagValueOffset < 0 || !reader.isAvailable(tagValueOffset, byteCount)) {
+                        if (tagValueOffset < 0 || !reader.isAvailable(tagValueOffset, 0)) {
+                            handler.error("Illegal TIFF tag pointer offset");
+                        } else {
+                            handler.error("Illegal number of bytes for TIFF tag data: " + byteCount);
+                        }
+                        continue;
+                    }
+                } else if (byteCount < 0) {
+                    // The component count is so large that the byte count overflowed
                     handler.error("Illegal number of bytes for TIFF tag data: " + byteCount);
                     continue;
+                } else {
+                    // 4 bytes or less and value is in the dir entry itself, which has already been read
+                    tagValueOffset = ifdOffset + entryOffset + 8;
                 }
 
                 //
                 // Special handling for tags that point to other IFDs
                 //
                 if (byteCount == 4 && handler.isTagIfdPointer(tagId)) {
-                    final int subDirOffset = tiffHeaderOffset + reader.getInt32(tagValueOffset);
+                    final int subDirOffset = tiffHeaderOffset + ifd.getInt32(entryOffset + 8);
                     processIfd(handler, reader, processedIfdOffsets, subDirOffset, tiffHeaderOffset);
-                } else {
-                    if (!handler.customProcessTag(tagValueOffset, processedIfdOffsets, tiffHeaderOffset, reader, tagId, byteCount)) {
-                        processTag(handler, tagId, tagValueOffset, componentCount, formatCode, reader);
-                    }
+                } else if (!handler.customProcessTag(tagValueOffset, processedIfdOffsets, tiffHeaderOffset, reader, tagId, byteCount)) {
+                    // Inline values are decoded from the entry table
+                    final RandomAccessReader valueReader = byteCount > 4 ? reader : ifd;
+                    final int valueOffset = byteCount > 4 ? tagValueOffset : entryOffset + 8;
+                    if (deferringHandler == null || !deferringHandler.deferTag(tagId, formatCode, componentCount, valueOffset, valueReader))
+                        processTag(handler, tagId, valueOffset, componentCount, formatCode, valueReader);
                 }
             }
 
             // at the end of each IFD is an optional link to the next IFD
-            final int finalTagOffset = calculateTagOffset(ifdOffset, dirTagCount);
-            int nextIfdOffset = reader.getInt32(finalTagOffset);
+            int nextIfdOffset = ifd.getInt32(calculateTagOffset(0, dirTagCount));
             if (nextIfdOffset != 0) {
                 nextIfdOffset += tiffHeaderOffset;
-                if (nextIfdOffset >= reader.getLength()) {
+                if (!reader.isAvailable(nextIfdOffset, 1)) {
                     // Last 4 bytes of IFD reference another IFD with an address that is out of bounds
                     // Note this could have been caused by jhead 1.3 cropping too much
                     return;
@@ -225,12 +254,217 @@ public class TiffReader
         }
     }
 
-    private static void processTag(@NotNull final TiffHandler handler,
-                                   final int tagId,
-                                   final int tagValueOffset,
-                                   final int componentCount,
-                                   final int formatCode,
-                                   @NotNull final RandomAccessReader reader) throws IOException
+    /**
+     * Asks the reader to retain the start of the next IFD. Sub-IFDs are walked before the next IFD, and may read far
+     * enough along a bounded stream to evict it otherwise.
+     */
+    private static void pinNextIfd(@NotNull final RandomAccessReader reader,
+                                   final int nextIfdOffset,
+                                   final int ifdOffset,
+                                   final int tiffHeaderOffset) throws IOException
+    {
+        if (nextIfdOffset == 0 || tiffHeaderOffset + nextIfdOffset < ifdOffset)
+            return;
+
+        try {
+            // The entry table usually lies within the same chunk as the entry count
+            reader.pin(tiffHeaderOffset + nextIfdOffset, 2);
+        } catch (BufferEvictedException e) {
+            // Reported when the IFD is processed
+        } catch (IllegalArgumentException e) {
+            // An out of range offset is reported when the IFD is processed
+        }
+    }
+
+    private static void processBigTiff(@NotNull final RandomAccessReader reader,
+                                       @NotNull final TiffHandler handler,
+                                       final int tiffHeaderOffset) throws TiffProcessingException, IOException
+    {
+        // BigTIFF header continues with the size of offsets in bytes (always 8), two zero bytes and the first IFD offset
+        final int offsetByteSize = reader.getUInt16(4 + tiffHeaderOffset);
+        if (offsetByteSize != 8 || reader.getUInt16(6 + tiffHeaderOffset) != 0)
+            throw new TiffProcessingException("Unsupported BigTIFF offset byte size: " + offsetByteSize);
+
+        final long firstIfdOffset = reader.getInt64(8 + tiffHeaderOffset) + tiffHeaderOffset;
+
+        processBigTiffIfd(handler, reader, new HashSet<Long>(), new HashSet<Integer>(), firstIfdOffset, tiffHeaderOffset);
+
+        handler.completed(reader, tiffHeaderOffset);
+    }
+
+    /**
+     * Processes a BigTIFF IFD.
+     * <p/>
+     * IFD Header:
+     * <ul>
+     *     <li><b>8 bytes</b> number of tags</li>
+     * </ul>
+     * Tag structure:
+     * <ul>
+     *     <li><b>2 bytes</b> tag type</li>
+     *     <li><b>2 bytes</b> format code</li>
+     *     <li><b>8 bytes</b> component count</li>
+     *     <li><b>8 bytes</b> inline value, or offset pointer if too large to fit in eight bytes</li>
+     * </ul>
+     * Each IFD, and each out-of-line tag value, is read through a view obtained via
+     * {@link RandomAccessReader#slice(long, int)}, so that data beyond 2GB may be processed. Custom processing via
+     * {@link TiffHandler#customProcessTag} is only offered for values which lie within the range of <code>int</code>.
+     */
+    private static void processBigTiffIfd(@NotNull final TiffHandler handler,
+                                          @NotNull final RandomAccessReader reader,
+                                          @NotNull final Set<Long> processedIfdOffsets,
+                                          @NotNull final Set<Integer> processedCustomIfdOffsets,
+                                          final long ifdOffset,
+                                          final int tiffHeaderOffset) throws IOException
+    {
+        try {
+            // check for directories we've already visited to avoid stack overflows when recursive/cyclic directory structures exist
+            if (!processedIfdOffsets.add(ifdOffset))
+                return;
+
+            final SelectiveTiffHandler selectiveHandler = handler instanceof SelectiveTiffHandler ? (SelectiveTiffHandler)handler : null;
+            final DeferringTiffHandler deferringHandler = handler instanceof DeferringTiffHandler ? (DeferringTiffHandler)handler : null;
+
+            if (ifdOffset < 0 || !reader.isAvailable(ifdOffset, 8)) {
+                handler.error("Ignored IFD marked to start outside data segment");
+                return;
+            }
+
+            final long dirTagCount = readInt64(reader, ifdOffset);
+
+            // The IFD is read through a single view, so its length must fit within an int
+            if (dirTagCount < 0 || dirTagCount > (Integer.MAX_VALUE - 16) / 20 || !reader.isAvailable(ifdOffset, 8 + (20 * dirTagCount) + 8)) {
+                handler.error("Illegally sized IFD");
+                return;
+            }
+
+            final RandomAccessReader ifd = reader.slice(ifdOffset, 8 + (20 * (int)dirTagCount) + 8);
+            ifd.setMotorolaByteOrder(reader.isMotorolaByteOrder());
+
+            for (int tagNumber = 0; tagNumber < dirTagCount; tagNumber++) {
+                final int tagOffset = 8 + (20 * tagNumber);
+
+                final int tagId = ifd.getUInt16(tagOffset);
+
+                if (selectiveHandler != null && !selectiveHandler.isTagSelected(tagId))
+                    continue;
+
+                final int formatCode = ifd.getUInt16(tagOffset + 2);
+                final TiffDataFormat format = TiffDataFormat.fromTiffFormatCode(formatCode);
+
+                if (format == null) {
+                    // This error suggests that we are processing at an incorrect index and will generate
+                    // rubbish until we go out of bounds (which may be a while).  Exit now.
+                    handler.error("Invalid TIFF tag format code: " + formatCode);
+                    return;
+                }
+
+                final long componentCount = ifd.getInt64(tagOffset + 4);
+                if (componentCount < 0 || componentCount > Integer.MAX_VALUE) {
+                    handler.error("Unsupported TIFF tag component count: " + componentCount);
+                    continue;
+                }
+
+                final long byteCount = componentCount * format.getComponentSizeBytes();
+                if (byteCount > Integer.MAX_VALUE) {
+                    handler.error("Illegal number of bytes for TIFF tag data: " + byteCount);
+                    continue;
+                }
+
+                final RandomAccessReader valueReader;
+                final int valueOffset;
+                final long tagValueOffset;
+                if (byteCount > 8) {
+                    // If it's bigger than 8 bytes, the dir entry contains an offset.
+                    final long offsetVal = ifd.getInt64(tagOffset + 12);
+                    tagValueOffset = tiffHeaderOffset + offsetVal;
+                    if (offsetVal < 0 || !reader.isAvailable(tagValueOffset, byteCount)) {
+                        handler.error("Illegal TIFF tag pointer offset");
+                        continue;
+                    }
+                    valueReader = reader.slice(tagValueOffset, (int)byteCount);
+                    valueReader.setMotorolaByteOrder(reader.isMotorolaByteOrder());
+                    valueOffset = 0;
+                } else {
+                    // 8 bytes or less and value is in the dir entry itself.
+                    tagValueOffset = ifdOffset + tagOffset + 12;
+                    valueReader = ifd;
+                    valueOffset = tagOffset + 12;
+                }
+
+                //
+                // Special handling for tags that point to other IFDs
+                //
+                if (isBigTiffIfdOffset(formatCode, componentCount) && handler.isTagIfdPointer(tagId)) {
+                    final long subDirOffset = formatCode == TiffDataFormat.CODE_INT32_U ? valueReader.getUInt32(valueOffset) : valueReader.getInt64(valueOffset);
+                    processBigTiffIfd(handler, reader, processedIfdOffsets, processedCustomIfdOffsets, tiffHeaderOffset + subDirOffset, tiffHeaderOffset);
+                } else {
+                    final boolean isIntAddressable = tagValueOffset + byteCount - 1 <= Integer.MAX_VALUE;
+                    if ((!isIntAddressable || !handler.customProcessTag((int)tagValueOffset, processedCustomIfdOffsets, tiffHeaderOffset, reader, tagId, (int)byteCount))
+                        && (deferringHandler == null || !deferringHandler.deferTag(tagId, formatCode, (int)componentCount, valueOffset, valueReader))) {
+                        processTag(handler, tagId, valueOffset, (int)componentCount, formatCode, valueReader);
+                    }
+                }
+            }
+
+            // at the end of each IFD is an optional link to the next IFD
+            long nextIfdOffset = ifd.getInt64(8 + (20 * (int)dirTagCount));
+            if (nextIfdOffset != 0) {
+                nextIfdOffset += tiffHeaderOffset;
+                if (!reader.isAvailable(nextIfdOffset, 1)) {
+                    // Last 8 bytes of IFD reference another IFD with an address that is out of bounds
+                    return;
+                } else if (nextIfdOffset < ifdOffset) {
+                    // Last 8 bytes of IFD reference another IFD with an address that is before the start of this directory
+                    return;
+                }
+
+                if (handler.hasFollowerIfd()) {
+                    processBigTiffIfd(handler, reader, processedIfdOffsets, processedCustomIfdOffsets, nextIfdOffset, tiffHeaderOffset);
+                }
+            }
+        } finally {
+            handler.endingIFD();
+        }
+    }
+
+    /**
+     * Determines whether a BigTIFF entry holds a single LONG, LONG8 or IFD8 value, as a pointer to another IFD must.
+     * Entries of other formats are processed as values, even for tags which usually point to IFDs.
+     */
+    private static boolean isBigTiffIfdOffset(final int formatCode, final long componentCount)
+    {
+        return componentCount == 1
+            && (formatCode == TiffDataFormat.CODE_INT32_U || formatCode == TiffDataFormat.CODE_INT64_U || formatCode == TiffDataFormat.CODE_IFD8);
+    }
+
+    private static long readInt64(@NotNull final RandomAccessReader reader, final long index) throws IOException
+    {
+        if (index + 7 <= Integer.MAX_VALUE)
+            return reader.getInt64((int)index);
+
+        RandomAccessReader view = reader.slice(index, 8);
+        view.setMotorolaByteOrder(reader.isMotorolaByteOrder());
+        return view.getInt64(0);
+    }
+
+    /**
+     * Decodes the value of a single tag, passing it to the appropriate setter of <code>handler</code>.
+     *
+     * @param handler the {@link TiffHandler} that will accept the value
+     * @param tagId the tag's identifier
+     * @param tagValueOffset the offset within <code>reader</code> at which the value starts
+     * @param componentCount the number of components in the value
+     * @param formatCode the TIFF format code of the value, as defined in {@link TiffDataFormat}
+     * @param reader the {@link RandomAccessReader} from which the value should be read
+     * @throws IOException an error occurred while accessing the required data
+     */
+    public static void processTag(@NotNull final TiffHandler handler,
+                                  final int tagId,
+                                  final int tagValueOffset,
+                                  final int componentCount,
+                                  final int formatCode,
+                                  @NotNull final RandomAccessReader reader) throws IOException
     {
         switch (formatCode) {
             case TiffDataFormat.CODE_UNDEFINED:
@@ -342,6 +576,42 @@ public class TiffReader
                     handler.setInt32uArray(tagId, array);
                 }
                 break;
+            case TiffDataFormat.CODE_INT64_S:
+                // handlers without BigTIFF support receive these via the setters which accept longs
+                if (componentCount == 1) {
+                    final long value = reader.getInt64(tagValueOffset);
+                    if (handler instanceof BigTiffHandler)
+                        ((BigTiffHandler)handler).setInt64s(tagId, value);
+                    else
+                        handler.setInt32u(tagId, value);
+                } else {
+                    long[] array = new long[componentCount];
+                    for (int i = 0; i < componentCount; i++)
+                        array[i] = reader.getInt64(tagValueOffset + (i * 8));
+                    if (handler instanceof BigTiffHandler)
+                        ((BigTiffHandler)handler).setInt64sArray(tagId, array);
+                    else
+                        handler.setInt32uArray(tagId, array);
+                }
+                break;
+            case TiffDataFormat.CODE_INT64_U:
+            case TiffDataFormat.CODE_IFD8:
+                if (componentCount == 1) {
+                    final long value = reader.getInt64(tagValueOffset);
+                    if (handler instanceof BigTiffHandler)
+                        ((BigTiffHandler)handler).setInt64u(tagId, value);
+                    else
+                        handler.setInt32u(tagId, value);
+                } else {
+                    long[] array = new long[componentCount];
+                    for (int i = 0; i < componentCount; i++)
+                        array[i] = reader.getInt64(tagValueOffset + (i * 8));
+                    if (handler instanceof BigTiffHandler)
+                        ((BigTiffHandler)handler).setInt64uArray(tagId, array);
+                    else
+                        handler.setInt32uArray(tagId, array);
+                }
+                break;
             default:
                 handler.error(String.format("Unknown format code %d for tag %d", formatCode, tagId));
         }
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a {@link RandomAccessStreamReader} with bounded retention is asked for bytes which have already been
+ * discarded from its window.
+ * <p/>
+ * Unlike {@link BufferBoundsException}, the requested bytes do exist in the data source. They can only be read again
+ * by re-opening the stream, or avoided by pinning the region before the reader passes it.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public final class BufferEvictedException extends IOException
+{
+    private static final long serialVersionUID = -3271820596392874613L;
+
+    public BufferEvictedException(int index, int bytesRequested)
+    {
+        super(String.format("Attempt to read bytes which have been evicted from the stream buffer (requested index: %d, requested count: %d)",
+                index, bytesRequested));
+    }
+}
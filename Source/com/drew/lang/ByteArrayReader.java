@@ -23,7 +23,7 @@ package com.drew.lang;
 
 import com.drew.lang.annotations.NotNull;
 
-import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Provides methods to read specific values from a byte array, with a consistent, checked exception structure for
@@ -34,56 +34,13 @@ import java.io.IOException;
  * 
  * @author Drew Noakes http://drewnoakes.com
  * */
-public class ByteArrayReader extends RandomAccessReader
+public class ByteArrayReader extends ByteBufferReader
 {
-    @NotNull
-    private final byte[] _buffer;
-
     @SuppressWarnings({ "ConstantConditions" })
     @com.drew.lang.annotations.SuppressWarnings(value = "EI_EXPOSE_REP2", justification = "Design intent")
     public ByteArrayReader(@NotNull byte[] buffer)
     {
-        if (buffer == null)
-            throw new NullPointerException();
-        
-        _buffer = buffer;
-    }
-
-    @Override
-    public long getLength()
-    {
-        return _buffer.length;
-    }
-
-    @Override
-    protected byte getByte(int index) throws IOException
-    {
-        return _buffer[index];
-    }
-
-    @Override
-    protected void validateIndex(int index, int bytesRequested) throws IOException
-    {
-        if (!isValidIndex(index, bytesRequested))
-            throw new BufferBoundsException(index, bytesRequested, _buffer.length);
-    }
-
-    @Override
-    protected boolean isValidIndex(int index, int bytesRequested) throws IOException
-    {
-        return bytesRequested >= 0
-            && index >= 0
-            && (long)index + (long)bytesRequested - 1L < (long)_buffer.length;
-    }
-
-    @Override
-    @NotNull
-    public byte[] getBytes(int index, int count) throws IOException
-    {
-        validateIndex(index, count);
-
-        byte[] bytes = new byte[count];
-        System.arraycopy(_buffer, index, bytes, 0, count);
-        return bytes;
+        // ByteBuffer.wrap throws NullPointerException if buffer is null
+        super(ByteBuffer.wrap(buffer));
     }
 }
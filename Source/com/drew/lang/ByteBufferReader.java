@@ -0,0 +1,161 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Provides methods to read specific values from a {@link ByteBuffer}, with a consistent, checked exception structure
+ * for issues.
+ * <p/>
+ * Multi-byte values are decoded by the buffer as a whole word, using the buffer's byte order, after a single bounds
+ * check. This avoids the per-byte virtual calls and byte order branching performed by the general implementations in
+ * {@link RandomAccessReader}.
+ * <p/>
+ * The reader operates on an independent view of the bytes between the buffer's current position and its limit.
+ * Subsequent changes to the supplied buffer's position, limit or byte order do not affect the reader.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class ByteBufferReader extends RandomAccessReader
+{
+    @NotNull
+    private final ByteBuffer _buffer;
+    private final int _length;
+
+    @SuppressWarnings({ "ConstantConditions" })
+    public ByteBufferReader(@NotNull ByteBuffer buffer)
+    {
+        if (buffer == null)
+            throw new NullPointerException();
+
+        _buffer = buffer.slice();
+        _buffer.order(ByteOrder.BIG_ENDIAN);
+        _length = _buffer.limit();
+    }
+
+    @Override
+    public void setMotorolaByteOrder(boolean motorolaByteOrder)
+    {
+        super.setMotorolaByteOrder(motorolaByteOrder);
+        _buffer.order(motorolaByteOrder ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public long getLength()
+    {
+        return _length;
+    }
+
+    @Override
+    protected byte getByte(int index) throws IOException
+    {
+        return _buffer.get(index);
+    }
+
+    @Override
+    @NotNull
+    public byte[] getBytes(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        byte[] bytes = new byte[count];
+
+        if (_buffer.hasArray()) {
+            System.arraycopy(_buffer.array(), _buffer.arrayOffset() + index, bytes, 0, count);
+        } else {
+            // Use a duplicate so that concurrent callers never observe each other's position
+            ByteBuffer view = _buffer.duplicate();
+            view.position(index);
+            view.get(bytes);
+        }
+
+        return bytes;
+    }
+
+    @NotNull
+    @Override
+    public RandomAccessReader slice(int offset, int length) throws IOException
+    {
+        validateIndex(offset, length);
+
+        // A buffer-backed view keeps the whole-word decoding of this class
+        ByteBuffer view = _buffer.duplicate();
+        view.limit(offset + length);
+        view.position(offset);
+        return new ByteBufferReader(view);
+    }
+
+    @Override
+    public int getUInt16(int index) throws IOException
+    {
+        validateIndex(index, 2);
+        return _buffer.getShort(index) & 0xFFFF;
+    }
+
+    @Override
+    public short getInt16(int index) throws IOException
+    {
+        validateIndex(index, 2);
+        return _buffer.getShort(index);
+    }
+
+    @Override
+    public long getUInt32(int index) throws IOException
+    {
+        validateIndex(index, 4);
+        return _buffer.getInt(index) & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public int getInt32(int index) throws IOException
+    {
+        validateIndex(index, 4);
+        return _buffer.getInt(index);
+    }
+
+    @Override
+    public long getInt64(int index) throws IOException
+    {
+        validateIndex(index, 8);
+        return _buffer.getLong(index);
+    }
+
+    @Override
+    protected boolean isValidIndex(int index, int bytesRequested) throws IOException
+    {
+        return bytesRequested >= 0
+            && index >= 0
+            && (long)index + (long)bytesRequested - 1L < (long)_length;
+    }
+
+    @Override
+    protected void validateIndex(int index, int bytesRequested) throws IOException
+    {
+        if (!isValidIndex(index, bytesRequested))
+            throw new BufferBoundsException(index, bytesRequested, _length);
+    }
+}
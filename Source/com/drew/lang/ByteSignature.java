@@ -0,0 +1,171 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * A sequence of bytes, such as a segment preamble or makernote header, which may be matched against data without
+ * decoding that data into a {@link String}.
+ * <p/>
+ * Signatures are specified as ASCII strings. Matching is either exact, or ignores the case of ASCII letters. Neither
+ * form allocates, which matters when many thousands of segments are tested per second.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public final class ByteSignature
+{
+    @NotNull
+    private final byte[] _bytes;
+    private final boolean _ignoreCase;
+
+    /**
+     * Creates a signature which matches <code>signature</code> exactly.
+     */
+    public ByteSignature(@NotNull String signature)
+    {
+        this(signature, false);
+    }
+
+    /**
+     * Creates a signature for <code>signature</code>, which must contain only ASCII characters.
+     *
+     * @param ignoreCase <code>true</code> if the case of ASCII letters should be ignored when matching
+     */
+    public ByteSignature(@NotNull String signature, boolean ignoreCase)
+    {
+        _ignoreCase = ignoreCase;
+        _bytes = new byte[signature.length()];
+
+        for (int i = 0; i < _bytes.length; i++) {
+            char c = signature.charAt(i);
+            if (c > 0x7F)
+                throw new IllegalArgumentException("Signature must contain only ASCII characters");
+            _bytes[i] = (byte)(ignoreCase ? toLowerCase(c) : c);
+        }
+    }
+
+    /**
+     * Gets the number of bytes in this signature.
+     */
+    public int getLength()
+    {
+        return _bytes.length;
+    }
+
+    /**
+     * Gets the byte at <code>index</code> within this signature. Where case is ignored, ASCII letters are returned in
+     * lower case.
+     */
+    public byte getByte(int index)
+    {
+        return _bytes[index];
+    }
+
+    /**
+     * Gets a value indicating whether this signature ignores the case of ASCII letters when matching.
+     */
+    public boolean isIgnoreCase()
+    {
+        return _ignoreCase;
+    }
+
+    /**
+     * Gets a value indicating whether <code>bytes</code> begins with this signature.
+     */
+    public boolean matches(@NotNull byte[] bytes)
+    {
+        return matches(bytes, 0);
+    }
+
+    /**
+     * Gets a value indicating whether this signature occurs in <code>bytes</code> at <code>offset</code>. Returns
+     * <code>false</code> if too few bytes follow <code>offset</code>.
+     */
+    public boolean matches(@NotNull byte[] bytes, int offset)
+    {
+        if (offset < 0 || bytes.length - offset < _bytes.length)
+            return false;
+
+        for (int i = 0; i < _bytes.length; i++) {
+            if (!isMatch(_bytes[i], bytes[offset + i]))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets a value indicating whether this signature occurs in <code>reader</code> at <code>offset</code>. Returns
+     * <code>false</code> if too few bytes follow <code>offset</code>.
+     */
+    public boolean matches(@NotNull RandomAccessReader reader, int offset) throws IOException
+    {
+        if (!reader.isAvailable(offset, _bytes.length))
+            return false;
+
+        for (int i = 0; i < _bytes.length; i++) {
+            if (!isMatch(_bytes[i], reader.getInt8(offset + i)))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets a value indicating whether the next bytes of <code>reader</code> match this signature. All
+     * {@link #getLength()} bytes are consumed, whether or not they match.
+     *
+     * @throws IOException if the sequence ends before {@link #getLength()} bytes are read
+     */
+    public boolean matches(@NotNull SequentialReader reader) throws IOException
+    {
+        boolean isMatch = true;
+        for (byte expected : _bytes) {
+            if (!isMatch(expected, reader.getInt8()))
+                isMatch = false;
+        }
+        return isMatch;
+    }
+
+    private boolean isMatch(byte expected, byte actual)
+    {
+        return expected == (_ignoreCase ? (byte)toLowerCase((char)(actual & 0xFF)) : actual);
+    }
+
+    private static char toLowerCase(char c)
+    {
+        return c >= 'A' && c <= 'Z' ? (char)(c + ('a' - 'A')) : c;
+    }
+
+    @Override
+    @NotNull
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder(_bytes.length);
+        for (byte b : _bytes)
+            builder.append((char)b);
+        return builder.toString();
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads sequentially from a {@link ReadableByteChannel} through an internal, reusable buffer.
+ * <p/>
+ * Values are decoded from the buffer, so reading a marker or length byte does not require a call to the underlying
+ * channel. When the channel is a {@link FileChannel}, skipping beyond the buffered bytes moves the channel's position
+ * rather than reading and discarding the skipped data.
+ * <p/>
+ * This reader advances the channel's position, and data buffered ahead of the current read position is not returned
+ * to the channel.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class ChannelReader extends SequentialReader
+{
+    public static final int DEFAULT_BUFFER_LENGTH = 8 * 1024;
+
+    @NotNull
+    private final ReadableByteChannel _channel;
+    @NotNull
+    private final ByteBuffer _buffer;
+
+    public ChannelReader(@NotNull ReadableByteChannel channel)
+    {
+        this(channel, DEFAULT_BUFFER_LENGTH);
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    public ChannelReader(@NotNull ReadableByteChannel channel, int bufferLength)
+    {
+        if (channel == null)
+            throw new NullPointerException();
+        if (bufferLength < 8)
+            throw new IllegalArgumentException("bufferLength must be at least 8");
+
+        _channel = channel;
+        _buffer = ByteBuffer.allocate(bufferLength);
+        // Start with no buffered bytes
+        _buffer.flip();
+    }
+
+    @Override
+    public void setMotorolaByteOrder(boolean motorolaByteOrder)
+    {
+        super.setMotorolaByteOrder(motorolaByteOrder);
+        _buffer.order(motorolaByteOrder ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    protected byte getByte() throws IOException
+    {
+        ensureBuffered(1);
+        return _buffer.get();
+    }
+
+    @NotNull
+    @Override
+    public byte[] getBytes(int count) throws IOException
+    {
+        byte[] bytes = new byte[count];
+
+        int fromBuffer = Math.min(count, _buffer.remaining());
+        _buffer.get(bytes, 0, fromBuffer);
+
+        if (fromBuffer != count) {
+            // Read the remainder directly into the result, as it may be much larger than the buffer
+            ByteBuffer target = ByteBuffer.wrap(bytes, fromBuffer, count - fromBuffer);
+            while (target.hasRemaining()) {
+                if (_channel.read(target) == -1)
+                    throw new EOFException("End of data reached.");
+            }
+        }
+
+        return bytes;
+    }
+
+    @Override
+    public int getUInt16() throws IOException
+    {
+        return getInt16() & 0xFFFF;
+    }
+
+    @Override
+    public short getInt16() throws IOException
+    {
+        ensureBuffered(2);
+        return _buffer.getShort();
+    }
+
+    @Override
+    public long getUInt32() throws IOException
+    {
+        return getInt32() & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public int getInt32() throws IOException
+    {
+        ensureBuffered(4);
+        return _buffer.getInt();
+    }
+
+    @Override
+    public long getInt64() throws IOException
+    {
+        ensureBuffered(8);
+        return _buffer.getLong();
+    }
+
+    @Override
+    public void skip(long n) throws IOException
+    {
+        if (n < 0)
+            throw new IllegalArgumentException("n must be zero or greater.");
+
+        long skippedCount = skipInternal(n);
+
+        if (skippedCount != n)
+            throw new EOFException(String.format("Unable to skip. Requested %d bytes but skipped %d.", n, skippedCount));
+    }
+
+    @Override
+    public boolean trySkip(long n) throws IOException
+    {
+        if (n < 0)
+            throw new IllegalArgumentException("n must be zero or greater.");
+
+        return skipInternal(n) == n;
+    }
+
+    private long skipInternal(long n) throws IOException
+    {
+        if (n <= _buffer.remaining()) {
+            _buffer.position(_buffer.position() + (int)n);
+            return n;
+        }
+
+        long skippedTotal = _buffer.remaining();
+        _buffer.position(_buffer.limit());
+
+        if (_channel instanceof FileChannel) {
+            FileChannel fileChannel = (FileChannel)_channel;
+            long position = fileChannel.position();
+            long skipped = Math.min(n - skippedTotal, Math.max(0, fileChannel.size() - position));
+            fileChannel.position(position + skipped);
+            return skippedTotal + skipped;
+        }
+
+        while (skippedTotal != n) {
+            if (!fill(1))
+                break;
+            int skipped = (int)Math.min(n - skippedTotal, _buffer.remaining());
+            _buffer.position(_buffer.position() + skipped);
+            skippedTotal += skipped;
+        }
+
+        return skippedTotal;
+    }
+
+    private void ensureBuffered(int count) throws IOException
+    {
+        if (_buffer.remaining() < count && !fill(count))
+            throw new EOFException("End of data reached.");
+    }
+
+    /**
+     * Reads from the channel until at least <code>count</code> bytes are buffered, retaining any unread bytes.
+     *
+     * @return <code>false</code> if the channel ended before enough bytes were read, otherwise <code>true</code>
+     */
+    private boolean fill(int count) throws IOException
+    {
+        _buffer.compact();
+        try {
+            while (_buffer.position() < count) {
+                if (_channel.read(_buffer) == -1)
+                    return false;
+            }
+            return true;
+        } finally {
+            _buffer.flip();
+        }
+    }
+}
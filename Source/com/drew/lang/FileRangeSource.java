@@ -0,0 +1,87 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * A {@link RangeSource} backed by a local {@link RandomAccessFile}.
+ * <p/>
+ * The number of requests made of this source, and the number of bytes they covered, are tracked. This allows the
+ * access pattern of a remote source to be modelled, and tuned, using local files.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class FileRangeSource implements RangeSource
+{
+    @NotNull
+    private final RandomAccessFile _file;
+
+    private int _requestCount;
+    private long _bytesRead;
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @com.drew.lang.annotations.SuppressWarnings(value = "EI_EXPOSE_REP2", justification = "Design intent")
+    public FileRangeSource(@NotNull RandomAccessFile file)
+    {
+        if (file == null)
+            throw new NullPointerException();
+
+        _file = file;
+    }
+
+    public long getLength() throws IOException
+    {
+        return _file.length();
+    }
+
+    public void read(long start, long end, @NotNull byte[] buffer, int bufferOffset) throws IOException
+    {
+        if (start < 0 || end < start || end > _file.length())
+            throw new BufferBoundsException(String.format("Attempt to read outside the range of the underlying file (requested range: [%d, %d), length: %d)", start, end, _file.length()));
+
+        _requestCount++;
+        _bytesRead += end - start;
+
+        _file.seek(start);
+        _file.readFully(buffer, bufferOffset, (int)(end - start));
+    }
+
+    /**
+     * Gets the number of requests made of this source.
+     */
+    public int getRequestCount()
+    {
+        return _requestCount;
+    }
+
+    /**
+     * Gets the total number of bytes requested from this source, across all requests.
+     */
+    public long getBytesRead()
+    {
+        return _bytesRead;
+    }
+}
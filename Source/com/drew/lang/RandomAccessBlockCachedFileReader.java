@@ -0,0 +1,201 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Provides methods to read specific values from a {@link RandomAccessFile}, with a consistent, checked exception
+ * structure for issues.
+ * <p/>
+ * Data is read from the file in fixed-size blocks, and the most recently used blocks are retained in memory. Reading
+ * a multi-byte value, or several neighbouring values (such as the entries of a TIFF IFD), therefore costs at most one
+ * read from the file rather than one read per byte as with {@link RandomAccessFileReader}.
+ * <p/>
+ * This implementation is a good choice where memory mapping via {@link RandomAccessMappedFileReader} is unavailable
+ * or undesirable, such as for files on network file systems, or when the process address space is constrained.
+ * <p/>
+ * Hit and miss counts are tracked to assist in tuning the block length and block count for particular workloads.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class RandomAccessBlockCachedFileReader extends RandomAccessReader
+{
+    public static final int DEFAULT_BLOCK_LENGTH = 4 * 1024;
+    public static final int DEFAULT_MAX_BLOCK_COUNT = 32;
+
+    @NotNull
+    private final RandomAccessFile _file;
+    private final long _length;
+    private final int _blockLength;
+    @NotNull
+    private final LinkedHashMap<Integer, byte[]> _blocks;
+
+    // The most recently used block is kept aside, as consecutive reads very often fall within the same block
+    private int _lastBlockIndex = -1;
+    private byte[] _lastBlock;
+
+    private long _hitCount;
+    private long _missCount;
+
+    public RandomAccessBlockCachedFileReader(@NotNull RandomAccessFile file) throws IOException
+    {
+        this(file, DEFAULT_BLOCK_LENGTH, DEFAULT_MAX_BLOCK_COUNT);
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @com.drew.lang.annotations.SuppressWarnings(value = "EI_EXPOSE_REP2", justification = "Design intent")
+    public RandomAccessBlockCachedFileReader(@NotNull RandomAccessFile file, int blockLength, final int maxBlockCount) throws IOException
+    {
+        if (file == null)
+            throw new NullPointerException();
+        if (blockLength <= 0)
+            throw new IllegalArgumentException("blockLength must be greater than zero");
+        if (maxBlockCount <= 0)
+            throw new IllegalArgumentException("maxBlockCount must be greater than zero");
+
+        _file = file;
+        _length = _file.length();
+        _blockLength = blockLength;
+
+        // an access-ordered map evicts the least recently used block once the limit is exceeded
+        _blocks = new LinkedHashMap<Integer, byte[]>(maxBlockCount + 1, 1.0f, true)
+        {
+            private static final long serialVersionUID = -1178453396519433870L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest)
+            {
+                return size() > maxBlockCount;
+            }
+        };
+    }
+
+    @Override
+    public long getLength()
+    {
+        return _length;
+    }
+
+    /**
+     * Gets the number of block requests that were satisfied without reading from the file.
+     */
+    public long getHitCount()
+    {
+        return _hitCount;
+    }
+
+    /**
+     * Gets the number of block requests that required a read from the file.
+     */
+    public long getMissCount()
+    {
+        return _missCount;
+    }
+
+    @Override
+    protected byte getByte(int index) throws IOException
+    {
+        return getBlock(index / _blockLength)[index % _blockLength];
+    }
+
+    @Override
+    @NotNull
+    public byte[] getBytes(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        byte[] bytes = new byte[count];
+
+        if (count > _blockLength) {
+            // Large reads (such as embedded images) bypass the cache, so that they don't evict the smaller,
+            // frequently accessed blocks that hold directory structures.
+            _file.seek(index);
+            _file.readFully(bytes);
+            return bytes;
+        }
+
+        int remaining = count;
+        int fromIndex = index;
+        int toIndex = 0;
+
+        while (remaining != 0) {
+            int innerIndex = fromIndex % _blockLength;
+            int length = Math.min(remaining, _blockLength - innerIndex);
+
+            System.arraycopy(getBlock(fromIndex / _blockLength), innerIndex, bytes, toIndex, length);
+
+            remaining -= length;
+            fromIndex += length;
+            toIndex += length;
+        }
+
+        return bytes;
+    }
+
+    @NotNull
+    private byte[] getBlock(int blockIndex) throws IOException
+    {
+        if (blockIndex == _lastBlockIndex) {
+            _hitCount++;
+            return _lastBlock;
+        }
+
+        byte[] block = _blocks.get(blockIndex);
+
+        if (block != null) {
+            _hitCount++;
+        } else {
+            _missCount++;
+
+            long blockStart = (long)blockIndex * _blockLength;
+            block = new byte[(int)Math.min(_blockLength, _length - blockStart)];
+            _file.seek(blockStart);
+            _file.readFully(block);
+            _blocks.put(blockIndex, block);
+        }
+
+        _lastBlockIndex = blockIndex;
+        _lastBlock = block;
+        return block;
+    }
+
+    @Override
+    protected boolean isValidIndex(int index, int bytesRequested) throws IOException
+    {
+        return bytesRequested >= 0
+                && index >= 0
+                && (long)index + (long)bytesRequested - 1L < _length;
+    }
+
+    @Override
+    protected void validateIndex(final int index, final int bytesRequested) throws IOException
+    {
+        if (!isValidIndex(index, bytesRequested))
+            throw new BufferBoundsException(index, bytesRequested, _length);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Presents regions of several byte arrays as a single contiguous sequence of bytes, without copying them.
+ * <p/>
+ * This is useful for data which a file format splits across several segments, such as ICC profiles spread over
+ * multiple JPEG APP2 segments. Each region is typically a segment's array, less the segment's own header.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class RandomAccessCompositeReader extends RandomAccessReader
+{
+    @NotNull
+    private final byte[][] _buffers;
+    @NotNull
+    private final int[] _offsets;
+    /** The index within this reader at which each region starts, in ascending order. */
+    @NotNull
+    private final int[] _starts;
+    @NotNull
+    private final int[] _lengths;
+    private final int _length;
+
+    /**
+     * Creates a reader over a sequence of regions. Region <code>i</code> comprises <code>lengths[i]</code> bytes of
+     * <code>buffers[i]</code>, starting at <code>offsets[i]</code>. The arrays are referenced rather than copied, and
+     * should not be modified while this reader is in use.
+     */
+    @SuppressWarnings({ "ConstantConditions" })
+    public RandomAccessCompositeReader(@NotNull byte[][] buffers, @NotNull int[] offsets, @NotNull int[] lengths)
+    {
+        if (buffers == null || offsets == null || lengths == null)
+            throw new NullPointerException();
+        if (offsets.length != buffers.length || lengths.length != buffers.length)
+            throw new IllegalArgumentException("A single offset and length must be provided for each buffer");
+
+        int regionCount = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            if (offsets[i] < 0 || lengths[i] < 0 || (long)offsets[i] + lengths[i] > buffers[i].length)
+                throw new IllegalArgumentException("Region " + i + " lies outside its buffer");
+            if (lengths[i] != 0)
+                regionCount++;
+        }
+
+        // Empty regions are dropped, so that region start indices are strictly ascending
+        _buffers = new byte[regionCount][];
+        _offsets = new int[regionCount];
+        _starts = new int[regionCount];
+        _lengths = new int[regionCount];
+
+        long length = 0;
+        int region = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            if (lengths[i] == 0)
+                continue;
+            _buffers[region] = buffers[i];
+            _offsets[region] = offsets[i];
+            _starts[region] = (int)length;
+            _lengths[region] = lengths[i];
+            length += lengths[i];
+            if (length > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Combined length of regions exceeds Integer.MAX_VALUE");
+            region++;
+        }
+        _length = (int)length;
+    }
+
+    @Override
+    public long getLength()
+    {
+        return _length;
+    }
+
+    @Override
+    protected byte getByte(int index) throws IOException
+    {
+        int region = findRegion(index);
+        return _buffers[region][_offsets[region] + index - _starts[region]];
+    }
+
+    @NotNull
+    @Override
+    public byte[] getBytes(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        byte[] bytes = new byte[count];
+        int copied = 0;
+        int region = count == 0 ? 0 : findRegion(index);
+        while (copied < count) {
+            int regionIndex = index + copied - _starts[region];
+            int chunk = Math.min(count - copied, _lengths[region] - regionIndex);
+            System.arraycopy(_buffers[region], _offsets[region] + regionIndex, bytes, copied, chunk);
+            copied += chunk;
+            region++;
+        }
+        return bytes;
+    }
+
+    private int findRegion(int index)
+    {
+        int region = Arrays.binarySearch(_starts, index);
+        return region >= 0 ? region : -region - 2;
+    }
+
+    @Override
+    protected boolean isValidIndex(int index, int bytesRequested) throws IOException
+    {
+        return bytesRequested >= 0
+            && index >= 0
+            && (long)index + (long)bytesRequested - 1L < (long)_length;
+    }
+
+    @Override
+    protected void validateIndex(int index, int bytesRequested) throws IOException
+    {
+        if (!isValidIndex(index, bytesRequested))
+            throw new BufferBoundsException(index, bytesRequested, _length);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Provides methods to read specific values from a {@link FileChannel} using positional reads, with a consistent,
+ * checked exception structure for issues.
+ * <p/>
+ * Positional reads (via {@link FileChannel#read(ByteBuffer, long)}) neither use nor modify the channel's position.
+ * Unlike {@link RandomAccessFileReader}, there is therefore no shared cursor, and any number of instances may be
+ * created over the same channel and used concurrently from different threads. This allows, for example, different
+ * IFDs, makernotes or embedded previews of one large file to be parsed in parallel from a single open file handle.
+ * <p/>
+ * An individual instance is <em>not</em> thread-safe, as it holds a small read-ahead buffer and its own byte order.
+ * Create one instance per thread. Instances are cheap to create.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class RandomAccessFileChannelReader extends RandomAccessReader
+{
+    public static final int DEFAULT_BUFFER_LENGTH = 1024;
+
+    @NotNull
+    private final FileChannel _channel;
+    private final long _length;
+    @NotNull
+    private final ByteBuffer _buffer;
+
+    // the file offset of the first byte held in _buffer, or -1 if the buffer holds nothing
+    private long _bufferStart = -1;
+    private int _bufferLength;
+
+    public RandomAccessFileChannelReader(@NotNull FileChannel channel) throws IOException
+    {
+        this(channel, DEFAULT_BUFFER_LENGTH);
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @com.drew.lang.annotations.SuppressWarnings(value = "EI_EXPOSE_REP2", justification = "Design intent")
+    public RandomAccessFileChannelReader(@NotNull FileChannel channel, int bufferLength) throws IOException
+    {
+        if (channel == null)
+            throw new NullPointerException();
+        if (bufferLength <= 0)
+            throw new IllegalArgumentException("bufferLength must be greater than zero");
+
+        _channel = channel;
+        _length = channel.size();
+        _buffer = ByteBuffer.allocate(bufferLength);
+    }
+
+    @Override
+    public long getLength()
+    {
+        return _length;
+    }
+
+    @Override
+    protected byte getByte(int index) throws IOException
+    {
+        if (index < _bufferStart || index >= _bufferStart + _bufferLength)
+            fillBuffer(index);
+
+        return _buffer.get((int)(index - _bufferStart));
+    }
+
+    @Override
+    @NotNull
+    public byte[] getBytes(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        byte[] bytes = new byte[count];
+
+        if (index >= _bufferStart && (long)index + count <= _bufferStart + _bufferLength) {
+            // all requested bytes are already buffered
+            for (int i = 0; i < count; i++)
+                bytes[i] = _buffer.get((int)(index - _bufferStart) + i);
+            return bytes;
+        }
+
+        readFully(ByteBuffer.wrap(bytes), index);
+        return bytes;
+    }
+
+    private void fillBuffer(int index) throws IOException
+    {
+        _bufferStart = -1;
+        _buffer.clear();
+        _buffer.limit((int)Math.min(_buffer.capacity(), _length - index));
+        readFully(_buffer, index);
+        _bufferStart = index;
+        _bufferLength = _buffer.limit();
+    }
+
+    private void readFully(@NotNull ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining()) {
+            int bytesRead = _channel.read(buffer, position);
+            if (bytesRead < 0)
+                throw new BufferBoundsException("Unexpected end of file encountered.");
+            position += bytesRead;
+        }
+    }
+
+    @Override
+    protected boolean isValidIndex(int index, int bytesRequested) throws IOException
+    {
+        return bytesRequested >= 0
+                && index >= 0
+                && (long)index + (long)bytesRequested - 1L < _length;
+    }
+
+    @Override
+    protected void validateIndex(final int index, final int bytesRequested) throws IOException
+    {
+        if (!isValidIndex(index, bytesRequested))
+            throw new BufferBoundsException(index, bytesRequested, _length);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Provides methods to read specific values from a {@link RandomAccessFile} that has been mapped into memory via
+ * {@link FileChannel#map}, with a consistent, checked exception structure for issues.
+ * <p/>
+ * Unlike {@link RandomAccessFileReader}, reading a value does not require a system call. Data is served directly
+ * from the operating system's page cache, which makes this implementation well suited to formats such as TIFF and
+ * camera RAW files where directories are scattered throughout large files.
+ * <p/>
+ * The mapping remains valid after the {@link RandomAccessFile} passed to the constructor is closed.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class RandomAccessMappedFileReader extends ByteBufferReader
+{
+    public RandomAccessMappedFileReader(@NotNull RandomAccessFile file) throws IOException
+    {
+        super(map(file));
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @NotNull
+    private static MappedByteBuffer map(@NotNull RandomAccessFile file) throws IOException
+    {
+        if (file == null)
+            throw new NullPointerException();
+
+        final FileChannel channel = file.getChannel();
+
+        // Indexes into this reader are signed 32-bit integers, so there's no value in mapping beyond that point
+        final long mappedLength = Math.min(channel.size(), Integer.MAX_VALUE);
+
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, mappedLength);
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Provides methods to read specific values from a {@link RangeSource}, with a consistent, checked exception structure
+ * for issues.
+ * <p/>
+ * Requests of a range source, such as an object store, carry a high fixed cost, so this reader aims to make as few
+ * of them as it can:
+ * <ul>
+ *     <li>The first read fetches the leading bytes of the source speculatively, as this is where the headers of
+ *     most image formats reside.</li>
+ *     <li>Data is fetched in fixed-size blocks, and the most recently used blocks are retained, so that neighbouring
+ *     reads (such as the entries of a TIFF IFD) are served by a single request.</li>
+ *     <li>A read which spans several missing blocks fetches them all in a single request.</li>
+ *     <li>Large reads (such as embedded images) are fetched exactly, bypassing the cache, so that they don't evict
+ *     the blocks that hold directory structures.</li>
+ * </ul>
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class RandomAccessRangeSourceReader extends RandomAccessReader
+{
+    public static final int DEFAULT_BLOCK_LENGTH = 4 * 1024;
+    public static final int DEFAULT_MAX_BLOCK_COUNT = 256;
+    public static final int DEFAULT_PREFETCH_LENGTH = 16 * 1024;
+
+    @NotNull
+    private final RangeSource _source;
+    private final long _length;
+    private final int _blockLength;
+    private final int _maxBlockCount;
+    private final int _prefetchLength;
+    @NotNull
+    private final LinkedHashMap<Long, byte[]> _blocks;
+
+    private boolean _isPrefetched;
+
+    // The most recently used block is kept aside, as consecutive reads very often fall within the same block
+    private long _lastBlockIndex = -1;
+    private byte[] _lastBlock;
+
+    public RandomAccessRangeSourceReader(@NotNull RangeSource source) throws IOException
+    {
+        this(source, DEFAULT_BLOCK_LENGTH, DEFAULT_MAX_BLOCK_COUNT, DEFAULT_PREFETCH_LENGTH);
+    }
+
+    /**
+     * Creates a reader over <code>source</code>.
+     *
+     * @param source the source of bytes
+     * @param blockLength the number of bytes fetched for each block
+     * @param maxBlockCount the maximum number of blocks retained in memory
+     * @param prefetchLength the number of leading bytes fetched speculatively upon the first read, or zero to
+     *                       disable prefetching. This is limited to the capacity of the cache.
+     */
+    @SuppressWarnings({ "ConstantConditions" })
+    @com.drew.lang.annotations.SuppressWarnings(value = "EI_EXPOSE_REP2", justification = "Design intent")
+    public RandomAccessRangeSourceReader(@NotNull RangeSource source, int blockLength, final int maxBlockCount, int prefetchLength) throws IOException
+    {
+        if (source == null)
+            throw new NullPointerException();
+        if (blockLength <= 0)
+            throw new IllegalArgumentException("blockLength must be greater than zero");
+        if (maxBlockCount <= 0)
+            throw new IllegalArgumentException("maxBlockCount must be greater than zero");
+        if (prefetchLength < 0)
+            throw new IllegalArgumentException("prefetchLength must be zero or greater");
+
+        _source = source;
+        _length = source.getLength();
+        _blockLength = blockLength;
+        _maxBlockCount = maxBlockCount;
+        _prefetchLength = (int)Math.min((long)prefetchLength, (long)blockLength * maxBlockCount);
+
+        // an access-ordered map evicts the least recently used block once the limit is exceeded
+        _blocks = new LinkedHashMap<Long, byte[]>(maxBlockCount + 1, 1.0f, true)
+        {
+            private static final long serialVersionUID = 4917307405379420236L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest)
+            {
+                return size() > maxBlockCount;
+            }
+        };
+    }
+
+    @Override
+    public long getLength()
+    {
+        return _length;
+    }
+
+    @Override
+    protected byte getByte(int index) throws IOException
+    {
+        return getBlock(index / _blockLength)[index % _blockLength];
+    }
+
+    @Override
+    @NotNull
+    public byte[] getBytes(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        byte[] bytes = new byte[count];
+
+        if (count == 0)
+            return bytes;
+
+        prefetch();
+
+        final long firstBlockIndex = index / _blockLength;
+        final long lastBlockIndex = ((long)index + count - 1) / _blockLength;
+
+        if (lastBlockIndex - firstBlockIndex + 1 > _maxBlockCount / 2) {
+            // Fetch large reads exactly, without disturbing the cache
+            _source.read(index, (long)index + count, bytes, 0);
+            return bytes;
+        }
+
+        // Fetch all missing blocks in one request. Any cached blocks between them are fetched again, which is
+        // cheaper than making a request for each run of missing blocks.
+        long firstMissingBlockIndex = -1;
+        long lastMissingBlockIndex = -1;
+        for (long blockIndex = firstBlockIndex; blockIndex <= lastBlockIndex; blockIndex++) {
+            if (blockIndex != _lastBlockIndex && !_blocks.containsKey(blockIndex)) {
+                if (firstMissingBlockIndex == -1)
+                    firstMissingBlockIndex = blockIndex;
+                lastMissingBlockIndex = blockIndex;
+            }
+        }
+        if (firstMissingBlockIndex != -1)
+            fetchBlocks(firstMissingBlockIndex, lastMissingBlockIndex);
+
+        int remaining = count;
+        long fromIndex = index;
+        int toIndex = 0;
+
+        while (remaining != 0) {
+            int innerIndex = (int)(fromIndex % _blockLength);
+            int length = Math.min(remaining, _blockLength - innerIndex);
+
+            System.arraycopy(getBlock(fromIndex / _blockLength), innerIndex, bytes, toIndex, length);
+
+            remaining -= length;
+            fromIndex += length;
+            toIndex += length;
+        }
+
+        return bytes;
+    }
+
+    @NotNull
+    private byte[] getBlock(long blockIndex) throws IOException
+    {
+        if (blockIndex == _lastBlockIndex)
+            return _lastBlock;
+
+        prefetch();
+
+        byte[] block = _blocks.get(blockIndex);
+
+        if (block == null) {
+            fetchBlocks(blockIndex, blockIndex);
+            block = _blocks.get(blockIndex);
+            assert(block != null);
+        }
+
+        _lastBlockIndex = blockIndex;
+        _lastBlock = block;
+        return block;
+    }
+
+    private void prefetch() throws IOException
+    {
+        if (_isPrefetched)
+            return;
+
+        _isPrefetched = true;
+
+        if (_prefetchLength != 0 && _length != 0)
+            fetchBlocks(0, (Math.min(_prefetchLength, _length) - 1) / _blockLength);
+    }
+
+    /**
+     * Fetches the blocks from <code>firstBlockIndex</code> to <code>lastBlockIndex</code> inclusive in a single
+     * request, and adds them to the cache.
+     */
+    private void fetchBlocks(long firstBlockIndex, long lastBlockIndex) throws IOException
+    {
+        final long start = firstBlockIndex * _blockLength;
+        final long end = Math.min((lastBlockIndex + 1) * _blockLength, _length);
+
+        byte[] bytes = new byte[(int)(end - start)];
+        _source.read(start, end, bytes, 0);
+
+        for (long blockIndex = firstBlockIndex; blockIndex <= lastBlockIndex; blockIndex++) {
+            int offset = (int)((blockIndex - firstBlockIndex) * _blockLength);
+            byte[] block = new byte[Math.min(_blockLength, bytes.length - offset)];
+            System.arraycopy(bytes, offset, block, 0, block.length);
+            _blocks.put(blockIndex, block);
+        }
+    }
+
+    @Override
+    protected boolean isValidIndex(int index, int bytesRequested) throws IOException
+    {
+        return bytesRequested >= 0
+                && index >= 0
+                && (long)index + (long)bytesRequested - 1L < _length;
+    }
+
+    @Override
+    protected void validateIndex(final int index, final int bytesRequested) throws IOException
+    {
+        if (!isValidIndex(index, bytesRequested))
+            throw new BufferBoundsException(index, bytesRequested, _length);
+    }
+}
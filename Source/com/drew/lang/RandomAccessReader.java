@@ -35,6 +35,13 @@ import java.io.UnsupportedEncodingException;
  * Concrete implementations include:
  * <ul>
  *     <li>{@link ByteArrayReader}</li>
+ *     <li>{@link ByteBufferReader}</li>
+ *     <li>{@link RandomAccessFileReader}</li>
+ *     <li>{@link RandomAccessFileChannelReader}</li>
+ *     <li>{@link RandomAccessBlockCachedFileReader}</li>
+ *     <li>{@link RandomAccessMappedFileReader}</li>
+ *     <li>{@link RandomAccessWindowedFileReader}</li>
+ *     <li>{@link RandomAccessRangeSourceReader}</li>
  *     <li>{@link RandomAccessStreamReader}</li>
  * </ul>
  *
@@ -85,6 +92,42 @@ public abstract class RandomAccessReader
 
     protected abstract boolean isValidIndex(int index, int bytesRequested) throws IOException;
 
+    /**
+     * Determines whether the data source contains at least <code>bytesRequested</code> bytes from <code>index</code>.
+     * <p/>
+     * Unlike comparisons against {@link #getLength()}, this only requires sequentially accessed implementations such
+     * as {@link RandomAccessStreamReader} to read up to the end of the requested range, so it should be preferred
+     * for bounds checks when parsing.
+     *
+     * @param index the index from which the bytes start
+     * @param bytesRequested the number of bytes which are required, which may be zero
+     * @return <code>true</code> if the range lies within the data source, otherwise <code>false</code>
+     * @throws IOException if the data source is unable to be read
+     */
+    public boolean isAvailable(long index, long bytesRequested) throws IOException
+    {
+        if (index < 0 || bytesRequested < 0 || index + bytesRequested - 1 > Integer.MAX_VALUE)
+            return false;
+
+        return isValidIndex((int)index, (int)bytesRequested);
+    }
+
+    /**
+     * Indicates that the specified range will be read again later, so that implementations which discard data once
+     * read, such as a bounded {@link RandomAccessStreamReader}, retain it.
+     * <p/>
+     * This is a hint. The default implementation, suitable for readers which can always read any part of their
+     * data source, does nothing.
+     *
+     * @param index the index at which the range begins
+     * @param count the number of bytes in the range
+     * @throws IllegalArgumentException <code>index</code> or <code>count</code> are negative
+     * @throws IOException if the range could not be retained
+     */
+    public void pin(int index, int count) throws IOException
+    {
+    }
+
     /**
      * Returns the length of the data source in bytes.
      * <p/>
@@ -125,6 +168,90 @@ public abstract class RandomAccessReader
         return _isMotorolaByteOrder;
     }
 
+    /**
+     * Returns a view over <code>length</code> bytes of this reader, starting at <code>offset</code>.
+     * <p/>
+     * Index zero of the returned reader corresponds to <code>offset</code> within this reader. No data is copied; the
+     * view reads from the same underlying source. The view has its own byte order, which is initially Motorola (big
+     * endian), and changing it does not affect this reader.
+     *
+     * @param offset the index within this reader at which the view begins
+     * @param length the number of bytes covered by the view
+     * @return a reader over the specified region
+     * @throws BufferBoundsException if the region extends beyond the end of the underlying data source
+     * @throws IOException if the region is unable to be read
+     */
+    @NotNull
+    public RandomAccessReader slice(int offset, int length) throws IOException
+    {
+        validateIndex(offset, length);
+        return new RandomAccessSliceReader(this, offset, length);
+    }
+
+    /**
+     * Returns a {@link SequentialReader} over <code>length</code> bytes of this reader, starting at
+     * <code>offset</code>.
+     * <p/>
+     * As with {@link #slice(int, int)}, no data is copied and the returned reader has its own byte order.
+     *
+     * @param offset the index within this reader at which the sequential reader begins
+     * @param length the number of bytes available to the sequential reader
+     * @return a sequential reader over the specified region
+     * @throws BufferBoundsException if the region extends beyond the end of the underlying data source
+     * @throws IOException if the region is unable to be read
+     */
+    @NotNull
+    public SequentialReader sliceSequential(int offset, int length) throws IOException
+    {
+        return new SequentialSliceReader(slice(offset, length));
+    }
+
+    /**
+     * Returns a view over <code>length</code> bytes of this reader, starting at a 64-bit <code>offset</code>.
+     * <p/>
+     * This allows regions of data sources larger than 2GB to be read via the <code>int</code>-indexed methods of the
+     * returned view. The default implementation supports offsets within the range of <code>int</code> only.
+     * Implementations capable of addressing larger sources, such as {@link RandomAccessWindowedFileReader},
+     * override it.
+     *
+     * @param offset the index within this reader at which the view begins
+     * @param length the number of bytes covered by the view
+     * @return a reader over the specified region
+     * @throws BufferBoundsException if the region extends beyond the end of the data source, or beyond the range
+     *                               addressable by this reader
+     * @throws IOException if the region is unable to be read
+     */
+    @NotNull
+    public RandomAccessReader slice(long offset, int length) throws IOException
+    {
+        if (offset < 0 || offset + length - 1 > Integer.MAX_VALUE)
+            throw new BufferBoundsException(String.format("Offset %d is not addressable by this reader", offset));
+
+        return slice((int)offset, length);
+    }
+
+    /**
+     * Returns the required number of bytes from the specified 64-bit index.
+     * <p/>
+     * As with {@link #slice(long, int)}, the default implementation supports indices within the range of
+     * <code>int</code> only.
+     *
+     * @param index The index from which the bytes begins in the underlying source
+     * @param count The number of bytes to be returned
+     * @return The requested bytes
+     * @throws BufferBoundsException if the requested bytes extend beyond the end of the data source, or beyond the
+     *                               range addressable by this reader
+     * @throws IOException if the bytes are unable to be read
+     */
+    @NotNull
+    public byte[] getBytes(long index, int count) throws IOException
+    {
+        if (index < 0 || index + count - 1 > Integer.MAX_VALUE)
+            throw new BufferBoundsException(String.format("Index %d is not addressable by this reader", index));
+
+        return getBytes((int)index, count);
+    }
+
     /**
      * Returns an unsigned 8-bit int calculated from one byte of data at the specified index.
      *
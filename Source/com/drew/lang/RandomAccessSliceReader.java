@@ -0,0 +1,106 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * A view over a region of another {@link RandomAccessReader}, with its own zero-point and byte order.
+ * <p/>
+ * Instances are obtained via {@link RandomAccessReader#slice(int, int)}. Reads are delegated to the parent reader
+ * after translating the index, so no data is copied.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+class RandomAccessSliceReader extends RandomAccessReader
+{
+    @NotNull
+    private final RandomAccessReader _parent;
+    private final int _baseOffset;
+    private final int _length;
+
+    RandomAccessSliceReader(@NotNull RandomAccessReader parent, int baseOffset, int length)
+    {
+        _parent = parent;
+        _baseOffset = baseOffset;
+        _length = length;
+    }
+
+    @Override
+    public long getLength()
+    {
+        return _length;
+    }
+
+    @Override
+    protected byte getByte(int index) throws IOException
+    {
+        return _parent.getByte(_baseOffset + index);
+    }
+
+    @NotNull
+    @Override
+    public byte[] getBytes(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+        return _parent.getBytes(_baseOffset + index, count);
+    }
+
+    @NotNull
+    @Override
+    public RandomAccessReader slice(int offset, int length) throws IOException
+    {
+        // Slice the parent directly, so that nested slices never form a chain of delegates
+        validateIndex(offset, length);
+        return new RandomAccessSliceReader(_parent, _baseOffset + offset, length);
+    }
+
+    @Override
+    public void pin(int index, int count) throws IOException
+    {
+        if (index < 0 || count < 0 || (long)index + (long)count - 1L >= (long)_length)
+            throw new IllegalArgumentException("Invalid range");
+
+        _parent.pin(_baseOffset + index, count);
+    }
+
+    @Override
+    protected boolean isValidIndex(int index, int bytesRequested) throws IOException
+    {
+        return bytesRequested >= 0
+            && index >= 0
+            && (long)index + (long)bytesRequested - 1L < (long)_length
+            && _parent.isValidIndex(_baseOffset + index, bytesRequested);
+    }
+
+    @Override
+    protected void validateIndex(int index, int bytesRequested) throws IOException
+    {
+        if (bytesRequested < 0 || index < 0 || (long)index + (long)bytesRequested - 1L >= (long)_length)
+            throw new BufferBoundsException(index, bytesRequested, _length);
+
+        // Gives stream-backed parents the chance to buffer the requested bytes
+        _parent.validateIndex(_baseOffset + index, bytesRequested);
+    }
+}
@@ -26,8 +26,17 @@ import com.drew.lang.annotations.NotNull;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.BitSet;
 
 /**
+ * Provides random access to the contents of an {@link InputStream} by buffering the chunks read from it.
+ * <p/>
+ * By default every chunk is retained for the lifetime of the reader, so reading near the end of a large stream
+ * buffers the entire stream on the heap. Constructing the reader with a maximum resident size limits buffering to a
+ * sliding window over the most recently read chunks. Chunks which fall out of the window are recycled for subsequent
+ * reads. Regions which are known to be revisited, such as IFD offsets, may be kept by calling {@link #pin(int, int)}
+ * before the reader passes them. Reading bytes which have left the window raises a {@link BufferEvictedException}.
+ *
  * @author Drew Noakes http://drewnoakes.com
  */
 public class RandomAccessStreamReader extends RandomAccessReader
@@ -38,8 +47,21 @@ public class RandomAccessStreamReader extends RandomAccessReader
     private final InputStream _stream;
     private final int _chunkLength;
 
+    /** Loaded chunks by index. Evicted chunks are represented by <code>null</code>. */
     private final ArrayList<byte[]> _chunks = new ArrayList<byte[]>();
 
+    /** The number of unpinned chunks which may be resident at once. */
+    private final int _maxResidentChunkCount;
+    @NotNull
+    private final BitSet _pinnedChunks = new BitSet();
+    /** Arrays of evicted chunks, available for reuse. */
+    @NotNull
+    private final ArrayList<byte[]> _chunkPool = new ArrayList<byte[]>();
+    private int _residentChunkCount;
+    /** All chunks below this index are either evicted or pinned. */
+    private int _evictionCursor;
+    private boolean _hasEvicted;
+
     private boolean _isStreamFinished;
     private int _streamLength;
 
@@ -48,21 +70,72 @@ public class RandomAccessStreamReader extends RandomAccessReader
         this(stream, DEFAULT_CHUNK_LENGTH);
     }
 
-    @SuppressWarnings("ConstantConditions")
     public RandomAccessStreamReader(@NotNull InputStream stream, int chunkLength)
+    {
+        this(stream, chunkLength, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a reader which buffers at most <code>maxResidentBytes</code> of unpinned stream data.
+     *
+     * @param stream the stream to read from
+     * @param chunkLength the number of bytes read from the stream at a time
+     * @param maxResidentBytes the maximum number of unpinned bytes to retain, which must be at least
+     *                         <code>chunkLength</code>
+     */
+    @SuppressWarnings("ConstantConditions")
+    public RandomAccessStreamReader(@NotNull InputStream stream, int chunkLength, long maxResidentBytes)
     {
         if (stream == null)
             throw new NullPointerException();
         if (chunkLength <= 0)
             throw new IllegalArgumentException("chunkLength must be greater than zero");
+        if (maxResidentBytes < chunkLength)
+            throw new IllegalArgumentException("maxResidentBytes must be at least chunkLength");
 
         _chunkLength = chunkLength;
         _stream = stream;
+        _maxResidentChunkCount = (int)Math.min(Integer.MAX_VALUE, maxResidentBytes / chunkLength);
+    }
+
+    /**
+     * Retains the chunks covering the specified range for the lifetime of this reader, regardless of the maximum
+     * resident size. Pinned chunks do not count towards that size.
+     * <p/>
+     * The range need not have been read yet. This has no effect on readers constructed without a maximum resident size.
+     *
+     * @param index the index at which the range begins
+     * @param count the number of bytes in the range
+     * @throws BufferEvictedException if part of the range has already been evicted
+     */
+    @Override
+    public void pin(int index, int count) throws BufferEvictedException
+    {
+        if (index < 0 || count < 0 || (long)index + count - 1 > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid range");
+        if (count == 0)
+            return;
+
+        final int firstChunk = index / _chunkLength;
+        final int lastChunk = (int)(((long)index + count - 1) / _chunkLength);
+
+        ensureResident(index, count);
+
+        for (int chunkIndex = firstChunk; chunkIndex <= lastChunk; chunkIndex++) {
+            if (_pinnedChunks.get(chunkIndex))
+                continue;
+            _pinnedChunks.set(chunkIndex);
+            if (chunkIndex < _chunks.size())
+                _residentChunkCount--;
+        }
     }
 
     /**
      * Reads to the end of the stream, in order to determine the total number of bytes.
      * In general, this is not a good idea for this implementation of {@link RandomAccessReader}.
+     * <p/>
+     * When the reader has a maximum resident size, this evicts all unpinned chunks other than those at the end
+     * of the stream.
      *
      * @return the length of the data source, in bytes.
      */
@@ -83,6 +156,7 @@ public class RandomAccessStreamReader extends RandomAccessReader
      * @param index the index from which the required bytes start
      * @param bytesRequested the number of bytes which are required
      * @throws BufferBoundsException if the stream ends before the required number of bytes are acquired
+     * @throws BufferEvictedException if some of the required bytes have been evicted from the buffer
      */
     @Override
     protected void validateIndex(int index, int bytesRequested) throws IOException
@@ -95,6 +169,9 @@ public class RandomAccessStreamReader extends RandomAccessReader
             throw new BufferBoundsException(String.format("Number of requested bytes summed with starting index exceed maximum range of signed 32 bit integers (requested index: %d, requested count: %d)", index, bytesRequested));
         }
 
+        // Fail before reading any further through the stream
+        ensureResident(index, bytesRequested);
+
         if (!isValidIndex(index, bytesRequested)) {
             assert(_isStreamFinished);
             // TODO test that can continue using an instance of this type after this exception
@@ -127,7 +204,7 @@ public class RandomAccessStreamReader extends RandomAccessReader
         while (chunkIndex >= _chunks.size()) {
             assert (!_isStreamFinished);
 
-            byte[] chunk = new byte[_chunkLength];
+            byte[] chunk = allocateChunk(index / _chunkLength);
             int totalBytesRead = 0;
             while (!_isStreamFinished && totalBytesRead != _chunkLength) {
                 int bytesRead = _stream.read(chunk, totalBytesRead, _chunkLength - totalBytesRead);
@@ -138,7 +215,7 @@ public class RandomAccessStreamReader extends RandomAccessReader
 
                     // check we have enough bytes for the requested index
                     if (endIndex >= _streamLength) {
-                        _chunks.add(chunk);
+                        addChunk(chunk);
                         return false;
                     }
                 } else {
@@ -146,12 +223,56 @@ public class RandomAccessStreamReader extends RandomAccessReader
                 }
             }
 
-            _chunks.add(chunk);
+            addChunk(chunk);
         }
 
         return true;
     }
 
+    /**
+     * Obtains an array for the next chunk, first evicting the oldest unpinned chunks if the window is full.
+     * Chunks at or beyond <code>firstRequiredChunk</code> are never evicted, so a single request may temporarily
+     * exceed the maximum resident size.
+     */
+    @NotNull
+    private byte[] allocateChunk(int firstRequiredChunk)
+    {
+        while (_residentChunkCount >= _maxResidentChunkCount && _evictionCursor < firstRequiredChunk) {
+            int chunkIndex = _evictionCursor++;
+            if (_pinnedChunks.get(chunkIndex))
+                continue;
+            byte[] evicted = _chunks.set(chunkIndex, null);
+            if (evicted != null) {
+                _chunkPool.add(evicted);
+                _residentChunkCount--;
+                _hasEvicted = true;
+            }
+        }
+
+        return _chunkPool.isEmpty() ? new byte[_chunkLength] : _chunkPool.remove(_chunkPool.size() - 1);
+    }
+
+    private void addChunk(@NotNull byte[] chunk)
+    {
+        if (!_pinnedChunks.get(_chunks.size()))
+            _residentChunkCount++;
+        _chunks.add(chunk);
+    }
+
+    private void ensureResident(int index, int count) throws BufferEvictedException
+    {
+        if (!_hasEvicted || count == 0)
+            return;
+
+        int firstChunk = index / _chunkLength;
+        int lastChunk = Math.min((int)(((long)index + count - 1) / _chunkLength), _chunks.size() - 1);
+
+        for (int chunkIndex = firstChunk; chunkIndex <= lastChunk; chunkIndex++) {
+            if (_chunks.get(chunkIndex) == null)
+                throw new BufferEvictedException(index, count);
+        }
+    }
+
     @Override
     protected byte getByte(int index) throws IOException
     {
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Provides methods to read specific values from a {@link RandomAccessFile} of any size, with a consistent, checked
+ * exception structure for issues.
+ * <p/>
+ * Unlike {@link RandomAccessMappedFileReader}, which maps at most the first 2GB of a file, this implementation maps
+ * fixed-size windows of the file on demand and retains the most recently used few. The <code>int</code>-indexed
+ * methods reach the first 2GB of the file. Data beyond that is reached via {@link #slice(long, int)},
+ * {@link #getBytes(long, int)} and {@link #isAvailable(long, long)}.
+ * <p/>
+ * Slices which fall within a single window share its mapping. Slices which span windows are mapped separately.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class RandomAccessWindowedFileReader extends RandomAccessReader
+{
+    public static final int DEFAULT_WINDOW_LENGTH = 64 * 1024 * 1024;
+    public static final int DEFAULT_MAX_WINDOW_COUNT = 4;
+
+    @NotNull
+    private final FileChannel _channel;
+    private final long _length;
+    private final int _windowLength;
+    @NotNull
+    private final LinkedHashMap<Long, ByteBuffer> _windows;
+
+    // The most recently used window is kept aside, as consecutive reads very often fall within the same window
+    private long _lastWindowIndex = -1;
+    private ByteBuffer _lastWindow;
+
+    public RandomAccessWindowedFileReader(@NotNull RandomAccessFile file) throws IOException
+    {
+        this(file, DEFAULT_WINDOW_LENGTH, DEFAULT_MAX_WINDOW_COUNT);
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @com.drew.lang.annotations.SuppressWarnings(value = "EI_EXPOSE_REP2", justification = "Design intent")
+    public RandomAccessWindowedFileReader(@NotNull RandomAccessFile file, int windowLength, final int maxWindowCount) throws IOException
+    {
+        if (file == null)
+            throw new NullPointerException();
+        if (windowLength <= 0)
+            throw new IllegalArgumentException("windowLength must be greater than zero");
+        if (maxWindowCount <= 0)
+            throw new IllegalArgumentException("maxWindowCount must be greater than zero");
+
+        _channel = file.getChannel();
+        _length = _channel.size();
+        _windowLength = windowLength;
+
+        // an access-ordered map releases the least recently used window once the limit is exceeded
+        _windows = new LinkedHashMap<Long, ByteBuffer>(maxWindowCount + 1, 1.0f, true)
+        {
+            private static final long serialVersionUID = 3725181045338294562L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ByteBuffer> eldest)
+            {
+                return size() > maxWindowCount;
+            }
+        };
+    }
+
+    @Override
+    public long getLength()
+    {
+        return _length;
+    }
+
+    @Override
+    protected byte getByte(int index) throws IOException
+    {
+        return getByte((long)index);
+    }
+
+    private byte getByte(long index) throws IOException
+    {
+        return getWindow(index / _windowLength).get((int)(index % _windowLength));
+    }
+
+    @Override
+    @NotNull
+    public byte[] getBytes(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+        return getBytes((long)index, count);
+    }
+
+    @Override
+    @NotNull
+    public byte[] getBytes(long index, int count) throws IOException
+    {
+        if (!isAvailable(index, count))
+            throw new BufferBoundsException(String.format("Attempt to read from beyond end of underlying data source (requested index: %d, requested count: %d, max index: %d)", index, count, _length - 1));
+
+        byte[] bytes = new byte[count];
+
+        int remaining = count;
+        long fromIndex = index;
+        int toIndex = 0;
+
+        while (remaining != 0) {
+            int innerIndex = (int)(fromIndex % _windowLength);
+            int length = Math.min(remaining, _windowLength - innerIndex);
+
+            ByteBuffer window = getWindow(fromIndex / _windowLength).duplicate();
+            window.position(innerIndex);
+            window.get(bytes, toIndex, length);
+
+            remaining -= length;
+            fromIndex += length;
+            toIndex += length;
+        }
+
+        return bytes;
+    }
+
+    @NotNull
+    @Override
+    public RandomAccessReader slice(int offset, int length) throws IOException
+    {
+        return slice((long)offset, length);
+    }
+
+    @NotNull
+    @Override
+    public RandomAccessReader slice(long offset, int length) throws IOException
+    {
+        if (!isAvailable(offset, length))
+            throw new BufferBoundsException(String.format("Attempt to read from beyond end of underlying data source (requested index: %d, requested count: %d, max index: %d)", offset, length, _length - 1));
+
+        long windowIndex = offset / _windowLength;
+        int innerIndex = (int)(offset % _windowLength);
+
+        if (length == 0 || innerIndex + (long)length <= _windowLength) {
+            ByteBuffer view = getWindow(windowIndex).duplicate();
+            view.limit(innerIndex + length);
+            view.position(innerIndex);
+            return new ByteBufferReader(view);
+        }
+
+        return new ByteBufferReader(_channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    @Override
+    public boolean isAvailable(long index, long bytesRequested) throws IOException
+    {
+        return index >= 0
+                && bytesRequested >= 0
+                && index + bytesRequested <= _length;
+    }
+
+    @NotNull
+    private ByteBuffer getWindow(long windowIndex) throws IOException
+    {
+        if (windowIndex == _lastWindowIndex)
+            return _lastWindow;
+
+        ByteBuffer window = _windows.get(windowIndex);
+
+        if (window == null) {
+            long windowStart = windowIndex * _windowLength;
+            window = _channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(_windowLength, _length - windowStart));
+            _windows.put(windowIndex, window);
+        }
+
+        _lastWindowIndex = windowIndex;
+        _lastWindow = window;
+        return window;
+    }
+
+    @Override
+    protected boolean isValidIndex(int index, int bytesRequested) throws IOException
+    {
+        // The int-indexed methods cannot address beyond the range of int, even if the file extends further
+        return (long)index + bytesRequested - 1L <= Integer.MAX_VALUE
+                && isAvailable(index, bytesRequested);
+    }
+
+    @Override
+    protected void validateIndex(final int index, final int bytesRequested) throws IOException
+    {
+        if (!isValidIndex(index, bytesRequested))
+            throw new BufferBoundsException(index, bytesRequested, _length);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * A source of bytes which is read by range, such as an object in a remote store that supports ranged requests.
+ * <p/>
+ * Each call to {@link #read(long, long, byte[], int)} may be costly, so sources are not usually read directly.
+ * Instead, wrap the source in a {@link RandomAccessRangeSourceReader}, which coalesces and caches the ranges it
+ * fetches.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public interface RangeSource
+{
+    /**
+     * Returns the total number of bytes in this source.
+     */
+    long getLength() throws IOException;
+
+    /**
+     * Reads the bytes in the range <code>[start, end)</code> into <code>buffer</code>, starting at
+     * <code>bufferOffset</code>. Either the entire range is read, or an exception is thrown.
+     *
+     * @param start the index of the first byte to read
+     * @param end the index following the last byte to read
+     * @param buffer the array into which bytes are read
+     * @param bufferOffset the index within <code>buffer</code> at which the first byte is stored
+     * @throws IOException if the range could not be read in its entirety
+     */
+    void read(long start, long end, @NotNull byte[] buffer, int bufferOffset) throws IOException;
+}
@@ -25,6 +25,8 @@ import com.drew.lang.annotations.NotNull;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  *
@@ -34,6 +36,8 @@ public class SequentialByteArrayReader extends SequentialReader
 {
     @NotNull
     private final byte[] _bytes;
+    @NotNull
+    private final ByteBuffer _buffer;
     private int _index;
 
     @SuppressWarnings("ConstantConditions")
@@ -43,9 +47,17 @@ public class SequentialByteArrayReader extends SequentialReader
             throw new NullPointerException();
 
         _bytes = bytes;
+        _buffer = ByteBuffer.wrap(bytes);
         _index = 0;
     }
 
+    @Override
+    public void setMotorolaByteOrder(boolean motorolaByteOrder)
+    {
+        super.setMotorolaByteOrder(motorolaByteOrder);
+        _buffer.order(motorolaByteOrder ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+    }
+
     @Override
     protected byte getByte() throws IOException
     {
@@ -70,6 +82,52 @@ public class SequentialByteArrayReader extends SequentialReader
         return bytes;
     }
 
+    @Override
+    public int getUInt16() throws IOException
+    {
+        return getInt16() & 0xFFFF;
+    }
+
+    @Override
+    public short getInt16() throws IOException
+    {
+        ensureAvailable(2);
+        short value = _buffer.getShort(_index);
+        _index += 2;
+        return value;
+    }
+
+    @Override
+    public long getUInt32() throws IOException
+    {
+        return getInt32() & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public int getInt32() throws IOException
+    {
+        ensureAvailable(4);
+        int value = _buffer.getInt(_index);
+        _index += 4;
+        return value;
+    }
+
+    @Override
+    public long getInt64() throws IOException
+    {
+        ensureAvailable(8);
+        long value = _buffer.getLong(_index);
+        _index += 8;
+        return value;
+    }
+
+    private void ensureAvailable(int count) throws EOFException
+    {
+        if (_index + count > _bytes.length) {
+            throw new EOFException("End of data reached.");
+        }
+    }
+
     @Override
     public void skip(long n) throws IOException
     {
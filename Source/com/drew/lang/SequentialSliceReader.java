@@ -0,0 +1,156 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Reads sequentially through a {@link RandomAccessReader} which is owned exclusively by this instance.
+ * <p/>
+ * Instances are obtained via {@link RandomAccessReader#sliceSequential(int, int)}. The byte order of this reader is
+ * applied to the underlying reader, so multi-byte values are decoded by whichever fast path it provides.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+class SequentialSliceReader extends SequentialReader
+{
+    @NotNull
+    private final RandomAccessReader _reader;
+    private final long _length;
+    private int _index;
+
+    SequentialSliceReader(@NotNull RandomAccessReader reader) throws IOException
+    {
+        _reader = reader;
+        _length = reader.getLength();
+        _index = 0;
+    }
+
+    @Override
+    public void setMotorolaByteOrder(boolean motorolaByteOrder)
+    {
+        super.setMotorolaByteOrder(motorolaByteOrder);
+        _reader.setMotorolaByteOrder(motorolaByteOrder);
+    }
+
+    @Override
+    protected byte getByte() throws IOException
+    {
+        ensureAvailable(1);
+        return _reader.getInt8(_index++);
+    }
+
+    @NotNull
+    @Override
+    public byte[] getBytes(int count) throws IOException
+    {
+        ensureAvailable(count);
+        byte[] bytes = _reader.getBytes(_index, count);
+        _index += count;
+        return bytes;
+    }
+
+    @Override
+    public int getUInt16() throws IOException
+    {
+        ensureAvailable(2);
+        int value = _reader.getUInt16(_index);
+        _index += 2;
+        return value;
+    }
+
+    @Override
+    public short getInt16() throws IOException
+    {
+        ensureAvailable(2);
+        short value = _reader.getInt16(_index);
+        _index += 2;
+        return value;
+    }
+
+    @Override
+    public long getUInt32() throws IOException
+    {
+        ensureAvailable(4);
+        long value = _reader.getUInt32(_index);
+        _index += 4;
+        return value;
+    }
+
+    @Override
+    public int getInt32() throws IOException
+    {
+        ensureAvailable(4);
+        int value = _reader.getInt32(_index);
+        _index += 4;
+        return value;
+    }
+
+    @Override
+    public long getInt64() throws IOException
+    {
+        ensureAvailable(8);
+        long value = _reader.getInt64(_index);
+        _index += 8;
+        return value;
+    }
+
+    private void ensureAvailable(int count) throws EOFException
+    {
+        if (_index + (long)count > _length) {
+            throw new EOFException("End of data reached.");
+        }
+    }
+
+    @Override
+    public void skip(long n) throws IOException
+    {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must be zero or greater.");
+        }
+
+        if (_index + n > _length) {
+            throw new EOFException("End of data reached.");
+        }
+
+        _index += n;
+    }
+
+    @Override
+    public boolean trySkip(long n) throws IOException
+    {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must be zero or greater.");
+        }
+
+        if (_index + n > _length) {
+            _index = (int)_length;
+            return false;
+        }
+
+        _index += n;
+        return true;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.metadata;
+
+import com.drew.lang.annotations.NotNull;
+
+/**
+ * A source of tag values for a {@link Directory} which are decoded when first requested, rather than when the
+ * directory is populated.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public interface DeferredTagValues
+{
+    /**
+     * Indicates whether this source holds an undecoded value for the specified tag type.
+     */
+    boolean containsTag(int tagType);
+
+    /**
+     * Decodes the value of the specified tag, storing it in <code>directory</code> via its setters. Any problem
+     * encountered is reported via {@link Directory#addError}. Either way, this source no longer holds the tag
+     * afterwards.
+     *
+     * @param tagType the tag type to decode
+     * @param directory the directory which requested the value
+     */
+    void decode(int tagType, @NotNull Directory directory);
+}
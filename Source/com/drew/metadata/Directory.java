@@ -35,6 +35,10 @@ import java.util.*;
 /**
  * Abstract base class for all directory implementations, having methods for getting and setting tag values of various
  * data types.
+ * <p/>
+ * A directory may be read from several threads once populated, unless it holds deferred tag values (see
+ * {@link #getDeferredTagValues()}). Reading a deferred value decodes it into the directory, so such a directory
+ * must only be read by one thread at a time.
  *
  * @author Drew Noakes http://drewnoakes.com
  */
@@ -58,6 +62,10 @@ public abstract class Directory
     /** The descriptor used to interpret tag values. */
     protected TagDescriptor _descriptor;
 
+    /** The source of tag values which have not yet been decoded, if any. */
+    @Nullable
+    private DeferredTagValues _deferredTagValues;
+
 // ABSTRACT METHODS
 
     /**
@@ -90,7 +98,8 @@ public abstract class Directory
     @java.lang.SuppressWarnings({ "UnnecessaryBoxing" })
     public boolean containsTag(int tagType)
     {
-        return _tagMap.containsKey(Integer.valueOf(tagType));
+        return _tagMap.containsKey(Integer.valueOf(tagType))
+            || (_deferredTagValues != null && _deferredTagValues.containsTag(tagType));
     }
 
     /**
@@ -164,6 +173,60 @@ public abstract class Directory
         return _errorList.size();
     }
 
+    /**
+     * Copies the tags and errors of another directory of the same type into this one. Tags present in both
+     * directories take the value from <code>other</code>, as though its values had been set after this directory's.
+     * <p/>
+     * Subclasses holding state other than tags should override this method to merge that state too.
+     *
+     * @param other a directory of the same type as this one
+     */
+    protected void merge(@NotNull Directory other)
+    {
+        for (Tag tag : other._definedTagList) {
+            // this decodes any deferred values of the other directory
+            Object value = other.getObject(tag.getTagType());
+            if (value != null)
+                setObject(tag.getTagType(), value);
+        }
+        _errorList.addAll(other._errorList);
+    }
+
+    /**
+     * Records that the value of a tag is held by <code>values</code>, to be decoded when first requested.
+     * <p/>
+     * As with the setters, a tag recorded later replaces any value previously set for the same tag type. A directory
+     * may have only one source of deferred values. The source should begin to hold the tag after this method
+     * returns, so that the tag is not mistaken for one already defined.
+     *
+     * @param tagType the tag type whose value is deferred
+     * @param values  the source from which the value will be decoded
+     * @throws IllegalStateException if a different source of deferred values has already been used
+     */
+    @java.lang.SuppressWarnings({ "UnnecessaryBoxing" })
+    public void setDeferredTag(int tagType, @NotNull DeferredTagValues values)
+    {
+        if (_deferredTagValues != null && _deferredTagValues != values)
+            throw new IllegalStateException("Directory already has a different source of deferred tag values");
+
+        boolean isDefined = _tagMap.remove(Integer.valueOf(tagType)) != null
+            || (_deferredTagValues != null && _deferredTagValues.containsTag(tagType));
+
+        if (!isDefined)
+            _definedTagList.add(new Tag(tagType, this));
+
+        _deferredTagValues = values;
+    }
+
+    /**
+     * Gets the source of this directory's deferred tag values, if any.
+     */
+    @Nullable
+    public DeferredTagValues getDeferredTagValues()
+    {
+        return _deferredTagValues;
+    }
+
 // TAG SETTERS
 
     /**
@@ -336,7 +399,7 @@ public abstract class Directory
         if (value == null)
             throw new NullPointerException("cannot set a null object");
 
-        if (!_tagMap.containsKey(Integer.valueOf(tagType))) {
+        if (!containsTag(tagType)) {
             _definedTagList.add(new Tag(tagType, this));
         }
 //        else {
@@ -876,6 +939,10 @@ public abstract class Directory
 
     /**
      * Returns the object hashed for the particular tag type specified, if available.
+     * <p/>
+     * A deferred value is decoded on the first request, and retained for later ones. Decoding stores the value, and
+     * any error, in this directory, so a directory holding deferred values must not be read from several threads
+     * at once without external synchronization.
      *
      * @param tagType the tag type identifier
      * @return the tag's value as an Object if available, else <code>null</code>
@@ -884,7 +951,14 @@ public abstract class Directory
     @Nullable
     public Object getObject(int tagType)
     {
-        return _tagMap.get(Integer.valueOf(tagType));
+        Object value = _tagMap.get(Integer.valueOf(tagType));
+
+        if (value == null && _deferredTagValues != null && _deferredTagValues.containsTag(tagType)) {
+            _deferredTagValues.decode(tagType, this);
+            value = _tagMap.get(Integer.valueOf(tagType));
+        }
+
+        return value;
     }
 
 // OTHER METHODS
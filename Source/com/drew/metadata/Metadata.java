@@ -131,6 +131,29 @@ public final class Metadata
         return _directoryByClass.containsKey(type);
     }
 
+    /**
+     * Merges the directories of another {@link Metadata} object into this one, as though the values it holds had been
+     * extracted into this object after those already present.
+     * <p/>
+     * Directories of types not already present are added, in the order they were added to <code>other</code>, and
+     * are owned by this object from then on. The tags and errors of directories of types already present are copied
+     * into the existing directory, with values from <code>other</code> replacing those of the same tag.
+     *
+     * @param other the metadata to merge into this object, which should not be used afterwards
+     */
+    public void merge(@NotNull Metadata other)
+    {
+        for (Directory directory : other._directoryList) {
+            Directory existing = _directoryByClass.get(directory.getClass());
+            if (existing == null) {
+                _directoryByClass.put(directory.getClass(), directory);
+                _directoryList.add(directory);
+            } else {
+                existing.merge(directory);
+            }
+        }
+    }
+
     /**
      * Indicates whether any errors were reported during the reading of metadata values.
      * This value will be true if Directory.hasErrors() is true for one of the contained {@link Directory} objects.
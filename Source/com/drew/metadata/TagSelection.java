@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.metadata;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Identifies the directories and tags which are of interest to a caller, so that readers may skip the others
+ * without decoding them.
+ * <p/>
+ * For example, to obtain the camera make, model and orientation, the time of capture and all GPS data:
+ * <pre>
+ * TagSelection selection = new TagSelection();
+ * selection.addTags(ExifIFD0Directory.class, ExifIFD0Directory.TAG_MAKE, ExifIFD0Directory.TAG_MODEL, ExifIFD0Directory.TAG_ORIENTATION);
+ * selection.addTags(ExifSubIFDDirectory.class, ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL);
+ * selection.addDirectory(GpsDirectory.class);
+ * </pre>
+ * Directories which are not added, such as makernotes and the thumbnail directory in the example above, are not
+ * read at all where the reader is able to avoid them.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class TagSelection
+{
+    /**
+     * The selected tag types of each selected directory, held sorted for binary search, or <code>null</code> where
+     * all of a directory's tags are selected.
+     */
+    @NotNull
+    private final Map<Class<? extends Directory>, int[]> _tagTypesByDirectory = new HashMap<Class<? extends Directory>, int[]>();
+
+    /**
+     * Selects every tag of the specified directory.
+     */
+    public void addDirectory(@NotNull Class<? extends Directory> directoryClass)
+    {
+        _tagTypesByDirectory.put(directoryClass, null);
+    }
+
+    /**
+     * Selects the specified tags of a directory, in addition to any previously selected.
+     */
+    public void addTags(@NotNull Class<? extends Directory> directoryClass, @NotNull int... tagTypes)
+    {
+        int[] existing = _tagTypesByDirectory.get(directoryClass);
+
+        if (existing == null) {
+            // the whole directory is already selected
+            if (_tagTypesByDirectory.containsKey(directoryClass))
+                return;
+            existing = new int[0];
+        }
+
+        int[] merged = new int[existing.length + tagTypes.length];
+        System.arraycopy(existing, 0, merged, 0, existing.length);
+        System.arraycopy(tagTypes, 0, merged, existing.length, tagTypes.length);
+        Arrays.sort(merged);
+        _tagTypesByDirectory.put(directoryClass, merged);
+    }
+
+    /**
+     * Indicates whether any tag of the specified directory is selected.
+     */
+    public boolean isDirectorySelected(@NotNull Class<? extends Directory> directoryClass)
+    {
+        return _tagTypesByDirectory.containsKey(directoryClass);
+    }
+
+    /**
+     * Indicates whether the specified tag of a directory is selected.
+     */
+    public boolean isTagSelected(@NotNull Class<? extends Directory> directoryClass, int tagType)
+    {
+        int[] tagTypes = _tagTypesByDirectory.get(directoryClass);
+
+        if (tagTypes == null)
+            return _tagTypesByDirectory.containsKey(directoryClass);
+
+        return Arrays.binarySearch(tagTypes, tagType) >= 0;
+    }
+
+    /**
+     * Gets the classes of all directories having any tag selected.
+     */
+    @NotNull
+    public Set<Class<? extends Directory>> getDirectoryClasses()
+    {
+        return Collections.unmodifiableSet(_tagTypesByDirectory.keySet());
+    }
+}
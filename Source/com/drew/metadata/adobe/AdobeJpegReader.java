@@ -21,8 +21,9 @@
 
 package com.drew.metadata.adobe;
 
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.CompletableJpegSegmentMetadataReader;
 import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.lang.ByteSignature;
 import com.drew.lang.SequentialByteArrayReader;
 import com.drew.lang.SequentialReader;
 import com.drew.lang.annotations.NotNull;
@@ -37,17 +38,28 @@ import java.util.Arrays;
  *
  * @author Philip, Drew Noakes http://drewnoakes.com
  */
-public class AdobeJpegReader implements JpegSegmentMetadataReader
+public class AdobeJpegReader implements CompletableJpegSegmentMetadataReader
 {
+    @NotNull
+    private static final ByteSignature PREAMBLE = new ByteSignature("Adobe");
+    @NotNull
+    private static final ByteSignature PREAMBLE_IGNORING_CASE = new ByteSignature("Adobe", true);
+
     @NotNull
     public Iterable<JpegSegmentType> getSegmentTypes()
     {
         return Arrays.asList(JpegSegmentType.APPE);
     }
 
+    public boolean isCompletedBy(@NotNull final byte[] segmentBytes, @NotNull final JpegSegmentType segmentType)
+    {
+        // Only the first Adobe segment is of interest
+        return true;
+    }
+
     public boolean canProcess(@NotNull byte[] segmentBytes, @NotNull JpegSegmentType segmentType)
     {
-        return segmentBytes.length == 12 && "Adobe".equalsIgnoreCase(new String(segmentBytes, 0, 5));
+        return segmentBytes.length == 12 && PREAMBLE_IGNORING_CASE.matches(segmentBytes);
     }
 
     public void extract(@NotNull byte[] segmentBytes, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
@@ -61,7 +73,7 @@ public class AdobeJpegReader implements JpegSegmentMetadataReader
         try {
             reader.setMotorolaByteOrder(false);
 
-            if (!reader.getString(5).equals("Adobe")) {
+            if (!PREAMBLE.matches(reader)) {
                 directory.addError("Invalid Adobe JPEG data header.");
                 return;
             }
@@ -20,17 +20,19 @@
  */
 package com.drew.metadata.exif;
 
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.CompletableJpegSegmentMetadataReader;
 import com.drew.imaging.jpeg.JpegSegmentType;
 import com.drew.imaging.tiff.TiffProcessingException;
 import com.drew.imaging.tiff.TiffReader;
 import com.drew.lang.ByteArrayReader;
+import com.drew.lang.ByteSignature;
 import com.drew.lang.RandomAccessReader;
 import com.drew.lang.Rational;
 import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
-import com.drew.metadata.exif.makernotes.*;
+import com.drew.metadata.TagSelection;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -43,7 +45,7 @@ import java.util.Set;
  *
  * @author Drew Noakes http://drewnoakes.com
  */
-public class ExifReader implements JpegSegmentMetadataReader
+public class ExifReader implements CompletableJpegSegmentMetadataReader
 {
     /** The number of bytes used per format descriptor. */
     @NotNull
@@ -80,32 +82,160 @@ public class ExifReader implements JpegSegmentMetadataReader
      * The offset at which the TIFF data actually starts. This may be necessary when, for example, processing
      * JPEG Exif data from APP0 which has a 6-byte preamble before starting the TIFF data.
      */
-    private static final String JPEG_EXIF_SEGMENT_PREAMBLE = "Exif\0\0";
+    @NotNull
+    private static final ByteSignature JPEG_EXIF_SEGMENT_PREAMBLE = new ByteSignature("Exif\0\0");
+    @NotNull
+    private static final ByteSignature JPEG_EXIF_SEGMENT_PREAMBLE_IGNORING_CASE = new ByteSignature("Exif\0\0", true);
 
     private boolean _storeThumbnailBytes = true;
 
+    @NotNull
+    private final ThumbnailRetention _thumbnailRetention;
+    private final boolean _deferTagValues;
+    @Nullable
+    private final TagSelection _selection;
+    @NotNull
+    private final MakernoteDispatchPlan _makernotePlan;
+
+    public ExifReader()
+    {
+        this(false);
+    }
+
+    /**
+     * Creates a reader which retains the thumbnail bytes of JPEG segments as specified.
+     *
+     * @param thumbnailRetention how {@link ExifThumbnailDirectory} retains any thumbnail bytes, which by default are
+     *                           copied during extraction
+     */
+    public ExifReader(@NotNull ThumbnailRetention thumbnailRetention)
+    {
+        this(false, null, MakernoteDispatchPlan.DEFAULT, thumbnailRetention);
+    }
+
+    /**
+     * Creates a reader which may defer the decoding of tag values read from JPEG segments.
+     * <p/>
+     * With deferral, each directory records only the location of each tag's value, and decodes it when first
+     * requested via the directory's getters. This is much cheaper where only a few of the tags are used. Each
+     * directory retains a reference to the segment's bytes until all of its values have been decoded.
+     * <p/>
+     * As decoding modifies the directory, directories read with deferral are not safe for concurrent reads, even
+     * via getters. Callers sharing them between threads must synchronize access themselves.
+     *
+     * @param deferTagValues <code>true</code> to decode values when first requested, <code>false</code> to decode
+     *                       them all during extraction
+     */
+    public ExifReader(boolean deferTagValues)
+    {
+        this(deferTagValues, null);
+    }
+
+    /**
+     * Creates a reader which extracts only selected tags from JPEG segments.
+     * <p/>
+     * Other tags are skipped without being decoded, IFDs holding no selected directory are not read, and makernotes
+     * are only read if a makernote directory is selected.
+     *
+     * @param deferTagValues see {@link #ExifReader(boolean)}
+     * @param selection the tags of interest, or <code>null</code> if all are
+     */
+    public ExifReader(boolean deferTagValues, @Nullable TagSelection selection)
+    {
+        this(deferTagValues, selection, MakernoteDispatchPlan.DEFAULT);
+    }
+
+    /**
+     * Creates a reader which processes makernotes in JPEG segments with the handlers of <code>makernotePlan</code>,
+     * which may support formats beyond those in {@link MakernoteDispatchPlan#DEFAULT_HANDLERS}.
+     *
+     * @param deferTagValues see {@link #ExifReader(boolean)}
+     * @param selection see {@link #ExifReader(boolean, TagSelection)}
+     * @param makernotePlan the handlers with which to process makernotes
+     */
+    public ExifReader(boolean deferTagValues, @Nullable TagSelection selection, @NotNull MakernoteDispatchPlan makernotePlan)
+    {
+        this(deferTagValues, selection, makernotePlan, ThumbnailRetention.COPY);
+    }
+
+    /**
+     * @param deferTagValues see {@link #ExifReader(boolean)}
+     * @param selection see {@link #ExifReader(boolean, TagSelection)}
+     * @param makernotePlan see {@link #ExifReader(boolean, TagSelection, MakernoteDispatchPlan)}
+     * @param thumbnailRetention see {@link #ExifReader(ThumbnailRetention)}
+     */
+    @SuppressWarnings({ "ConstantConditions" })
+    public ExifReader(boolean deferTagValues, @Nullable TagSelection selection, @NotNull MakernoteDispatchPlan makernotePlan, @NotNull ThumbnailRetention thumbnailRetention)
+    {
+        if (makernotePlan == null || thumbnailRetention == null)
+            throw new NullPointerException();
+
+        _thumbnailRetention = thumbnailRetention;
+        _deferTagValues = deferTagValues;
+        _selection = selection;
+        _makernotePlan = makernotePlan;
+    }
+
+    /**
+     * @deprecated changing the state of a reader which may be shared affects all of its callers. Pass the choice to
+     *             {@link #ExifReader(ThumbnailRetention)}, or per call to
+     *             {@link #extract(byte[], Metadata, JpegSegmentType, ThumbnailRetention)}, instead.
+     */
+    @Deprecated
     public boolean isStoreThumbnailBytes()
     {
         return _storeThumbnailBytes;
     }
 
+    /**
+     * @deprecated see {@link #isStoreThumbnailBytes()}.
+     */
+    @Deprecated
     public void setStoreThumbnailBytes(boolean storeThumbnailBytes)
     {
         _storeThumbnailBytes = storeThumbnailBytes;
     }
 
+    /**
+     * Returns a reader configured as this one, except that it retains thumbnail bytes as specified.
+     */
+    @NotNull
+    public ExifReader withThumbnailRetention(@NotNull ThumbnailRetention thumbnailRetention)
+    {
+        return new ExifReader(_deferTagValues, _selection, _makernotePlan, thumbnailRetention);
+    }
+
     @NotNull
     public Iterable<JpegSegmentType> getSegmentTypes()
     {
         return Arrays.asList(JpegSegmentType.APP1);
     }
 
+    public boolean isCompletedBy(@NotNull final byte[] segmentBytes, @NotNull final JpegSegmentType segmentType)
+    {
+        // Only the first Exif segment is of interest
+        return true;
+    }
+
     public boolean canProcess(@NotNull final byte[] segmentBytes, @NotNull final JpegSegmentType segmentType)
     {
-        return segmentBytes.length >= JPEG_EXIF_SEGMENT_PREAMBLE.length() && new String(segmentBytes, 0, JPEG_EXIF_SEGMENT_PREAMBLE.length()).equalsIgnoreCase(JPEG_EXIF_SEGMENT_PREAMBLE);
+        return JPEG_EXIF_SEGMENT_PREAMBLE_IGNORING_CASE.matches(segmentBytes);
     }
 
     public void extract(@NotNull final byte[] segmentBytes, @NotNull final Metadata metadata, @NotNull final JpegSegmentType segmentType)
+    {
+        extract(segmentBytes, metadata, segmentType, _storeThumbnailBytes ? _thumbnailRetention : ThumbnailRetention.NONE);
+    }
+
+    /**
+     * Extracts Exif data from a JPEG APP1 segment, retaining any thumbnail bytes as specified rather than as this
+     * reader was constructed to.
+     *
+     * @param thumbnailRetention how {@link ExifThumbnailDirectory} retains any thumbnail bytes. With
+     *                           {@link ThumbnailRetention#LAZY}, it retains a reference to <code>segmentBytes</code>
+     *                           rather than a copy of the thumbnail.
+     */
+    public void extract(@NotNull final byte[] segmentBytes, @NotNull final Metadata metadata, @NotNull final JpegSegmentType segmentType, @NotNull final ThumbnailRetention thumbnailRetention)
     {
         if (segmentBytes == null)
             throw new NullPointerException("segmentBytes cannot be null");
@@ -113,6 +243,8 @@ public class ExifReader implements JpegSegmentMetadataReader
             throw new NullPointerException("metadata cannot be null");
         if (segmentType == null)
             throw new NullPointerException("segmentType cannot be null");
+        if (thumbnailRetention == null)
+            throw new NullPointerException("thumbnailRetention cannot be null");
 
         try {
             ByteArrayReader reader = new ByteArrayReader(segmentBytes);
@@ -121,7 +253,7 @@ public class ExifReader implements JpegSegmentMetadataReader
             // Check for the header preamble
             //
             try {
-                if (!reader.getString(0, JPEG_EXIF_SEGMENT_PREAMBLE.length()).equals(JPEG_EXIF_SEGMENT_PREAMBLE)) {
+                if (!JPEG_EXIF_SEGMENT_PREAMBLE.matches(reader, 0)) {
                     // TODO what do to with this error state?
                     System.err.println("Invalid JPEG Exif segment preamble");
                     return;
@@ -137,8 +269,8 @@ public class ExifReader implements JpegSegmentMetadataReader
             //
             new TiffReader().processTiff(
                 reader,
-                new ExifTiffHandler(metadata, _storeThumbnailBytes),
-                JPEG_EXIF_SEGMENT_PREAMBLE.length()
+                new ExifTiffHandler(metadata, thumbnailRetention, _deferTagValues, _selection, _makernotePlan),
+                JPEG_EXIF_SEGMENT_PREAMBLE.getLength()
             );
 
         } catch (TiffProcessingException e) {
@@ -156,14 +288,33 @@ public class ExifReader implements JpegSegmentMetadataReader
      *
      * @param reader   The {@link RandomAccessReader} from which TIFF data should be read.
      * @param metadata The Metadata object into which extracted values should be merged.
+     * @deprecated this uses an older IFD engine than JPEG Exif segments do. Use
+     *             {@link com.drew.imaging.tiff.TiffMetadataReader#readMetadata(RandomAccessReader)}, which uses
+     *             {@link TiffReader} with {@link ExifTiffHandler}.
      */
     @Deprecated
     public void extractTiff(@NotNull final RandomAccessReader reader, @NotNull final Metadata metadata)
+    {
+        extractTiff(reader, metadata, _storeThumbnailBytes);
+    }
+
+    /**
+     * Performs the Exif data extraction on a TIFF/RAW, adding found values to the specified
+     * instance of {@link Metadata}.
+     *
+     * @param reader         The {@link RandomAccessReader} from which TIFF data should be read.
+     * @param metadata       The Metadata object into which extracted values should be merged.
+     * @param storeThumbnail <code>true</code> if {@link ExifThumbnailDirectory} should be able to provide the
+     *                       thumbnail bytes, which are copied from <code>reader</code> during extraction.
+     * @deprecated see {@link #extractTiff(RandomAccessReader, Metadata)}.
+     */
+    @Deprecated
+    public void extractTiff(@NotNull final RandomAccessReader reader, @NotNull final Metadata metadata, final boolean storeThumbnail)
     {
         final ExifIFD0Directory directory = metadata.getOrCreateDirectory(ExifIFD0Directory.class);
 
         try {
-            extractTiff(reader, metadata, directory, 0);
+            extractTiff(reader, metadata, directory, 0, storeThumbnail);
         } catch (IOException e) {
             directory.addError("IO problem: " + e.getMessage());
         }
@@ -173,7 +324,8 @@ public class ExifReader implements JpegSegmentMetadataReader
     private static void extractTiff(@NotNull final RandomAccessReader reader,
                                     @NotNull final Metadata metadata,
                                     @NotNull final Directory firstDirectory,
-                                    final int tiffHeaderOffset) throws IOException
+                                    final int tiffHeaderOffset,
+                                    final boolean storeThumbnailBytes) throws IOException
     {
         // this should be either "MM" or "II"
         String byteOrderIdentifier = reader.getString(tiffHeaderOffset, 2);
@@ -194,6 +346,16 @@ public class ExifReader implements JpegSegmentMetadataReader
         final int olympusRawTiffMarker = 0x4F52; // for ORF files
         final int panasonicRawTiffMarker = 0x0055; // for RW2 files
 
+        if (tiffMarker == TiffReader.BIG_TIFF_MARKER) {
+            // BigTIFF uses 64-bit offsets, which only the TiffReader engine supports
+            try {
+                new TiffReader().processTiff(reader, new ExifTiffHandler(metadata, storeThumbnailBytes), tiffHeaderOffset);
+            } catch (TiffProcessingException e) {
+                firstDirectory.addError(e.getMessage());
+            }
+            return;
+        }
+
         if (tiffMarker != standardTiffMarker && tiffMarker != olympusRawTiffMarker && tiffMarker != panasonicRawTiffMarker) {
             firstDirectory.addError("Unexpected TIFF marker after byte order identifier: 0x" + Integer.toHexString(tiffMarker));
             return;
@@ -202,8 +364,7 @@ public class ExifReader implements JpegSegmentMetadataReader
         int firstIfdOffset = reader.getInt32(4 + tiffHeaderOffset) + tiffHeaderOffset;
 
         // David Ekholm sent a digital camera image that has this problem
-        // TODO getLength should be avoided as it causes RandomAccessStreamReader to read to the end of the stream
-        if (firstIfdOffset >= reader.getLength() - 1) {
+        if (firstIfdOffset >= 0 && !reader.isAvailable(firstIfdOffset, 2)) {
             firstDirectory.addError("First Exif directory offset is beyond end of Exif data segment");
             // First directory normally starts 14 bytes in -- try it here and catch another error in the worst case
             firstIfdOffset = 14;
@@ -214,15 +375,16 @@ public class ExifReader implements JpegSegmentMetadataReader
 
         // after the extraction process, if we have the correct tags, we may be able to store thumbnail information
         ExifThumbnailDirectory thumbnailDirectory = metadata.getDirectory(ExifThumbnailDirectory.class);
-        if (thumbnailDirectory != null && thumbnailDirectory.containsTag(ExifThumbnailDirectory.TAG_THUMBNAIL_COMPRESSION)) {
+        if (storeThumbnailBytes && thumbnailDirectory != null && thumbnailDirectory.containsTag(ExifThumbnailDirectory.TAG_THUMBNAIL_COMPRESSION)) {
             Integer offset = thumbnailDirectory.getInteger(ExifThumbnailDirectory.TAG_THUMBNAIL_OFFSET);
             Integer length = thumbnailDirectory.getInteger(ExifThumbnailDirectory.TAG_THUMBNAIL_LENGTH);
             if (offset != null && length != null) {
-                try {
-                    byte[] thumbnailData = reader.getBytes(tiffHeaderOffset + offset, length);
-                    thumbnailDirectory.setThumbnailData(thumbnailData);
-                } catch (IOException ex) {
-                    firstDirectory.addError("Invalid thumbnail data specification: " + ex.getMessage());
+                long thumbnailOffset = (long)tiffHeaderOffset + offset;
+                if (length >= 0 && reader.isAvailable(thumbnailOffset, length)) {
+                    thumbnailDirectory.setThumbnailSource(reader, thumbnailOffset, length);
+                    thumbnailDirectory.loadThumbnailData();
+                } else {
+                    firstDirectory.addError("Invalid thumbnail data specification: " + length + " bytes at index " + thumbnailOffset + " extend beyond the end of the data");
                 }
             }
         }
@@ -263,7 +425,7 @@ public class ExifReader implements JpegSegmentMetadataReader
         // remember that we've visited this directory so that we don't visit it again later
         processedIfdOffsets.add(ifdOffset);
 
-        if (ifdOffset >= reader.getLength() || ifdOffset < 0) {
+        if (ifdOffset < 0 || !reader.isAvailable(ifdOffset, 1)) {
             directory.addError("Ignored IFD marked to start outside data segment");
             return;
         }
@@ -272,7 +434,7 @@ public class ExifReader implements JpegSegmentMetadataReader
         int dirTagCount = reader.getUInt16(ifdOffset);
 
         int dirLength = (2 + (12 * dirTagCount) + 4);
-        if (dirLength + ifdOffset > reader.getLength()) {
+        if (!reader.isAvailable(ifdOffset, dirLength)) {
             directory.addError("Illegally sized IFD");
             return;
         }
@@ -307,7 +469,7 @@ public class ExifReader implements JpegSegmentMetadataReader
                 // dirEntryOffset must be passed, as some makernote implementations (e.g. Fujifilm) incorrectly use an
                 // offset relative to the start of the makernote itself, not the TIFF segment.
                 final int offsetVal = reader.getInt32(tagOffset + 8);
-                if (offsetVal + byteCount > reader.getLength()) {
+                if (offsetVal >= 0 && !reader.isAvailable(offsetVal, byteCount)) {
                     // Bogus pointer offset and / or byteCount value
                     directory.addError("Illegal TIFF tag pointer offset");
                     continue;
@@ -318,14 +480,14 @@ public class ExifReader implements JpegSegmentMetadataReader
                 tagValueOffset = tagOffset + 8;
             }
 
-            if (tagValueOffset < 0 || tagValueOffset > reader.getLength()) {
+            if (tagValueOffset < 0 || !reader.isAvailable(tagValueOffset, 0)) {
                 directory.addError("Illegal TIFF tag pointer offset");
                 continue;
             }
 
             // Check that this tag isn't going to allocate outside the bounds of the data array.
             // This addresses an uncommon OutOfMemoryError.
-            if (byteCount < 0 || tagValueOffset + byteCount > reader.getLength()) {
+            if (byteCount < 0 || !reader.isAvailable(tagValueOffset, byteCount)) {
                 directory.addError("Illegal number of bytes for TIFF tag data: " + byteCount);
                 continue;
             }
@@ -369,7 +531,7 @@ public class ExifReader implements JpegSegmentMetadataReader
         int nextDirectoryOffset = reader.getInt32(finalTagOffset);
         if (nextDirectoryOffset != 0) {
             nextDirectoryOffset += tiffHeaderOffset;
-            if (nextDirectoryOffset >= reader.getLength()) {
+            if (!reader.isAvailable(nextDirectoryOffset, 1)) {
                 // Last 4 bytes of IFD reference another IFD with an address that is out of bounds
                 // Note this could have been caused by jhead 1.3 cropping too much
                 return;
@@ -396,160 +558,42 @@ public class ExifReader implements JpegSegmentMetadataReader
         if (ifd0Directory == null)
             return;
 
-        String cameraMake = ifd0Directory.getString(ExifIFD0Directory.TAG_MAKE);
-
-        final String firstThreeChars = reader.getString(makernoteOffset, 3);
-        final String firstFourChars = reader.getString(makernoteOffset, 4);
-        final String firstFiveChars = reader.getString(makernoteOffset, 5);
-        final String firstSixChars = reader.getString(makernoteOffset, 6);
-        final String firstSevenChars = reader.getString(makernoteOffset, 7);
-        final String firstEightChars = reader.getString(makernoteOffset, 8);
-        final String firstTwelveChars = reader.getString(makernoteOffset, 12);
+        final String cameraMake = ifd0Directory.getString(ExifIFD0Directory.TAG_MAKE);
 
         boolean byteOrderBefore = reader.isMotorolaByteOrder();
 
-        if ("OLYMP".equals(firstFiveChars) || "EPSON".equals(firstFiveChars) || "AGFA".equals(firstFourChars)) {
-            // Olympus Makernote
-            // Epson and Agfa use Olympus makernote standard: http://www.ozhiker.com/electronics/pjmt/jpeg_info/
-            processIFD(metadata.getOrCreateDirectory(OlympusMakernoteDirectory.class), processedIfdOffsets, makernoteOffset + 8, tiffHeaderOffset, metadata, reader);
-        } else if (cameraMake != null && cameraMake.trim().toUpperCase().startsWith("NIKON")) {
-            if ("Nikon".equals(firstFiveChars)) {
-                /* There are two scenarios here:
-                 * Type 1:                  **
-                 * :0000: 4E 69 6B 6F 6E 00 01 00-05 00 02 00 02 00 06 00 Nikon...........
-                 * :0010: 00 00 EC 02 00 00 03 00-03 00 01 00 00 00 06 00 ................
-                 * Type 3:                  **
-                 * :0000: 4E 69 6B 6F 6E 00 02 00-00 00 4D 4D 00 2A 00 00 Nikon....MM.*...
-                 * :0010: 00 08 00 1E 00 01 00 07-00 00 00 04 30 32 30 30 ............0200
-                 */
-                switch (reader.getUInt8(makernoteOffset + 6)) {
-                    case 1:
-                        processIFD(metadata.getOrCreateDirectory(NikonType1MakernoteDirectory.class), processedIfdOffsets, makernoteOffset + 8, tiffHeaderOffset, metadata, reader);
-                        break;
-                    case 2:
-                        processIFD(metadata.getOrCreateDirectory(NikonType2MakernoteDirectory.class), processedIfdOffsets, makernoteOffset + 18, makernoteOffset + 10, metadata, reader);
-                        break;
-                    default:
-                        ifd0Directory.addError("Unsupported Nikon makernote data ignored.");
-                        break;
-                }
-            } else {
-                // The IFD begins with the first Makernote byte (no ASCII name).  This occurs with CoolPix 775, E990 and D1 models.
-                processIFD(metadata.getOrCreateDirectory(NikonType2MakernoteDirectory.class), processedIfdOffsets, makernoteOffset, tiffHeaderOffset, metadata, reader);
+        MakernoteDispatchPlan.DEFAULT.dispatch(new MakernoteContext()
+        {
+            @NotNull
+            public RandomAccessReader getReader()
+            {
+                return reader;
             }
-        } else if ("SONY CAM".equals(firstEightChars) || "SONY DSC".equals(firstEightChars)) {
-            processIFD(metadata.getOrCreateDirectory(SonyType1MakernoteDirectory.class), processedIfdOffsets, makernoteOffset + 12, tiffHeaderOffset, metadata, reader);
-        } else if ("SEMC MS\u0000\u0000\u0000\u0000\u0000".equals(firstTwelveChars)) {
-            // force MM for this directory
-            reader.setMotorolaByteOrder(true);
-            // skip 12 byte header + 2 for "MM" + 6
-            processIFD(metadata.getOrCreateDirectory(SonyType6MakernoteDirectory.class), processedIfdOffsets, makernoteOffset + 20, tiffHeaderOffset, metadata, reader);
-        } else if ("SIGMA\u0000\u0000\u0000".equals(firstEightChars) || "FOVEON\u0000\u0000".equals(firstEightChars)) {
-            processIFD(metadata.getOrCreateDirectory(SigmaMakernoteDirectory.class), processedIfdOffsets, makernoteOffset + 10, tiffHeaderOffset, metadata, reader);
-        } else if ("KDK".equals(firstThreeChars)) {
-            reader.setMotorolaByteOrder(firstSevenChars.equals("KDK INFO"));
-            processKodakMakernote(metadata.getOrCreateDirectory(KodakMakernoteDirectory.class), makernoteOffset, reader);
-        } else if ("Canon".equalsIgnoreCase(cameraMake)) {
-            processIFD(metadata.getOrCreateDirectory(CanonMakernoteDirectory.class), processedIfdOffsets, makernoteOffset, tiffHeaderOffset, metadata, reader);
-        } else if (cameraMake != null && cameraMake.toUpperCase().startsWith("CASIO")) {
-            if ("QVC\u0000\u0000\u0000".equals(firstSixChars)) {
-                processIFD(metadata.getOrCreateDirectory(CasioType2MakernoteDirectory.class), processedIfdOffsets, makernoteOffset + 6, tiffHeaderOffset, metadata, reader);
-            } else {
-                processIFD(metadata.getOrCreateDirectory(CasioType1MakernoteDirectory.class), processedIfdOffsets, makernoteOffset, tiffHeaderOffset, metadata, reader);
+
+            @NotNull
+            public Metadata getMetadata()
+            {
+                return metadata;
             }
-        } else if ("FUJIFILM".equals(firstEightChars) || "Fujifilm".equalsIgnoreCase(cameraMake)) {
-            // Note that this also applies to certain Leica cameras, such as the Digilux-4.3
-            reader.setMotorolaByteOrder(false);
-            // the 4 bytes after "FUJIFILM" in the makernote point to the start of the makernote
-            // IFD, though the offset is relative to the start of the makernote, not the TIFF
-            // header (like everywhere else)
-            int ifdStart = makernoteOffset + reader.getInt32(makernoteOffset + 8);
-            processIFD(metadata.getOrCreateDirectory(FujifilmMakernoteDirectory.class), processedIfdOffsets, ifdStart, makernoteOffset, metadata, reader);
-        } else if (cameraMake != null && cameraMake.toUpperCase().startsWith("MINOLTA")) {
-            // Cases seen with the model starting with MINOLTA in capitals seem to have a valid Olympus makernote
-            // area that commences immediately.
-            processIFD(metadata.getOrCreateDirectory(OlympusMakernoteDirectory.class), processedIfdOffsets, makernoteOffset, tiffHeaderOffset, metadata, reader);
-        } else if ("KYOCERA".equals(firstSevenChars)) {
-            // http://www.ozhiker.com/electronics/pjmt/jpeg_info/kyocera_mn.html
-            processIFD(metadata.getOrCreateDirectory(KyoceraMakernoteDirectory.class), processedIfdOffsets, makernoteOffset + 22, tiffHeaderOffset, metadata, reader);
-        } else if ("LEICA".equals(firstFiveChars)) {
-            reader.setMotorolaByteOrder(false);
-            if ("Leica Camera AG".equals(cameraMake)) {
-                processIFD(metadata.getOrCreateDirectory(LeicaMakernoteDirectory.class), processedIfdOffsets, makernoteOffset + 8, tiffHeaderOffset, metadata, reader);
-            } else if ("LEICA".equals(cameraMake)) {
-                // Some Leica cameras use Panasonic makernote tags
-                processIFD(metadata.getOrCreateDirectory(PanasonicMakernoteDirectory.class), processedIfdOffsets, makernoteOffset + 8, tiffHeaderOffset, metadata, reader);
+
+            @Nullable
+            public String getCameraMake()
+            {
+                return cameraMake;
             }
-        } else if ("Panasonic\u0000\u0000\u0000".equals(reader.getString(makernoteOffset, 12))) {
-            // NON-Standard TIFF IFD Data using Panasonic Tags. There is no Next-IFD pointer after the IFD
-            // Offsets are relative to the start of the TIFF header at the beginning of the EXIF segment
-            // more information here: http://www.ozhiker.com/electronics/pjmt/jpeg_info/panasonic_mn.html
-            processIFD(metadata.getOrCreateDirectory(PanasonicMakernoteDirectory.class), processedIfdOffsets, makernoteOffset + 12, tiffHeaderOffset, metadata, reader);
-        } else if ("AOC\u0000".equals(firstFourChars)) {
-            // NON-Standard TIFF IFD Data using Casio Type 2 Tags
-            // IFD has no Next-IFD pointer at end of IFD, and
-            // Offsets are relative to the start of the current IFD tag, not the TIFF header
-            // Observed for:
-            // - Pentax ist D
-            processIFD(metadata.getOrCreateDirectory(CasioType2MakernoteDirectory.class), processedIfdOffsets, makernoteOffset + 6, makernoteOffset, metadata, reader);
-        } else if (cameraMake != null && (cameraMake.toUpperCase().startsWith("PENTAX") || cameraMake.toUpperCase().startsWith("ASAHI"))) {
-            // NON-Standard TIFF IFD Data using Pentax Tags
-            // IFD has no Next-IFD pointer at end of IFD, and
-            // Offsets are relative to the start of the current IFD tag, not the TIFF header
-            // Observed for:
-            // - PENTAX Optio 330
-            // - PENTAX Optio 430
-            processIFD(metadata.getOrCreateDirectory(PentaxMakernoteDirectory.class), processedIfdOffsets, makernoteOffset, makernoteOffset, metadata, reader);
-//        } else if ("KC".equals(firstTwoChars) || "MINOL".equals(firstFiveChars) || "MLY".equals(firstThreeChars) || "+M+M+M+M".equals(firstEightChars)) {
-//            // This Konica data is not understood.  Header identified in accordance with information at this site:
-//            // http://www.ozhiker.com/electronics/pjmt/jpeg_info/minolta_mn.html
-//            // TODO add support for minolta/konica cameras
-//            exifDirectory.addError("Unsupported Konica/Minolta data ignored.");
-        } else if ("SANYO\0\1\0".equals(firstEightChars)) {
-            processIFD(metadata.getOrCreateDirectory(SanyoMakernoteDirectory.class), processedIfdOffsets, makernoteOffset + 8, makernoteOffset, metadata, reader);
-        } else {
-            // The makernote is not comprehended by this library.
-            // If you are reading this and believe a particular camera's image should be processed, get in touch.
-        }
 
-        reader.setMotorolaByteOrder(byteOrderBefore);
-    }
+            public int getTiffHeaderOffset()
+            {
+                return tiffHeaderOffset;
+            }
 
-    @Deprecated
-    private static void processKodakMakernote(@NotNull final KodakMakernoteDirectory directory, final int tagValueOffset, @NotNull final RandomAccessReader reader)
-    {
-        // Kodak's makernote is not in IFD format. It has values at fixed offsets.
-        int dataOffset = tagValueOffset + 8;
-        try {
-            directory.setString(KodakMakernoteDirectory.TAG_KODAK_MODEL, reader.getString(dataOffset, 8));
-            directory.setInt(KodakMakernoteDirectory.TAG_QUALITY, reader.getUInt8(dataOffset + 9));
-            directory.setInt(KodakMakernoteDirectory.TAG_BURST_MODE, reader.getUInt8(dataOffset + 10));
-            directory.setInt(KodakMakernoteDirectory.TAG_IMAGE_WIDTH, reader.getUInt16(dataOffset + 12));
-            directory.setInt(KodakMakernoteDirectory.TAG_IMAGE_HEIGHT, reader.getUInt16(dataOffset + 14));
-            directory.setInt(KodakMakernoteDirectory.TAG_YEAR_CREATED, reader.getUInt16(dataOffset + 16));
-            directory.setByteArray(KodakMakernoteDirectory.TAG_MONTH_DAY_CREATED, reader.getBytes(dataOffset + 18, 2));
-            directory.setByteArray(KodakMakernoteDirectory.TAG_TIME_CREATED, reader.getBytes(dataOffset + 20, 4));
-            directory.setInt(KodakMakernoteDirectory.TAG_BURST_MODE_2, reader.getUInt16(dataOffset + 24));
-            directory.setInt(KodakMakernoteDirectory.TAG_SHUTTER_MODE, reader.getUInt8(dataOffset + 27));
-            directory.setInt(KodakMakernoteDirectory.TAG_METERING_MODE, reader.getUInt8(dataOffset + 28));
-            directory.setInt(KodakMakernoteDirectory.TAG_SEQUENCE_NUMBER, reader.getUInt8(dataOffset + 29));
-            directory.setInt(KodakMakernoteDirectory.TAG_F_NUMBER, reader.getUInt16(dataOffset + 30));
-            directory.setLong(KodakMakernoteDirectory.TAG_EXPOSURE_TIME, reader.getUInt32(dataOffset + 32));
-            directory.setInt(KodakMakernoteDirectory.TAG_EXPOSURE_COMPENSATION, reader.getInt16(dataOffset + 36));
-            directory.setInt(KodakMakernoteDirectory.TAG_FOCUS_MODE, reader.getUInt8(dataOffset + 56));
-            directory.setInt(KodakMakernoteDirectory.TAG_WHITE_BALANCE, reader.getUInt8(dataOffset + 64));
-            directory.setInt(KodakMakernoteDirectory.TAG_FLASH_MODE, reader.getUInt8(dataOffset + 92));
-            directory.setInt(KodakMakernoteDirectory.TAG_FLASH_FIRED, reader.getUInt8(dataOffset + 93));
-            directory.setInt(KodakMakernoteDirectory.TAG_ISO_SETTING, reader.getUInt16(dataOffset + 94));
-            directory.setInt(KodakMakernoteDirectory.TAG_ISO, reader.getUInt16(dataOffset + 96));
-            directory.setInt(KodakMakernoteDirectory.TAG_TOTAL_ZOOM, reader.getUInt16(dataOffset + 98));
-            directory.setInt(KodakMakernoteDirectory.TAG_DATE_TIME_STAMP, reader.getUInt16(dataOffset + 100));
-            directory.setInt(KodakMakernoteDirectory.TAG_COLOR_MODE, reader.getUInt16(dataOffset + 102));
-            directory.setInt(KodakMakernoteDirectory.TAG_DIGITAL_ZOOM, reader.getUInt16(dataOffset + 104));
-            directory.setInt(KodakMakernoteDirectory.TAG_SHARPNESS, reader.getInt8(dataOffset + 107));
-        } catch (IOException ex) {
-            directory.addError("Error processing Kodak makernote data: " + ex.getMessage());
-        }
+            public void processIfd(@NotNull Class<? extends Directory> directoryClass, int ifdOffset, int tiffHeaderOffset) throws IOException
+            {
+                processIFD(metadata.getOrCreateDirectory(directoryClass), processedIfdOffsets, ifdOffset, tiffHeaderOffset, metadata, reader);
+            }
+        }, makernoteOffset);
+
+        reader.setMotorolaByteOrder(byteOrderBefore);
     }
 
     @Deprecated
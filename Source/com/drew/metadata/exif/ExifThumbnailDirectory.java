@@ -21,6 +21,7 @@
 
 package com.drew.metadata.exif;
 
+import com.drew.lang.RandomAccessReader;
 import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Directory;
@@ -165,6 +166,11 @@ public class ExifThumbnailDirectory extends Directory
 
     @Nullable
     private byte[] _thumbnailData;
+    /** The reader from which thumbnail bytes are read on demand, if they are not held in <code>_thumbnailData</code>. */
+    @Nullable
+    private RandomAccessReader _thumbnailSource;
+    private long _thumbnailOffset;
+    private int _thumbnailLength;
 
     public ExifThumbnailDirectory()
     {
@@ -185,24 +191,95 @@ public class ExifThumbnailDirectory extends Directory
 
     public boolean hasThumbnailData()
     {
-        return _thumbnailData != null;
+        return _thumbnailData != null || _thumbnailSource != null;
     }
 
+    /**
+     * Gets the thumbnail image bytes.
+     * <p/>
+     * Where the thumbnail was recorded via {@link #setThumbnailSource}, the bytes are read from the source on each
+     * call, and are not retained by this directory. If they cannot be read, an error is added to this directory and
+     * <code>null</code> is returned.
+     */
     @Nullable
     public byte[] getThumbnailData()
     {
-        return _thumbnailData;
+        if (_thumbnailData != null)
+            return _thumbnailData;
+
+        RandomAccessReader source = _thumbnailSource;
+        if (source == null)
+            return null;
+
+        try {
+            return source.getBytes(_thumbnailOffset, _thumbnailLength);
+        } catch (IOException e) {
+            addError("Unable to read thumbnail data: " + e.getMessage());
+            return null;
+        }
     }
 
     public void setThumbnailData(@Nullable byte[] data)
     {
         _thumbnailData = data;
+        _thumbnailSource = null;
+    }
+
+    /**
+     * Records the location of the thumbnail image bytes, rather than the bytes themselves.
+     * <p/>
+     * The bytes are only read when {@link #getThumbnailData()} or {@link #writeThumbnail(String)} is called, so the
+     * source must remain readable until then. Use {@link #loadThumbnailData()} to read them before the source is
+     * closed.
+     *
+     * @param source the reader holding the thumbnail, such as that of the Exif segment or TIFF file
+     * @param offset the absolute index of the first thumbnail byte within <code>source</code>
+     * @param length the number of thumbnail bytes
+     */
+    public void setThumbnailSource(@NotNull RandomAccessReader source, long offset, int length)
+    {
+        _thumbnailData = null;
+        _thumbnailSource = source;
+        _thumbnailOffset = offset;
+        _thumbnailLength = length;
+    }
+
+    /**
+     * Reads thumbnail bytes recorded via {@link #setThumbnailSource} and retains them in this directory, releasing
+     * the reference to the source. This has no effect if the bytes are already held, or no thumbnail exists.
+     */
+    public void loadThumbnailData()
+    {
+        if (_thumbnailSource == null)
+            return;
+
+        // getThumbnailData reports any read failure on this directory
+        byte[] data = getThumbnailData();
+        _thumbnailSource = null;
+        _thumbnailData = data;
+    }
+
+    @Override
+    protected void merge(@NotNull Directory other)
+    {
+        super.merge(other);
+
+        ExifThumbnailDirectory thumbnailDirectory = (ExifThumbnailDirectory)other;
+        if (thumbnailDirectory._thumbnailData != null) {
+            setThumbnailData(thumbnailDirectory._thumbnailData);
+        } else if (thumbnailDirectory._thumbnailSource != null) {
+            setThumbnailSource(thumbnailDirectory._thumbnailSource, thumbnailDirectory._thumbnailOffset, thumbnailDirectory._thumbnailLength);
+        }
     }
 
     public void writeThumbnail(@NotNull String filename) throws MetadataException, IOException
     {
         byte[] data = _thumbnailData;
 
+        RandomAccessReader source = _thumbnailSource;
+        if (data == null && source != null)
+            data = source.getBytes(_thumbnailOffset, _thumbnailLength);
+
         if (data == null)
             throw new MetadataException("No thumbnail data exists.");
 
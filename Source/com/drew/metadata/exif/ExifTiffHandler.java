@@ -24,9 +24,11 @@ import com.drew.imaging.tiff.TiffProcessingException;
 import com.drew.imaging.tiff.TiffReader;
 import com.drew.lang.RandomAccessReader;
 import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
-import com.drew.metadata.exif.makernotes.*;
+import com.drew.metadata.TagSelection;
+import com.drew.metadata.exif.makernotes.OlympusMakernoteDirectory;
 import com.drew.metadata.tiff.DirectoryTiffHandler;
 
 import java.io.IOException;
@@ -42,25 +44,108 @@ import java.util.Set;
  */
 public class ExifTiffHandler extends DirectoryTiffHandler
 {
-    private boolean _storeThumbnailBytes;
+    @NotNull
+    private final ThumbnailRetention _thumbnailRetention;
+    private final boolean _isMakernoteSelected;
+    @NotNull
+    private final MakernoteDispatchPlan _makernotePlan;
 
     public ExifTiffHandler(@NotNull Metadata metadata, boolean storeThumbnailBytes)
     {
-        super(metadata, ExifIFD0Directory.class);
-        _storeThumbnailBytes = storeThumbnailBytes;
+        this(metadata, storeThumbnailBytes ? ThumbnailRetention.COPY : ThumbnailRetention.NONE, false);
+    }
+
+    /**
+     * @param thumbnailRetention how {@link ExifThumbnailDirectory} retains any thumbnail bytes
+     * @param deferTagValues <code>true</code> if tag values should be decoded only when first requested of their
+     *                       directories, in which case the reader must remain readable until then
+     */
+    public ExifTiffHandler(@NotNull Metadata metadata, @NotNull ThumbnailRetention thumbnailRetention, boolean deferTagValues)
+    {
+        this(metadata, thumbnailRetention, deferTagValues, null);
+    }
+
+    /**
+     * @param deferTagValues see {@link #ExifTiffHandler(Metadata, ThumbnailRetention, boolean)}
+     * @param selection the tags of interest, or <code>null</code> if all are. IFDs holding no selected directory
+     *                  are not read, and makernotes are only read if a makernote directory is selected.
+     */
+    public ExifTiffHandler(@NotNull Metadata metadata, @NotNull ThumbnailRetention thumbnailRetention, boolean deferTagValues, @Nullable TagSelection selection)
+    {
+        this(metadata, thumbnailRetention, deferTagValues, selection, MakernoteDispatchPlan.DEFAULT);
+    }
+
+    /**
+     * @param selection see {@link #ExifTiffHandler(Metadata, ThumbnailRetention, boolean, TagSelection)}
+     * @param makernotePlan the handlers with which to process makernotes
+     */
+    @SuppressWarnings({ "ConstantConditions" })
+    public ExifTiffHandler(@NotNull Metadata metadata, @NotNull ThumbnailRetention thumbnailRetention, boolean deferTagValues, @Nullable TagSelection selection, @NotNull MakernoteDispatchPlan makernotePlan)
+    {
+        super(metadata, ExifIFD0Directory.class, deferTagValues, selection);
+        if (thumbnailRetention == null || makernotePlan == null)
+            throw new NullPointerException();
+        _thumbnailRetention = thumbnailRetention;
+        _isMakernoteSelected = isMakernoteSelected(selection);
+        _makernotePlan = makernotePlan;
+    }
+
+    private static boolean isMakernoteSelected(@Nullable TagSelection selection)
+    {
+        if (selection == null)
+            return true;
+
+        // derived from the class name, as the class's package may be unknown to its class loader
+        String olympusClassName = OlympusMakernoteDirectory.class.getName();
+        String makernotePackagePrefix = olympusClassName.substring(0, olympusClassName.lastIndexOf('.') + 1);
+        for (Class<? extends Directory> directoryClass : selection.getDirectoryClasses()) {
+            if (directoryClass.getName().startsWith(makernotePackagePrefix))
+                return true;
+        }
+        return false;
     }
 
     public void setTiffMarker(int marker) throws TiffProcessingException
     {
         final int standardTiffMarker = 0x002A;
+        final int bigTiffMarker = 0x002B;
         final int olympusRawTiffMarker = 0x4F52; // for ORF files
         final int panasonicRawTiffMarker = 0x0055; // for RW2 files
 
-        if (marker != standardTiffMarker && marker != olympusRawTiffMarker && marker != panasonicRawTiffMarker) {
+        if (marker != standardTiffMarker && marker != bigTiffMarker && marker != olympusRawTiffMarker && marker != panasonicRawTiffMarker) {
             throw new TiffProcessingException("Unexpected TIFF marker: 0x" + Integer.toHexString(marker));
         }
     }
 
+    @Override
+    public boolean isTagSelected(int tagId)
+    {
+        if (_selection == null)
+            return true;
+
+        // Pointers are followed if the IFD they point to, or one nested within it, holds selected tags
+        if (_currentDirectory instanceof ExifIFD0Directory) {
+            if (tagId == ExifIFD0Directory.TAG_EXIF_SUB_IFD_OFFSET)
+                return _selection.isDirectorySelected(ExifSubIFDDirectory.class) || _selection.isDirectorySelected(ExifInteropDirectory.class) || _isMakernoteSelected;
+            if (tagId == ExifIFD0Directory.TAG_GPS_INFO_OFFSET)
+                return _selection.isDirectorySelected(GpsDirectory.class);
+            // the make is needed to identify some makernotes
+            if (tagId == ExifIFD0Directory.TAG_MAKE && _isMakernoteSelected)
+                return true;
+        } else if (_currentDirectory instanceof ExifSubIFDDirectory) {
+            if (tagId == ExifSubIFDDirectory.TAG_INTEROP_OFFSET)
+                return _selection.isDirectorySelected(ExifInteropDirectory.class);
+            if (tagId == ExifSubIFDDirectory.TAG_MAKERNOTE)
+                return _isMakernoteSelected;
+        } else if (_currentDirectory instanceof ExifThumbnailDirectory && _thumbnailRetention != ThumbnailRetention.NONE) {
+            // these locate the thumbnail data
+            if (tagId == ExifThumbnailDirectory.TAG_THUMBNAIL_COMPRESSION || tagId == ExifThumbnailDirectory.TAG_THUMBNAIL_OFFSET || tagId == ExifThumbnailDirectory.TAG_THUMBNAIL_LENGTH)
+                return true;
+        }
+
+        return super.isTagSelected(tagId);
+    }
+
     public boolean isTagIfdPointer(int tagType)
     {
         if (tagType == ExifIFD0Directory.TAG_EXIF_SUB_IFD_OFFSET && _currentDirectory instanceof ExifIFD0Directory) {
@@ -81,6 +166,8 @@ public class ExifTiffHandler extends DirectoryTiffHandler
     {
         // In Exif, the only known 'follower' IFD is the thumbnail one, however this may not be the case.
         if (_currentDirectory instanceof ExifIFD0Directory) {
+            if (_selection != null && !_selection.isDirectorySelected(ExifThumbnailDirectory.class))
+                return false;
             pushDirectory(ExifThumbnailDirectory.class);
             return true;
         }
@@ -106,7 +193,7 @@ public class ExifTiffHandler extends DirectoryTiffHandler
 
     public void completed(@NotNull final RandomAccessReader reader, final int tiffHeaderOffset)
     {
-        if (_storeThumbnailBytes) {
+        if (_thumbnailRetention != ThumbnailRetention.NONE) {
             // after the extraction process, if we have the correct tags, we may be able to store thumbnail information
             ExifThumbnailDirectory thumbnailDirectory = _metadata.getDirectory(ExifThumbnailDirectory.class);
             if (thumbnailDirectory != null && thumbnailDirectory.containsTag(ExifThumbnailDirectory.TAG_THUMBNAIL_COMPRESSION)) {
@@ -114,8 +201,15 @@ public class ExifTiffHandler extends DirectoryTiffHandler
                 Integer length = thumbnailDirectory.getInteger(ExifThumbnailDirectory.TAG_THUMBNAIL_LENGTH);
                 if (offset != null && length != null) {
                     try {
-                        byte[] thumbnailData = reader.getBytes(tiffHeaderOffset + offset, length);
-                        thumbnailDirectory.setThumbnailData(thumbnailData);
+                        long thumbnailOffset = (long)tiffHeaderOffset + offset;
+                        if (length >= 0 && reader.isAvailable(thumbnailOffset, length)) {
+                            thumbnailDirectory.setThumbnailSource(reader, thumbnailOffset, length);
+                            // Unless asked to read lazily, copy the bytes so the metadata does not retain the reader
+                            if (_thumbnailRetention == ThumbnailRetention.COPY)
+                                thumbnailDirectory.loadThumbnailData();
+                        } else {
+                            thumbnailDirectory.addError("Invalid thumbnail data specification: " + length + " bytes at index " + thumbnailOffset + " extend beyond the end of the data");
+                        }
                     } catch (IOException ex) {
                         thumbnailDirectory.addError("Invalid thumbnail data specification: " + ex.getMessage());
                     }
@@ -138,194 +232,62 @@ public class ExifTiffHandler extends DirectoryTiffHandler
 
         String cameraMake = ifd0Directory.getString(ExifIFD0Directory.TAG_MAKE);
 
-        final String firstTwoChars = reader.getString(makernoteOffset, 2);
-        final String firstThreeChars = reader.getString(makernoteOffset, 3);
-        final String firstFourChars = reader.getString(makernoteOffset, 4);
-        final String firstFiveChars = reader.getString(makernoteOffset, 5);
-        final String firstSixChars = reader.getString(makernoteOffset, 6);
-        final String firstSevenChars = reader.getString(makernoteOffset, 7);
-        final String firstEightChars = reader.getString(makernoteOffset, 8);
-        final String firstTwelveChars = reader.getString(makernoteOffset, 12);
-
         boolean byteOrderBefore = reader.isMotorolaByteOrder();
 
-        if ("OLYMP".equals(firstFiveChars) || "EPSON".equals(firstFiveChars) || "AGFA".equals(firstFourChars)) {
-            // Olympus Makernote
-            // Epson and Agfa use Olympus makernote standard: http://www.ozhiker.com/electronics/pjmt/jpeg_info/
-            pushDirectory(OlympusMakernoteDirectory.class);
-            TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset + 8, tiffHeaderOffset);
-        } else if (cameraMake != null && cameraMake.toUpperCase().startsWith("MINOLTA")) {
-            // Cases seen with the model starting with MINOLTA in capitals seem to have a valid Olympus makernote
-            // area that commences immediately.
-            pushDirectory(OlympusMakernoteDirectory.class);
-            TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset, tiffHeaderOffset);
-        } else if (cameraMake != null && cameraMake.trim().toUpperCase().startsWith("NIKON")) {
-            if ("Nikon".equals(firstFiveChars)) {
-                /* There are two scenarios here:
-                 * Type 1:                  **
-                 * :0000: 4E 69 6B 6F 6E 00 01 00-05 00 02 00 02 00 06 00 Nikon...........
-                 * :0010: 00 00 EC 02 00 00 03 00-03 00 01 00 00 00 06 00 ................
-                 * Type 3:                  **
-                 * :0000: 4E 69 6B 6F 6E 00 02 00-00 00 4D 4D 00 2A 00 00 Nikon....MM.*...
-                 * :0010: 00 08 00 1E 00 01 00 07-00 00 00 04 30 32 30 30 ............0200
-                 */
-                switch (reader.getUInt8(makernoteOffset + 6)) {
-                    case 1:
-                        pushDirectory(NikonType1MakernoteDirectory.class);
-                        TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset + 8, tiffHeaderOffset);
-                        break;
-                    case 2:
-                        pushDirectory(NikonType2MakernoteDirectory.class);
-                        TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset + 18, makernoteOffset + 10);
-                        break;
-                    default:
-                        ifd0Directory.addError("Unsupported Nikon makernote data ignored.");
-                        break;
-                }
-            } else {
-                // The IFD begins with the first Makernote byte (no ASCII name).  This occurs with CoolPix 775, E990 and D1 models.
-                pushDirectory(NikonType2MakernoteDirectory.class);
-                TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset, tiffHeaderOffset);
-            }
-        } else if ("SONY CAM".equals(firstEightChars) || "SONY DSC".equals(firstEightChars)) {
-            pushDirectory(SonyType1MakernoteDirectory.class);
-            TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset + 12, tiffHeaderOffset);
-        } else if ("SEMC MS\u0000\u0000\u0000\u0000\u0000".equals(firstTwelveChars)) {
-            // force MM for this directory
-            reader.setMotorolaByteOrder(true);
-            // skip 12 byte header + 2 for "MM" + 6
-            pushDirectory(SonyType6MakernoteDirectory.class);
-            TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset + 20, tiffHeaderOffset);
-        } else if ("SIGMA\u0000\u0000\u0000".equals(firstEightChars) || "FOVEON\u0000\u0000".equals(firstEightChars)) {
-            pushDirectory(SigmaMakernoteDirectory.class);
-            TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset + 10, tiffHeaderOffset);
-        } else if ("KDK".equals(firstThreeChars)) {
-            reader.setMotorolaByteOrder(firstSevenChars.equals("KDK INFO"));
-            processKodakMakernote(_metadata.getOrCreateDirectory(KodakMakernoteDirectory.class), makernoteOffset, reader);
-        } else if ("Canon".equalsIgnoreCase(cameraMake)) {
-            pushDirectory(CanonMakernoteDirectory.class);
-            TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset, tiffHeaderOffset);
-        } else if (cameraMake != null && cameraMake.toUpperCase().startsWith("CASIO")) {
-            if ("QVC\u0000\u0000\u0000".equals(firstSixChars)) {
-                pushDirectory(CasioType2MakernoteDirectory.class);
-                TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset + 6, tiffHeaderOffset);
-            } else {
-                pushDirectory(CasioType1MakernoteDirectory.class);
-                TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset, tiffHeaderOffset);
-            }
-        } else if ("FUJIFILM".equals(firstEightChars) || "Fujifilm".equalsIgnoreCase(cameraMake)) {
-            // Note that this also applies to certain Leica cameras, such as the Digilux-4.3
-            reader.setMotorolaByteOrder(false);
-            // the 4 bytes after "FUJIFILM" in the makernote point to the start of the makernote
-            // IFD, though the offset is relative to the start of the makernote, not the TIFF
-            // header (like everywhere else)
-            int ifdStart = makernoteOffset + reader.getInt32(makernoteOffset + 8);
-            pushDirectory(FujifilmMakernoteDirectory.class);
-            TiffReader.processIfd(this, reader, processedIfdOffsets, ifdStart, makernoteOffset);
-        } else if ("KYOCERA".equals(firstSevenChars)) {
-            // http://www.ozhiker.com/electronics/pjmt/jpeg_info/kyocera_mn.html
-            pushDirectory(KyoceraMakernoteDirectory.class);
-            TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset + 22, tiffHeaderOffset);
-        } else if ("LEICA".equals(firstFiveChars)) {
-            reader.setMotorolaByteOrder(false);
-            if ("Leica Camera AG".equals(cameraMake)) {
-                pushDirectory(LeicaMakernoteDirectory.class);
-                TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset + 8, tiffHeaderOffset);
-            } else if ("LEICA".equals(cameraMake)) {
-                // Some Leica cameras use Panasonic makernote tags
-                pushDirectory(PanasonicMakernoteDirectory.class);
-                TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset + 8, tiffHeaderOffset);
-            } else {
-                return false;
-            }
-        } else if ("Panasonic\u0000\u0000\u0000".equals(reader.getString(makernoteOffset, 12))) {
-            // NON-Standard TIFF IFD Data using Panasonic Tags. There is no Next-IFD pointer after the IFD
-            // Offsets are relative to the start of the TIFF header at the beginning of the EXIF segment
-            // more information here: http://www.ozhiker.com/electronics/pjmt/jpeg_info/panasonic_mn.html
-            pushDirectory(PanasonicMakernoteDirectory.class);
-            TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset + 12, tiffHeaderOffset);
-        } else if ("AOC\u0000".equals(firstFourChars)) {
-            // NON-Standard TIFF IFD Data using Casio Type 2 Tags
-            // IFD has no Next-IFD pointer at end of IFD, and
-            // Offsets are relative to the start of the current IFD tag, not the TIFF header
-            // Observed for:
-            // - Pentax ist D
-            pushDirectory(CasioType2MakernoteDirectory.class);
-            TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset + 6, makernoteOffset);
-        } else if (cameraMake != null && (cameraMake.toUpperCase().startsWith("PENTAX") || cameraMake.toUpperCase().startsWith("ASAHI"))) {
-            // NON-Standard TIFF IFD Data using Pentax Tags
-            // IFD has no Next-IFD pointer at end of IFD, and
-            // Offsets are relative to the start of the current IFD tag, not the TIFF header
-            // Observed for:
-            // - PENTAX Optio 330
-            // - PENTAX Optio 430
-            pushDirectory(PentaxMakernoteDirectory.class);
-            TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset, makernoteOffset);
-//        } else if ("KC".equals(firstTwoChars) || "MINOL".equals(firstFiveChars) || "MLY".equals(firstThreeChars) || "+M+M+M+M".equals(firstEightChars)) {
-//            // This Konica data is not understood.  Header identified in accordance with information at this site:
-//            // http://www.ozhiker.com/electronics/pjmt/jpeg_info/minolta_mn.html
-//            // TODO add support for minolta/konica cameras
-//            exifDirectory.addError("Unsupported Konica/Minolta data ignored.");
-        } else if ("SANYO\0\1\0".equals(firstEightChars)) {
-            pushDirectory(SanyoMakernoteDirectory.class);
-            TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset + 8, makernoteOffset);
-        } else if (cameraMake != null && cameraMake.toLowerCase().startsWith("ricoh")) {
-            if (firstTwoChars.equals("Rv") || firstThreeChars.equals("Rev")) {
-                // This is a textual format, where the makernote bytes look like:
-                //   Rv0103;Rg1C;Bg18;Ll0;Ld0;Aj0000;Bn0473800;Fp2E00:������������������������������
-                //   Rv0103;Rg1C;Bg18;Ll0;Ld0;Aj0000;Bn0473800;Fp2D05:������������������������������
-                //   Rv0207;Sf6C84;Rg76;Bg60;Gg42;Ll0;Ld0;Aj0004;Bn0B02900;Fp10B8;Md6700;Ln116900086D27;Sv263:0000000000000000000000��
-                // This format is currently unsupported
-                return false;
-            } else if (firstFiveChars.equalsIgnoreCase("Ricoh")) {
-                // Always in Motorola byte order
-                reader.setMotorolaByteOrder(true);
-                pushDirectory(RicohMakernoteDirectory.class);
-                TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset + 8, makernoteOffset);
-            }
-        } else {
-            // The makernote is not comprehended by this library.
-            // If you are reading this and believe a particular camera's image should be processed, get in touch.
-            return false;
-        }
+        // If the makernote is not comprehended by this library, it is stored as a regular tag.
+        // If you are reading this and believe a particular camera's image should be processed, get in touch.
+        boolean processed = _makernotePlan.dispatch(new Context(reader, processedIfdOffsets, tiffHeaderOffset, cameraMake), makernoteOffset);
 
         reader.setMotorolaByteOrder(byteOrderBefore);
-        return true;
+        return processed;
     }
 
-    private static void processKodakMakernote(@NotNull final KodakMakernoteDirectory directory, final int tagValueOffset, @NotNull final RandomAccessReader reader)
+    /** Presents this handler's state to a {@link MakernoteHandler}, reading makernote IFDs via {@link TiffReader}. */
+    private final class Context implements MakernoteContext
     {
-        // Kodak's makernote is not in IFD format. It has values at fixed offsets.
-        int dataOffset = tagValueOffset + 8;
-        try {
-            directory.setString(KodakMakernoteDirectory.TAG_KODAK_MODEL, reader.getString(dataOffset, 8));
-            directory.setInt(KodakMakernoteDirectory.TAG_QUALITY, reader.getUInt8(dataOffset + 9));
-            directory.setInt(KodakMakernoteDirectory.TAG_BURST_MODE, reader.getUInt8(dataOffset + 10));
-            directory.setInt(KodakMakernoteDirectory.TAG_IMAGE_WIDTH, reader.getUInt16(dataOffset + 12));
-            directory.setInt(KodakMakernoteDirectory.TAG_IMAGE_HEIGHT, reader.getUInt16(dataOffset + 14));
-            directory.setInt(KodakMakernoteDirectory.TAG_YEAR_CREATED, reader.getUInt16(dataOffset + 16));
-            directory.setByteArray(KodakMakernoteDirectory.TAG_MONTH_DAY_CREATED, reader.getBytes(dataOffset + 18, 2));
-            directory.setByteArray(KodakMakernoteDirectory.TAG_TIME_CREATED, reader.getBytes(dataOffset + 20, 4));
-            directory.setInt(KodakMakernoteDirectory.TAG_BURST_MODE_2, reader.getUInt16(dataOffset + 24));
-            directory.setInt(KodakMakernoteDirectory.TAG_SHUTTER_MODE, reader.getUInt8(dataOffset + 27));
-            directory.setInt(KodakMakernoteDirectory.TAG_METERING_MODE, reader.getUInt8(dataOffset + 28));
-            directory.setInt(KodakMakernoteDirectory.TAG_SEQUENCE_NUMBER, reader.getUInt8(dataOffset + 29));
-            directory.setInt(KodakMakernoteDirectory.TAG_F_NUMBER, reader.getUInt16(dataOffset + 30));
-            directory.setLong(KodakMakernoteDirectory.TAG_EXPOSURE_TIME, reader.getUInt32(dataOffset + 32));
-            directory.setInt(KodakMakernoteDirectory.TAG_EXPOSURE_COMPENSATION, reader.getInt16(dataOffset + 36));
-            directory.setInt(KodakMakernoteDirectory.TAG_FOCUS_MODE, reader.getUInt8(dataOffset + 56));
-            directory.setInt(KodakMakernoteDirectory.TAG_WHITE_BALANCE, reader.getUInt8(dataOffset + 64));
-            directory.setInt(KodakMakernoteDirectory.TAG_FLASH_MODE, reader.getUInt8(dataOffset + 92));
-            directory.setInt(KodakMakernoteDirectory.TAG_FLASH_FIRED, reader.getUInt8(dataOffset + 93));
-            directory.setInt(KodakMakernoteDirectory.TAG_ISO_SETTING, reader.getUInt16(dataOffset + 94));
-            directory.setInt(KodakMakernoteDirectory.TAG_ISO, reader.getUInt16(dataOffset + 96));
-            directory.setInt(KodakMakernoteDirectory.TAG_TOTAL_ZOOM, reader.getUInt16(dataOffset + 98));
-            directory.setInt(KodakMakernoteDirectory.TAG_DATE_TIME_STAMP, reader.getUInt16(dataOffset + 100));
-            directory.setInt(KodakMakernoteDirectory.TAG_COLOR_MODE, reader.getUInt16(dataOffset + 102));
-            directory.setInt(KodakMakernoteDirectory.TAG_DIGITAL_ZOOM, reader.getUInt16(dataOffset + 104));
-            directory.setInt(KodakMakernoteDirectory.TAG_SHARPNESS, reader.getInt8(dataOffset + 107));
-        } catch (IOException ex) {
-            directory.addError("Error processing Kodak makernote data: " + ex.getMessage());
+        @NotNull
+        private final RandomAccessReader _reader;
+        @NotNull
+        private final Set<Integer> _processedIfdOffsets;
+        private final int _tiffHeaderOffset;
+        @Nullable
+        private final String _cameraMake;
+
+        private Context(@NotNull RandomAccessReader reader, @NotNull Set<Integer> processedIfdOffsets, int tiffHeaderOffset, @Nullable String cameraMake)
+        {
+            _reader = reader;
+            _processedIfdOffsets = processedIfdOffsets;
+            _tiffHeaderOffset = tiffHeaderOffset;
+            _cameraMake = cameraMake;
+        }
+
+        @NotNull
+        public RandomAccessReader getReader()
+        {
+            return _reader;
+        }
+
+        @NotNull
+        public Metadata getMetadata()
+        {
+            return _metadata;
+        }
+
+        @Nullable
+        public String getCameraMake()
+        {
+            return _cameraMake;
+        }
+
+        public int getTiffHeaderOffset()
+        {
+            return _tiffHeaderOffset;
+        }
+
+        public void processIfd(@NotNull Class<? extends Directory> directoryClass, int ifdOffset, int tiffHeaderOffset) throws IOException
+        {
+            pushDirectory(directoryClass);
+            TiffReader.processIfd(ExifTiffHandler.this, _reader, _processedIfdOffsets, ifdOffset, tiffHeaderOffset);
         }
     }
 }
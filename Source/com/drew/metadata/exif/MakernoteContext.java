@@ -0,0 +1,70 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.metadata.exif;
+
+import com.drew.lang.RandomAccessReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.Directory;
+import com.drew.metadata.Metadata;
+
+import java.io.IOException;
+
+/**
+ * The state of an Exif extraction, as presented to a {@link MakernoteHandler}.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public interface MakernoteContext
+{
+    /**
+     * Gets the reader holding the makernote. Handlers may change its byte order, which is restored once they return.
+     */
+    @NotNull
+    RandomAccessReader getReader();
+
+    /**
+     * Gets the {@link Metadata} into which extracted values are being merged.
+     */
+    @NotNull
+    Metadata getMetadata();
+
+    /**
+     * Gets the camera make recorded in IFD0, or <code>null</code> if there is none.
+     */
+    @Nullable
+    String getCameraMake();
+
+    /**
+     * Gets the index of the TIFF header within {@link #getReader()}, relative to which Exif offsets are measured.
+     */
+    int getTiffHeaderOffset();
+
+    /**
+     * Reads an IFD into the directory of type <code>directoryClass</code>, creating it if necessary.
+     *
+     * @param directoryClass the type of directory to populate
+     * @param ifdOffset the index of the IFD within {@link #getReader()}
+     * @param tiffHeaderOffset the index relative to which offsets within the IFD are measured
+     */
+    void processIfd(@NotNull Class<? extends Directory> directoryClass, int ifdOffset, int tiffHeaderOffset) throws IOException;
+}
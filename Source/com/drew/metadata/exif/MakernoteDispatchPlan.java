@@ -0,0 +1,202 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.metadata.exif;
+
+import com.drew.lang.ByteSignature;
+import com.drew.lang.RandomAccessReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable plan for passing makernotes to the {@link MakernoteHandler} which understands them.
+ * <p/>
+ * The handlers' signatures are compiled into a trie, keyed by byte, so that the handler whose signature begins a
+ * makernote is found in a single pass over its first few bytes, however many handlers there are. Only handlers
+ * earlier in the plan than that one are asked whether they support the camera make. Plans hold no per-file state,
+ * and may be shared between threads.
+ * <p/>
+ * To support further makernote formats, compile a plan from {@link #DEFAULT_HANDLERS} and additional handlers, and
+ * pass it to {@link ExifReader}.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public final class MakernoteDispatchPlan
+{
+    /** The handlers for all makernote formats supported by this library, in order of precedence. */
+    @NotNull
+    public static final Iterable<MakernoteHandler> DEFAULT_HANDLERS = StandardMakernoteHandlers.ALL;
+
+    /** A plan for {@link #DEFAULT_HANDLERS}. */
+    @NotNull
+    public static final MakernoteDispatchPlan DEFAULT = new MakernoteDispatchPlan(DEFAULT_HANDLERS);
+
+    @NotNull
+    private final MakernoteHandler[] _handlers;
+    @NotNull
+    private final Node _root = new Node();
+    private final int _maxSignatureLength;
+
+    /**
+     * @param handlers the handlers to dispatch to, in order of precedence
+     */
+    @SuppressWarnings({ "ConstantConditions" })
+    public MakernoteDispatchPlan(@NotNull Iterable<MakernoteHandler> handlers)
+    {
+        if (handlers == null)
+            throw new NullPointerException();
+
+        List<MakernoteHandler> handlerList = new ArrayList<MakernoteHandler>();
+        int maxSignatureLength = 0;
+
+        for (MakernoteHandler handler : handlers) {
+            int precedence = handlerList.size();
+            handlerList.add(handler);
+            for (ByteSignature signature : handler.getSignatures()) {
+                insert(_root, signature, 0, precedence);
+                maxSignatureLength = Math.max(maxSignatureLength, signature.getLength());
+            }
+        }
+
+        _handlers = handlerList.toArray(new MakernoteHandler[handlerList.size()]);
+        _maxSignatureLength = maxSignatureLength;
+    }
+
+    private static void insert(@NotNull Node node, @NotNull ByteSignature signature, int index, int precedence)
+    {
+        if (index == signature.getLength()) {
+            // an earlier handler with the same signature takes precedence
+            node.precedence = Math.min(node.precedence, precedence);
+            return;
+        }
+
+        byte b = signature.getByte(index);
+        insert(node.getOrCreateChild(b), signature, index + 1, precedence);
+
+        // signatures which ignore case store lower case letters, so the upper case form is added too
+        if (signature.isIgnoreCase() && b >= 'a' && b <= 'z')
+            insert(node.getOrCreateChild((byte)(b - ('a' - 'A'))), signature, index + 1, precedence);
+    }
+
+    /**
+     * Processes a makernote with the handler which understands it.
+     *
+     * @param context the extraction in progress
+     * @param makernoteOffset the index of the makernote's first byte within {@link MakernoteContext#getReader()}
+     * @return <code>true</code> if the makernote was processed, or <code>false</code> if no handler understood it
+     */
+    public boolean dispatch(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+    {
+        MakernoteHandler handler = findHandler(context.getReader(), makernoteOffset, context.getCameraMake());
+        return handler != null && handler.process(context, makernoteOffset);
+    }
+
+    /**
+     * Gets the handler for a makernote, or <code>null</code> if no handler in this plan understands it.
+     *
+     * @param reader the reader holding the makernote
+     * @param makernoteOffset the index of the makernote's first byte within <code>reader</code>
+     * @param cameraMake the camera make recorded in IFD0, or <code>null</code> if there is none
+     */
+    @Nullable
+    public MakernoteHandler findHandler(@NotNull RandomAccessReader reader, int makernoteOffset, @Nullable String cameraMake) throws IOException
+    {
+        int length = _maxSignatureLength;
+        while (length > 0 && !reader.isAvailable(makernoteOffset, length))
+            length--;
+
+        // Find the earliest handler whose signature begins the makernote
+        int best = _handlers.length;
+        Node node = _root;
+        for (int i = 0; i < length && node.keys != null; i++) {
+            node = node.getChild(reader.getInt8(makernoteOffset + i));
+            if (node == null)
+                break;
+            if (node.precedence < best)
+                best = node.precedence;
+        }
+
+        // An earlier handler may yet claim the makernote by the camera make
+        if (cameraMake != null) {
+            for (int i = 0; i < best; i++) {
+                if (_handlers[i].isMakeSupported(cameraMake))
+                    return _handlers[i];
+            }
+        }
+
+        return best < _handlers.length ? _handlers[best] : null;
+    }
+
+    private static final class Node
+    {
+        /**
+         * The byte leading to each child, in the order in which children were added. Beyond the first few levels
+         * most nodes have a single child, so these are scanned rather than indexed by byte.
+         */
+        @Nullable
+        byte[] keys;
+        /** The children, parallel to {@link #keys}. */
+        @Nullable
+        Node[] children;
+        /** The precedence of the earliest handler whose signature ends at this node. */
+        int precedence = Integer.MAX_VALUE;
+
+        @Nullable
+        Node getChild(byte b)
+        {
+            if (keys == null)
+                return null;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == b)
+                    return children[i];
+            }
+            return null;
+        }
+
+        @NotNull
+        Node getOrCreateChild(byte b)
+        {
+            Node child = getChild(b);
+            if (child != null)
+                return child;
+
+            // plans are compiled once, so the arrays are kept exactly sized
+            int count = keys == null ? 0 : keys.length;
+            byte[] newKeys = new byte[count + 1];
+            Node[] newChildren = new Node[count + 1];
+            if (count != 0) {
+                System.arraycopy(keys, 0, newKeys, 0, count);
+                System.arraycopy(children, 0, newChildren, 0, count);
+            }
+
+            child = new Node();
+            newKeys[count] = b;
+            newChildren[count] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+}
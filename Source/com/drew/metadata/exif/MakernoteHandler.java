@@ -0,0 +1,65 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.metadata.exif;
+
+import com.drew.lang.ByteSignature;
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Identifies and processes one camera manufacturer's makernote format.
+ * <p/>
+ * Handlers are compiled into a {@link MakernoteDispatchPlan}, which selects the handler for a makernote using the
+ * signatures its data begins with, and the camera make recorded in IFD0. Where several handlers qualify, the one
+ * earliest in the plan is used.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public interface MakernoteHandler
+{
+    /**
+     * Gets the signatures with which this handler's makernote data may begin. A makernote beginning with any of them
+     * is passed to this handler, regardless of the camera make. May be empty.
+     */
+    @NotNull
+    ByteSignature[] getSignatures();
+
+    /**
+     * Gets a value indicating whether this handler should process makernotes from cameras of the specified make,
+     * where the makernote does not begin with a signature of a handler earlier in the plan.
+     * <p/>
+     * This is called for each makernote, so should not allocate.
+     *
+     * @param cameraMake the value of {@link ExifIFD0Directory#TAG_MAKE}
+     */
+    boolean isMakeSupported(@NotNull String cameraMake);
+
+    /**
+     * Processes the makernote at <code>makernoteOffset</code>.
+     *
+     * @param context the extraction in progress, through which makernote directories are populated
+     * @param makernoteOffset the index of the makernote's first byte within {@link MakernoteContext#getReader()}
+     * @return <code>true</code> if the makernote was processed, or <code>false</code> if it was not understood
+     */
+    boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException;
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+package com.drew.metadata.exif;
+
+import com.drew.lang.ByteSignature;
+import com.drew.lang.annotations.NotNull;
+
+/**
+ * Signatures found at the start of camera manufacturers' makernote data, used to identify the makernote's format.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+final class MakernoteSignatures
+{
+    @NotNull static final ByteSignature OLYMPUS = new ByteSignature("OLYMP");
+    @NotNull static final ByteSignature EPSON = new ByteSignature("EPSON");
+    @NotNull static final ByteSignature AGFA = new ByteSignature("AGFA");
+    @NotNull static final ByteSignature NIKON = new ByteSignature("Nikon");
+    @NotNull static final ByteSignature SONY_CAM = new ByteSignature("SONY CAM");
+    @NotNull static final ByteSignature SONY_DSC = new ByteSignature("SONY DSC");
+    @NotNull static final ByteSignature SONY_ERICSSON = new ByteSignature("SEMC MS\u0000\u0000\u0000\u0000\u0000");
+    @NotNull static final ByteSignature SIGMA = new ByteSignature("SIGMA\u0000\u0000\u0000");
+    @NotNull static final ByteSignature FOVEON = new ByteSignature("FOVEON\u0000\u0000");
+    @NotNull static final ByteSignature KODAK = new ByteSignature("KDK");
+    @NotNull static final ByteSignature KODAK_INFO = new ByteSignature("KDK INFO");
+    @NotNull static final ByteSignature CASIO_TYPE_2 = new ByteSignature("QVC\u0000\u0000\u0000");
+    @NotNull static final ByteSignature FUJIFILM = new ByteSignature("FUJIFILM");
+    @NotNull static final ByteSignature KYOCERA = new ByteSignature("KYOCERA");
+    @NotNull static final ByteSignature LEICA = new ByteSignature("LEICA");
+    @NotNull static final ByteSignature PANASONIC = new ByteSignature("Panasonic\u0000\u0000\u0000");
+    @NotNull static final ByteSignature PENTAX_CASIO_TYPE_2 = new ByteSignature("AOC\u0000");
+    @NotNull static final ByteSignature SANYO = new ByteSignature("SANYO\0\1\0");
+    @NotNull static final ByteSignature RICOH_TEXT_RV = new ByteSignature("Rv");
+    @NotNull static final ByteSignature RICOH_TEXT_REV = new ByteSignature("Rev");
+    @NotNull static final ByteSignature RICOH = new ByteSignature("Ricoh", true);
+
+    private MakernoteSignatures() throws Exception
+    {
+        throw new Exception("Not intended for instantiation");
+    }
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.metadata.exif;
+
+import com.drew.lang.ByteSignature;
+import com.drew.lang.RandomAccessReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.exif.makernotes.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The {@link MakernoteHandler}s for the makernote formats supported by this library.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+final class StandardMakernoteHandlers
+{
+    @NotNull
+    static final MakernoteHandler OLYMPUS = new Handler(MakernoteSignatures.OLYMPUS, MakernoteSignatures.EPSON, MakernoteSignatures.AGFA)
+    {
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+        {
+            // Olympus Makernote
+            // Epson and Agfa use Olympus makernote standard: http://www.ozhiker.com/electronics/pjmt/jpeg_info/
+            context.processIfd(OlympusMakernoteDirectory.class, makernoteOffset + 8, context.getTiffHeaderOffset());
+            return true;
+        }
+    };
+
+    @NotNull
+    static final MakernoteHandler MINOLTA = new Handler()
+    {
+        @Override
+        public boolean isMakeSupported(@NotNull String cameraMake)
+        {
+            return startsWithIgnoreCase(cameraMake, "MINOLTA");
+        }
+
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+        {
+            // Cases seen with the model starting with MINOLTA in capitals seem to have a valid Olympus makernote
+            // area that commences immediately.
+            context.processIfd(OlympusMakernoteDirectory.class, makernoteOffset, context.getTiffHeaderOffset());
+            return true;
+        }
+    };
+
+    @NotNull
+    static final MakernoteHandler NIKON = new Handler()
+    {
+        @Override
+        public boolean isMakeSupported(@NotNull String cameraMake)
+        {
+            // Equivalent to trimming, without allocating
+            int start = 0;
+            while (start < cameraMake.length() && cameraMake.charAt(start) <= ' ')
+                start++;
+            return cameraMake.regionMatches(true, start, "NIKON", 0, 5);
+        }
+
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+        {
+            RandomAccessReader reader = context.getReader();
+            if (MakernoteSignatures.NIKON.matches(reader, makernoteOffset)) {
+                /* There are two scenarios here:
+                 * Type 1:                  **
+                 * :0000: 4E 69 6B 6F 6E 00 01 00-05 00 02 00 02 00 06 00 Nikon...........
+                 * :0010: 00 00 EC 02 00 00 03 00-03 00 01 00 00 00 06 00 ................
+                 * Type 3:                  **
+                 * :0000: 4E 69 6B 6F 6E 00 02 00-00 00 4D 4D 00 2A 00 00 Nikon....MM.*...
+                 * :0010: 00 08 00 1E 00 01 00 07-00 00 00 04 30 32 30 30 ............0200
+                 */
+                switch (reader.getUInt8(makernoteOffset + 6)) {
+                    case 1:
+                        context.processIfd(NikonType1MakernoteDirectory.class, makernoteOffset + 8, context.getTiffHeaderOffset());
+                        break;
+                    case 2:
+                        context.processIfd(NikonType2MakernoteDirectory.class, makernoteOffset + 18, makernoteOffset + 10);
+                        break;
+                    default:
+                        context.getMetadata().getOrCreateDirectory(ExifIFD0Directory.class).addError("Unsupported Nikon makernote data ignored.");
+                        break;
+                }
+            } else {
+                // The IFD begins with the first Makernote byte (no ASCII name).  This occurs with CoolPix 775, E990 and D1 models.
+                context.processIfd(NikonType2MakernoteDirectory.class, makernoteOffset, context.getTiffHeaderOffset());
+            }
+            return true;
+        }
+    };
+
+    @NotNull
+    static final MakernoteHandler SONY = new Handler(MakernoteSignatures.SONY_CAM, MakernoteSignatures.SONY_DSC)
+    {
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+        {
+            context.processIfd(SonyType1MakernoteDirectory.class, makernoteOffset + 12, context.getTiffHeaderOffset());
+            return true;
+        }
+    };
+
+    @NotNull
+    static final MakernoteHandler SONY_ERICSSON = new Handler(MakernoteSignatures.SONY_ERICSSON)
+    {
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+        {
+            // force MM for this directory
+            context.getReader().setMotorolaByteOrder(true);
+            // skip 12 byte header + 2 for "MM" + 6
+            context.processIfd(SonyType6MakernoteDirectory.class, makernoteOffset + 20, context.getTiffHeaderOffset());
+            return true;
+        }
+    };
+
+    @NotNull
+    static final MakernoteHandler SIGMA = new Handler(MakernoteSignatures.SIGMA, MakernoteSignatures.FOVEON)
+    {
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+        {
+            context.processIfd(SigmaMakernoteDirectory.class, makernoteOffset + 10, context.getTiffHeaderOffset());
+            return true;
+        }
+    };
+
+    @NotNull
+    static final MakernoteHandler KODAK = new Handler(MakernoteSignatures.KODAK)
+    {
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+        {
+            RandomAccessReader reader = context.getReader();
+            reader.setMotorolaByteOrder(MakernoteSignatures.KODAK_INFO.matches(reader, makernoteOffset));
+            processKodakMakernote(context.getMetadata().getOrCreateDirectory(KodakMakernoteDirectory.class), makernoteOffset, reader);
+            return true;
+        }
+    };
+
+    @NotNull
+    static final MakernoteHandler CANON = new Handler()
+    {
+        @Override
+        public boolean isMakeSupported(@NotNull String cameraMake)
+        {
+            return "Canon".equalsIgnoreCase(cameraMake);
+        }
+
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+        {
+            context.processIfd(CanonMakernoteDirectory.class, makernoteOffset, context.getTiffHeaderOffset());
+            return true;
+        }
+    };
+
+    @NotNull
+    static final MakernoteHandler CASIO = new Handler()
+    {
+        @Override
+        public boolean isMakeSupported(@NotNull String cameraMake)
+        {
+            return startsWithIgnoreCase(cameraMake, "CASIO");
+        }
+
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+        {
+            if (MakernoteSignatures.CASIO_TYPE_2.matches(context.getReader(), makernoteOffset)) {
+                context.processIfd(CasioType2MakernoteDirectory.class, makernoteOffset + 6, context.getTiffHeaderOffset());
+            } else {
+                context.processIfd(CasioType1MakernoteDirectory.class, makernoteOffset, context.getTiffHeaderOffset());
+            }
+            return true;
+        }
+    };
+
+    @NotNull
+    static final MakernoteHandler FUJIFILM = new Handler(MakernoteSignatures.FUJIFILM)
+    {
+        @Override
+        public boolean isMakeSupported(@NotNull String cameraMake)
+        {
+            return "Fujifilm".equalsIgnoreCase(cameraMake);
+        }
+
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+        {
+            // Note that this also applies to certain Leica cameras, such as the Digilux-4.3
+            RandomAccessReader reader = context.getReader();
+            reader.setMotorolaByteOrder(false);
+            // the 4 bytes after "FUJIFILM" in the makernote point to the start of the makernote
+            // IFD, though the offset is relative to the start of the makernote, not the TIFF
+            // header (like everywhere else)
+            int ifdStart = makernoteOffset + reader.getInt32(makernoteOffset + 8);
+            context.processIfd(FujifilmMakernoteDirectory.class, ifdStart, makernoteOffset);
+            return true;
+        }
+    };
+
+    @NotNull
+    static final MakernoteHandler KYOCERA = new Handler(MakernoteSignatures.KYOCERA)
+    {
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+        {
+            // http://www.ozhiker.com/electronics/pjmt/jpeg_info/kyocera_mn.html
+            context.processIfd(KyoceraMakernoteDirectory.class, makernoteOffset + 22, context.getTiffHeaderOffset());
+            return true;
+        }
+    };
+
+    @NotNull
+    static final MakernoteHandler LEICA = new Handler(MakernoteSignatures.LEICA)
+    {
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+        {
+            context.getReader().setMotorolaByteOrder(false);
+            String cameraMake = context.getCameraMake();
+            if ("Leica Camera AG".equals(cameraMake)) {
+                context.processIfd(LeicaMakernoteDirectory.class, makernoteOffset + 8, context.getTiffHeaderOffset());
+            } else if ("LEICA".equals(cameraMake)) {
+                // Some Leica cameras use Panasonic makernote tags
+                context.processIfd(PanasonicMakernoteDirectory.class, makernoteOffset + 8, context.getTiffHeaderOffset());
+            } else {
+                return false;
+            }
+            return true;
+        }
+    };
+
+    @NotNull
+    static final MakernoteHandler PANASONIC = new Handler(MakernoteSignatures.PANASONIC)
+    {
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+        {
+            // NON-Standard TIFF IFD Data using Panasonic Tags. There is no Next-IFD pointer after the IFD
+            // Offsets are relative to the start of the TIFF header at the beginning of the EXIF segment
+            // more information here: http://www.ozhiker.com/electronics/pjmt/jpeg_info/panasonic_mn.html
+            context.processIfd(PanasonicMakernoteDirectory.class, makernoteOffset + 12, context.getTiffHeaderOffset());
+            return true;
+        }
+    };
+
+    @NotNull
+    static final MakernoteHandler PENTAX_CASIO_TYPE_2 = new Handler(MakernoteSignatures.PENTAX_CASIO_TYPE_2)
+    {
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+        {
+            // NON-Standard TIFF IFD Data using Casio Type 2 Tags
+            // IFD has no Next-IFD pointer at end of IFD, and
+            // Offsets are relative to the start of the current IFD tag, not the TIFF header
+            // Observed for:
+            // - Pentax ist D
+            context.processIfd(CasioType2MakernoteDirectory.class, makernoteOffset + 6, makernoteOffset);
+            return true;
+        }
+    };
+
+    @NotNull
+    static final MakernoteHandler PENTAX = new Handler()
+    {
+        @Override
+        public boolean isMakeSupported(@NotNull String cameraMake)
+        {
+            return startsWithIgnoreCase(cameraMake, "PENTAX") || startsWithIgnoreCase(cameraMake, "ASAHI");
+        }
+
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+        {
+            // NON-Standard TIFF IFD Data using Pentax Tags
+            // IFD has no Next-IFD pointer at end of IFD, and
+            // Offsets are relative to the start of the current IFD tag, not the TIFF header
+            // Observed for:
+            // - PENTAX Optio 330
+            // - PENTAX Optio 430
+            context.processIfd(PentaxMakernoteDirectory.class, makernoteOffset, makernoteOffset);
+            return true;
+        }
+    };
+
+    @NotNull
+    static final MakernoteHandler SANYO = new Handler(MakernoteSignatures.SANYO)
+    {
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+        {
+            context.processIfd(SanyoMakernoteDirectory.class, makernoteOffset + 8, makernoteOffset);
+            return true;
+        }
+    };
+
+    @NotNull
+    static final MakernoteHandler RICOH = new Handler()
+    {
+        @Override
+        public boolean isMakeSupported(@NotNull String cameraMake)
+        {
+            return startsWithIgnoreCase(cameraMake, "RICOH");
+        }
+
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset) throws IOException
+        {
+            RandomAccessReader reader = context.getReader();
+            if (MakernoteSignatures.RICOH_TEXT_RV.matches(reader, makernoteOffset) || MakernoteSignatures.RICOH_TEXT_REV.matches(reader, makernoteOffset)) {
+                // This is a textual format, where the makernote bytes look like:
+                //   Rv0103;Rg1C;Bg18;Ll0;Ld0;Aj0000;Bn0473800;Fp2E00:������������������������������
+                //   Rv0103;Rg1C;Bg18;Ll0;Ld0;Aj0000;Bn0473800;Fp2D05:������������������������������
+                //   Rv0207;Sf6C84;Rg76;Bg60;Gg42;Ll0;Ld0;Aj0004;Bn0B02900;Fp10B8;Md6700;Ln116900086D27;Sv263:0000000000000000000000��
+                // This format is currently unsupported
+                return false;
+            } else if (MakernoteSignatures.RICOH.matches(reader, makernoteOffset)) {
+                // Always in Motorola byte order
+                reader.setMotorolaByteOrder(true);
+                context.processIfd(RicohMakernoteDirectory.class, makernoteOffset + 8, makernoteOffset);
+            }
+            return true;
+        }
+    };
+
+    // This Konica data is not understood. Makernotes beginning with "KC", "MINOL", "MLY" or "+M+M+M+M" are Konica
+    // makernotes, according to http://www.ozhiker.com/electronics/pjmt/jpeg_info/minolta_mn.html
+    // TODO add a handler for Minolta/Konica cameras
+
+    @NotNull
+    static final List<MakernoteHandler> ALL = Collections.unmodifiableList(Arrays.asList(
+        OLYMPUS,
+        MINOLTA,
+        NIKON,
+        SONY,
+        SONY_ERICSSON,
+        SIGMA,
+        KODAK,
+        CANON,
+        CASIO,
+        FUJIFILM,
+        KYOCERA,
+        LEICA,
+        PANASONIC,
+        PENTAX_CASIO_TYPE_2,
+        PENTAX,
+        SANYO,
+        RICOH
+    ));
+
+    private static boolean startsWithIgnoreCase(@NotNull String s, @NotNull String prefix)
+    {
+        return s.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    private static void processKodakMakernote(@NotNull final KodakMakernoteDirectory directory, final int tagValueOffset, @NotNull final RandomAccessReader reader)
+    {
+        // Kodak's makernote is not in IFD format. It has values at fixed offsets.
+        int dataOffset = tagValueOffset + 8;
+        try {
+            directory.setString(KodakMakernoteDirectory.TAG_KODAK_MODEL, reader.getString(dataOffset, 8));
+            directory.setInt(KodakMakernoteDirectory.TAG_QUALITY, reader.getUInt8(dataOffset + 9));
+            directory.setInt(KodakMakernoteDirectory.TAG_BURST_MODE, reader.getUInt8(dataOffset + 10));
+            directory.setInt(KodakMakernoteDirectory.TAG_IMAGE_WIDTH, reader.getUInt16(dataOffset + 12));
+            directory.setInt(KodakMakernoteDirectory.TAG_IMAGE_HEIGHT, reader.getUInt16(dataOffset + 14));
+            directory.setInt(KodakMakernoteDirectory.TAG_YEAR_CREATED, reader.getUInt16(dataOffset + 16));
+            directory.setByteArray(KodakMakernoteDirectory.TAG_MONTH_DAY_CREATED, reader.getBytes(dataOffset + 18, 2));
+            directory.setByteArray(KodakMakernoteDirectory.TAG_TIME_CREATED, reader.getBytes(dataOffset + 20, 4));
+            directory.setInt(KodakMakernoteDirectory.TAG_BURST_MODE_2, reader.getUInt16(dataOffset + 24));
+            directory.setInt(KodakMakernoteDirectory.TAG_SHUTTER_MODE, reader.getUInt8(dataOffset + 27));
+            directory.setInt(KodakMakernoteDirectory.TAG_METERING_MODE, reader.getUInt8(dataOffset + 28));
+            directory.setInt(KodakMakernoteDirectory.TAG_SEQUENCE_NUMBER, reader.getUInt8(dataOffset + 29));
+            directory.setInt(KodakMakernoteDirectory.TAG_F_NUMBER, reader.getUInt16(dataOffset + 30));
+            directory.setLong(KodakMakernoteDirectory.TAG_EXPOSURE_TIME, reader.getUInt32(dataOffset + 32));
+            directory.setInt(KodakMakernoteDirectory.TAG_EXPOSURE_COMPENSATION, reader.getInt16(dataOffset + 36));
+            directory.setInt(KodakMakernoteDirectory.TAG_FOCUS_MODE, reader.getUInt8(dataOffset + 56));
+            directory.setInt(KodakMakernoteDirectory.TAG_WHITE_BALANCE, reader.getUInt8(dataOffset + 64));
+            directory.setInt(KodakMakernoteDirectory.TAG_FLASH_MODE, reader.getUInt8(dataOffset + 92));
+            directory.setInt(KodakMakernoteDirectory.TAG_FLASH_FIRED, reader.getUInt8(dataOffset + 93));
+            directory.setInt(KodakMakernoteDirectory.TAG_ISO_SETTING, reader.getUInt16(dataOffset + 94));
+            directory.setInt(KodakMakernoteDirectory.TAG_ISO, reader.getUInt16(dataOffset + 96));
+            directory.setInt(KodakMakernoteDirectory.TAG_TOTAL_ZOOM, reader.getUInt16(dataOffset + 98));
+            directory.setInt(KodakMakernoteDirectory.TAG_DATE_TIME_STAMP, reader.getUInt16(dataOffset + 100));
+            directory.setInt(KodakMakernoteDirectory.TAG_COLOR_MODE, reader.getUInt16(dataOffset + 102));
+            directory.setInt(KodakMakernoteDirectory.TAG_DIGITAL_ZOOM, reader.getUInt16(dataOffset + 104));
+            directory.setInt(KodakMakernoteDirectory.TAG_SHARPNESS, reader.getInt8(dataOffset + 107));
+        } catch (IOException ex) {
+            directory.addError("Error processing Kodak makernote data: " + ex.getMessage());
+        }
+    }
+
+    /** A handler identified by its signatures alone, unless {@link #isMakeSupported} is overridden. */
+    private static abstract class Handler implements MakernoteHandler
+    {
+        @NotNull
+        private final ByteSignature[] _signatures;
+
+        Handler(@NotNull ByteSignature... signatures)
+        {
+            _signatures = signatures;
+        }
+
+        @NotNull
+        public ByteSignature[] getSignatures()
+        {
+            return _signatures;
+        }
+
+        public boolean isMakeSupported(@NotNull String cameraMake)
+        {
+            return false;
+        }
+    }
+
+    private StandardMakernoteHandlers() throws Exception
+    {
+        throw new Exception("Not intended for instantiation");
+    }
+}
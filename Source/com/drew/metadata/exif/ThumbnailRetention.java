@@ -0,0 +1,41 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+package com.drew.metadata.exif;
+
+/**
+ * How the bytes of an Exif thumbnail are retained by {@link ExifThumbnailDirectory} during extraction.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public enum ThumbnailRetention
+{
+    /** The thumbnail bytes are not retained. */
+    NONE,
+    /** The thumbnail bytes are copied out of the source during extraction. */
+    COPY,
+    /**
+     * The thumbnail bytes are read from the source only when requested of {@link ExifThumbnailDirectory}. The
+     * source must remain readable until then, and the metadata retains a reference to it, and anything it buffers,
+     * until {@link ExifThumbnailDirectory#loadThumbnailData()} is called. This suits callers which own the source's
+     * lifetime and rarely need the thumbnail.
+     */
+    LAZY
+}
@@ -21,6 +21,7 @@
 package com.drew.metadata.icc;
 
 import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Directory;
 
 import java.util.HashMap;
@@ -171,6 +172,14 @@ public class IccDirectory extends Directory
         _tagNameMap.put(TAG_APPLE_MULTI_LANGUAGE_PROFILE_NAME, "Apple Multi-language Profile Name");
     }
 
+    /**
+     * The segments of a profile split across several JPEG APP2 segments, indexed by sequence number less one, while the
+     * profile is reassembled. This is <code>null</code> when no profile is pending.
+     */
+    @Nullable
+    private byte[][] _pendingChunks;
+    private int _pendingChunkCount;
+
     public IccDirectory()
     {
         this.setDescriptor(new IccDescriptor(this));
@@ -187,4 +196,62 @@ public class IccDirectory extends Directory
     {
         return _tagNameMap;
     }
+
+    /**
+     * Records one segment of a profile split across several JPEG APP2 segments.
+     *
+     * @param sequenceNumber the segment's one-based position within the profile
+     * @param chunkCount the number of segments over which the profile is split
+     * @param segmentBytes the segment's data, including its preamble
+     * @return all of the profile's segments in sequence order, once the last is added, otherwise <code>null</code>
+     */
+    @Nullable
+    byte[][] addChunk(int sequenceNumber, int chunkCount, @NotNull byte[] segmentBytes)
+    {
+        if (_pendingChunks == null) {
+            _pendingChunks = new byte[chunkCount][];
+            _pendingChunkCount = 0;
+        } else if (_pendingChunks.length != chunkCount) {
+            addError(String.format("ICC profile segment count changed from %d to %d", _pendingChunks.length, chunkCount));
+            return null;
+        }
+
+        if (sequenceNumber < 1 || sequenceNumber > chunkCount) {
+            addError(String.format("ICC profile segment sequence number %d is outside the range 1 to %d", sequenceNumber, chunkCount));
+            return null;
+        }
+
+        if (_pendingChunks[sequenceNumber - 1] != null) {
+            addError(String.format("Duplicate ICC profile segment with sequence number %d", sequenceNumber));
+            return null;
+        }
+
+        _pendingChunks[sequenceNumber - 1] = segmentBytes;
+        if (++_pendingChunkCount < chunkCount)
+            return null;
+
+        byte[][] chunks = _pendingChunks;
+        _pendingChunks = null;
+        return chunks;
+    }
+
+    @Override
+    protected void merge(@NotNull Directory other)
+    {
+        super.merge(other);
+
+        // Segments of a split profile may have been extracted into separate directories, such as when segments are
+        // decoded concurrently, in which case the profile is read once the last of them is merged
+        byte[][] chunks = ((IccDirectory)other)._pendingChunks;
+        if (chunks == null)
+            return;
+
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i] == null)
+                continue;
+            byte[][] completeChunks = addChunk(i + 1, chunks.length, chunks[i]);
+            if (completeChunks != null)
+                new IccReader().extractChunks(completeChunks, this);
+        }
+    }
 }
@@ -23,6 +23,8 @@ package com.drew.metadata.icc;
 import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
 import com.drew.imaging.jpeg.JpegSegmentType;
 import com.drew.lang.ByteArrayReader;
+import com.drew.lang.ByteSignature;
+import com.drew.lang.RandomAccessCompositeReader;
 import com.drew.lang.RandomAccessReader;
 import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.Directory;
@@ -46,6 +48,11 @@ import java.util.TimeZone;
  */
 public class IccReader implements JpegSegmentMetadataReader
 {
+    @NotNull
+    private static final ByteSignature PREAMBLE = new ByteSignature("ICC_PROFILE", true);
+    /** The length of the "ICC_PROFILE\0" preamble, and the sequence number and segment count bytes that follow it. */
+    private static final int PREAMBLE_LENGTH = 14;
+
     @NotNull
     public Iterable<JpegSegmentType> getSegmentTypes()
     {
@@ -54,23 +61,59 @@ public class IccReader implements JpegSegmentMetadataReader
 
     public boolean canProcess(@NotNull byte[] segmentBytes, @NotNull JpegSegmentType segmentType)
     {
-        return segmentBytes.length > 10 && "ICC_PROFILE".equalsIgnoreCase(new String(segmentBytes, 0, 11));
+        return PREAMBLE.matches(segmentBytes);
     }
 
     public void extract(@NotNull byte[] segmentBytes, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
     {
-        // skip the first 14 bytes
-        byte[] iccProfileBytes = new byte[segmentBytes.length - 14];
-        System.arraycopy(segmentBytes, 14, iccProfileBytes, 0, segmentBytes.length - 14);
+        RandomAccessReader reader;
+        try {
+            reader = new ByteArrayReader(segmentBytes).slice(PREAMBLE_LENGTH, segmentBytes.length - PREAMBLE_LENGTH);
+        } catch (IOException e) {
+            metadata.getOrCreateDirectory(IccDirectory.class).addError("ICC data segment is too short");
+            return;
+        }
 
-        extract(new ByteArrayReader(iccProfileBytes), metadata);
+        // Profiles too large for a single segment are split over several, and are read once all have been seen
+        final int sequenceNumber = segmentBytes[12] & 0xFF;
+        final int chunkCount = segmentBytes[13] & 0xFF;
+        if (chunkCount > 1) {
+            IccDirectory directory = metadata.getOrCreateDirectory(IccDirectory.class);
+            byte[][] chunks = directory.addChunk(sequenceNumber, chunkCount, segmentBytes);
+            if (chunks != null)
+                extractChunks(chunks, directory);
+            return;
+        }
+
+        extract(reader, metadata);
+    }
+
+    /**
+     * Reads a profile split across several APP2 segments, through a view over the segments' arrays rather than a
+     * concatenated copy of them.
+     *
+     * @param chunks the segments' data, including their preambles, in sequence order
+     */
+    void extractChunks(@NotNull byte[][] chunks, @NotNull IccDirectory directory)
+    {
+        int[] offsets = new int[chunks.length];
+        int[] lengths = new int[chunks.length];
+        for (int i = 0; i < chunks.length; i++) {
+            offsets[i] = PREAMBLE_LENGTH;
+            lengths[i] = chunks[i].length - PREAMBLE_LENGTH;
+        }
+
+        extract(new RandomAccessCompositeReader(chunks, offsets, lengths), directory);
     }
 
     public void extract(@NotNull final RandomAccessReader reader, @NotNull final Metadata metadata)
     {
-        // TODO review whether the 'tagPtr' values below really do require ICC processing to work with a RandomAccessReader
+        extract(reader, metadata.getOrCreateDirectory(IccDirectory.class));
+    }
 
-        final IccDirectory directory = metadata.getOrCreateDirectory(IccDirectory.class);
+    private void extract(@NotNull final RandomAccessReader reader, @NotNull final IccDirectory directory)
+    {
+        // TODO review whether the 'tagPtr' values below really do require ICC processing to work with a RandomAccessReader
 
         try {
             directory.setInt(IccDirectory.TAG_PROFILE_BYTE_COUNT, reader.getInt32(IccDirectory.TAG_PROFILE_BYTE_COUNT));
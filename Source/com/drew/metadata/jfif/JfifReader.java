@@ -20,9 +20,10 @@
  */
 package com.drew.metadata.jfif;
 
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.CompletableJpegSegmentMetadataReader;
 import com.drew.imaging.jpeg.JpegSegmentType;
 import com.drew.lang.ByteArrayReader;
+import com.drew.lang.ByteSignature;
 import com.drew.lang.RandomAccessReader;
 import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.Metadata;
@@ -37,17 +38,26 @@ import java.util.Arrays;
  *
  * @author Yuri Binev, Drew Noakes, Markus Meyer
  */
-public class JfifReader implements JpegSegmentMetadataReader
+public class JfifReader implements CompletableJpegSegmentMetadataReader
 {
+    @NotNull
+    private static final ByteSignature PREAMBLE = new ByteSignature("JFIF");
+
     @NotNull
     public Iterable<JpegSegmentType> getSegmentTypes()
     {
         return Arrays.asList(JpegSegmentType.APP0);
     }
 
+    public boolean isCompletedBy(@NotNull final byte[] segmentBytes, @NotNull final JpegSegmentType segmentType)
+    {
+        // Only the first JFIF segment is of interest
+        return true;
+    }
+
     public boolean canProcess(@NotNull byte[] segmentBytes, @NotNull JpegSegmentType segmentType)
     {
-        return segmentBytes.length > 3 && "JFIF".equals(new String(segmentBytes, 0, 4));
+        return PREAMBLE.matches(segmentBytes);
     }
 
     public void extract(@NotNull byte[] segmentBytes, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
@@ -20,7 +20,7 @@
  */
 package com.drew.metadata.jpeg;
 
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.CompletableJpegSegmentMetadataReader;
 import com.drew.imaging.jpeg.JpegSegmentType;
 import com.drew.lang.SequentialByteArrayReader;
 import com.drew.lang.SequentialReader;
@@ -36,7 +36,7 @@ import java.util.Arrays;
  * @author Drew Noakes http://drewnoakes.com
  * @author Darrell Silver http://www.darrellsilver.com
  */
-public class JpegReader implements JpegSegmentMetadataReader
+public class JpegReader implements CompletableJpegSegmentMetadataReader
 {
     @NotNull
     public Iterable<JpegSegmentType> getSegmentTypes()
@@ -62,6 +62,12 @@ public class JpegReader implements JpegSegmentMetadataReader
         );
     }
 
+    public boolean isCompletedBy(@NotNull final byte[] segmentBytes, @NotNull final JpegSegmentType segmentType)
+    {
+        // Only the first SOFn segment is processed
+        return true;
+    }
+
     public boolean canProcess(@NotNull byte[] segmentBytes, @NotNull JpegSegmentType segmentType)
     {
         return true;
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+package com.drew.metadata.mpf;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.TagDescriptor;
+
+/**
+ * Provides human-readable string versions of the tags stored in an {@link MpfDirectory}.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class MpfDescriptor extends TagDescriptor<MpfDirectory>
+{
+    public MpfDescriptor(@NotNull MpfDirectory directory)
+    {
+        super(directory);
+    }
+
+    @Nullable
+    public String getDescription(int tagType)
+    {
+        switch (tagType) {
+            case MpfDirectory.TAG_MPF_VERSION:
+                return getMpfVersionDescription();
+            case MpfDirectory.TAG_MP_ENTRY:
+                return getMpEntryDescription();
+            default:
+                return super.getDescription(tagType);
+        }
+    }
+
+    @Nullable
+    public String getMpfVersionDescription()
+    {
+        return getVersionBytesDescription(MpfDirectory.TAG_MPF_VERSION, 2);
+    }
+
+    @Nullable
+    public String getMpEntryDescription()
+    {
+        if (!_directory.containsTag(MpfDirectory.TAG_MP_ENTRY))
+            return null;
+
+        StringBuilder description = new StringBuilder();
+        for (MpfEntry entry : _directory.getEntries()) {
+            if (description.length() != 0)
+                description.append(", ");
+            description.append(entry);
+        }
+        return description.toString();
+    }
+}
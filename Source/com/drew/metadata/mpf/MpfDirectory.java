@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+package com.drew.metadata.mpf;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.Directory;
+
+import java.util.HashMap;
+
+/**
+ * Holds the MP Index IFD of a Multi-Picture Format (MPF) APP2 segment, which indexes the images stored in a JPEG file.
+ * <p/>
+ * The raw MP Entry tag is decoded into {@link MpfEntry} objects, available via {@link #getEntries()}.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class MpfDirectory extends Directory
+{
+    public static final int TAG_MPF_VERSION = 0xB000;
+    public static final int TAG_NUMBER_OF_IMAGES = 0xB001;
+    /** An array of 16-byte entries, one per image, giving each image's type, size and offset. */
+    public static final int TAG_MP_ENTRY = 0xB002;
+    public static final int TAG_IMAGE_UID_LIST = 0xB003;
+    public static final int TAG_TOTAL_FRAMES = 0xB004;
+
+    @NotNull
+    protected static final HashMap<Integer, String> _tagNameMap = new HashMap<Integer, String>();
+
+    static
+    {
+        _tagNameMap.put(TAG_MPF_VERSION, "MPF Version");
+        _tagNameMap.put(TAG_NUMBER_OF_IMAGES, "Number of Images");
+        _tagNameMap.put(TAG_MP_ENTRY, "MP Entry");
+        _tagNameMap.put(TAG_IMAGE_UID_LIST, "Image UID List");
+        _tagNameMap.put(TAG_TOTAL_FRAMES, "Total Frames");
+    }
+
+    @NotNull
+    private MpfEntry[] _entries = new MpfEntry[0];
+
+    public MpfDirectory()
+    {
+        this.setDescriptor(new MpfDescriptor(this));
+    }
+
+    @NotNull
+    public String getName()
+    {
+        return "MPF";
+    }
+
+    @NotNull
+    protected HashMap<Integer, String> getTagNameMap()
+    {
+        return _tagNameMap;
+    }
+
+    /**
+     * Gets the entries of the MP Index, one per image, in the order they are listed. The first entry describes the
+     * primary image, which begins at the start of the file.
+     */
+    @NotNull
+    public MpfEntry[] getEntries()
+    {
+        return _entries.clone();
+    }
+
+    void setEntries(@NotNull MpfEntry[] entries)
+    {
+        _entries = entries;
+    }
+
+    @Override
+    protected void merge(@NotNull Directory other)
+    {
+        super.merge(other);
+
+        MpfEntry[] entries = ((MpfDirectory)other)._entries;
+        if (entries.length != 0)
+            _entries = entries;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+package com.drew.metadata.mpf;
+
+import com.drew.lang.annotations.NotNull;
+
+/**
+ * An entry of the MP Index in a Multi-Picture Format (MPF) segment, describing one image stored in a JPEG file.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public final class MpfEntry
+{
+    public static final int TYPE_UNDEFINED = 0x000000;
+    public static final int TYPE_LARGE_THUMBNAIL_VGA = 0x010001;
+    public static final int TYPE_LARGE_THUMBNAIL_FULL_HD = 0x010002;
+    public static final int TYPE_MULTI_FRAME_PANORAMA = 0x020001;
+    public static final int TYPE_MULTI_FRAME_DISPARITY = 0x020002;
+    public static final int TYPE_MULTI_FRAME_MULTI_ANGLE = 0x020003;
+    public static final int TYPE_BASELINE_MP_PRIMARY_IMAGE = 0x030000;
+
+    private final int _index;
+    private final int _attributes;
+    private final long _size;
+    private final long _offset;
+    private final int _dependentImage1EntryNumber;
+    private final int _dependentImage2EntryNumber;
+
+    public MpfEntry(int index, int attributes, long size, long offset, int dependentImage1EntryNumber, int dependentImage2EntryNumber)
+    {
+        _index = index;
+        _attributes = attributes;
+        _size = size;
+        _offset = offset;
+        _dependentImage1EntryNumber = dependentImage1EntryNumber;
+        _dependentImage2EntryNumber = dependentImage2EntryNumber;
+    }
+
+    /** Gets the zero-based position of this entry within the MP Index. */
+    public int getIndex()
+    {
+        return _index;
+    }
+
+    /** Gets the raw 32-bit Individual Image Attribute value, holding this entry's flags, data format and type. */
+    public int getAttributes()
+    {
+        return _attributes;
+    }
+
+    /** Gets the type code of this image, such as {@link #TYPE_LARGE_THUMBNAIL_FULL_HD}. */
+    public int getType()
+    {
+        return _attributes & 0xFFFFFF;
+    }
+
+    /** Gets the image data format, where zero indicates JPEG. */
+    public int getDataFormat()
+    {
+        return (_attributes >> 24) & 0x7;
+    }
+
+    public boolean isDependentParentImage()
+    {
+        return (_attributes & 0x80000000) != 0;
+    }
+
+    public boolean isDependentChildImage()
+    {
+        return (_attributes & 0x40000000) != 0;
+    }
+
+    public boolean isRepresentativeImage()
+    {
+        return (_attributes & 0x20000000) != 0;
+    }
+
+    /** Gets the length of this image's data, in bytes. */
+    public long getSize()
+    {
+        return _size;
+    }
+
+    /**
+     * Gets the offset of this image's data, relative to the start of the MP header within the MPF segment. The primary
+     * image, which begins at the start of the file, has an offset of zero.
+     */
+    public long getOffset()
+    {
+        return _offset;
+    }
+
+    public int getDependentImage1EntryNumber()
+    {
+        return _dependentImage1EntryNumber;
+    }
+
+    public int getDependentImage2EntryNumber()
+    {
+        return _dependentImage2EntryNumber;
+    }
+
+    /** Gets a description of this image's type, such as "Large Thumbnail (VGA)". */
+    @NotNull
+    public String getTypeDescription()
+    {
+        switch (getType()) {
+            case TYPE_UNDEFINED: return "Undefined";
+            case TYPE_LARGE_THUMBNAIL_VGA: return "Large Thumbnail (VGA)";
+            case TYPE_LARGE_THUMBNAIL_FULL_HD: return "Large Thumbnail (Full HD)";
+            case TYPE_MULTI_FRAME_PANORAMA: return "Multi-Frame Image (Panorama)";
+            case TYPE_MULTI_FRAME_DISPARITY: return "Multi-Frame Image (Disparity)";
+            case TYPE_MULTI_FRAME_MULTI_ANGLE: return "Multi-Frame Image (Multi-Angle)";
+            case TYPE_BASELINE_MP_PRIMARY_IMAGE: return "Baseline MP Primary Image";
+            default: return String.format("Unknown (0x%06X)", getType());
+        }
+    }
+
+    @NotNull
+    @Override
+    public String toString()
+    {
+        return String.format("%s of %d bytes at offset %d", getTypeDescription(), _size, _offset);
+    }
+}
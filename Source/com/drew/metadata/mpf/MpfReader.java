@@ -0,0 +1,191 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+package com.drew.metadata.mpf;
+
+import com.drew.imaging.jpeg.JpegProcessingException;
+import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.imaging.tiff.TiffProcessingException;
+import com.drew.imaging.tiff.TiffReader;
+import com.drew.lang.ByteArrayReader;
+import com.drew.lang.ByteSignature;
+import com.drew.lang.RandomAccessReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.Metadata;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads the Multi-Picture Format (MPF) index from a JPEG APP2 segment.
+ * <p/>
+ * Many cameras store additional images after the primary image of a JPEG file, such as large previews or the frames
+ * of a stereo pair. The MPF segment indexes them via a TIFF-structured MP Index IFD, whose MP Entry tag gives the
+ * type, size and offset of each image. Use {@link #getImageReader} to read one of those images directly.
+ * <ul>
+ * <li>http://www.cipa.jp/std/documents/e/DC-007_E.pdf</li>
+ * <li>http://www.sno.phy.queensu.ca/~phil/exiftool/TagNames/MPF.html</li>
+ * </ul>
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class MpfReader implements JpegSegmentMetadataReader
+{
+    @NotNull
+    private static final ByteSignature PREAMBLE = new ByteSignature("MPF\0");
+    private static final int MP_ENTRY_LENGTH = 16;
+
+    private static final int MARKER_SOI = 0xD8;
+    private static final int MARKER_EOI = 0xD9;
+    private static final int SEGMENT_SOS = 0xDA;
+    private static final int SEGMENT_APP2 = 0xE2;
+
+    @NotNull
+    public Iterable<JpegSegmentType> getSegmentTypes()
+    {
+        return Arrays.asList(JpegSegmentType.APP2);
+    }
+
+    public boolean canProcess(@NotNull byte[] segmentBytes, @NotNull JpegSegmentType segmentType)
+    {
+        return PREAMBLE.matches(segmentBytes);
+    }
+
+    public void extract(@NotNull byte[] segmentBytes, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
+    {
+        ByteArrayReader reader = new ByteArrayReader(segmentBytes);
+
+        try {
+            // The MP header, which follows the preamble, is a TIFF header and the offsets within it are relative to it
+            new TiffReader().processTiff(reader, new MpfTiffHandler(metadata), PREAMBLE.getLength());
+        } catch (TiffProcessingException e) {
+            metadata.getOrCreateDirectory(MpfDirectory.class).addError("Exception processing MPF data: " + e.getMessage());
+            return;
+        } catch (IOException e) {
+            metadata.getOrCreateDirectory(MpfDirectory.class).addError("Exception processing MPF data: " + e.getMessage());
+            return;
+        }
+
+        MpfDirectory directory = metadata.getOrCreateDirectory(MpfDirectory.class);
+        byte[] entryBytes = directory.getByteArray(MpfDirectory.TAG_MP_ENTRY);
+        if (entryBytes != null)
+            directory.setEntries(readEntries(entryBytes, reader.isMotorolaByteOrder(), directory));
+    }
+
+    /**
+     * Decodes the MP Entry tag's value, which has a 16-byte entry per image in the byte order of the MP header:
+     * <ul>
+     *     <li><b>4 bytes</b> individual image attribute flags, data format and type</li>
+     *     <li><b>4 bytes</b> image size</li>
+     *     <li><b>4 bytes</b> image data offset, relative to the MP header</li>
+     *     <li><b>2 bytes</b> dependent image 1 entry number</li>
+     *     <li><b>2 bytes</b> dependent image 2 entry number</li>
+     * </ul>
+     */
+    @NotNull
+    private static MpfEntry[] readEntries(@NotNull byte[] entryBytes, boolean isMotorolaByteOrder, @NotNull MpfDirectory directory)
+    {
+        if (entryBytes.length % MP_ENTRY_LENGTH != 0)
+            directory.addError(String.format("MP Entry length of %d bytes is not a multiple of %d", entryBytes.length, MP_ENTRY_LENGTH));
+
+        ByteArrayReader reader = new ByteArrayReader(entryBytes);
+        reader.setMotorolaByteOrder(isMotorolaByteOrder);
+
+        MpfEntry[] entries = new MpfEntry[entryBytes.length / MP_ENTRY_LENGTH];
+        try {
+            for (int i = 0; i < entries.length; i++) {
+                int base = i * MP_ENTRY_LENGTH;
+                entries[i] = new MpfEntry(
+                    i,
+                    reader.getInt32(base),
+                    reader.getUInt32(base + 4),
+                    reader.getUInt32(base + 8),
+                    reader.getUInt16(base + 12),
+                    reader.getUInt16(base + 14));
+            }
+        } catch (IOException e) {
+            // Cannot happen, as the array's length was checked above
+            directory.addError("Exception reading MP Entry: " + e.getMessage());
+            return new MpfEntry[0];
+        }
+        return entries;
+    }
+
+    /**
+     * Gets a reader over the data of one of the images indexed by a file's MPF segment, such as a large preview.
+     * <p/>
+     * Only the headers of the JPEG segments which precede the MPF segment are read in order to locate the image. The
+     * data of the primary image, and of other indexed images, is not read.
+     *
+     * @param jpegReader a reader over the entire JPEG file from which <code>entry</code> was read
+     * @param entry an entry from the file's {@link MpfDirectory}
+     * @return a reader over exactly the bytes of the image described by <code>entry</code>
+     * @throws JpegProcessingException if no MPF segment is found in the file's header
+     * @throws IOException if the image lies beyond the end of the file, or the file cannot be read
+     */
+    @NotNull
+    public static RandomAccessReader getImageReader(@NotNull RandomAccessReader jpegReader, @NotNull MpfEntry entry) throws JpegProcessingException, IOException
+    {
+        if (entry.getSize() > Integer.MAX_VALUE)
+            throw new IOException(String.format("MPF image of %d bytes is too large to be read", entry.getSize()));
+
+        // The primary image starts at the beginning of the file, and has an offset of zero. Other offsets are relative
+        // to the MP header.
+        long start = entry.getOffset() == 0 ? 0 : findMpHeaderOffset(jpegReader) + entry.getOffset();
+        return jpegReader.slice(start, (int)entry.getSize());
+    }
+
+    /**
+     * Walks the headers of the segments at the start of a JPEG file to find the MPF segment, returning the offset of
+     * the MP header within it.
+     */
+    private static int findMpHeaderOffset(@NotNull RandomAccessReader reader) throws JpegProcessingException, IOException
+    {
+        if (reader.getUInt8(0) != 0xFF || reader.getUInt8(1) != MARKER_SOI)
+            throw new JpegProcessingException("JPEG data is expected to begin with 0xFFD8");
+
+        int offset = 2;
+        while (true) {
+            if (reader.getUInt8(offset) != 0xFF)
+                throw new JpegProcessingException(String.format("Expected JPEG segment start identifier 0xFF at offset %d", offset));
+
+            int segmentType = reader.getUInt8(offset + 1);
+
+            // Markers may be preceded by any number of 0xFF fill bytes
+            if (segmentType == 0xFF) {
+                offset++;
+                continue;
+            }
+
+            if (segmentType == SEGMENT_SOS || segmentType == MARKER_EOI)
+                throw new JpegProcessingException("No MPF segment was found before the image data");
+
+            int segmentLength = (reader.getUInt8(offset + 2) << 8) | reader.getUInt8(offset + 3);
+            int dataOffset = offset + 4;
+
+            if (segmentType == SEGMENT_APP2 && PREAMBLE.matches(reader, dataOffset))
+                return dataOffset + PREAMBLE.getLength();
+
+            // The segment length includes the two length bytes
+            offset += 2 + segmentLength;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+package com.drew.metadata.mpf;
+
+import com.drew.imaging.tiff.TiffProcessingException;
+import com.drew.lang.RandomAccessReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.tiff.DirectoryTiffHandler;
+
+import java.util.Set;
+
+/**
+ * Implementation of {@link com.drew.imaging.tiff.TiffHandler} used for reading the MP Index IFD of an MPF segment.
+ * <p/>
+ * The MP Attribute IFD which may follow it is not read.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+class MpfTiffHandler extends DirectoryTiffHandler
+{
+    MpfTiffHandler(@NotNull Metadata metadata)
+    {
+        super(metadata, MpfDirectory.class);
+    }
+
+    public void setTiffMarker(int marker) throws TiffProcessingException
+    {
+        final int standardTiffMarker = 0x002A;
+
+        if (marker != standardTiffMarker)
+            throw new TiffProcessingException("Unexpected TIFF marker in MPF data: 0x" + Integer.toHexString(marker));
+    }
+
+    public boolean isTagIfdPointer(int tagType)
+    {
+        return false;
+    }
+
+    public boolean hasFollowerIfd()
+    {
+        return false;
+    }
+
+    public boolean customProcessTag(int makernoteOffset, @NotNull Set<Integer> processedIfdOffsets, int tiffHeaderOffset, @NotNull RandomAccessReader reader, int tagId, int byteCount)
+    {
+        return false;
+    }
+
+    public void completed(@NotNull RandomAccessReader reader, int tiffHeaderOffset)
+    {
+    }
+}
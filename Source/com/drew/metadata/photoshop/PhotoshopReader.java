@@ -23,8 +23,8 @@ package com.drew.metadata.photoshop;
 import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
 import com.drew.imaging.jpeg.JpegSegmentType;
 import com.drew.lang.ByteArrayReader;
+import com.drew.lang.ByteSignature;
 import com.drew.lang.RandomAccessReader;
-import com.drew.lang.SequentialByteArrayReader;
 import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.Metadata;
 import com.drew.metadata.iptc.IptcReader;
@@ -41,6 +41,9 @@ import java.util.Arrays;
  */
 public class PhotoshopReader implements JpegSegmentMetadataReader
 {
+    @NotNull
+    private static final ByteSignature PREAMBLE = new ByteSignature("Photoshop 3.0");
+
     @NotNull
     public Iterable<JpegSegmentType> getSegmentTypes()
     {
@@ -49,7 +52,7 @@ public class PhotoshopReader implements JpegSegmentMetadataReader
 
     public boolean canProcess(@NotNull byte[] segmentBytes, @NotNull JpegSegmentType segmentType)
     {
-        return segmentBytes.length > 12 && "Photoshop 3.0".equals(new String(segmentBytes, 0, 13));
+        return PREAMBLE.matches(segmentBytes);
     }
 
     public void extract(@NotNull byte[] segmentBytes, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
@@ -63,22 +66,19 @@ public class PhotoshopReader implements JpegSegmentMetadataReader
 
         int pos;
         try {
-            pos = reader.getString(0, 13).equals("Photoshop 3.0") ? 14 : 0;
+            if (!reader.isAvailable(0, PREAMBLE.getLength()))
+                throw new IOException("Data too short for header");
+            pos = PREAMBLE.matches(reader, 0) ? PREAMBLE.getLength() + 1 : 0;
         } catch (IOException e) {
             directory.addError("Unable to read header");
             return;
         }
 
-        long length;
-        try {
-            length = reader.getLength();
-        } catch (IOException e) {
-            directory.addError("Unable to read Photoshop data: " + e.getMessage());
-            return;
-        }
-
-        while (pos < length) {
+        while (true) {
             try {
+                if (!reader.isAvailable(pos, 1))
+                    return;
+
                 // 4 bytes for the signature.  Should always be "8BIM".
                 //String signature = new String(data, pos, 4);
                 pos += 4;
@@ -91,7 +91,7 @@ public class PhotoshopReader implements JpegSegmentMetadataReader
                 int descriptionLength = reader.getUInt16(pos);
                 pos += 2;
                 // Some basic bounds checking
-                if (descriptionLength < 0 || descriptionLength + pos > length)
+                if (descriptionLength < 0 || !reader.isAvailable(pos, descriptionLength))
                     return;
                 //String description = new String(data, pos, descriptionLength);
                 pos += descriptionLength;
@@ -103,6 +103,7 @@ public class PhotoshopReader implements JpegSegmentMetadataReader
                 int byteCount = reader.getInt32(pos);
                 pos += 4;
                 // The resource data.
+                int tagOffset = pos;
                 byte[] tagBytes = reader.getBytes(pos, byteCount);
                 pos += byteCount;
                 // The number of bytes is padded with a trailing zero, if needed, to make the size even.
@@ -111,9 +112,8 @@ public class PhotoshopReader implements JpegSegmentMetadataReader
 
                 directory.setByteArray(tagType, tagBytes);
 
-                // TODO allow rebasing the reader with a new zero-point, rather than copying data here
                 if (tagType == PhotoshopDirectory.TAG_IPTC)
-                    new IptcReader().extract(new SequentialByteArrayReader(tagBytes), metadata, tagBytes.length);
+                    new IptcReader().extract(reader.sliceSequential(tagOffset, byteCount), metadata, byteCount);
 
                 if (tagType >= 0x0fa0 && tagType <= 0x1387)
                     PhotoshopDirectory._tagNameMap.put(tagType, String.format("Plug-in %d Data", tagType - 0x0fa0 + 1));
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.metadata.tiff;
+
+import com.drew.imaging.tiff.TiffDataFormat;
+import com.drew.imaging.tiff.TiffProcessingException;
+import com.drew.imaging.tiff.TiffReader;
+import com.drew.lang.RandomAccessReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.DeferredTagValues;
+import com.drew.metadata.Directory;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Holds the locations of the undecoded TIFF tag values of a single {@link Directory}, as recorded by
+ * {@link DirectoryTiffHandler}.
+ * <p/>
+ * Each entry is held as a format code, component count and value offset in parallel primitive arrays, along with the
+ * reader holding the value, and is found by a binary search of the tag IDs. Values are decoded via
+ * {@link TiffReader#processTag} when first requested of the directory, which then retains them.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public final class DeferredTiffTagValues implements DeferredTagValues
+{
+    /** Set within a stored format code when the value is in Motorola byte order. */
+    private static final int MOTOROLA_BYTE_ORDER_FLAG = 0x10000;
+
+    @NotNull
+    private int[] _formatCodes = new int[16];
+    @NotNull
+    private int[] _componentCounts = new int[16];
+    @NotNull
+    private int[] _valueOffsets = new int[16];
+    @NotNull
+    private RandomAccessReader[] _readers = new RandomAccessReader[16];
+    private int _count;
+
+    /**
+     * The IDs of tags with undecoded entries, in ascending order. TIFF writers store tags in this order, so new IDs
+     * are usually appended.
+     */
+    @NotNull
+    private int[] _tagIds = new int[16];
+    /** The index of the undecoded entry of each tag in {@link #_tagIds}. */
+    @NotNull
+    private int[] _entryIndexes = new int[16];
+    private int _tagCount;
+
+    /**
+     * Records the location of a tag's value, which must have been validated as lying within <code>reader</code>.
+     */
+    public void add(@NotNull Directory directory,
+                    int tagId,
+                    int formatCode,
+                    int componentCount,
+                    int tagValueOffset,
+                    @NotNull RandomAccessReader reader)
+    {
+        directory.setDeferredTag(tagId, this);
+
+        if (_count == _formatCodes.length) {
+            int capacity = _count * 2;
+            _formatCodes = copyOf(_formatCodes, capacity);
+            _componentCounts = copyOf(_componentCounts, capacity);
+            _valueOffsets = copyOf(_valueOffsets, capacity);
+            RandomAccessReader[] readers = new RandomAccessReader[capacity];
+            System.arraycopy(_readers, 0, readers, 0, _count);
+            _readers = readers;
+        }
+
+        _formatCodes[_count] = reader.isMotorolaByteOrder() ? formatCode | MOTOROLA_BYTE_ORDER_FLAG : formatCode;
+        _componentCounts[_count] = componentCount;
+        _valueOffsets[_count] = tagValueOffset;
+        _readers[_count] = reader;
+
+        int position = findTag(tagId);
+        if (position >= 0) {
+            // a value found later replaces one found earlier, as when decoding eagerly
+            _readers[_entryIndexes[position]] = null;
+        } else {
+            position = -(position + 1);
+            if (_tagCount == _tagIds.length) {
+                _tagIds = copyOf(_tagIds, _tagCount * 2);
+                _entryIndexes = copyOf(_entryIndexes, _tagCount * 2);
+            }
+            System.arraycopy(_tagIds, position, _tagIds, position + 1, _tagCount - position);
+            System.arraycopy(_entryIndexes, position, _entryIndexes, position + 1, _tagCount - position);
+            _tagIds[position] = tagId;
+            _tagCount++;
+        }
+        _entryIndexes[position] = _count;
+
+        _count++;
+    }
+
+    public boolean containsTag(int tagType)
+    {
+        return findTag(tagType) >= 0;
+    }
+
+    public void decode(int tagType, @NotNull Directory directory)
+    {
+        int position = findTag(tagType);
+        if (position < 0)
+            return;
+
+        int index = _entryIndexes[position];
+
+        int formatCode = _formatCodes[index] & ~MOTOROLA_BYTE_ORDER_FLAG;
+        TiffDataFormat format = TiffDataFormat.fromTiffFormatCode(formatCode);
+        assert(format != null);
+
+        try {
+            // Decode through a view, as the byte order of the shared reader may since have changed
+            int byteCount = _componentCounts[index] * format.getComponentSizeBytes();
+            RandomAccessReader view = _readers[index].slice(_valueOffsets[index], byteCount);
+            view.setMotorolaByteOrder((_formatCodes[index] & MOTOROLA_BYTE_ORDER_FLAG) != 0);
+            TiffReader.processTag(new ValueHandler(directory), tagType, 0, _componentCounts[index], formatCode, view);
+        } catch (IOException e) {
+            directory.addError("Unable to decode value of tag 0x" + Integer.toHexString(tagType) + ": " + e.getMessage());
+        }
+
+        // the directory now holds the value, so release the reader
+        _tagCount--;
+        System.arraycopy(_tagIds, position + 1, _tagIds, position, _tagCount - position);
+        System.arraycopy(_entryIndexes, position + 1, _entryIndexes, position, _tagCount - position);
+        _readers[index] = null;
+    }
+
+    /**
+     * Gets the position of a tag within {@link #_tagIds} if present, otherwise <code>-(insertion point + 1)</code>.
+     */
+    private int findTag(int tagId)
+    {
+        // most lookups made while recording are for tags beyond the last
+        if (_tagCount == 0 || tagId > _tagIds[_tagCount - 1])
+            return -(_tagCount + 1);
+
+        int low = 0;
+        int high = _tagCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midTagId = _tagIds[mid];
+            if (midTagId < tagId)
+                low = mid + 1;
+            else if (midTagId > tagId)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -(low + 1);
+    }
+
+    @NotNull
+    private static int[] copyOf(@NotNull int[] array, int length)
+    {
+        int[] copy = new int[length];
+        System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+        return copy;
+    }
+
+    /**
+     * Passes a single decoded value to the setters of a directory.
+     */
+    private static final class ValueHandler extends DirectoryTiffHandler
+    {
+        ValueHandler(@NotNull Directory directory)
+        {
+            super(directory);
+        }
+
+        public void setTiffMarker(int marker) throws TiffProcessingException
+        {}
+
+        public boolean isTagIfdPointer(int tagType)
+        {
+            return false;
+        }
+
+        public boolean hasFollowerIfd()
+        {
+            return false;
+        }
+
+        public void completed(@NotNull RandomAccessReader reader, int tiffHeaderOffset)
+        {}
+
+        public boolean customProcessTag(int makernoteOffset, @NotNull Set<Integer> processedIfdOffsets, int tiffHeaderOffset, @NotNull RandomAccessReader reader, int tagId, int byteCount) throws IOException
+        {
+            return false;
+        }
+    }
+}
@@ -20,44 +20,115 @@
  */
 package com.drew.metadata.tiff;
 
+import com.drew.imaging.tiff.BigTiffHandler;
+import com.drew.imaging.tiff.DeferringTiffHandler;
+import com.drew.imaging.tiff.SelectiveTiffHandler;
 import com.drew.imaging.tiff.TiffHandler;
+import com.drew.lang.RandomAccessReader;
 import com.drew.lang.Rational;
 import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.DeferredTagValues;
 import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.TagSelection;
 
-import java.util.Stack;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Adapter between the {@link TiffHandler} interface and the {@link Metadata}/{@link Directory} object model.
  *
  * @author Drew Noakes http://drewnoakes.com
  */
-public abstract class DirectoryTiffHandler implements TiffHandler
+public abstract class DirectoryTiffHandler implements BigTiffHandler, DeferringTiffHandler, SelectiveTiffHandler
 {
-    private final Stack<Directory> _directoryStack = new Stack<Directory>();
+    /** Directories to return to as each IFD ends. Not a {@link java.util.Stack}, which synchronizes every call. */
+    private final List<Directory> _directoryStack = new ArrayList<Directory>();
 
     protected Directory _currentDirectory;
     protected Metadata _metadata;
 
+    private final boolean _deferTagValues;
+
+    /** The tags of interest, or <code>null</code> if all are. */
+    @Nullable
+    protected final TagSelection _selection;
+
     protected DirectoryTiffHandler(Metadata metadata, Class<? extends Directory> initialDirectory)
+    {
+        this(metadata, initialDirectory, false);
+    }
+
+    /**
+     * @param deferTagValues <code>true</code> if directories should record where tag values lie, and decode them
+     *                       only when first requested, rather than decoding every value as it is read. The reader
+     *                       passed to {@link com.drew.imaging.tiff.TiffReader} must then remain readable for as long
+     *                       as values may be requested.
+     */
+    protected DirectoryTiffHandler(Metadata metadata, Class<? extends Directory> initialDirectory, boolean deferTagValues)
+    {
+        this(metadata, initialDirectory, deferTagValues, null);
+    }
+
+    /**
+     * @param deferTagValues see {@link #DirectoryTiffHandler(Metadata, Class, boolean)}
+     * @param selection the tags of interest, or <code>null</code> if all are. Other tags are skipped without
+     *                  being decoded.
+     */
+    protected DirectoryTiffHandler(Metadata metadata, Class<? extends Directory> initialDirectory, boolean deferTagValues, @Nullable TagSelection selection)
     {
         _metadata = metadata;
         _currentDirectory = _metadata.getOrCreateDirectory(initialDirectory);
+        _deferTagValues = deferTagValues;
+        _selection = selection;
+    }
+
+    /**
+     * Creates a handler which sets values on a single directory, and cannot push others.
+     */
+    DirectoryTiffHandler(@NotNull Directory directory)
+    {
+        _currentDirectory = directory;
+        _deferTagValues = false;
+        _selection = null;
     }
 
     public void endingIFD()
     {
-        _currentDirectory = _directoryStack.empty() ? null : _directoryStack.pop();
+        _currentDirectory = _directoryStack.isEmpty() ? null : _directoryStack.remove(_directoryStack.size() - 1);
     }
 
     protected void pushDirectory(@NotNull Class<? extends Directory> directoryClass)
     {
         assert(directoryClass != _currentDirectory.getClass());
-        _directoryStack.push(_currentDirectory);
+        _directoryStack.add(_currentDirectory);
         _currentDirectory = _metadata.getOrCreateDirectory(directoryClass);
     }
 
+    public boolean isTagSelected(int tagId)
+    {
+        return _selection == null || _selection.isTagSelected(_currentDirectory.getClass(), tagId);
+    }
+
+    public boolean deferTag(int tagId, int formatCode, int componentCount, int tagValueOffset, @NotNull RandomAccessReader reader)
+    {
+        if (!_deferTagValues)
+            return false;
+
+        DeferredTagValues values = _currentDirectory.getDeferredTagValues();
+
+        if (values == null) {
+            values = new DeferredTiffTagValues();
+        } else if (!(values instanceof DeferredTiffTagValues)) {
+            // the directory's values are deferred to some other source, so decode this one now
+            return false;
+        }
+
+        ((DeferredTiffTagValues)values).add(_currentDirectory, tagId, formatCode, componentCount, tagValueOffset, reader);
+        return true;
+    }
+
     public void warn(@NotNull String message)
     {
         _currentDirectory.addError(message);
@@ -176,4 +247,24 @@ public abstract class DirectoryTiffHandler implements TiffHandler
         // TODO create and use a proper setter for short[]
         _currentDirectory.setObjectArray(tagId, array);
     }
+
+    public void setInt64s(int tagId, long int64s)
+    {
+        _currentDirectory.setLong(tagId, int64s);
+    }
+
+    public void setInt64sArray(int tagId, @NotNull long[] array)
+    {
+        _currentDirectory.setObjectArray(tagId, array);
+    }
+
+    public void setInt64u(int tagId, long int64u)
+    {
+        _currentDirectory.setLong(tagId, int64u);
+    }
+
+    public void setInt64uArray(int tagId, @NotNull long[] array)
+    {
+        _currentDirectory.setObjectArray(tagId, array);
+    }
 }
@@ -25,7 +25,11 @@ import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Directory;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /** @author Torsten Skadell, Drew Noakes http://drewnoakes.com */
@@ -132,6 +136,18 @@ public class XmpDirectory extends Directory
     @Nullable
     private XMPMeta _xmpMeta;
 
+    /** Extended XMP packets being reassembled from JPEG segments, keyed by GUID. */
+    @NotNull
+    private final Map<String, ExtendedXmp> _pendingExtendedXmpByGuid = new LinkedHashMap<String, ExtendedXmp>();
+    /** The total length of the chunks held in {@link #_pendingExtendedXmpByGuid}. */
+    private int _pendingExtendedXmpLength;
+
+    /** Whether the standard packet has been read, and so whether {@link #_extendedXmpGuid} is known. */
+    private boolean _isExtendedXmpGuidKnown;
+    /** The GUID of the extended XMP named by the standard packet, or <code>null</code> if it names none. */
+    @Nullable
+    private String _extendedXmpGuid;
+
     public XmpDirectory()
     {
         this.setDescriptor(new XmpDescriptor(this));
@@ -171,6 +187,154 @@ public class XmpDirectory extends Directory
         _xmpMeta = xmpMeta;
     }
 
+    @Override
+    protected void merge(@NotNull Directory other)
+    {
+        super.merge(other);
+
+        XmpDirectory xmpDirectory = (XmpDirectory)other;
+        _propertyValueByPath.putAll(xmpDirectory._propertyValueByPath);
+        if (xmpDirectory._xmpMeta != null)
+            _xmpMeta = xmpDirectory._xmpMeta;
+
+        // Chunks of extended XMP may have been extracted into separate directories, such as when segments are
+        // decoded concurrently, in which case the extended XMP is read once its last chunk is merged
+        for (Map.Entry<String, ExtendedXmp> entry : xmpDirectory._pendingExtendedXmpByGuid.entrySet()) {
+            ExtendedXmp extendedXmp = entry.getValue();
+            for (int i = 0; i < extendedXmp.chunks.size(); i++) {
+                byte[] chunk = extendedXmp.chunks.get(i);
+                addExtendedXmpChunk(entry.getKey(), extendedXmp.fullLength, extendedXmp.chunkOffsets.get(i), chunk, 0, chunk.length);
+            }
+        }
+        new XmpReader().processExtendedXmp(this);
+    }
+
+    /**
+     * Retains a copy of a chunk of an extended XMP packet, until all of its chunks have been added.
+     * <p/>
+     * Once the standard packet has been read, chunks of packets other than the one it names are ignored. Until
+     * then, chunks of any packet are retained, up to a total of {@link ExtendedXmp#MAX_LENGTH} bytes. Nothing is
+     * allocated for the full length declared by the chunk's header until that many bytes have been received.
+     *
+     * @param guid the GUID identifying the extended XMP packet
+     * @param fullLength the length of the complete packet
+     * @param offset the offset of this chunk within the complete packet
+     * @param bytes an array holding the chunk
+     * @param index the index of the chunk within <code>bytes</code>
+     * @param length the length of the chunk
+     */
+    void addExtendedXmpChunk(@NotNull String guid, int fullLength, int offset, @NotNull byte[] bytes, int index, int length)
+    {
+        if (_isExtendedXmpGuidKnown && !guid.equals(_extendedXmpGuid))
+            return;
+
+        ExtendedXmp extendedXmp = _pendingExtendedXmpByGuid.get(guid);
+        if (extendedXmp == null) {
+            if (fullLength <= 0 || fullLength > ExtendedXmp.MAX_LENGTH) {
+                addError(String.format("Extended XMP length of %d bytes is invalid", fullLength));
+                return;
+            }
+            extendedXmp = new ExtendedXmp(fullLength);
+        } else if (extendedXmp.fullLength != fullLength) {
+            addError(String.format("Extended XMP length changed from %d to %d bytes", extendedXmp.fullLength, fullLength));
+            return;
+        }
+
+        if (offset < 0 || (long)offset + length > fullLength) {
+            addError(String.format("Extended XMP chunk at offset %d of length %d exceeds the total of %d bytes", offset, length, fullLength));
+            return;
+        }
+
+        for (int i = 0; i < extendedXmp.chunks.size(); i++) {
+            int receivedOffset = extendedXmp.chunkOffsets.get(i);
+            int receivedLength = extendedXmp.chunks.get(i).length;
+            // Tolerate repeated chunks, but only count their bytes once
+            if (receivedOffset == offset && receivedLength == length)
+                return;
+            // Otherwise the sum of chunk lengths could reach the full length while gaps remain
+            if (offset < receivedOffset + receivedLength && receivedOffset < offset + length) {
+                addError(String.format("Extended XMP chunk at offset %d of length %d overlaps the chunk at offset %d of length %d", offset, length, receivedOffset, receivedLength));
+                return;
+            }
+        }
+
+        if (_pendingExtendedXmpLength + length > ExtendedXmp.MAX_LENGTH) {
+            addError(String.format("Extended XMP chunk at offset %d of length %d exceeds the limit of %d buffered bytes", offset, length, ExtendedXmp.MAX_LENGTH));
+            return;
+        }
+
+        byte[] chunk = new byte[length];
+        System.arraycopy(bytes, index, chunk, 0, length);
+        extendedXmp.chunks.add(chunk);
+        extendedXmp.chunkOffsets.add(offset);
+        extendedXmp.bytesReceived += length;
+        _pendingExtendedXmpLength += length;
+        _pendingExtendedXmpByGuid.put(guid, extendedXmp);
+    }
+
+    /**
+     * Records the GUID of the extended XMP named by the standard packet, once it has been read. Chunks of other
+     * packets are discarded, and are ignored from then on.
+     *
+     * @param guid the value of the standard packet's <code>xmpNote:HasExtendedXMP</code> property, or
+     *             <code>null</code> if it has none
+     */
+    void setExtendedXmpGuid(@Nullable String guid)
+    {
+        _isExtendedXmpGuidKnown = true;
+        _extendedXmpGuid = guid;
+
+        Iterator<Map.Entry<String, ExtendedXmp>> entries = _pendingExtendedXmpByGuid.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, ExtendedXmp> entry = entries.next();
+            if (!entry.getKey().equals(guid)) {
+                _pendingExtendedXmpLength -= entry.getValue().bytesReceived;
+                entries.remove();
+            }
+        }
+    }
+
+    /**
+     * Discards the chunks of any extended XMP packet not yet merged into the standard packet, adding an error for
+     * each. Such a packet is incomplete, or was never named by a standard packet.
+     * <p/>
+     * This is called once all segments of a file have been extracted, so that the chunks are not retained for the
+     * lifetime of the directory.
+     */
+    public void discardPendingExtendedXmp()
+    {
+        for (Map.Entry<String, ExtendedXmp> entry : _pendingExtendedXmpByGuid.entrySet()) {
+            ExtendedXmp extendedXmp = entry.getValue();
+            addError(String.format("Extended XMP with GUID %s discarded after receiving %d of %d bytes", entry.getKey(), extendedXmp.bytesReceived, extendedXmp.fullLength));
+        }
+        _pendingExtendedXmpByGuid.clear();
+        _pendingExtendedXmpLength = 0;
+    }
+
+    /**
+     * Removes and returns the extended XMP packet having the specified GUID, if all of its chunks have been added.
+     *
+     * @return the complete packet, or <code>null</code> if chunks are still outstanding
+     */
+    @Nullable
+    byte[] takeExtendedXmp(@NotNull String guid)
+    {
+        ExtendedXmp extendedXmp = _pendingExtendedXmpByGuid.get(guid);
+        if (extendedXmp == null || extendedXmp.bytesReceived < extendedXmp.fullLength)
+            return null;
+
+        _pendingExtendedXmpByGuid.remove(guid);
+        _pendingExtendedXmpLength -= extendedXmp.bytesReceived;
+
+        // The chunks neither overlap nor extend beyond the full length, so together they cover it exactly
+        byte[] buffer = new byte[extendedXmp.fullLength];
+        for (int i = 0; i < extendedXmp.chunks.size(); i++) {
+            byte[] chunk = extendedXmp.chunks.get(i);
+            System.arraycopy(chunk, 0, buffer, extendedXmp.chunkOffsets.get(i), chunk.length);
+        }
+        return buffer;
+    }
+
     /**
      * Gets the XMPMeta object used to populate this directory.  It can be used for more XMP-oriented operations.
      */
@@ -179,4 +343,28 @@ public class XmpDirectory extends Directory
     {
         return _xmpMeta;
     }
+
+    /** An extended XMP packet, being reassembled from the chunks stored in several JPEG segments. */
+    private static class ExtendedXmp
+    {
+        /**
+         * The largest extended XMP packet that will be reassembled, and the most chunk data that a directory will
+         * buffer across all packets.
+         */
+        static final int MAX_LENGTH = 128 * 1024 * 1024;
+
+        final int fullLength;
+        /** Copies of the chunks received, in order of receipt. */
+        @NotNull
+        final List<byte[]> chunks = new ArrayList<byte[]>();
+        /** The offset of each chunk within the complete packet, parallel to {@link #chunks}. */
+        @NotNull
+        final List<Integer> chunkOffsets = new ArrayList<Integer>();
+        int bytesReceived;
+
+        ExtendedXmp(int fullLength)
+        {
+            this.fullLength = fullLength;
+        }
+    }
 }
@@ -24,14 +24,17 @@ import com.adobe.xmp.XMPException;
 import com.adobe.xmp.XMPIterator;
 import com.adobe.xmp.XMPMeta;
 import com.adobe.xmp.XMPMetaFactory;
+import com.adobe.xmp.XMPUtils;
 import com.adobe.xmp.properties.XMPPropertyInfo;
 import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
 import com.drew.imaging.jpeg.JpegSegmentType;
 import com.drew.lang.ByteArrayReader;
+import com.drew.lang.ByteSignature;
 import com.drew.lang.Rational;
 import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.Metadata;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Calendar;
 
@@ -46,6 +49,15 @@ import java.util.Calendar;
  */
 public class XmpReader implements JpegSegmentMetadataReader
 {
+    @NotNull
+    private static final ByteSignature XMP_JPEG_PREAMBLE = new ByteSignature("http://ns.adobe.com/xap/1.0/\0");
+    @NotNull
+    private static final ByteSignature XMP_JPEG_PREAMBLE_IGNORING_CASE = new ByteSignature("http://ns.adobe.com/xap/1.0/", true);
+    @NotNull
+    private static final ByteSignature XMP_EXTENSION_JPEG_PREAMBLE = new ByteSignature("http://ns.adobe.com/xmp/extension/\0");
+    /** Extended XMP chunks follow their preamble with a 32 character GUID, the full length, and the chunk's offset. */
+    private static final int XMP_EXTENSION_HEADER_LENGTH = 35 + 32 + 4 + 4;
+
     private static final int FMT_STRING = 1;
     private static final int FMT_RATIONAL = 2;
     private static final int FMT_INT = 3;
@@ -63,6 +75,8 @@ public class XmpReader implements JpegSegmentMetadataReader
     private static final String SCHEMA_EXIF_ADDITIONAL_PROPERTIES = "http://ns.adobe.com/exif/1.0/aux/";
     @NotNull
     private static final String SCHEMA_EXIF_TIFF_PROPERTIES = "http://ns.adobe.com/tiff/1.0/";
+    @NotNull
+    private static final String SCHEMA_XMP_NOTES = "http://ns.adobe.com/xmp/note/";
 //    @NotNull
 //    private static final String SCHEMA_DUBLIN_CORE_SPECIFIC_PROPERTIES = "http://purl.org/dc/elements/1.1/";
 
@@ -74,7 +88,7 @@ public class XmpReader implements JpegSegmentMetadataReader
 
     public boolean canProcess(@NotNull byte[] segmentBytes, @NotNull JpegSegmentType segmentType)
     {
-        return segmentBytes.length > 27 && "http://ns.adobe.com/xap/1.0/".equalsIgnoreCase(new String(segmentBytes, 0, 28));
+        return XMP_JPEG_PREAMBLE_IGNORING_CASE.matches(segmentBytes) || XMP_EXTENSION_JPEG_PREAMBLE.matches(segmentBytes);
     }
 
     /**
@@ -87,10 +101,15 @@ public class XmpReader implements JpegSegmentMetadataReader
      */
     public void extract(@NotNull byte[] segmentBytes, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
     {
+        if (XMP_EXTENSION_JPEG_PREAMBLE.matches(segmentBytes)) {
+            extractExtension(segmentBytes, metadata);
+            return;
+        }
+
         XmpDirectory directory = metadata.getOrCreateDirectory(XmpDirectory.class);
 
         // XMP in a JPEG file has a 29 byte preamble which is not valid XML.
-        final int preambleLength = 29;
+        final int preambleLength = XMP_JPEG_PREAMBLE.getLength();
 
         // check for the header length
         if (segmentBytes.length <= preambleLength + 1) {
@@ -98,17 +117,79 @@ public class XmpReader implements JpegSegmentMetadataReader
             return;
         }
 
-        ByteArrayReader reader = new ByteArrayReader(segmentBytes);
-
-        String preamble = new String(segmentBytes, 0, preambleLength);
-        if (!"http://ns.adobe.com/xap/1.0/\0".equals(preamble)) {
+        if (!XMP_JPEG_PREAMBLE.matches(segmentBytes)) {
             directory.addError("XMP data segment doesn't begin with 'http://ns.adobe.com/xap/1.0/'");
             return;
         }
 
+        // XMPCore only parses whole arrays, so the XML must be copied out from behind the preamble
         byte[] xmlBytes = new byte[segmentBytes.length - preambleLength];
-        System.arraycopy(segmentBytes, 29, xmlBytes, 0, xmlBytes.length);
+        System.arraycopy(segmentBytes, preambleLength, xmlBytes, 0, xmlBytes.length);
         extract(xmlBytes, metadata);
+
+        // Extended XMP may have been read before the standard packet which identifies it
+        processExtendedXmp(directory);
+    }
+
+    /**
+     * Extracts a chunk of extended XMP, which holds XMP too large to fit in the standard packet's segment. It is split
+     * over several APP1 segments, and is identified by a GUID which the standard packet specifies in its
+     * <code>xmpNote:HasExtendedXMP</code> property.
+     * <p/>
+     * Each chunk is copied and retained until all chunks of its packet have been seen. The packet is then assembled,
+     * parsed and merged into the standard packet. Chunks of packets which are never completed are discarded via
+     * {@link XmpDirectory#discardPendingExtendedXmp()} once the file's segments have been extracted.
+     */
+    private void extractExtension(@NotNull byte[] segmentBytes, @NotNull Metadata metadata)
+    {
+        XmpDirectory directory = metadata.getOrCreateDirectory(XmpDirectory.class);
+
+        if (segmentBytes.length <= XMP_EXTENSION_HEADER_LENGTH) {
+            directory.addError(String.format("Extended XMP data segment must contain at least %d bytes", XMP_EXTENSION_HEADER_LENGTH + 1));
+            return;
+        }
+
+        try {
+            ByteArrayReader reader = new ByteArrayReader(segmentBytes);
+            int preambleLength = XMP_EXTENSION_JPEG_PREAMBLE.getLength();
+            String guid = reader.getString(preambleLength, 32);
+            int fullLength = reader.getInt32(preambleLength + 32);
+            int offset = reader.getInt32(preambleLength + 36);
+
+            directory.addExtendedXmpChunk(guid, fullLength, offset, segmentBytes, XMP_EXTENSION_HEADER_LENGTH, segmentBytes.length - XMP_EXTENSION_HEADER_LENGTH);
+        } catch (IOException e) {
+            directory.addError("Error reading extended XMP header: " + e.getMessage());
+            return;
+        }
+
+        processExtendedXmp(directory);
+    }
+
+    /**
+     * Merges extended XMP into the directory's standard XMP packet, once both the standard packet and all chunks of the
+     * extended packet it identifies have been read. Extended XMP having any other GUID is ignored.
+     */
+    void processExtendedXmp(@NotNull XmpDirectory directory)
+    {
+        XMPMeta xmpMeta = directory.getXMPMeta();
+        if (xmpMeta == null)
+            return;
+
+        try {
+            String guid = xmpMeta.getPropertyString(SCHEMA_XMP_NOTES, "xmpNote:HasExtendedXMP");
+            directory.setExtendedXmpGuid(guid);
+            if (guid == null)
+                return;
+
+            byte[] extendedXmpBytes = directory.takeExtendedXmp(guid);
+            if (extendedXmpBytes == null)
+                return;
+
+            XMPUtils.appendProperties(XMPMetaFactory.parseFromBuffer(extendedXmpBytes), xmpMeta, true, true);
+            processXmpTags(directory, xmpMeta);
+        } catch (XMPException e) {
+            directory.addError("Error processing extended XMP data: " + e.getMessage());
+        }
     }
 
     /**
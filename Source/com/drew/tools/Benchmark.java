@@ -0,0 +1,122 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.tools;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A minimal timing harness for the micro-benchmarks in this package.
+ * <p/>
+ * Each operation is run for a number of warm-up iterations, giving the JIT compiler a chance to optimise it, and then
+ * timed over several rounds of measured iterations. The fastest round is reported, as slower rounds are usually the
+ * result of interference such as garbage collection or recompilation. Values returned by operations are accumulated
+ * so that the JIT cannot eliminate the work being measured. Results are indicative only, and are best compared between
+ * runs on the same machine.
+ * <p/>
+ * The JIT's profile of code shared between benchmarks (such as the harness itself, or a loop that is run against
+ * several implementations) may make whichever benchmark runs first appear faster or slower than it really is. Use
+ * {@link #fork} to run each configuration in a fresh JVM.
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class Benchmark
+{
+    /** An operation to be timed. */
+    public interface Operation
+    {
+        /**
+         * Performs the operation once.
+         *
+         * @return any value derived from the work performed, to prevent the work being optimised away
+         */
+        long run() throws Exception;
+    }
+
+    @SuppressWarnings({"UnusedDeclaration"})
+    private static volatile long _sink;
+
+    private static final int MEASURED_ROUNDS = 5;
+
+    /**
+     * Times <code>operation</code>, printing and returning the duration of a single invocation in nanoseconds, as
+     * measured in the fastest round.
+     */
+    public static double measure(@NotNull String name, int warmUpIterations, int iterationsPerRound, @NotNull Operation operation) throws Exception
+    {
+        long sink = 0;
+
+        for (int i = 0; i < warmUpIterations; i++)
+            sink += operation.run();
+
+        long fastestRound = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterationsPerRound; i++)
+                sink += operation.run();
+            fastestRound = Math.min(fastestRound, System.nanoTime() - start);
+        }
+
+        _sink = sink;
+
+        double nanosPerOperation = (double)fastestRound / iterationsPerRound;
+        System.out.printf("%-50s %,14.1f ns/op%n", name, nanosPerOperation);
+        return nanosPerOperation;
+    }
+
+    /**
+     * Runs the <code>main</code> method of <code>mainClass</code> with the specified arguments in a new JVM that
+     * shares this JVM's class path, copying its output to <code>System.out</code> and waiting for it to complete.
+     */
+    public static void fork(@NotNull Class<?> mainClass, @NotNull String... args) throws IOException, InterruptedException
+    {
+        List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass.getName());
+        command.addAll(Arrays.asList(args));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        InputStream output = process.getInputStream();
+        byte[] buffer = new byte[1024];
+        int bytesRead;
+        while ((bytesRead = output.read(buffer)) != -1)
+            System.out.write(buffer, 0, bytesRead);
+        System.out.flush();
+
+        int exitCode = process.waitFor();
+        if (exitCode != 0)
+            throw new IOException("Forked benchmark exited with code " + exitCode);
+    }
+
+    private Benchmark() throws Exception
+    {
+        throw new Exception("Not intended for instantiation");
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+package com.drew.tools;
+
+import com.drew.imaging.jpeg.JpegMetadataReader;
+import com.drew.imaging.jpeg.JpegSegmentDispatchPlan;
+import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.lang.SequentialByteArrayReader;
+import com.drew.metadata.Metadata;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the fixed, per-file cost of {@link JpegMetadataReader} on a tiny JPEG, where it dominates the cost of
+ * extraction. A {@link JpegSegmentDispatchPlan} compiled for each file is compared against one compiled once and
+ * reused.
+ * <p/>
+ * Run with no arguments to benchmark both approaches, each in its own JVM. Pass <code>per-file</code> or
+ * <code>precompiled</code> to run one approach in the current JVM.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class JpegMetadataReaderBenchmark
+{
+    private static final int WARM_UP_ITERATIONS = 200000;
+    private static final int MEASURED_ITERATIONS = 100000;
+
+    /** SOI, a JFIF APP0 segment, a baseline SOF0 segment for a 1x1 greyscale image, then SOS. */
+    private static final byte[] JPEG_BYTES = new byte[] {
+        (byte)0xFF, (byte)0xD8,
+        (byte)0xFF, (byte)0xE0, 0x00, 0x10, 'J', 'F', 'I', 'F', 0x00, 0x01, 0x01, 0x00, 0x00, 0x01, 0x00, 0x01, 0x00, 0x00,
+        (byte)0xFF, (byte)0xC0, 0x00, 0x0B, 0x08, 0x00, 0x01, 0x00, 0x01, 0x01, 0x01, 0x11, 0x00,
+        (byte)0xFF, (byte)0xDA, 0x00, 0x08, 0x01, 0x01, 0x00, 0x00, 0x3F, 0x00
+    };
+
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length == 0) {
+            Benchmark.fork(JpegMetadataReaderBenchmark.class, "per-file");
+            Benchmark.fork(JpegMetadataReaderBenchmark.class, "precompiled");
+            return;
+        }
+
+        // A copy of the default readers, so that the plan JpegMetadataReader caches for them is not used
+        final List<JpegSegmentMetadataReader> readers = new ArrayList<JpegSegmentMetadataReader>();
+        for (JpegSegmentMetadataReader reader : JpegMetadataReader.ALL_READERS)
+            readers.add(reader);
+
+        final Benchmark.Operation operation;
+        if (args[0].equals("per-file")) {
+            operation = new Benchmark.Operation()
+            {
+                public long run() throws Exception
+                {
+                    Metadata metadata = new Metadata();
+                    JpegMetadataReader.process(metadata, new SequentialByteArrayReader(JPEG_BYTES), readers, Long.MAX_VALUE);
+                    return metadata.getDirectoryCount();
+                }
+            };
+        } else if (args[0].equals("precompiled")) {
+            final JpegSegmentDispatchPlan plan = new JpegSegmentDispatchPlan(readers);
+            operation = new Benchmark.Operation()
+            {
+                public long run() throws Exception
+                {
+                    Metadata metadata = new Metadata();
+                    JpegMetadataReader.process(metadata, new SequentialByteArrayReader(JPEG_BYTES), plan, Long.MAX_VALUE);
+                    return metadata.getDirectoryCount();
+                }
+            };
+        } else {
+            System.err.println("Expects no arguments, 'per-file' or 'precompiled'.");
+            System.exit(1);
+            return;
+        }
+
+        Benchmark.measure(String.format("tiny JPEG, %s plan", args[0]), WARM_UP_ITERATIONS, MEASURED_ITERATIONS, operation);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.tools;
+
+import com.drew.lang.ByteArrayReader;
+import com.drew.lang.ByteSignature;
+import com.drew.lang.RandomAccessReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.exif.MakernoteDispatchPlan;
+import com.drew.metadata.exif.MakernoteHandler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the cost of finding the {@link MakernoteHandler} for a makernote. The trie compiled by
+ * {@link MakernoteDispatchPlan} is compared against testing each handler's signatures and camera make in turn, as a
+ * chain of <code>if</code> statements would.
+ * <p/>
+ * Run with no arguments to benchmark both approaches, each in its own JVM. Pass <code>linear</code> or
+ * <code>trie</code> to run one approach in the current JVM.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class MakernoteDispatchBenchmark
+{
+    private static final int WARM_UP_ITERATIONS = 200000;
+    private static final int MEASURED_ITERATIONS = 100000;
+
+    /** Makernote headers, paired with the camera makes they are found with. */
+    private static final String[][] SAMPLES = new String[][] {
+        { "OLYMP\0\1\0", "OLYMPUS OPTICAL CO.,LTD" },
+        { "Nikon\0\2\0\0\0MM", "NIKON CORPORATION" },
+        { "\0\0\0\0\0\0\0\0\0\0\0\0", "Canon" },
+        { "SONY DSC \0\0\0", "SONY" },
+        { "FUJIFILM\f\0\0\0", "FUJIFILM" },
+        { "Panasonic\0\0\0", "Panasonic" },
+        { "AOC\0MM\0\0\0\0\0\0", "PENTAX Corporation" },
+        { "\0\0\0\0\0\0\0\0\0\0\0\0", "Unknown Camera Co." }
+    };
+
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length == 0) {
+            Benchmark.fork(MakernoteDispatchBenchmark.class, "linear");
+            Benchmark.fork(MakernoteDispatchBenchmark.class, "trie");
+            return;
+        }
+
+        final RandomAccessReader[] readers = new RandomAccessReader[SAMPLES.length];
+        final String[] makes = new String[SAMPLES.length];
+        for (int i = 0; i < SAMPLES.length; i++) {
+            byte[] bytes = new byte[SAMPLES[i][0].length()];
+            for (int j = 0; j < bytes.length; j++)
+                bytes[j] = (byte)SAMPLES[i][0].charAt(j);
+            readers[i] = new ByteArrayReader(bytes);
+            makes[i] = SAMPLES[i][1];
+        }
+
+        final Benchmark.Operation operation;
+        if (args[0].equals("linear")) {
+            final List<MakernoteHandler> handlers = new ArrayList<MakernoteHandler>();
+            for (MakernoteHandler handler : MakernoteDispatchPlan.DEFAULT_HANDLERS)
+                handlers.add(handler);
+            operation = new Benchmark.Operation()
+            {
+                public long run() throws IOException
+                {
+                    long sum = 0;
+                    for (int i = 0; i < readers.length; i++) {
+                        MakernoteHandler handler = findLinearly(handlers, readers[i], makes[i]);
+                        if (handler != null)
+                            sum += handler.getSignatures().length;
+                    }
+                    return sum;
+                }
+            };
+        } else if (args[0].equals("trie")) {
+            final MakernoteDispatchPlan plan = new MakernoteDispatchPlan(MakernoteDispatchPlan.DEFAULT_HANDLERS);
+            operation = new Benchmark.Operation()
+            {
+                public long run() throws IOException
+                {
+                    long sum = 0;
+                    for (int i = 0; i < readers.length; i++) {
+                        MakernoteHandler handler = plan.findHandler(readers[i], 0, makes[i]);
+                        if (handler != null)
+                            sum += handler.getSignatures().length;
+                    }
+                    return sum;
+                }
+            };
+        } else {
+            System.err.println("Expects no arguments, 'linear' or 'trie'.");
+            System.exit(1);
+            return;
+        }
+
+        Benchmark.measure(String.format("%d makernotes, %s dispatch", SAMPLES.length, args[0]), WARM_UP_ITERATIONS, MEASURED_ITERATIONS, operation);
+    }
+
+    @Nullable
+    private static MakernoteHandler findLinearly(@NotNull List<MakernoteHandler> handlers, @NotNull RandomAccessReader reader, @NotNull String cameraMake) throws IOException
+    {
+        for (MakernoteHandler handler : handlers) {
+            for (ByteSignature signature : handler.getSignatures()) {
+                if (signature.matches(reader, 0))
+                    return handler;
+            }
+            if (handler.isMakeSupported(cameraMake))
+                return handler;
+        }
+        return null;
+    }
+}
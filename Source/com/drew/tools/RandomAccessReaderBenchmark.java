@@ -0,0 +1,283 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.tools;
+
+import com.drew.lang.BufferBoundsException;
+import com.drew.lang.ByteArrayReader;
+import com.drew.lang.RandomAccessReader;
+import com.drew.lang.SequentialByteArrayReader;
+import com.drew.lang.SequentialReader;
+import com.drew.lang.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Compares decoding of multi-byte primitives via the bulk fast path of {@link ByteArrayReader} and
+ * {@link SequentialByteArrayReader} against the general per-byte composition performed by {@link RandomAccessReader}
+ * and {@link SequentialReader}.
+ * <p/>
+ * Run with no arguments to benchmark both approaches, each in its own JVM. Pass <code>per-byte</code> or
+ * <code>bulk</code> to run one approach in the current JVM.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class RandomAccessReaderBenchmark
+{
+    private static final int BUFFER_LENGTH = 64 * 1024;
+    private static final int WARM_UP_ITERATIONS = 5000;
+    private static final int MEASURED_ITERATIONS = 1000;
+
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length == 0) {
+            Benchmark.fork(RandomAccessReaderBenchmark.class, "per-byte");
+            Benchmark.fork(RandomAccessReaderBenchmark.class, "bulk");
+            return;
+        }
+
+        final boolean bulk;
+        if (args[0].equals("bulk")) {
+            bulk = true;
+        } else if (args[0].equals("per-byte")) {
+            bulk = false;
+        } else {
+            System.err.println("Expects no arguments, 'per-byte' or 'bulk'.");
+            System.exit(1);
+            return;
+        }
+
+        final byte[] bytes = new byte[BUFFER_LENGTH];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte)(i * 31);
+
+        final String approach = bulk ? "bulk" : "per-byte";
+
+        for (final boolean motorola : new boolean[] { true, false }) {
+            final String order = motorola ? "MM" : "II";
+
+            final RandomAccessReader reader = bulk ? new ByteArrayReader(bytes) : new PerByteArrayReader(bytes);
+            reader.setMotorolaByteOrder(motorola);
+
+            for (final int width : new int[] { 2, 4, 8 })
+                Benchmark.measure(String.format("random access %-8s int%d %s", approach, width * 8, order), WARM_UP_ITERATIONS, MEASURED_ITERATIONS, randomAccessOperation(reader, width));
+
+            for (final int width : new int[] { 2, 4, 8 })
+                Benchmark.measure(String.format("sequential    %-8s int%d %s", approach, width * 8, order), WARM_UP_ITERATIONS, MEASURED_ITERATIONS, sequentialOperation(bytes, width, motorola, bulk));
+        }
+    }
+
+    // NOTE each width has its own operation class, so that the JIT's profile of one doesn't affect another
+
+    @NotNull
+    private static Benchmark.Operation randomAccessOperation(@NotNull final RandomAccessReader reader, final int width)
+    {
+        switch (width) {
+            case 2:
+                return new Benchmark.Operation()
+                {
+                    public long run() throws IOException
+                    {
+                        long sum = 0;
+                        for (int index = 0; index + 2 <= BUFFER_LENGTH; index += 2)
+                            sum += reader.getUInt16(index);
+                        return sum;
+                    }
+                };
+            case 4:
+                return new Benchmark.Operation()
+                {
+                    public long run() throws IOException
+                    {
+                        long sum = 0;
+                        for (int index = 0; index + 4 <= BUFFER_LENGTH; index += 4)
+                            sum += reader.getInt32(index);
+                        return sum;
+                    }
+                };
+            default:
+                return new Benchmark.Operation()
+                {
+                    public long run() throws IOException
+                    {
+                        long sum = 0;
+                        for (int index = 0; index + 8 <= BUFFER_LENGTH; index += 8)
+                            sum += reader.getInt64(index);
+                        return sum;
+                    }
+                };
+        }
+    }
+
+    @NotNull
+    private static Benchmark.Operation sequentialOperation(@NotNull final byte[] bytes, final int width, final boolean motorola, final boolean bulk)
+    {
+        switch (width) {
+            case 2:
+                return new Benchmark.Operation()
+                {
+                    public long run() throws IOException
+                    {
+                        SequentialReader reader = createSequentialReader(bytes, motorola, bulk);
+                        long sum = 0;
+                        for (int count = BUFFER_LENGTH / 2; count != 0; count--)
+                            sum += reader.getUInt16();
+                        return sum;
+                    }
+                };
+            case 4:
+                return new Benchmark.Operation()
+                {
+                    public long run() throws IOException
+                    {
+                        SequentialReader reader = createSequentialReader(bytes, motorola, bulk);
+                        long sum = 0;
+                        for (int count = BUFFER_LENGTH / 4; count != 0; count--)
+                            sum += reader.getInt32();
+                        return sum;
+                    }
+                };
+            default:
+                return new Benchmark.Operation()
+                {
+                    public long run() throws IOException
+                    {
+                        SequentialReader reader = createSequentialReader(bytes, motorola, bulk);
+                        long sum = 0;
+                        for (int count = BUFFER_LENGTH / 8; count != 0; count--)
+                            sum += reader.getInt64();
+                        return sum;
+                    }
+                };
+        }
+    }
+
+    @NotNull
+    private static SequentialReader createSequentialReader(@NotNull byte[] bytes, boolean motorola, boolean bulk)
+    {
+        SequentialReader reader = bulk ? new SequentialByteArrayReader(bytes) : new PerByteSequentialReader(bytes);
+        reader.setMotorolaByteOrder(motorola);
+        return reader;
+    }
+
+    /** A byte array reader that relies entirely upon the per-byte composition of its base class. */
+    private static class PerByteArrayReader extends RandomAccessReader
+    {
+        @NotNull
+        private final byte[] _buffer;
+
+        public PerByteArrayReader(@NotNull byte[] buffer)
+        {
+            _buffer = buffer;
+        }
+
+        @Override
+        protected byte getByte(int index) throws IOException
+        {
+            return _buffer[index];
+        }
+
+        @NotNull
+        @Override
+        public byte[] getBytes(int index, int count) throws IOException
+        {
+            validateIndex(index, count);
+            byte[] bytes = new byte[count];
+            System.arraycopy(_buffer, index, bytes, 0, count);
+            return bytes;
+        }
+
+        @Override
+        protected void validateIndex(int index, int bytesRequested) throws IOException
+        {
+            if (!isValidIndex(index, bytesRequested))
+                throw new BufferBoundsException(index, bytesRequested, _buffer.length);
+        }
+
+        @Override
+        protected boolean isValidIndex(int index, int bytesRequested) throws IOException
+        {
+            return bytesRequested >= 0 && index >= 0 && (long)index + (long)bytesRequested - 1L < (long)_buffer.length;
+        }
+
+        @Override
+        public long getLength() throws IOException
+        {
+            return _buffer.length;
+        }
+    }
+
+    /** A sequential byte array reader that relies entirely upon the per-byte composition of its base class. */
+    private static class PerByteSequentialReader extends SequentialReader
+    {
+        @NotNull
+        private final byte[] _bytes;
+        private int _index;
+
+        public PerByteSequentialReader(@NotNull byte[] bytes)
+        {
+            _bytes = bytes;
+        }
+
+        @Override
+        protected byte getByte() throws IOException
+        {
+            if (_index >= _bytes.length)
+                throw new EOFException("End of data reached.");
+            return _bytes[_index++];
+        }
+
+        @NotNull
+        @Override
+        public byte[] getBytes(int count) throws IOException
+        {
+            byte[] bytes = new byte[count];
+            for (int i = 0; i < count; i++)
+                bytes[i] = getByte();
+            return bytes;
+        }
+
+        @Override
+        public void skip(long n) throws IOException
+        {
+            if (n < 0)
+                throw new IllegalArgumentException("n must be zero or greater.");
+
+            for (long i = 0; i < n; i++)
+                getByte();
+        }
+
+        @Override
+        public boolean trySkip(long n) throws IOException
+        {
+            if (n < 0)
+                throw new IllegalArgumentException("n must be zero or greater.");
+
+            for (long i = 0; i < n; i++) {
+                if (_index >= _bytes.length)
+                    return false;
+                _index++;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.tools;
+
+import com.drew.imaging.tiff.TiffMetadataReader;
+import com.drew.lang.ByteArrayReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.Directory;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.Tag;
+import com.drew.metadata.exif.ExifReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the TIFF engine behind {@link TiffMetadataReader}, which is {@link com.drew.imaging.tiff.TiffReader} with
+ * {@link com.drew.metadata.exif.ExifTiffHandler}, against the deprecated engine behind
+ * {@link ExifReader#extractTiff}.
+ * <p/>
+ * The corpus is every TIFF file (including TIFF-based RAW files) and JPEG Exif segment (<code>.app1</code> files,
+ * whose TIFF data follows a six byte preamble) found in the specified files and directories, or in
+ * <code>Tests/Data</code> if none are specified. Files are read into memory first, so that only extraction is timed.
+ * <p/>
+ * Run with no arguments to time both engines, each in its own JVM, and then list any differences between their
+ * output. Pass <code>legacy</code>, <code>handler</code> or <code>compare</code>, followed by optional paths, to
+ * perform one of these steps in the current JVM.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class TiffEngineBenchmark
+{
+    private static final int WARM_UP_ITERATIONS = 2000;
+    private static final int MEASURED_ITERATIONS = 1000;
+
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length == 0) {
+            Benchmark.fork(TiffEngineBenchmark.class, "legacy");
+            Benchmark.fork(TiffEngineBenchmark.class, "handler");
+            main(new String[] { "compare" });
+            return;
+        }
+
+        final List<byte[]> corpus = new ArrayList<byte[]>();
+        final List<Integer> tiffHeaderOffsets = new ArrayList<Integer>();
+        final List<String> names = new ArrayList<String>();
+
+        if (args.length == 1) {
+            addToCorpus(new File("Tests/Data"), corpus, tiffHeaderOffsets, names);
+        } else {
+            for (int i = 1; i < args.length; i++)
+                addToCorpus(new File(args[i]), corpus, tiffHeaderOffsets, names);
+        }
+
+        if (corpus.isEmpty()) {
+            System.err.println("No TIFF data found.");
+            System.exit(1);
+            return;
+        }
+
+        if (args[0].equals("compare")) {
+            int differingFileCount = 0;
+            for (int i = 0; i < corpus.size(); i++) {
+                List<String> legacy = describe(extractWithLegacyEngine(corpus.get(i), tiffHeaderOffsets.get(i)));
+                List<String> handler = describe(extractWithHandlerEngine(corpus.get(i), tiffHeaderOffsets.get(i)));
+                if (!legacy.equals(handler)) {
+                    differingFileCount++;
+                    System.out.println(names.get(i));
+                    for (String line : legacy) {
+                        if (!handler.contains(line))
+                            System.out.println("  - " + line);
+                    }
+                    for (String line : handler) {
+                        if (!legacy.contains(line))
+                            System.out.println("  + " + line);
+                    }
+                }
+            }
+            System.out.printf("%d of %d files differ%n", differingFileCount, corpus.size());
+            return;
+        }
+
+        final boolean legacy;
+        if (args[0].equals("legacy")) {
+            legacy = true;
+        } else if (args[0].equals("handler")) {
+            legacy = false;
+        } else {
+            System.err.println("Expects no arguments, or 'legacy', 'handler' or 'compare' followed by optional paths.");
+            System.exit(1);
+            return;
+        }
+
+        Benchmark.measure(String.format("%d TIFF files, %s engine", corpus.size(), args[0]), WARM_UP_ITERATIONS, MEASURED_ITERATIONS, new Benchmark.Operation()
+        {
+            public long run() throws IOException
+            {
+                long sum = 0;
+                for (int i = 0; i < corpus.size(); i++) {
+                    Metadata metadata = legacy
+                        ? extractWithLegacyEngine(corpus.get(i), tiffHeaderOffsets.get(i))
+                        : extractWithHandlerEngine(corpus.get(i), tiffHeaderOffsets.get(i));
+                    sum += metadata.getDirectoryCount();
+                }
+                return sum;
+            }
+        });
+    }
+
+    @NotNull
+    @SuppressWarnings("deprecation")
+    private static Metadata extractWithLegacyEngine(@NotNull byte[] bytes, int tiffHeaderOffset) throws IOException
+    {
+        Metadata metadata = new Metadata();
+        new ExifReader().extractTiff(new ByteArrayReader(bytes).slice(tiffHeaderOffset, bytes.length - tiffHeaderOffset), metadata);
+        return metadata;
+    }
+
+    @NotNull
+    private static Metadata extractWithHandlerEngine(@NotNull byte[] bytes, int tiffHeaderOffset) throws IOException
+    {
+        return TiffMetadataReader.readMetadata(new ByteArrayReader(bytes).slice(tiffHeaderOffset, bytes.length - tiffHeaderOffset));
+    }
+
+    @NotNull
+    private static List<String> describe(@NotNull Metadata metadata)
+    {
+        List<String> lines = new ArrayList<String>();
+        for (Directory directory : metadata.getDirectories()) {
+            for (Tag tag : directory.getTags())
+                lines.add("[" + directory.getName() + "] " + tag.getTagName() + " = " + tag.getDescription());
+            for (String error : directory.getErrors())
+                lines.add("[" + directory.getName() + "] ERROR: " + error);
+        }
+        return lines;
+    }
+
+    private static void addToCorpus(@NotNull File file, @NotNull List<byte[]> corpus, @NotNull List<Integer> tiffHeaderOffsets, @NotNull List<String> names) throws IOException
+    {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children)
+                    addToCorpus(child, corpus, tiffHeaderOffsets, names);
+            }
+            return;
+        }
+
+        byte[] bytes = FileUtil.readBytes(file);
+        if (bytes.length < 8)
+            return;
+
+        int tiffHeaderOffset;
+        if (bytes[0] == 'E' && bytes[1] == 'x' && bytes[2] == 'i' && bytes[3] == 'f' && bytes[4] == 0 && bytes[5] == 0) {
+            tiffHeaderOffset = 6;
+        } else if ((bytes[0] == 'I' && bytes[1] == 'I') || (bytes[0] == 'M' && bytes[1] == 'M')) {
+            tiffHeaderOffset = 0;
+        } else {
+            return;
+        }
+
+        corpus.add(bytes);
+        tiffHeaderOffsets.add(tiffHeaderOffset);
+        names.add(file.getPath());
+    }
+}
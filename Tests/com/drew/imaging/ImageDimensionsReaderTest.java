@@ -0,0 +1,205 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.imaging;
+
+import com.drew.imaging.tiff.TiffMetadataReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.Directory;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.bmp.BmpHeaderDirectory;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.gif.GifHeaderDirectory;
+import com.drew.metadata.jpeg.JpegDirectory;
+import com.drew.metadata.photoshop.PsdHeaderDirectory;
+import com.drew.metadata.png.PngDirectory;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class ImageDimensionsReaderTest
+{
+    @Test
+    public void testMatchesFullMetadata() throws Exception
+    {
+        assertMatchesMetadata("Tests/Data/withExif.jpg", FileType.JPEG, JpegDirectory.class, JpegDirectory.TAG_IMAGE_WIDTH, JpegDirectory.TAG_IMAGE_HEIGHT);
+        assertMatchesMetadata("Tests/Data/withIptcExifGps.jpg", FileType.JPEG, JpegDirectory.class, JpegDirectory.TAG_IMAGE_WIDTH, JpegDirectory.TAG_IMAGE_HEIGHT);
+        assertMatchesMetadata("Tests/Data/noExif.jpg", FileType.JPEG, JpegDirectory.class, JpegDirectory.TAG_IMAGE_WIDTH, JpegDirectory.TAG_IMAGE_HEIGHT);
+        assertMatchesMetadata("Tests/Data/adobeJpeg1.jpg", FileType.JPEG, JpegDirectory.class, JpegDirectory.TAG_IMAGE_WIDTH, JpegDirectory.TAG_IMAGE_HEIGHT);
+        assertMatchesMetadata("Tests/Data/photoshop-8x12-rgb24.png", FileType.PNG, PngDirectory.class, PngDirectory.TAG_IMAGE_WIDTH, PngDirectory.TAG_IMAGE_HEIGHT);
+        assertMatchesMetadata("Tests/Data/mspaint-10x10.gif", FileType.GIF, GifHeaderDirectory.class, GifHeaderDirectory.TAG_IMAGE_WIDTH, GifHeaderDirectory.TAG_IMAGE_HEIGHT);
+        assertMatchesMetadata("Tests/Data/24bpp-10x10.bmp", FileType.BMP, BmpHeaderDirectory.class, BmpHeaderDirectory.TAG_IMAGE_WIDTH, BmpHeaderDirectory.TAG_IMAGE_HEIGHT);
+        assertMatchesMetadata("Tests/Data/8x4x8bit-Grayscale.psd", FileType.PSD, PsdHeaderDirectory.class, PsdHeaderDirectory.TAG_IMAGE_WIDTH, PsdHeaderDirectory.TAG_IMAGE_HEIGHT);
+    }
+
+    @Test
+    public void testKnownDimensions() throws Exception
+    {
+        ImageDimensions png = ImageDimensionsReader.readDimensions(new File("Tests/Data/photoshop-8x12-rgb24.png"));
+        assertEquals(FileType.PNG, png.getFileType());
+        assertEquals(8, png.getWidth());
+        assertEquals(12, png.getHeight());
+        assertEquals(0, png.getOrientation());
+
+        ImageDimensions psd = ImageDimensionsReader.readDimensions(new File("Tests/Data/10x12x16bit-CMYK.psd"));
+        assertEquals(FileType.PSD, psd.getFileType());
+        assertEquals(10, psd.getWidth());
+        assertEquals(12, psd.getHeight());
+    }
+
+    @Test
+    public void testTiff() throws Exception
+    {
+        for (boolean isMotorolaByteOrder : new boolean[] { false, true }) {
+            byte[] tiff = createTiff(isMotorolaByteOrder);
+
+            ImageDimensions dimensions = ImageDimensionsReader.readDimensions(new ByteArrayInputStream(tiff));
+            assertEquals(FileType.TIFF, dimensions.getFileType());
+            assertEquals(640, dimensions.getWidth());
+            assertEquals(70000, dimensions.getHeight());
+            assertEquals(6, dimensions.getOrientation());
+
+            Metadata metadata = TiffMetadataReader.readMetadata(new ByteArrayInputStream(tiff));
+            ExifIFD0Directory directory = metadata.getDirectory(ExifIFD0Directory.class);
+            assertNotNull(directory);
+            assertEquals(directory.getInt(0x0100), dimensions.getWidth());
+            assertEquals(directory.getInt(0x0101), dimensions.getHeight());
+            assertEquals(directory.getInt(ExifIFD0Directory.TAG_ORIENTATION), dimensions.getOrientation());
+        }
+    }
+
+    @Test
+    public void testUnsupportedFormatThrows() throws Exception
+    {
+        try {
+            ImageDimensionsReader.readDimensions(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4 }));
+            fail("Exception expected");
+        } catch (ImageProcessingException e) {
+            assertEquals("File format is not supported", e.getMessage());
+        }
+
+        try {
+            ImageDimensionsReader.readDimensions(new ByteArrayInputStream(new byte[0]));
+            fail("Exception expected");
+        } catch (ImageProcessingException e) {
+            assertEquals("Could not determine file's magic number.", e.getMessage());
+        }
+    }
+
+    private static void assertMatchesMetadata(@NotNull String filePath,
+                                              @NotNull FileType expectedFileType,
+                                              @NotNull Class<? extends Directory> directoryClass,
+                                              int widthTagType,
+                                              int heightTagType) throws Exception
+    {
+        File file = new File(filePath);
+        ImageDimensions dimensions = ImageDimensionsReader.readDimensions(file);
+        Metadata metadata = ImageMetadataReader.readMetadata(file);
+
+        Directory directory = metadata.getDirectory(directoryClass);
+        assertNotNull(filePath, directory);
+        assertEquals(filePath, expectedFileType, dimensions.getFileType());
+        assertEquals(filePath, directory.getInt(widthTagType), dimensions.getWidth());
+        assertEquals(filePath, directory.getInt(heightTagType), dimensions.getHeight());
+
+        ExifIFD0Directory exifDirectory = metadata.getDirectory(ExifIFD0Directory.class);
+        Integer orientation = exifDirectory == null ? null : exifDirectory.getInteger(ExifIFD0Directory.TAG_ORIENTATION);
+        assertEquals(filePath, orientation == null ? 0 : orientation.intValue(), dimensions.getOrientation());
+    }
+
+    /**
+     * Creates a TIFF whose IFD0 holds the image width as a SHORT, the height as a LONG and the orientation, after
+     * a gap which must be skipped.
+     */
+    @NotNull
+    private static byte[] createTiff(boolean isMotorolaByteOrder) throws IOException
+    {
+        byte[] bytes = new byte[16 + 2 + 4 * 12 + 4];
+        TestWriter writer = new TestWriter(bytes, isMotorolaByteOrder);
+        writer.putUInt16(isMotorolaByteOrder ? 0x4D4D : 0x4949);
+        writer.putUInt16(0x2A);
+        writer.putUInt32(16);
+        writer.position(16);
+        writer.putUInt16(4);
+        writer.putEntry(0x00FE, 4, 0);
+        writer.putEntry(0x0100, 3, 640);
+        writer.putEntry(0x0101, 4, 70000);
+        writer.putEntry(0x0112, 3, 6);
+        writer.putUInt32(0);
+        return bytes;
+    }
+
+    private static class TestWriter
+    {
+        private final byte[] _bytes;
+        private final boolean _isMotorolaByteOrder;
+        private int _position;
+
+        TestWriter(byte[] bytes, boolean isMotorolaByteOrder)
+        {
+            _bytes = bytes;
+            _isMotorolaByteOrder = isMotorolaByteOrder;
+        }
+
+        void position(int position)
+        {
+            _position = position;
+        }
+
+        void putUInt16(int value)
+        {
+            put(value, 2);
+        }
+
+        void putUInt32(long value)
+        {
+            put(value, 4);
+        }
+
+        void putEntry(int tagType, int format, long value)
+        {
+            putUInt16(tagType);
+            putUInt16(format);
+            putUInt32(1);
+            if (format == 3) {
+                putUInt16((int)value);
+                putUInt16(0);
+            } else {
+                putUInt32(value);
+            }
+        }
+
+        private void put(long value, int count)
+        {
+            for (int i = 0; i < count; i++) {
+                int shift = _isMotorolaByteOrder ? 8 * (count - 1 - i) : 8 * i;
+                _bytes[_position++] = (byte)(value >> shift);
+            }
+        }
+    }
+}
@@ -20,16 +20,35 @@
  */
 package com.drew.imaging.jpeg;
 
+import com.drew.lang.FileRangeSource;
+import com.drew.lang.SequentialByteArrayReader;
+import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.Tag;
+import com.drew.metadata.exif.ExifReader;
 import com.drew.metadata.exif.ExifSubIFDDirectory;
+import com.drew.metadata.exif.ExifThumbnailDirectory;
+import com.drew.metadata.exif.ThumbnailRetention;
+import com.drew.metadata.jpeg.JpegDirectory;
+import com.drew.metadata.jpeg.JpegReader;
+import com.drew.tools.FileUtil;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Drew Noakes http://drewnoakes.com
@@ -48,6 +67,185 @@ public class JpegMetadataReaderTest
         validate(JpegMetadataReader.readMetadata(new FileInputStream((new File("Tests/Data/withExif.jpg")))));
     }
 
+    @Test
+    public void testExtractMetadataUsingRangeSource() throws Exception
+    {
+        RandomAccessFile file = new RandomAccessFile("Tests/Data/withExif.jpg", "r");
+        try {
+            validate(JpegMetadataReader.readMetadata(new FileRangeSource(file)));
+        } finally {
+            file.close();
+        }
+    }
+
+    @Test
+    public void testThumbnailRetentionIsChosenPerCall() throws Exception
+    {
+        File file = new File("Tests/Data/manuallyAddedThumbnail.jpg");
+
+        Metadata without = JpegMetadataReader.readMetadata(file, null, ThumbnailRetention.NONE);
+        assertFalse(without.getDirectory(ExifThumbnailDirectory.class).hasThumbnailData());
+
+        Metadata with = JpegMetadataReader.readMetadata(new FileInputStream(file), null, ThumbnailRetention.COPY);
+        assertEquals(2970, with.getDirectory(ExifThumbnailDirectory.class).getThumbnailData().length);
+
+        // Readers passed in are replaced for the call, rather than changed
+        ExifReader exifReader = new ExifReader(ThumbnailRetention.NONE);
+        Iterable<JpegSegmentMetadataReader> readers = Arrays.<JpegSegmentMetadataReader>asList(exifReader);
+        Metadata replaced = JpegMetadataReader.readMetadata(file, readers, ThumbnailRetention.COPY);
+        assertTrue(replaced.getDirectory(ExifThumbnailDirectory.class).hasThumbnailData());
+        assertFalse(JpegMetadataReader.readMetadata(file, readers).getDirectory(ExifThumbnailDirectory.class).hasThumbnailData());
+
+        // The shared default readers still copy thumbnails
+        assertTrue(JpegMetadataReader.readMetadata(file).getDirectory(ExifThumbnailDirectory.class).hasThumbnailData());
+    }
+
+    @Test
+    public void testRangeSourceFetchesOnlyMetadataSegments() throws Exception
+    {
+        RandomAccessFile file = new RandomAccessFile("Tests/Data/nikonMakernoteType2b.jpg", "r");
+        try {
+            FileRangeSource source = new FileRangeSource(file);
+            Metadata metadata = JpegMetadataReader.readMetadata(source);
+
+            assertNotNull(metadata.getDirectory(ExifSubIFDDirectory.class));
+            assertTrue(source.getBytesRead() < file.length() / 10);
+            assertTrue(source.getRequestCount() < 10);
+        } finally {
+            file.close();
+        }
+    }
+
+    @Test
+    public void testReadingStopsOnceReadersComplete() throws Exception
+    {
+        byte[] bytes = FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg");
+        ByteArrayInputStream stream = new ByteArrayInputStream(bytes);
+
+        Metadata metadata = JpegMetadataReader.readMetadata(stream, Arrays.<JpegSegmentMetadataReader>asList(new ExifReader()));
+
+        assertNotNull(metadata.getDirectory(ExifSubIFDDirectory.class));
+        // Only the APP0 and first APP1 segments were read
+        assertEquals(bytes.length - 4730, stream.available());
+    }
+
+    @Test
+    public void testHeaderByteBudget() throws Exception
+    {
+        byte[] bytes = FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg");
+        ByteArrayInputStream stream = new ByteArrayInputStream(bytes);
+
+        // The APPD segment following the Exif APP1 segment ends beyond the budget
+        Metadata metadata = JpegMetadataReader.readMetadata(stream, null, 10000);
+
+        assertNotNull(metadata.getDirectory(ExifSubIFDDirectory.class));
+        // Only the marker and length of the APPD segment were read
+        assertEquals(bytes.length - 4734, stream.available());
+
+        JpegDirectory directory = metadata.getDirectory(JpegDirectory.class);
+        assertNotNull(directory);
+        assertEquals(
+                "JPEG header byte budget of 10000 bytes exhausted; segments from offset 4730 onwards were not read",
+                directory.getErrors().iterator().next());
+    }
+
+    @Test
+    public void testHeaderByteBudgetNotExhausted() throws Exception
+    {
+        Metadata metadata = JpegMetadataReader.readMetadata(new FileInputStream("Tests/Data/withExifAndIptc.jpg"), null, 1024 * 1024);
+
+        assertFalse(metadata.hasErrors());
+    }
+
+    @Test
+    public void testParallelDecodingMatchesSequentialDecoding() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (String fileName : new String[] { "Tests/Data/withExifAndIptc.jpg", "Tests/Data/withIptcExifGps.jpg", "Tests/Data/withIptcPhotoshop6.jpg", "Tests/Data/adobeJpeg1.jpg" }) {
+                Metadata sequential = JpegMetadataReader.readMetadata(new File(fileName));
+                Metadata parallel = JpegMetadataReader.readMetadata(new FileInputStream(fileName), null, executor);
+
+                assertEquals(fileName, describe(sequential), describe(parallel));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelDecodingStopsWhereSequentialDecodingStops() throws Exception
+    {
+        // Two Exif segments, of which sequential processing with only completable readers reads just the first
+        byte[] first = FileUtil.readBytes("Tests/Data/withExif.jpg.app1");
+        byte[] second = FileUtil.readBytes("Tests/Data/nikonMakernoteType1.jpg.app1");
+        byte[] jpeg = new byte[2 + 4 + first.length + 4 + second.length + 2];
+        int offset = 0;
+        jpeg[offset++] = (byte)0xFF;
+        jpeg[offset++] = (byte)0xD8;
+        for (byte[] segment : new byte[][] { first, second }) {
+            jpeg[offset++] = (byte)0xFF;
+            jpeg[offset++] = JpegSegmentType.APP1.byteValue;
+            jpeg[offset++] = (byte)((segment.length + 2) >> 8);
+            jpeg[offset++] = (byte)(segment.length + 2);
+            System.arraycopy(segment, 0, jpeg, offset, segment.length);
+            offset += segment.length;
+        }
+        jpeg[offset++] = (byte)0xFF;
+        jpeg[offset] = (byte)0xD9;
+
+        JpegSegmentDispatchPlan plan = new JpegSegmentDispatchPlan(Arrays.<JpegSegmentMetadataReader>asList(new ExifReader()));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Metadata sequential = new Metadata();
+            JpegMetadataReader.process(sequential, new SequentialByteArrayReader(jpeg), plan, Long.MAX_VALUE);
+            Metadata parallel = new Metadata();
+            JpegMetadataReader.process(parallel, new SequentialByteArrayReader(jpeg), plan, Long.MAX_VALUE, executor);
+
+            Metadata firstOnly = new Metadata();
+            new ExifReader().extract(first, firstOnly, JpegSegmentType.APP1);
+
+            assertEquals(describe(firstOnly), describe(sequential));
+            assertEquals(describe(sequential), describe(parallel));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelDecodingMatchesSequentialDecodingWithCompletableReaders() throws Exception
+    {
+        JpegSegmentDispatchPlan plan = new JpegSegmentDispatchPlan(Arrays.<JpegSegmentMetadataReader>asList(new ExifReader(), new JpegReader()));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (String fileName : new String[] { "Tests/Data/withExifAndIptc.jpg", "Tests/Data/withIptcExifGps.jpg", "Tests/Data/adobeJpeg1.jpg" }) {
+                byte[] jpeg = FileUtil.readBytes(fileName);
+                Metadata sequential = new Metadata();
+                JpegMetadataReader.process(sequential, new SequentialByteArrayReader(jpeg), plan, Long.MAX_VALUE);
+                Metadata parallel = new Metadata();
+                JpegMetadataReader.process(parallel, new SequentialByteArrayReader(jpeg), plan, Long.MAX_VALUE, executor);
+
+                assertEquals(fileName, describe(sequential), describe(parallel));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @NotNull
+    private static List<String> describe(@NotNull Metadata metadata)
+    {
+        List<String> lines = new ArrayList<String>();
+        for (Directory directory : metadata.getDirectories()) {
+            lines.add("[" + directory.getName() + "]");
+            for (Tag tag : directory.getTags())
+                lines.add(tag.toString());
+            for (String error : directory.getErrors())
+                lines.add("ERROR: " + error);
+        }
+        return lines;
+    }
+
     private void validate(Metadata metadata)
     {
         Directory directory = metadata.getDirectory(ExifSubIFDDirectory.class);
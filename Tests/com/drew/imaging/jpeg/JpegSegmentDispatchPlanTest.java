@@ -0,0 +1,201 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+package com.drew.imaging.jpeg;
+
+import com.drew.lang.StreamReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifReader;
+import com.drew.metadata.jfif.JfifDirectory;
+import com.drew.metadata.jfif.JfifReader;
+import com.drew.metadata.xmp.XmpReader;
+import com.drew.tools.FileUtil;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link JpegSegmentDispatchPlan}.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class JpegSegmentDispatchPlanTest
+{
+    @Test
+    public void testIsWanted() throws Exception
+    {
+        JpegSegmentDispatchPlan plan = new JpegSegmentDispatchPlan(Arrays.<JpegSegmentMetadataReader>asList(new JfifReader(), new ExifReader()));
+
+        assertTrue(plan.isWanted(JpegSegmentType.APP0.byteValue));
+        assertTrue(plan.isWanted(JpegSegmentType.APP1.byteValue));
+        assertFalse(plan.isWanted(JpegSegmentType.APP2.byteValue));
+        assertFalse(plan.isWanted(JpegSegmentType.SOF0.byteValue));
+    }
+
+    @Test
+    public void testDispatchAndCompletion() throws Exception
+    {
+        JpegSegmentDispatchPlan plan = new JpegSegmentDispatchPlan(Arrays.<JpegSegmentMetadataReader>asList(new JfifReader()));
+        Metadata metadata = new Metadata();
+        JpegSegmentHandler handler = plan.createHandler(metadata);
+
+        // segments of other types are ignored
+        assertTrue(handler.handleSegment(JpegSegmentType.APP1.byteValue, new byte[10]));
+        assertEquals(0, metadata.getDirectoryCount());
+
+        // as are segments the reader cannot process
+        assertTrue(handler.handleSegment(JpegSegmentType.APP0.byteValue, new byte[10]));
+        assertEquals(0, metadata.getDirectoryCount());
+
+        byte[] app0 = FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg.app0");
+        assertFalse(handler.handleSegment(JpegSegmentType.APP0.byteValue, app0));
+        assertNotNull(metadata.getDirectory(JfifDirectory.class));
+    }
+
+    @Test
+    public void testCompletionIsTrackedPerHandler() throws Exception
+    {
+        JpegSegmentDispatchPlan plan = new JpegSegmentDispatchPlan(Arrays.<JpegSegmentMetadataReader>asList(new JfifReader()));
+        byte[] app0 = FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg.app0");
+
+        // A directory already present in the metadata does not complete the reader for a new file
+        Metadata metadata = new Metadata();
+        metadata.getOrCreateDirectory(JfifDirectory.class);
+        JpegSegmentHandler handler = plan.createHandler(metadata);
+        assertTrue(handler.handleSegment(JpegSegmentType.APP1.byteValue, new byte[10]));
+        assertFalse(handler.handleSegment(JpegSegmentType.APP0.byteValue, app0));
+
+        // Nor does completion carry over to a second handler
+        assertTrue(plan.createHandler(metadata).handleSegment(JpegSegmentType.APP1.byteValue, new byte[10]));
+    }
+
+    @Test
+    public void testNeverCompleteWithReaderThatCannotComplete() throws Exception
+    {
+        JpegSegmentDispatchPlan plan = new JpegSegmentDispatchPlan(Arrays.<JpegSegmentMetadataReader>asList(new JfifReader(), new XmpReader()));
+        Metadata metadata = new Metadata();
+
+        byte[] app0 = FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg.app0");
+        assertTrue(plan.createHandler(metadata).handleSegment(JpegSegmentType.APP0.byteValue, app0));
+        assertNotNull(metadata.getDirectory(JfifDirectory.class));
+    }
+
+    @Test
+    public void testMatchingSegmentsDoesNotAllocate() throws Exception
+    {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean)threadBean;
+        Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled());
+
+        final List<Byte> segmentTypes = new ArrayList<Byte>();
+        final List<byte[]> segments = new ArrayList<byte[]>();
+        for (String fileName : new String[] { "withExifAndIptc.jpg", "withIptcPhotoshop6.jpg", "adobeJpeg1.jpg" }) {
+            InputStream stream = new FileInputStream("Tests/Data/" + fileName);
+            try {
+                JpegSegmentReader.readSegments(new StreamReader(stream), null, new JpegSegmentHandler()
+                {
+                    public boolean handleSegment(byte segmentType, @NotNull byte[] segmentBytes)
+                    {
+                        segmentTypes.add(segmentType);
+                        segments.add(segmentBytes);
+                        return true;
+                    }
+                });
+            } finally {
+                stream.close();
+            }
+        }
+
+        // Dispatch to the default readers, counting the segments each accepts rather than extracting them, so that
+        // only dispatch and preamble matching are measured
+        List<JpegSegmentMetadataReader> readers = new ArrayList<JpegSegmentMetadataReader>();
+        for (JpegSegmentMetadataReader reader : JpegMetadataReader.ALL_READERS)
+            readers.add(new CountingReader(reader));
+        JpegSegmentHandler handler = new JpegSegmentDispatchPlan(readers).createHandler(new Metadata());
+
+        for (int i = 0; i < 2000; i++) {
+            for (int j = 0; j < segments.size(); j++)
+                handler.handleSegment(segmentTypes.get(j), segments.get(j));
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10000; i++) {
+            for (int j = 0; j < segments.size(); j++)
+                handler.handleSegment(segmentTypes.get(j), segments.get(j));
+        }
+        long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        int acceptedCount = 0;
+        for (JpegSegmentMetadataReader reader : readers)
+            acceptedCount += ((CountingReader)reader).getCount();
+        assertTrue(acceptedCount > 0);
+        // Decoding each preamble into a String would allocate megabytes here. Allow a little slack for allocations
+        // made by the measurement itself.
+        assertTrue("Allocated " + allocated + " bytes", allocated < 64 * 1024);
+    }
+
+    /**
+     * Delegates segment matching to another reader, but only counts the segments passed for extraction.
+     */
+    private static class CountingReader implements JpegSegmentMetadataReader
+    {
+        @NotNull
+        private final JpegSegmentMetadataReader _reader;
+        private int _count;
+
+        CountingReader(@NotNull JpegSegmentMetadataReader reader)
+        {
+            _reader = reader;
+        }
+
+        @NotNull
+        public Iterable<JpegSegmentType> getSegmentTypes()
+        {
+            return _reader.getSegmentTypes();
+        }
+
+        public boolean canProcess(@NotNull byte[] segmentBytes, @NotNull JpegSegmentType segmentType)
+        {
+            return _reader.canProcess(segmentBytes, segmentType);
+        }
+
+        public void extract(@NotNull byte[] segmentBytes, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
+        {
+            _count++;
+        }
+
+        int getCount()
+        {
+            return _count;
+        }
+    }
+}
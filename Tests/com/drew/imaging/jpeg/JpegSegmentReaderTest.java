@@ -20,12 +20,17 @@
  */
 package com.drew.imaging.jpeg;
 
+import com.drew.lang.StreamReader;
+import com.drew.lang.annotations.NotNull;
 import com.drew.tools.FileUtil;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
@@ -147,4 +152,32 @@ public class JpegSegmentReaderTest
             // expect exception
         }
     }
+
+    @Test
+    public void testReadSegmentsWithHandler() throws Exception
+    {
+        final List<Byte> segmentTypes = new ArrayList<Byte>();
+        final List<byte[]> segments = new ArrayList<byte[]>();
+
+        FileInputStream stream = new FileInputStream("Tests/Data/withExifAndIptc.jpg");
+        try {
+            JpegSegmentReader.readSegments(new StreamReader(stream), Arrays.asList(JpegSegmentType.APP1, JpegSegmentType.APPD), new JpegSegmentHandler()
+            {
+                public boolean handleSegment(byte segmentType, @NotNull byte[] segmentBytes)
+                {
+                    segmentTypes.add(segmentType);
+                    segments.add(segmentBytes);
+                    return true;
+                }
+            });
+        } finally {
+            stream.close();
+        }
+
+        // segments are handled in the order they appear in the file
+        assertEquals(Arrays.asList(JpegSegmentType.APP1.byteValue, JpegSegmentType.APPD.byteValue, JpegSegmentType.APP1.byteValue), segmentTypes);
+        assertArrayEquals(FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg.app1.0"), segments.get(0));
+        assertArrayEquals(FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg.appd"), segments.get(1));
+        assertArrayEquals(FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg.app1.1"), segments.get(2));
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.imaging.tiff;
+
+import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.lang.ByteArrayReader;
+import com.drew.metadata.Directory;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.Tag;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifReader;
+import com.drew.metadata.exif.ExifSubIFDDirectory;
+import com.drew.metadata.exif.ExifThumbnailDirectory;
+import com.drew.metadata.exif.makernotes.SonyType1MakernoteDirectory;
+import com.drew.tools.FileUtil;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link TiffMetadataReader}.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class TiffMetadataReaderTest
+{
+    @Test
+    public void testTiffDataIsExtractedAsFromJpegExifSegment() throws Exception
+    {
+        // The TIFF data of a JPEG Exif segment follows a six byte preamble
+        byte[] segmentBytes = FileUtil.readBytes("Tests/Data/sonyType1.jpg.app1");
+        byte[] tiffBytes = new byte[segmentBytes.length - 6];
+        System.arraycopy(segmentBytes, 6, tiffBytes, 0, tiffBytes.length);
+
+        Metadata jpegMetadata = new Metadata();
+        new ExifReader().extract(segmentBytes, jpegMetadata, JpegSegmentType.APP1);
+
+        Metadata tiffMetadata = TiffMetadataReader.readMetadata(new ByteArrayReader(tiffBytes));
+        assertEquals(describe(jpegMetadata), describe(tiffMetadata));
+        assertNotNull(tiffMetadata.getDirectory(ExifSubIFDDirectory.class));
+        assertNotNull(tiffMetadata.getDirectory(SonyType1MakernoteDirectory.class));
+
+        Metadata streamMetadata = TiffMetadataReader.readMetadata(new ByteArrayInputStream(tiffBytes));
+        assertEquals(describe(jpegMetadata), describe(streamMetadata));
+    }
+
+    @Test
+    public void testInvalidByteOrderIsReportedOnIfd0() throws Exception
+    {
+        Metadata metadata = TiffMetadataReader.readMetadata(new ByteArrayReader(new byte[] { 'X', 'X', 0, 0x2A, 0, 0, 0, 8 }));
+
+        ExifIFD0Directory directory = metadata.getDirectory(ExifIFD0Directory.class);
+        assertNotNull(directory);
+        assertTrue(directory.hasErrors());
+        assertEquals(0, directory.getTagCount());
+    }
+
+    @Test
+    public void testBoundedStreamRetainsNextIfdWhileSubIfdIsRead() throws Exception
+    {
+        // IFD0 links to an Exif sub-IFD at 6000 and to IFD1 at 3000. The sub-IFD is read first, moving the one-chunk
+        // window past IFD1.
+        byte[] bytes = new byte[6100];
+        bytes[0] = 'I'; bytes[1] = 'I'; bytes[2] = 0x2A;
+        putInt32(bytes, 4, 8);
+        writeIfd(bytes, 8, ExifIFD0Directory.TAG_EXIF_SUB_IFD_OFFSET, 4, 6000, 3000);
+        writeIfd(bytes, 3000, ExifThumbnailDirectory.TAG_THUMBNAIL_COMPRESSION, 3, 6, 0);
+        writeIfd(bytes, 6000, ExifSubIFDDirectory.TAG_EXIF_VERSION, 7, 0x30323230, 0);
+
+        Metadata metadata = TiffMetadataReader.readMetadata(new ByteArrayInputStream(bytes), 2 * 1024);
+
+        ExifSubIFDDirectory subIfdDirectory = metadata.getDirectory(ExifSubIFDDirectory.class);
+        assertNotNull(subIfdDirectory);
+        assertTrue(subIfdDirectory.containsTag(ExifSubIFDDirectory.TAG_EXIF_VERSION));
+
+        ExifThumbnailDirectory thumbnailDirectory = metadata.getDirectory(ExifThumbnailDirectory.class);
+        assertNotNull(thumbnailDirectory);
+        assertFalse(thumbnailDirectory.hasErrors());
+        assertEquals(6, thumbnailDirectory.getInt(ExifThumbnailDirectory.TAG_THUMBNAIL_COMPRESSION));
+    }
+
+    /** Writes a little-endian IFD holding a single entry with an inline value. */
+    private static void writeIfd(byte[] bytes, int offset, int tagId, int formatCode, int value, int nextIfdOffset)
+    {
+        bytes[offset] = 1;
+        bytes[offset + 2] = (byte)tagId;
+        bytes[offset + 3] = (byte)(tagId >> 8);
+        bytes[offset + 4] = (byte)formatCode;
+        bytes[offset + 6] = formatCode == 7 ? (byte)4 : 1;
+        putInt32(bytes, offset + 10, value);
+        putInt32(bytes, offset + 14, nextIfdOffset);
+    }
+
+    private static void putInt32(byte[] bytes, int offset, int value)
+    {
+        for (int i = 0; i < 4; i++)
+            bytes[offset + i] = (byte)(value >> (8 * i));
+    }
+
+    private static List<String> describe(Metadata metadata)
+    {
+        List<String> lines = new ArrayList<String>();
+        for (Directory directory : metadata.getDirectories()) {
+            for (Tag tag : directory.getTags())
+                lines.add(tag.toString());
+        }
+        return lines;
+    }
+}
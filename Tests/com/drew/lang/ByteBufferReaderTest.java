@@ -0,0 +1,65 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+
+/** @author Drew Noakes http://drewnoakes.com */
+public class ByteBufferReaderTest extends RandomAccessTestBase
+{
+    @Override
+    protected RandomAccessReader createReader(byte[] bytes)
+    {
+        // Use a direct buffer, positioned part way in, to exercise the non-array code paths and view rebasing
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 3);
+        buffer.position(3);
+        buffer.put(bytes);
+        buffer.position(3);
+        return new ByteBufferReader(buffer);
+    }
+
+    @Test
+    public void testIndependentOfSourceBuffer() throws Exception
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{0x01, 0x02, 0x03, 0x04});
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        ByteBufferReader reader = new ByteBufferReader(buffer);
+
+        buffer.position(2);
+
+        assertEquals(0x0102, reader.getUInt16(0));
+        assertEquals(4, reader.getLength());
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @Test(expected = NullPointerException.class)
+    public void testConstructWithNullBufferThrows()
+    {
+        new ByteBufferReader(null);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+package com.drew.lang;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class ByteSignatureTest
+{
+    @Test
+    public void testMatchesExactly() throws Exception
+    {
+        ByteSignature signature = new ByteSignature("Exif\0\0");
+
+        assertEquals(6, signature.getLength());
+        assertTrue(signature.matches(new byte[] { 'E', 'x', 'i', 'f', 0, 0, 'M', 'M' }));
+        assertFalse(signature.matches(new byte[] { 'e', 'x', 'i', 'f', 0, 0, 'M', 'M' }));
+        assertFalse(signature.matches(new byte[] { 'E', 'x', 'i', 'f', 0, 1, 'M', 'M' }));
+    }
+
+    @Test
+    public void testMatchesIgnoringCase() throws Exception
+    {
+        ByteSignature signature = new ByteSignature("ICC_PROFILE", true);
+
+        assertTrue(signature.matches("ICC_PROFILE".getBytes()));
+        assertTrue(signature.matches("icc_profile\0".getBytes()));
+        assertTrue(signature.matches("Icc_Profile".getBytes()));
+        assertFalse(signature.matches("ICC-PROFILE".getBytes()));
+    }
+
+    @Test
+    public void testDataShorterThanSignatureDoesNotMatch() throws Exception
+    {
+        ByteSignature signature = new ByteSignature("JFIF");
+
+        assertFalse(signature.matches(new byte[0]));
+        assertFalse(signature.matches("JFI".getBytes()));
+        assertFalse(signature.matches("xJFIF".getBytes(), 2));
+        assertFalse(signature.matches("JFIF".getBytes(), -1));
+        assertFalse(signature.matches(new ByteArrayReader("xxJFI".getBytes()), 2));
+    }
+
+    @Test
+    public void testMatchesAtOffset() throws Exception
+    {
+        ByteSignature signature = new ByteSignature("Nikon");
+        byte[] bytes = "....Nikon\0".getBytes();
+
+        assertFalse(signature.matches(bytes));
+        assertTrue(signature.matches(bytes, 4));
+        assertTrue(signature.matches(new ByteArrayReader(bytes), 4));
+        assertFalse(signature.matches(new ByteArrayReader(bytes), 3));
+    }
+
+    @Test
+    public void testMatchesSequentialReader() throws Exception
+    {
+        ByteSignature signature = new ByteSignature("Adobe");
+        SequentialReader reader = new SequentialByteArrayReader("AdobeAdoxeAdo".getBytes());
+
+        assertTrue(signature.matches(reader));
+        // a mismatch still consumes the whole signature's length
+        assertFalse(signature.matches(reader));
+        assertEquals('A', reader.getInt8());
+
+        try {
+            signature.matches(reader);
+            fail("Expecting an exception");
+        } catch (IOException ignored) {}
+    }
+
+    @Test
+    public void testToString() throws Exception
+    {
+        assertEquals("Adobe", new ByteSignature("Adobe").toString());
+        assertEquals("adobe", new ByteSignature("Adobe", true).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonAsciiSignatureIsRejected() throws Exception
+    {
+        new ByteSignature("caf\u00e9");
+    }
+
+    @Test
+    public void testMatchingDoesNotAllocate() throws Exception
+    {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean)threadBean;
+        Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled());
+
+        ByteSignature exact = new ByteSignature("http://ns.adobe.com/xap/1.0/\0");
+        ByteSignature ignoringCase = new ByteSignature("http://ns.adobe.com/xap/1.0/", true);
+        byte[] bytes = "http://ns.adobe.com/xap/1.0/\0<x:xmpmeta/>".getBytes();
+        ByteArrayReader reader = new ByteArrayReader(bytes);
+
+        int matchCount = 0;
+        for (int i = 0; i < 20000; i++) {
+            if (exact.matches(bytes) && ignoringCase.matches(bytes) && exact.matches(reader, 0))
+                matchCount++;
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100000; i++) {
+            if (exact.matches(bytes) && ignoringCase.matches(bytes) && exact.matches(reader, 0))
+                matchCount++;
+        }
+        long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(120000, matchCount);
+        // Decoding each preamble into a String would allocate several megabytes here. Allow a little slack for
+        // allocations made by the measurement itself.
+        assertTrue("Allocated " + allocated + " bytes", allocated < 64 * 1024);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class ChannelReaderTest extends SequentialAccessTestBase
+{
+    @SuppressWarnings({"ConstantConditions"})
+    @Test(expected = NullPointerException.class)
+    public void testConstructWithNullChannelThrows()
+    {
+        new ChannelReader(null);
+    }
+
+    @Override
+    protected SequentialReader createReader(byte[] bytes)
+    {
+        // Use a small buffer so that values regularly span buffer refills
+        return new ChannelReader(Channels.newChannel(new ByteArrayInputStream(bytes)), 8);
+    }
+
+    @Test
+    public void testSkipMovesFileChannelPosition() throws Exception
+    {
+        byte[] bytes = new byte[100];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte)i;
+
+        File file = File.createTempFile("metadata-extractor-test-", ".tmp");
+        try {
+            FileOutputStream outputStream = new FileOutputStream(file);
+            outputStream.write(bytes);
+            outputStream.close();
+
+            FileInputStream inputStream = new FileInputStream(file);
+            try {
+                FileChannel channel = inputStream.getChannel();
+                ChannelReader reader = new ChannelReader(channel, 8);
+
+                assertEquals(0, reader.getInt8());
+                assertEquals(8, channel.position());
+
+                // Seven bytes come from the buffer, and the remainder is skipped by moving the channel
+                reader.skip(50);
+                assertEquals(51, channel.position());
+                assertEquals(51, reader.getInt8());
+                assertEquals(0x3435, reader.getUInt16());
+
+                assertFalse(reader.trySkip(100));
+                assertEquals(100, channel.position());
+            } finally {
+                inputStream.close();
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+}
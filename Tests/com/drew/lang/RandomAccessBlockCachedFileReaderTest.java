@@ -0,0 +1,128 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import org.junit.Assert;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** @author Drew Noakes http://drewnoakes.com */
+public class RandomAccessBlockCachedFileReaderTest extends RandomAccessTestBase
+{
+    private File _tempFile;
+    private RandomAccessFile _randomAccessFile;
+
+    @Override
+    protected RandomAccessReader createReader(byte[] bytes)
+    {
+        // Use a tiny block length and count so that values regularly span blocks and blocks are evicted
+        return createReader(bytes, 3, 2);
+    }
+
+    private RandomAccessBlockCachedFileReader createReader(byte[] bytes, int blockLength, int maxBlockCount)
+    {
+        try {
+            // Unit tests can create multiple readers in the same test, as long as they're used one after the other
+            deleteTempFile();
+
+            _tempFile = File.createTempFile("metadata-extractor-test-", ".tmp");
+            FileOutputStream stream = new FileOutputStream(_tempFile);
+            stream.write(bytes);
+            stream.close();
+            _randomAccessFile = new RandomAccessFile(_tempFile, "r");
+            return new RandomAccessBlockCachedFileReader(_randomAccessFile, blockLength, maxBlockCount);
+        } catch (IOException e) {
+            Assert.fail("Unable to create temp file");
+            return null;
+        }
+    }
+
+    @After
+    public void deleteTempFile() throws IOException
+    {
+        if (_tempFile == null && _randomAccessFile == null)
+            return;
+
+        _randomAccessFile.close();
+
+        assertTrue(
+                "Unable to delete temp file used during unit test: " + _tempFile.getAbsolutePath(),
+                _tempFile.delete());
+
+        _tempFile = null;
+        _randomAccessFile = null;
+    }
+
+    @Test
+    public void testHitAndMissCounts() throws IOException
+    {
+        byte[] bytes = new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+        RandomAccessBlockCachedFileReader reader = createReader(bytes, 4, 2);
+
+        assertEquals(0, reader.getInt8(0));
+        assertEquals(1, reader.getMissCount());
+        assertEquals(0, reader.getHitCount());
+
+        // spans the first two blocks, only the second of which must be read
+        assertEquals(0x01020304, reader.getInt32(1));
+        assertEquals(2, reader.getMissCount());
+        assertEquals(3, reader.getHitCount());
+
+        // fill the cache with the third block, evicting the first
+        assertEquals(9, reader.getInt8(9));
+        assertEquals(3, reader.getMissCount());
+        assertEquals(0, reader.getInt8(0));
+        assertEquals(4, reader.getMissCount());
+
+        long hitsBefore = reader.getHitCount();
+        assertEquals(9, reader.getInt8(9));
+        assertEquals(4, reader.getMissCount());
+        assertEquals(hitsBefore + 1, reader.getHitCount());
+    }
+
+    @Test
+    public void testLargeReadsBypassCache() throws IOException
+    {
+        byte[] bytes = new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+        RandomAccessBlockCachedFileReader reader = createReader(bytes, 4, 2);
+
+        assertArrayEquals(bytes, reader.getBytes(0, 10));
+        assertEquals(0, reader.getMissCount());
+        assertEquals(0, reader.getHitCount());
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @Test(expected = NullPointerException.class)
+    public void testConstructWithNullBufferThrows() throws IOException
+    {
+        new RandomAccessBlockCachedFileReader(null);
+    }
+}
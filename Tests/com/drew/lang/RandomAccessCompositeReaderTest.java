@@ -0,0 +1,72 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/** @author Drew Noakes http://drewnoakes.com */
+public class RandomAccessCompositeReaderTest extends RandomAccessTestBase
+{
+    @Override
+    protected RandomAccessReader createReader(byte[] bytes)
+    {
+        // Split the data over three regions of differing size, one of which may be empty, each preceded by a
+        // two-byte header and followed by a byte of padding, so that reads span region boundaries
+        int firstLength = bytes.length / 3;
+        int secondLength = (bytes.length - firstLength) / 2;
+        int[] lengths = new int[] { firstLength, secondLength, bytes.length - firstLength - secondLength };
+
+        byte[][] buffers = new byte[3][];
+        int[] offsets = new int[3];
+        int start = 0;
+        for (int i = 0; i < 3; i++) {
+            buffers[i] = new byte[lengths[i] + 3];
+            System.arraycopy(bytes, start, buffers[i], 2, lengths[i]);
+            offsets[i] = 2;
+            start += lengths[i];
+        }
+
+        return new RandomAccessCompositeReader(buffers, offsets, lengths);
+    }
+
+    @Test
+    public void testReadsSpanningRegions() throws Exception
+    {
+        byte[][] buffers = new byte[][] { { 9, 1, 2 }, {}, { 9, 9, 3 }, { 4, 5, 6, 9 } };
+        RandomAccessReader reader = new RandomAccessCompositeReader(buffers, new int[] { 1, 0, 2, 0 }, new int[] { 2, 0, 1, 3 });
+
+        assertEquals(6, reader.getLength());
+        assertArrayEquals(new byte[] { 1, 2, 3, 4, 5, 6 }, reader.getBytes(0, 6));
+        assertArrayEquals(new byte[] { 2, 3, 4 }, reader.getBytes(1, 3));
+        assertEquals(0x02030405, reader.getInt32(1));
+        assertEquals(6, reader.getInt8(5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegionOutsideBufferThrows()
+    {
+        new RandomAccessCompositeReader(new byte[][] { new byte[4] }, new int[] { 2 }, new int[] { 3 });
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import org.junit.Assert;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** @author Drew Noakes http://drewnoakes.com */
+public class RandomAccessFileChannelReaderTest extends RandomAccessTestBase
+{
+    private File _tempFile;
+    private RandomAccessFile _randomAccessFile;
+
+    @Override
+    protected RandomAccessReader createReader(byte[] bytes)
+    {
+        try {
+            createFile(bytes);
+            // Use a tiny buffer so that values regularly span buffer refills
+            return new RandomAccessFileChannelReader(_randomAccessFile.getChannel(), 3);
+        } catch (IOException e) {
+            Assert.fail("Unable to create temp file");
+            return null;
+        }
+    }
+
+    private void createFile(byte[] bytes) throws IOException
+    {
+        // Unit tests can create multiple readers in the same test, as long as they're used one after the other
+        deleteTempFile();
+
+        _tempFile = File.createTempFile("metadata-extractor-test-", ".tmp");
+        FileOutputStream stream = new FileOutputStream(_tempFile);
+        stream.write(bytes);
+        stream.close();
+        _randomAccessFile = new RandomAccessFile(_tempFile, "r");
+    }
+
+    @After
+    public void deleteTempFile() throws IOException
+    {
+        if (_tempFile == null && _randomAccessFile == null)
+            return;
+
+        _randomAccessFile.close();
+
+        assertTrue(
+                "Unable to delete temp file used during unit test: " + _tempFile.getAbsolutePath(),
+                _tempFile.delete());
+
+        _tempFile = null;
+        _randomAccessFile = null;
+    }
+
+    @Test
+    public void testDoesNotMoveChannelPosition() throws IOException
+    {
+        RandomAccessReader reader = createReader(new byte[]{0, 1, 2, 3, 4, 5, 6, 7});
+
+        _randomAccessFile.getChannel().position(2);
+
+        reader.getInt32(4);
+        reader.getBytes(0, 8);
+
+        assertEquals(2, _randomAccessFile.getChannel().position());
+    }
+
+    @Test
+    public void testConcurrentReadersOverSharedChannel() throws Exception
+    {
+        final int valueCount = 4096;
+        byte[] bytes = new byte[valueCount * 4];
+        for (int i = 0; i < valueCount; i++) {
+            bytes[i * 4    ] = (byte)(i >> 24);
+            bytes[i * 4 + 1] = (byte)(i >> 16);
+            bytes[i * 4 + 2] = (byte)(i >> 8);
+            bytes[i * 4 + 3] = (byte)i;
+        }
+        createFile(bytes);
+
+        final List<Throwable> failures = new ArrayList<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+
+        for (int t = 0; t < 4; t++) {
+            final int threadIndex = t;
+            Thread thread = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try {
+                        RandomAccessReader reader = new RandomAccessFileChannelReader(_randomAccessFile.getChannel(), 64);
+                        // each thread walks the file in a different order
+                        for (int n = 0; n < valueCount; n++) {
+                            int i = (n * (threadIndex * 2 + 1)) % valueCount;
+                            int value = reader.getInt32(i * 4);
+                            if (value != i)
+                                throw new AssertionError("Expected " + i + " but got " + value);
+                        }
+                    } catch (Throwable e) {
+                        synchronized (failures) {
+                            failures.add(e);
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(0, failures.size());
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @Test(expected = NullPointerException.class)
+    public void testConstructWithNullBufferThrows() throws IOException
+    {
+        new RandomAccessFileChannelReader(null);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import org.junit.Assert;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/** @author Drew Noakes http://drewnoakes.com */
+public class RandomAccessMappedFileReaderTest extends RandomAccessTestBase
+{
+    private File _tempFile;
+    private RandomAccessFile _randomAccessFile;
+
+    @Override
+    protected RandomAccessReader createReader(byte[] bytes)
+    {
+        try {
+            // Unit tests can create multiple readers in the same test, as long as they're used one after the other
+            deleteTempFile();
+
+            _tempFile = File.createTempFile("metadata-extractor-test-", ".tmp");
+            FileOutputStream stream = new FileOutputStream(_tempFile);
+            stream.write(bytes);
+            stream.close();
+            _randomAccessFile = new RandomAccessFile(_tempFile, "r");
+            return new RandomAccessMappedFileReader(_randomAccessFile);
+        } catch (IOException e) {
+            Assert.fail("Unable to create temp file");
+            return null;
+        }
+    }
+
+    @After
+    public void deleteTempFile() throws IOException
+    {
+        if (_tempFile == null && _randomAccessFile == null)
+            return;
+
+        _randomAccessFile.close();
+
+        // Some platforms (notably Windows) refuse to delete a file while a mapping of it is still reachable,
+        // and there is no public API to release a mapping eagerly. Fall back to deleting on exit.
+        if (!_tempFile.delete())
+            _tempFile.deleteOnExit();
+
+        _tempFile = null;
+        _randomAccessFile = null;
+    }
+
+    @Test
+    public void testReadAfterFileClosed() throws IOException
+    {
+        RandomAccessReader reader = createReader(new byte[]{0x01, 0x02, 0x03});
+
+        _randomAccessFile.close();
+
+        assertEquals(3, reader.getLength());
+        assertArrayEquals(new byte[]{0x02, 0x03}, reader.getBytes(1, 2));
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @Test(expected = NullPointerException.class)
+    public void testConstructWithNullBufferThrows() throws IOException
+    {
+        new RandomAccessMappedFileReader(null);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+/** @author Drew Noakes http://drewnoakes.com */
+public class RandomAccessRangeSourceReaderTest extends RandomAccessTestBase
+{
+    private File _tempFile;
+    private RandomAccessFile _randomAccessFile;
+    private FileRangeSource _source;
+
+    @Override
+    protected RandomAccessReader createReader(byte[] bytes)
+    {
+        try {
+            createFile(bytes);
+            // Use tiny blocks so that values regularly span blocks
+            return new RandomAccessRangeSourceReader(_source, 3, 4, 0);
+        } catch (IOException e) {
+            Assert.fail("Unable to create temp file");
+            return null;
+        }
+    }
+
+    private void createFile(byte[] bytes) throws IOException
+    {
+        // Unit tests can create multiple readers in the same test, as long as they're used one after the other
+        deleteTempFile();
+
+        _tempFile = File.createTempFile("metadata-extractor-test-", ".tmp");
+        FileOutputStream stream = new FileOutputStream(_tempFile);
+        stream.write(bytes);
+        stream.close();
+        _randomAccessFile = new RandomAccessFile(_tempFile, "r");
+        _source = new FileRangeSource(_randomAccessFile);
+    }
+
+    @After
+    public void deleteTempFile() throws IOException
+    {
+        if (_tempFile == null && _randomAccessFile == null)
+            return;
+
+        _randomAccessFile.close();
+
+        assertTrue(
+                "Unable to delete temp file used during unit test: " + _tempFile.getAbsolutePath(),
+                _tempFile.delete());
+
+        _tempFile = null;
+        _randomAccessFile = null;
+        _source = null;
+    }
+
+    @Test
+    public void testPrefetchServesLeadingReads() throws IOException
+    {
+        createFile(new byte[100]);
+        RandomAccessReader reader = new RandomAccessRangeSourceReader(_source, 10, 8, 32);
+
+        reader.getInt32(0);
+        reader.getBytes(4, 20);
+        reader.getInt8(39);
+
+        assertEquals(1, _source.getRequestCount());
+        assertEquals(40, _source.getBytesRead());
+    }
+
+    @Test
+    public void testMissingBlocksAreFetchedInOneRequest() throws IOException
+    {
+        createFile(new byte[100]);
+        RandomAccessReader reader = new RandomAccessRangeSourceReader(_source, 10, 8, 0);
+
+        // cache the block in the middle of the range, which is fetched again rather than splitting the request
+        reader.getInt8(55);
+        reader.getBytes(45, 20);
+
+        assertEquals(2, _source.getRequestCount());
+        assertEquals(40, _source.getBytesRead());
+
+        // all now cached
+        reader.getBytes(40, 30);
+        assertEquals(2, _source.getRequestCount());
+    }
+
+    @Test
+    public void testLargeReadsBypassCache() throws IOException
+    {
+        createFile(new byte[100]);
+        RandomAccessReader reader = new RandomAccessRangeSourceReader(_source, 10, 4, 0);
+
+        reader.getBytes(15, 50);
+        assertEquals(1, _source.getRequestCount());
+        assertEquals(50, _source.getBytesRead());
+
+        // nothing was cached
+        reader.getInt8(20);
+        assertEquals(2, _source.getRequestCount());
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @Test(expected = NullPointerException.class)
+    public void testConstructWithNullSourceThrows() throws IOException
+    {
+        new RandomAccessRangeSourceReader(null);
+    }
+}
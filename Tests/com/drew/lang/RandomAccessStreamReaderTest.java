@@ -25,6 +25,10 @@ import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
 /** @author Drew Noakes http://drewnoakes.com */
 public class RandomAccessStreamReaderTest extends RandomAccessTestBase
 {
@@ -40,4 +44,114 @@ public class RandomAccessStreamReaderTest extends RandomAccessTestBase
     {
         return new RandomAccessStreamReader(new ByteArrayInputStream(bytes));
     }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructWithWindowSmallerThanChunkThrows()
+    {
+        new RandomAccessStreamReader(new ByteArrayInputStream(new byte[10]), 8, 7);
+    }
+
+    @Test
+    public void testWindowedReadsWithinWindow() throws Exception
+    {
+        byte[] bytes = createSequence(100);
+        RandomAccessStreamReader reader = new RandomAccessStreamReader(new ByteArrayInputStream(bytes), 4, 16);
+
+        for (int i = 0; i < bytes.length; i++)
+            assertEquals(bytes[i], reader.getInt8(i));
+
+        // The last four chunks remain resident
+        assertEquals(bytes[84], reader.getInt8(84));
+        assertArrayEquals(new byte[]{bytes[90], bytes[91]}, reader.getBytes(90, 2));
+        assertEquals(100, reader.getLength());
+    }
+
+    @Test
+    public void testWindowedBackwardSeekBeyondWindowThrows() throws Exception
+    {
+        byte[] bytes = createSequence(100);
+        RandomAccessStreamReader reader = new RandomAccessStreamReader(new ByteArrayInputStream(bytes), 4, 16);
+
+        reader.getInt8(0);
+        reader.getInt8(50);
+
+        try {
+            reader.getInt8(0);
+            fail("Expecting exception");
+        } catch (BufferEvictedException ignored) {}
+
+        try {
+            reader.getBytes(30, 20);
+            fail("Expecting exception");
+        } catch (BufferEvictedException ignored) {}
+
+        // The reader remains usable afterwards
+        assertEquals(bytes[60], reader.getInt8(60));
+    }
+
+    @Test
+    public void testWindowedPinnedRegionIsRetained() throws Exception
+    {
+        byte[] bytes = createSequence(100);
+        RandomAccessStreamReader reader = new RandomAccessStreamReader(new ByteArrayInputStream(bytes), 4, 8);
+
+        reader.pin(0, 8);
+        reader.pin(41, 2);
+
+        assertEquals(100, reader.getLength());
+
+        assertArrayEquals(new byte[]{bytes[0], bytes[1], bytes[2], bytes[3], bytes[4], bytes[5], bytes[6], bytes[7]}, reader.getBytes(0, 8));
+        assertEquals(((bytes[40] & 0xFF) << 24) | ((bytes[41] & 0xFF) << 16) | ((bytes[42] & 0xFF) << 8) | (bytes[43] & 0xFF), reader.getInt32(40));
+        assertEquals(bytes[99], reader.getInt8(99));
+
+        try {
+            reader.getInt8(8);
+            fail("Expecting exception");
+        } catch (BufferEvictedException ignored) {}
+
+        try {
+            reader.pin(20, 1);
+            fail("Expecting exception");
+        } catch (BufferEvictedException ignored) {}
+    }
+
+    @Test
+    public void testWindowedRegionPinnedViaSliceIsRetained() throws Exception
+    {
+        byte[] bytes = createSequence(100);
+        RandomAccessStreamReader reader = new RandomAccessStreamReader(new ByteArrayInputStream(bytes), 4, 8);
+
+        RandomAccessReader slice = reader.slice(40, 20);
+        slice.pin(2, 2);
+
+        assertEquals(bytes[99], reader.getInt8(99));
+        assertEquals(bytes[42], slice.getInt8(2));
+        assertEquals(bytes[43], slice.getInt8(3));
+
+        try {
+            slice.getInt8(10);
+            fail("Expecting exception");
+        } catch (BufferEvictedException ignored) {}
+    }
+
+    @Test
+    public void testWindowedRequestLargerThanWindow() throws Exception
+    {
+        byte[] bytes = createSequence(100);
+        RandomAccessStreamReader reader = new RandomAccessStreamReader(new ByteArrayInputStream(bytes), 4, 8);
+
+        reader.getInt8(10);
+
+        byte[] actual = reader.getBytes(10, 50);
+        for (int i = 0; i < actual.length; i++)
+            assertEquals(bytes[10 + i], actual[i]);
+    }
+
+    private static byte[] createSequence(int length)
+    {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = (byte)i;
+        return bytes;
+    }
 }
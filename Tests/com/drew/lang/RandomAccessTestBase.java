@@ -337,4 +337,101 @@ public abstract class RandomAccessTestBase
             fail("Expecting exception");
         } catch (IOException ex) {}
     }
+
+    @Test
+    public void testIsAvailable() throws Exception
+    {
+        RandomAccessReader reader = createReader(new byte[10]);
+
+        assertTrue(reader.isAvailable(0, 10));
+        assertTrue(reader.isAvailable(9, 1));
+        assertTrue(reader.isAvailable(10, 0));
+        Assert.assertFalse(reader.isAvailable(10, 1));
+        Assert.assertFalse(reader.isAvailable(5, 6));
+        Assert.assertFalse(reader.isAvailable(-1, 1));
+        Assert.assertFalse(reader.isAvailable(0, -1));
+        Assert.assertFalse(reader.isAvailable(Integer.MAX_VALUE, 2));
+    }
+
+    @Test
+    public void testSlice() throws Exception
+    {
+        RandomAccessReader reader = createReader(new byte[]{0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07});
+        reader.setMotorolaByteOrder(false);
+
+        RandomAccessReader slice = reader.slice(2, 4);
+
+        assertEquals(4, slice.getLength());
+        assertEquals(true, slice.isMotorolaByteOrder());
+        assertEquals(0x02, slice.getInt8(0));
+        assertEquals(0x02030405, slice.getInt32(0));
+        Assert.assertArrayEquals(new byte[]{0x03, 0x04}, slice.getBytes(1, 2));
+
+        slice.setMotorolaByteOrder(false);
+        assertEquals(0x0302, slice.getUInt16(0));
+        assertEquals(false, reader.isMotorolaByteOrder());
+        assertEquals(0x0100, reader.getUInt16(0));
+
+        reader.setMotorolaByteOrder(true);
+        assertEquals(0x0302, slice.getUInt16(0));
+    }
+
+    @Test
+    public void testSliceOfSlice() throws Exception
+    {
+        RandomAccessReader reader = createReader(new byte[]{0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07});
+
+        RandomAccessReader slice = reader.slice(1, 6).slice(2, 3);
+
+        assertEquals(3, slice.getLength());
+        assertEquals(0x030405, (slice.getUInt16(0) << 8) | slice.getUInt8(2));
+    }
+
+    @Test
+    public void testSliceBounds() throws Exception
+    {
+        RandomAccessReader reader = createReader(new byte[10]);
+
+        assertEquals(0, reader.slice(10, 0).getLength());
+
+        try {
+            reader.slice(5, 6);
+            fail("Expecting exception");
+        } catch (BufferBoundsException ignored) {}
+
+        RandomAccessReader slice = reader.slice(2, 4);
+
+        try {
+            slice.getInt32(1);
+            fail("Expecting exception");
+        } catch (BufferBoundsException ignored) {}
+
+        try {
+            slice.getInt8(-1);
+            fail("Expecting exception");
+        } catch (BufferBoundsException ignored) {}
+
+        try {
+            slice.slice(3, 2);
+            fail("Expecting exception");
+        } catch (BufferBoundsException ignored) {}
+    }
+
+    @Test
+    public void testSliceSequential() throws Exception
+    {
+        RandomAccessReader reader = createReader(new byte[]{0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07});
+
+        SequentialReader sequential = reader.sliceSequential(1, 5);
+
+        assertEquals(0x01, sequential.getInt8());
+        assertEquals(0x0203, sequential.getUInt16());
+        sequential.setMotorolaByteOrder(false);
+        assertEquals(0x0504, sequential.getUInt16());
+
+        try {
+            sequential.getInt8();
+            fail("Expecting exception");
+        } catch (IOException ignored) {}
+    }
 }
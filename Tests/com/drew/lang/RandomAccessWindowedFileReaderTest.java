@@ -0,0 +1,117 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+/** @author Drew Noakes http://drewnoakes.com */
+public class RandomAccessWindowedFileReaderTest extends RandomAccessTestBase
+{
+    private File _tempFile;
+    private RandomAccessFile _randomAccessFile;
+
+    @Override
+    protected RandomAccessReader createReader(byte[] bytes)
+    {
+        try {
+            createFile(bytes);
+            // Use tiny windows, and few of them, so that values regularly span windows and windows are released
+            return new RandomAccessWindowedFileReader(_randomAccessFile, 3, 2);
+        } catch (IOException e) {
+            Assert.fail("Unable to create temp file");
+            return null;
+        }
+    }
+
+    private void createFile(byte[] bytes) throws IOException
+    {
+        // Unit tests can create multiple readers in the same test, as long as they're used one after the other
+        deleteTempFile();
+
+        _tempFile = File.createTempFile("metadata-extractor-test-", ".tmp");
+        FileOutputStream stream = new FileOutputStream(_tempFile);
+        stream.write(bytes);
+        stream.close();
+        _randomAccessFile = new RandomAccessFile(_tempFile, "r");
+    }
+
+    @After
+    public void deleteTempFile() throws IOException
+    {
+        if (_tempFile == null && _randomAccessFile == null)
+            return;
+
+        _randomAccessFile.close();
+
+        // Mapped regions may keep the file open on some platforms until they are collected
+        System.gc();
+        _tempFile.delete();
+
+        _tempFile = null;
+        _randomAccessFile = null;
+    }
+
+    @Test
+    public void testLongOffsets() throws IOException
+    {
+        RandomAccessReader reader = createReader(new byte[]{0, 1, 2, 3, 4, 5, 6, 7});
+
+        assertArrayEquals(new byte[]{2, 3, 4, 5}, reader.getBytes(2L, 4));
+        assertEquals(0x0506, reader.slice(4L, 3).getUInt16(1));
+
+        assertTrue(reader.isAvailable(7L, 1));
+        assertFalse(reader.isAvailable(7L, 2));
+        assertFalse(reader.isAvailable(Integer.MAX_VALUE + 1L, 1));
+    }
+
+    @Test
+    public void testLongOffsetsBeyondIntRangeThrowOnOtherReaders() throws IOException
+    {
+        RandomAccessReader reader = new ByteArrayReader(new byte[8]);
+
+        try {
+            reader.getBytes(Integer.MAX_VALUE + 1L, 1);
+            fail("Exception expected");
+        } catch (BufferBoundsException ignored) {}
+
+        try {
+            reader.slice(Integer.MAX_VALUE + 1L, 1);
+            fail("Exception expected");
+        } catch (BufferBoundsException ignored) {}
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @Test(expected = NullPointerException.class)
+    public void testConstructWithNullFileThrows() throws IOException
+    {
+        new RandomAccessWindowedFileReader(null);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.lang;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class SequentialSliceReaderTest extends SequentialAccessTestBase
+{
+    @Override
+    protected SequentialReader createReader(byte[] bytes)
+    {
+        // Surround the data with padding, and use a stream-backed reader to exercise the generic slice
+        byte[] padded = new byte[bytes.length + 6];
+        System.arraycopy(bytes, 0, padded, 3, bytes.length);
+
+        try {
+            return new RandomAccessStreamReader(new ByteArrayInputStream(padded)).sliceSequential(3, bytes.length);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -21,11 +21,14 @@
 package com.drew.metadata;
 
 import com.drew.lang.Rational;
+import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.exif.ExifSubIFDDirectory;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.GregorianCalendar;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -163,4 +166,38 @@ public class DirectoryTest
         assertNull(_directory.getRationalArray(ExifSubIFDDirectory.TAG_APERTURE));
         assertNull(_directory.getStringArray(ExifSubIFDDirectory.TAG_APERTURE));
     }
+
+    @Test
+    public void testDeferredTagIsDecodedOnceOnFirstRequest() throws Exception
+    {
+        final List<Integer> decodedTagTypes = new ArrayList<Integer>();
+        DeferredTagValues values = new DeferredTagValues()
+        {
+            public boolean containsTag(int tagType)
+            {
+                return tagType == ExifSubIFDDirectory.TAG_APERTURE && decodedTagTypes.isEmpty();
+            }
+
+            public void decode(int tagType, @NotNull Directory directory)
+            {
+                directory.setInt(tagType, 123);
+                decodedTagTypes.add(tagType);
+            }
+        };
+
+        _directory.setString(ExifSubIFDDirectory.TAG_BATTERY_LEVEL, "TAG_BATTERY_LEVEL");
+        _directory.setInt(ExifSubIFDDirectory.TAG_APERTURE, 1);
+        _directory.setDeferredTag(ExifSubIFDDirectory.TAG_APERTURE, values);
+
+        // the deferred tag replaces the value set before it, without adding a second tag
+        assertEquals(2, _directory.getTagCount());
+        assertTrue(_directory.containsTag(ExifSubIFDDirectory.TAG_APERTURE));
+        assertTrue(decodedTagTypes.isEmpty());
+
+        assertEquals(123, _directory.getInt(ExifSubIFDDirectory.TAG_APERTURE));
+        assertEquals(123, _directory.getInt(ExifSubIFDDirectory.TAG_APERTURE));
+        assertEquals(1, decodedTagTypes.size());
+        assertEquals(2, _directory.getTagCount());
+        assertTrue(_directory.containsTag(ExifSubIFDDirectory.TAG_APERTURE));
+    }
 }
@@ -77,4 +77,32 @@ public class MetadataTest
         directory.addError("Test Error 1");
         assertTrue(metadata.hasErrors());
     }
+
+    @Test
+    public void testMerge() throws Exception
+    {
+        Metadata metadata = new Metadata();
+        ExifSubIFDDirectory exifDirectory = metadata.getOrCreateDirectory(ExifSubIFDDirectory.class);
+        exifDirectory.setInt(1, 1);
+        exifDirectory.setInt(2, 2);
+
+        Metadata fragment = new Metadata();
+        IptcDirectory iptcDirectory = fragment.getOrCreateDirectory(IptcDirectory.class);
+        ExifSubIFDDirectory fragmentExifDirectory = fragment.getOrCreateDirectory(ExifSubIFDDirectory.class);
+        fragmentExifDirectory.setInt(3, 3);
+        fragmentExifDirectory.setInt(2, 20);
+        fragmentExifDirectory.addError("Test Error");
+
+        metadata.merge(fragment);
+
+        assertEquals(2, metadata.getDirectoryCount());
+        assertSame(exifDirectory, metadata.getDirectory(ExifSubIFDDirectory.class));
+        assertSame(iptcDirectory, metadata.getDirectory(IptcDirectory.class));
+
+        assertEquals(3, exifDirectory.getTagCount());
+        assertEquals(1, exifDirectory.getInt(1));
+        assertEquals(20, exifDirectory.getInt(2));
+        assertEquals(3, exifDirectory.getInt(3));
+        assertEquals(1, exifDirectory.getErrorCount());
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.metadata;
+
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifSubIFDDirectory;
+import com.drew.metadata.exif.GpsDirectory;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class TagSelectionTest
+{
+    @Test
+    public void testSelection() throws Exception
+    {
+        TagSelection selection = new TagSelection();
+        selection.addTags(ExifIFD0Directory.class, ExifIFD0Directory.TAG_ORIENTATION, ExifIFD0Directory.TAG_MAKE);
+        selection.addTags(ExifIFD0Directory.class, ExifIFD0Directory.TAG_MODEL);
+        selection.addDirectory(GpsDirectory.class);
+
+        assertTrue(selection.isDirectorySelected(ExifIFD0Directory.class));
+        assertTrue(selection.isTagSelected(ExifIFD0Directory.class, ExifIFD0Directory.TAG_MAKE));
+        assertTrue(selection.isTagSelected(ExifIFD0Directory.class, ExifIFD0Directory.TAG_MODEL));
+        assertTrue(selection.isTagSelected(ExifIFD0Directory.class, ExifIFD0Directory.TAG_ORIENTATION));
+        assertFalse(selection.isTagSelected(ExifIFD0Directory.class, ExifIFD0Directory.TAG_DATETIME));
+
+        assertTrue(selection.isDirectorySelected(GpsDirectory.class));
+        assertTrue(selection.isTagSelected(GpsDirectory.class, GpsDirectory.TAG_LATITUDE));
+
+        assertFalse(selection.isDirectorySelected(ExifSubIFDDirectory.class));
+        assertFalse(selection.isTagSelected(ExifSubIFDDirectory.class, ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL));
+
+        assertEquals(2, selection.getDirectoryClasses().size());
+    }
+
+    @Test
+    public void testAddingTagsToWholeDirectoryHasNoEffect() throws Exception
+    {
+        TagSelection selection = new TagSelection();
+        selection.addDirectory(GpsDirectory.class);
+        selection.addTags(GpsDirectory.class, GpsDirectory.TAG_LATITUDE);
+
+        assertTrue(selection.isTagSelected(GpsDirectory.class, GpsDirectory.TAG_LONGITUDE));
+    }
+}
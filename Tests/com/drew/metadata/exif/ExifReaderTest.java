@@ -21,15 +21,24 @@
 package com.drew.metadata.exif;
 
 import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.lang.ByteArrayReader;
+import com.drew.lang.RandomAccessStreamReader;
 import com.drew.lang.Rational;
 import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.Tag;
+import com.drew.metadata.TagSelection;
+import com.drew.metadata.exif.makernotes.NikonType2MakernoteDirectory;
 import com.drew.tools.FileUtil;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
 
 import static org.junit.Assert.*;
 
@@ -165,6 +174,164 @@ public class ExifReaderTest
         assertEquals(2970, thumbnailData.length);
     }
 
+    @Test
+    public void testThumbnailDataIsCopiedByDefault() throws Exception
+    {
+        byte[] segmentBytes = FileUtil.readBytes("Tests/Data/manuallyAddedThumbnail.jpg.app1");
+        Metadata metadata = new Metadata();
+        new ExifReader().extract(segmentBytes, metadata, JpegSegmentType.APP1);
+        ExifThumbnailDirectory directory = metadata.getDirectory(ExifThumbnailDirectory.class);
+        assertNotNull(directory);
+
+        // The thumbnail is copied out of the segment during extraction, so later changes to it are not visible
+        int thumbnailOffset = 6 + directory.getInt(ExifThumbnailDirectory.TAG_THUMBNAIL_OFFSET);
+        byte original = segmentBytes[thumbnailOffset];
+        segmentBytes[thumbnailOffset]++;
+        assertEquals(original, directory.getThumbnailData()[0]);
+        assertEquals(2970, directory.getThumbnailData().length);
+    }
+
+    @Test
+    public void testLazyThumbnailDataIsReadFromSegmentOnRequest() throws Exception
+    {
+        byte[] segmentBytes = FileUtil.readBytes("Tests/Data/manuallyAddedThumbnail.jpg.app1");
+        Metadata metadata = new Metadata();
+        new ExifReader(ThumbnailRetention.LAZY).extract(segmentBytes, metadata, JpegSegmentType.APP1);
+        ExifThumbnailDirectory directory = metadata.getDirectory(ExifThumbnailDirectory.class);
+        assertNotNull(directory);
+
+        // The thumbnail is not copied out of the segment during extraction, so later changes to it are visible
+        int thumbnailOffset = 6 + directory.getInt(ExifThumbnailDirectory.TAG_THUMBNAIL_OFFSET);
+        byte[] before = directory.getThumbnailData();
+        assertNotNull(before);
+        assertEquals(segmentBytes[thumbnailOffset], before[0]);
+
+        segmentBytes[thumbnailOffset]++;
+        assertEquals(segmentBytes[thumbnailOffset], directory.getThumbnailData()[0]);
+
+        // Once loaded, the directory holds its own copy
+        directory.loadThumbnailData();
+        segmentBytes[thumbnailOffset]++;
+        assertEquals((byte)(segmentBytes[thumbnailOffset] - 1), directory.getThumbnailData()[0]);
+        assertEquals(2970, directory.getThumbnailData().length);
+    }
+
+    @Test
+    public void testDeferredTagValuesMatchEagerDecoding() throws Exception
+    {
+        String[] filePaths = {
+            "Tests/Data/withExif.jpg.app1",
+            "Tests/Data/nikonMakernoteType1.jpg.app1",
+            "Tests/Data/nikonMakernoteType2b.jpg.app1",
+            "Tests/Data/repeatedOrientationTagWithDifferentValues.jpg.app1",
+            "Tests/Data/withPanasonicFaces.jpg.app1",
+            "Tests/Data/withUncompressedRGBThumbnail.jpg.app1"
+        };
+
+        for (String filePath : filePaths) {
+            byte[] segmentBytes = FileUtil.readBytes(filePath);
+            Metadata eager = new Metadata();
+            new ExifReader().extract(segmentBytes, eager, JpegSegmentType.APP1);
+            Metadata deferred = new Metadata();
+            new ExifReader(true).extract(segmentBytes, deferred, JpegSegmentType.APP1);
+
+            for (Directory eagerDirectory : eager.getDirectories()) {
+                Directory deferredDirectory = deferred.getDirectory(eagerDirectory.getClass());
+                assertNotNull(filePath, deferredDirectory);
+                assertEquals(filePath, eagerDirectory.getTagCount(), deferredDirectory.getTagCount());
+
+                Iterator<Tag> deferredTags = deferredDirectory.getTags().iterator();
+                for (Tag eagerTag : eagerDirectory.getTags()) {
+                    Tag deferredTag = deferredTags.next();
+                    assertEquals(filePath, eagerTag.getTagType(), deferredTag.getTagType());
+                    assertEquals(filePath, eagerTag.getDescription(), deferredTag.getDescription());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDeferredTagValuesAreDecodedOnRequest() throws Exception
+    {
+        Metadata metadata = new Metadata();
+        new ExifReader(true).extract(FileUtil.readBytes("Tests/Data/withExif.jpg.app1"), metadata, JpegSegmentType.APP1);
+        ExifIFD0Directory directory = metadata.getDirectory(ExifIFD0Directory.class);
+        assertNotNull(directory);
+
+        assertTrue(directory.getDeferredTagValues().containsTag(ExifIFD0Directory.TAG_MODEL));
+        assertTrue(directory.containsTag(ExifIFD0Directory.TAG_MODEL));
+
+        assertEquals("DIGITALMAVICA", directory.getString(ExifIFD0Directory.TAG_MODEL));
+        assertFalse(directory.getDeferredTagValues().containsTag(ExifIFD0Directory.TAG_MODEL));
+        assertTrue(directory.containsTag(ExifIFD0Directory.TAG_MODEL));
+    }
+
+    @Test
+    public void testTagSelection() throws Exception
+    {
+        byte[] segmentBytes = FileUtil.readBytes("Tests/Data/nikonMakernoteType2b.jpg.app1");
+        Metadata all = new Metadata();
+        new ExifReader().extract(segmentBytes, all, JpegSegmentType.APP1);
+
+        TagSelection selection = new TagSelection();
+        selection.addTags(ExifIFD0Directory.class, ExifIFD0Directory.TAG_MODEL, ExifIFD0Directory.TAG_ORIENTATION);
+        selection.addTags(ExifSubIFDDirectory.class, ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL);
+        selection.addDirectory(GpsDirectory.class);
+
+        Metadata selected = new Metadata();
+        new ExifReader(false, selection).extract(segmentBytes, selected, JpegSegmentType.APP1);
+
+        ExifIFD0Directory ifd0Directory = selected.getDirectory(ExifIFD0Directory.class);
+        assertNotNull(ifd0Directory);
+        for (Tag tag : ifd0Directory.getTags())
+            assertTrue(selection.isTagSelected(ExifIFD0Directory.class, tag.getTagType()));
+        assertEquals(all.getDirectory(ExifIFD0Directory.class).getString(ExifIFD0Directory.TAG_MODEL), ifd0Directory.getString(ExifIFD0Directory.TAG_MODEL));
+
+        ExifSubIFDDirectory subIfdDirectory = selected.getDirectory(ExifSubIFDDirectory.class);
+        assertNotNull(subIfdDirectory);
+        assertEquals(1, subIfdDirectory.getTagCount());
+        assertEquals(all.getDirectory(ExifSubIFDDirectory.class).getString(ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL), subIfdDirectory.getString(ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL));
+
+        assertNull(selected.getDirectory(ExifInteropDirectory.class));
+        assertNull(selected.getDirectory(ExifThumbnailDirectory.class));
+        assertNull(selected.getDirectory(NikonType2MakernoteDirectory.class));
+        assertNotNull(all.getDirectory(NikonType2MakernoteDirectory.class));
+
+        // selecting a makernote directory causes the makernote to be read, along with the make needed to identify it
+        selection.addDirectory(NikonType2MakernoteDirectory.class);
+        selected = new Metadata();
+        new ExifReader(false, selection).extract(segmentBytes, selected, JpegSegmentType.APP1);
+
+        NikonType2MakernoteDirectory makernoteDirectory = selected.getDirectory(NikonType2MakernoteDirectory.class);
+        assertNotNull(makernoteDirectory);
+        assertEquals(all.getDirectory(NikonType2MakernoteDirectory.class).getTagCount(), makernoteDirectory.getTagCount());
+    }
+
+    @Test
+    public void testThumbnailStorageIsChosenPerCall() throws Exception
+    {
+        byte[] segmentBytes = FileUtil.readBytes("Tests/Data/manuallyAddedThumbnail.jpg.app1");
+        ExifReader reader = new ExifReader();
+
+        Metadata without = new Metadata();
+        reader.extract(segmentBytes, without, JpegSegmentType.APP1, ThumbnailRetention.NONE);
+        ExifThumbnailDirectory withoutDirectory = without.getDirectory(ExifThumbnailDirectory.class);
+        assertNotNull(withoutDirectory);
+        assertFalse(withoutDirectory.hasThumbnailData());
+        assertNull(withoutDirectory.getThumbnailData());
+
+        Metadata with = new Metadata();
+        new ExifReader(ThumbnailRetention.NONE).extract(segmentBytes, with, JpegSegmentType.APP1, ThumbnailRetention.COPY);
+        ExifThumbnailDirectory withDirectory = with.getDirectory(ExifThumbnailDirectory.class);
+        assertNotNull(withDirectory);
+        assertTrue(withDirectory.hasThumbnailData());
+
+        // The shared reader is unaffected by either call
+        Metadata metadata = new Metadata();
+        reader.extract(segmentBytes, metadata, JpegSegmentType.APP1);
+        assertTrue(metadata.getDirectory(ExifThumbnailDirectory.class).hasThumbnailData());
+    }
+
     @Test
     public void testThumbnailCompression() throws Exception
     {
@@ -205,6 +372,96 @@ public class ExifReaderTest
         assertEquals(8, thumbnailDirectory.getInt(ExifThumbnailDirectory.TAG_ORIENTATION));
     }
 
+    @Test
+    public void testExtractTiffFromStreamReadsOnlyRequiredBytes() throws Exception
+    {
+        // Strip the 6 byte Exif preamble, and follow the TIFF data with a large amount of trailing data
+        byte[] segmentBytes = FileUtil.readBytes("Tests/Data/manuallyAddedThumbnail.jpg.app1");
+        byte[] tiffBytes = new byte[segmentBytes.length - 6 + 1024 * 1024];
+        System.arraycopy(segmentBytes, 6, tiffBytes, 0, segmentBytes.length - 6);
+
+        final int[] bytesRead = new int[1];
+        InputStream stream = new FilterInputStream(new ByteArrayInputStream(tiffBytes))
+        {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException
+            {
+                int count = super.read(b, off, len);
+                if (count > 0)
+                    bytesRead[0] += count;
+                return count;
+            }
+        };
+
+        Metadata metadata = new Metadata();
+        new ExifReader().extractTiff(new RandomAccessStreamReader(stream), metadata);
+
+        ExifThumbnailDirectory directory = metadata.getDirectory(ExifThumbnailDirectory.class);
+        assertNotNull(directory);
+        assertEquals(6, directory.getInt(ExifThumbnailDirectory.TAG_THUMBNAIL_COMPRESSION));
+
+        // Only the chunks covering the TIFF data should have been read
+        assertTrue(bytesRead[0] < segmentBytes.length + 2 * 1024);
+    }
+
+    @Test
+    public void testExtractBigTiff() throws Exception
+    {
+        byte[] bytes = new byte[]{
+            // header: byte order, BigTIFF marker, offset byte size, padding, first IFD offset
+            'I', 'I', 0x2B, 0, 8, 0, 0, 0, 16, 0, 0, 0, 0, 0, 0, 0,
+            // IFD0 entry count
+            3, 0, 0, 0, 0, 0, 0, 0,
+            // ImageWidth, LONG8, count 1, inline value 4000
+            0x00, 0x01, 16, 0, 1, 0, 0, 0, 0, 0, 0, 0, (byte)0xA0, 0x0F, 0, 0, 0, 0, 0, 0,
+            // Make, ASCII, count 12, value offset 92
+            0x0F, 0x01, 2, 0, 12, 0, 0, 0, 0, 0, 0, 0, 92, 0, 0, 0, 0, 0, 0, 0,
+            // Orientation, SHORT, count 1, inline value 6
+            0x12, 0x01, 3, 0, 1, 0, 0, 0, 0, 0, 0, 0, 6, 0, 0, 0, 0, 0, 0, 0,
+            // no further IFD
+            0, 0, 0, 0, 0, 0, 0, 0,
+            'B', 'i', 'g', 'T', 'I', 'F', 'F', ' ', 'C', 'a', 'm', 0
+        };
+
+        Metadata metadata = new Metadata();
+        new ExifReader().extractTiff(new ByteArrayReader(bytes), metadata);
+
+        ExifIFD0Directory directory = metadata.getDirectory(ExifIFD0Directory.class);
+        assertNotNull(directory);
+        assertFalse(directory.hasErrors());
+        assertEquals(4000, directory.getInt(0x0100));
+        assertEquals("BigTIFF Cam", directory.getString(ExifIFD0Directory.TAG_MAKE));
+        assertEquals(6, directory.getInt(ExifIFD0Directory.TAG_ORIENTATION));
+    }
+
+    @Test
+    public void testBigTiffIfdPointerMustBeSingleOffset() throws Exception
+    {
+        byte[] bytes = new byte[]{
+            'I', 'I', 0x2B, 0, 8, 0, 0, 0, 16, 0, 0, 0, 0, 0, 0, 0,
+            // IFD0 entry count
+            2, 0, 0, 0, 0, 0, 0, 0,
+            // ExifOffset, ASCII, count 8, inline value which would point to the IFD below as an offset
+            0x69, (byte)0x87, 2, 0, 8, 0, 0, 0, 0, 0, 0, 0, 72, 0, 0, 0, 0, 0, 0, 0,
+            // GPSInfo, IFD8, count 1, inline offset 72
+            0x25, (byte)0x88, 18, 0, 1, 0, 0, 0, 0, 0, 0, 0, 72, 0, 0, 0, 0, 0, 0, 0,
+            // no further IFD
+            0, 0, 0, 0, 0, 0, 0, 0,
+            // IFD at 72 with one entry: GPSVersionID, BYTE, count 4, inline value 2.2.0.0
+            1, 0, 0, 0, 0, 0, 0, 0,
+            0x00, 0x00, 1, 0, 4, 0, 0, 0, 0, 0, 0, 0, 2, 2, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0
+        };
+
+        Metadata metadata = new Metadata();
+        new ExifReader().extractTiff(new ByteArrayReader(bytes), metadata);
+
+        assertNull(metadata.getDirectory(ExifSubIFDDirectory.class));
+        GpsDirectory gpsDirectory = metadata.getDirectory(GpsDirectory.class);
+        assertNotNull(gpsDirectory);
+        assertArrayEquals(new int[]{2, 2, 0, 0}, gpsDirectory.getIntArray(GpsDirectory.TAG_VERSION_ID));
+    }
+
 /*
     public void testUncompressedYCbCrThumbnail() throws Exception
     {
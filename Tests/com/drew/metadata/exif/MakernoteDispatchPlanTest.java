@@ -0,0 +1,229 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+package com.drew.metadata.exif;
+
+import com.drew.lang.ByteArrayReader;
+import com.drew.lang.ByteSignature;
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.Directory;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.makernotes.OlympusMakernoteDirectory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link MakernoteDispatchPlan}.
+ *
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class MakernoteDispatchPlanTest
+{
+    @Test
+    public void testSignatureIsMatchedRegardlessOfMake() throws Exception
+    {
+        MakernoteDispatchPlan plan = MakernoteDispatchPlan.DEFAULT;
+
+        assertSame(StandardMakernoteHandlers.OLYMPUS, plan.findHandler(reader("OLYMP\0\1\0"), 0, null));
+        assertSame(StandardMakernoteHandlers.OLYMPUS, plan.findHandler(reader("EPSON\0\1\0"), 0, "Canon"));
+        assertSame(StandardMakernoteHandlers.SONY_ERICSSON, plan.findHandler(reader("SEMC MS\0\0\0\0\0MM"), 0, null));
+        assertSame(StandardMakernoteHandlers.PANASONIC, plan.findHandler(reader("Panasonic\0\0\0"), 0, "Panasonic"));
+        assertSame(StandardMakernoteHandlers.KODAK, plan.findHandler(reader("KDK INFO"), 0, null));
+
+        // a signature must be complete, and lie within the data
+        assertNull(plan.findHandler(reader("Panasonic\0\0"), 0, null));
+        assertNull(plan.findHandler(reader("xxSONY DSC"), 4, null));
+    }
+
+    @Test
+    public void testMakeIsUsedWhereNoEarlierSignatureMatches() throws Exception
+    {
+        MakernoteDispatchPlan plan = MakernoteDispatchPlan.DEFAULT;
+
+        assertSame(StandardMakernoteHandlers.NIKON, plan.findHandler(reader("Nikon\0\2\0"), 0, " NIKON CORPORATION"));
+        assertSame(StandardMakernoteHandlers.CANON, plan.findHandler(reader("\0\0\0\0"), 0, "CANON"));
+        assertSame(StandardMakernoteHandlers.PENTAX, plan.findHandler(reader("\0\0\0\0"), 0, "Asahi Optical Co.,Ltd"));
+        assertSame(StandardMakernoteHandlers.RICOH, plan.findHandler(reader("Ricoh\0\0\0"), 0, "RICOH"));
+        assertSame(StandardMakernoteHandlers.FUJIFILM, plan.findHandler(reader("\0\0\0\0"), 0, "FujiFilm"));
+        assertNull(plan.findHandler(reader("\0\0\0\0"), 0, "Unknown"));
+
+        // Olympus' signature precedes the Minolta make, but Minolta's make precedes Sony's signature
+        assertSame(StandardMakernoteHandlers.OLYMPUS, plan.findHandler(reader("OLYMP\0\1\0"), 0, "MINOLTA CO.,LTD"));
+        assertSame(StandardMakernoteHandlers.MINOLTA, plan.findHandler(reader("SONY DSC \0\0\0"), 0, "MINOLTA CO.,LTD"));
+    }
+
+    @Test
+    public void testEarlierHandlerTakesPrecedenceForSharedOrLongerSignatures() throws Exception
+    {
+        MakernoteHandler general = new TestHandler(new ByteSignature("ABC"));
+        MakernoteHandler specific = new TestHandler(new ByteSignature("ABCD"));
+
+        MakernoteDispatchPlan plan = new MakernoteDispatchPlan(Arrays.asList(general, specific));
+        assertSame(general, plan.findHandler(reader("ABCD"), 0, null));
+        assertSame(general, plan.findHandler(reader("ABCX"), 0, null));
+
+        plan = new MakernoteDispatchPlan(Arrays.asList(specific, general));
+        assertSame(specific, plan.findHandler(reader("ABCD"), 0, null));
+        assertSame(general, plan.findHandler(reader("ABCX"), 0, null));
+    }
+
+    @Test
+    public void testSignatureIgnoringCase() throws Exception
+    {
+        MakernoteHandler handler = new TestHandler(new ByteSignature("Konica", true));
+        MakernoteDispatchPlan plan = new MakernoteDispatchPlan(Arrays.asList(handler));
+
+        assertSame(handler, plan.findHandler(reader("KONICA"), 0, null));
+        assertSame(handler, plan.findHandler(reader("konica"), 0, null));
+        assertNull(plan.findHandler(reader("KONIC"), 0, null));
+    }
+
+    @Test
+    public void testAdditionalHandlerIsDispatchedTo() throws Exception
+    {
+        final List<Integer> processedOffsets = new ArrayList<Integer>();
+        MakernoteHandler konica = new TestHandler(new ByteSignature("+M+M+M+M"))
+        {
+            @Override
+            public boolean process(@NotNull MakernoteContext context, int makernoteOffset)
+            {
+                processedOffsets.add(makernoteOffset);
+                return true;
+            }
+        };
+
+        List<MakernoteHandler> handlers = new ArrayList<MakernoteHandler>();
+        for (MakernoteHandler handler : MakernoteDispatchPlan.DEFAULT_HANDLERS)
+            handlers.add(handler);
+        handlers.add(konica);
+        MakernoteDispatchPlan plan = new MakernoteDispatchPlan(handlers);
+
+        assertTrue(plan.dispatch(new TestContext(reader("xx+M+M+M+M"), "KONICA"), 2));
+        assertEquals(Arrays.asList(2), processedOffsets);
+
+        // the default handlers are unaffected
+        assertSame(StandardMakernoteHandlers.CANON, plan.findHandler(reader("+M+M+M+M"), 0, "Canon"));
+        assertFalse(MakernoteDispatchPlan.DEFAULT.dispatch(new TestContext(reader("+M+M+M+M"), "KONICA"), 0));
+    }
+
+    @Test
+    public void testDispatchProcessesIfds() throws Exception
+    {
+        final List<Class<? extends Directory>> processedDirectories = new ArrayList<Class<? extends Directory>>();
+        TestContext context = new TestContext(reader("OLYMP\0\1\0"), "OLYMPUS OPTICAL CO.,LTD")
+        {
+            @Override
+            public void processIfd(@NotNull Class<? extends Directory> directoryClass, int ifdOffset, int tiffHeaderOffset)
+            {
+                processedDirectories.add(directoryClass);
+                assertEquals(8, ifdOffset);
+            }
+        };
+
+        assertTrue(MakernoteDispatchPlan.DEFAULT.dispatch(context, 0));
+        assertEquals(Arrays.<Class<? extends Directory>>asList(OlympusMakernoteDirectory.class), processedDirectories);
+    }
+
+    @NotNull
+    private static ByteArrayReader reader(@NotNull String ascii)
+    {
+        byte[] bytes = new byte[ascii.length()];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte)ascii.charAt(i);
+        return new ByteArrayReader(bytes);
+    }
+
+    private static class TestHandler implements MakernoteHandler
+    {
+        @NotNull
+        private final ByteSignature[] _signatures;
+
+        TestHandler(@NotNull ByteSignature... signatures)
+        {
+            _signatures = signatures;
+        }
+
+        @NotNull
+        public ByteSignature[] getSignatures()
+        {
+            return _signatures;
+        }
+
+        public boolean isMakeSupported(@NotNull String cameraMake)
+        {
+            return false;
+        }
+
+        public boolean process(@NotNull MakernoteContext context, int makernoteOffset)
+        {
+            return false;
+        }
+    }
+
+    private static class TestContext implements MakernoteContext
+    {
+        @NotNull
+        private final ByteArrayReader _reader;
+        @NotNull
+        private final String _cameraMake;
+        @NotNull
+        private final Metadata _metadata = new Metadata();
+
+        TestContext(@NotNull ByteArrayReader reader, @NotNull String cameraMake)
+        {
+            _reader = reader;
+            _cameraMake = cameraMake;
+        }
+
+        @NotNull
+        public ByteArrayReader getReader()
+        {
+            return _reader;
+        }
+
+        @NotNull
+        public Metadata getMetadata()
+        {
+            return _metadata;
+        }
+
+        @NotNull
+        public String getCameraMake()
+        {
+            return _cameraMake;
+        }
+
+        public int getTiffHeaderOffset()
+        {
+            return 0;
+        }
+
+        public void processIfd(@NotNull Class<? extends Directory> directoryClass, int ifdOffset, int tiffHeaderOffset)
+        {
+            fail("Unexpected IFD");
+        }
+    }
+}
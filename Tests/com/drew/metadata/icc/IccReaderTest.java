@@ -21,12 +21,18 @@
 
 package com.drew.metadata.icc;
 
+import com.drew.imaging.jpeg.JpegSegmentType;
 import com.drew.lang.ByteArrayReader;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.Tag;
 import com.drew.testing.TestHelper;
 import com.drew.tools.FileUtil;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 public class IccReaderTest
@@ -52,4 +58,87 @@ public class IccReaderTest
 //            System.out.println(tag);
 //        }
     }
+
+    @Test
+    public void testExtractProfileSplitAcrossSegments() throws Exception
+    {
+        byte[] app2Bytes = FileUtil.readBytes("Tests/Data/iccDataInvalid1.jpg.app2");
+
+        Metadata expected = new Metadata();
+        new IccReader().extract(app2Bytes, expected, JpegSegmentType.APP2);
+
+        byte[][] segments = split(app2Bytes, 3);
+        IccReader reader = new IccReader();
+        Metadata metadata = new Metadata();
+
+        // Segments are reassembled by sequence number, not by the order in which they're read
+        reader.extract(segments[1], metadata, JpegSegmentType.APP2);
+        reader.extract(segments[0], metadata, JpegSegmentType.APP2);
+        assertEquals(0, metadata.getDirectory(IccDirectory.class).getTagCount());
+        reader.extract(segments[2], metadata, JpegSegmentType.APP2);
+
+        assertEquals(describe(expected.getDirectory(IccDirectory.class)), describe(metadata.getDirectory(IccDirectory.class)));
+    }
+
+    @Test
+    public void testExtractProfileSplitAcrossMergedFragments() throws Exception
+    {
+        byte[] app2Bytes = FileUtil.readBytes("Tests/Data/iccDataInvalid1.jpg.app2");
+
+        Metadata expected = new Metadata();
+        new IccReader().extract(app2Bytes, expected, JpegSegmentType.APP2);
+
+        // As happens when segments are decoded concurrently, each segment is extracted into its own metadata
+        Metadata metadata = new Metadata();
+        for (byte[] segment : split(app2Bytes, 3)) {
+            Metadata fragment = new Metadata();
+            new IccReader().extract(segment, fragment, JpegSegmentType.APP2);
+            metadata.merge(fragment);
+        }
+
+        assertEquals(describe(expected.getDirectory(IccDirectory.class)), describe(metadata.getDirectory(IccDirectory.class)));
+    }
+
+    @Test
+    public void testDuplicateSegmentIsReported() throws Exception
+    {
+        byte[][] segments = split(FileUtil.readBytes("Tests/Data/iccDataInvalid1.jpg.app2"), 2);
+        Metadata metadata = new Metadata();
+
+        new IccReader().extract(segments[0], metadata, JpegSegmentType.APP2);
+        new IccReader().extract(segments[0], metadata, JpegSegmentType.APP2);
+
+        IccDirectory directory = metadata.getDirectory(IccDirectory.class);
+        assertEquals("Duplicate ICC profile segment with sequence number 1", directory.getErrors().iterator().next());
+    }
+
+    /** Splits the profile within a single APP2 segment across <code>count</code> segments, each with a preamble. */
+    private static byte[][] split(byte[] app2Bytes, int count)
+    {
+        byte[] icc = TestHelper.skipBytes(app2Bytes, 14);
+        byte[][] segments = new byte[count][];
+        int chunkLength = (icc.length + count - 1) / count;
+
+        for (int i = 0; i < count; i++) {
+            int start = i * chunkLength;
+            int length = Math.min(chunkLength, icc.length - start);
+            segments[i] = new byte[14 + length];
+            System.arraycopy(app2Bytes, 0, segments[i], 0, 12);
+            segments[i][12] = (byte)(i + 1);
+            segments[i][13] = (byte)count;
+            System.arraycopy(icc, start, segments[i], 14, length);
+        }
+
+        return segments;
+    }
+
+    private static List<String> describe(IccDirectory directory)
+    {
+        List<String> lines = new ArrayList<String>();
+        for (Tag tag : directory.getTags())
+            lines.add(tag.toString());
+        for (String error : directory.getErrors())
+            lines.add("ERROR: " + error);
+        return lines;
+    }
 }
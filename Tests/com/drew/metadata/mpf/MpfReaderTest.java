@@ -0,0 +1,190 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+package com.drew.metadata.mpf;
+
+import com.drew.imaging.jpeg.JpegMetadataReader;
+import com.drew.imaging.jpeg.JpegProcessingException;
+import com.drew.lang.ByteArrayReader;
+import com.drew.lang.RandomAccessReader;
+import com.drew.metadata.Metadata;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class MpfReaderTest
+{
+    /** A stand-in for a secondary image, such as a large preview, stored after the primary image. */
+    private static final byte[] PREVIEW = new byte[] { (byte)0xFF, (byte)0xD8, 1, 2, 3, 4, 5, 6, (byte)0xFF, (byte)0xD9 };
+
+    @Test
+    public void testExtract() throws Exception
+    {
+        Metadata metadata = JpegMetadataReader.readMetadata(new ByteArrayInputStream(createJpegWithMpf(false)));
+
+        MpfDirectory directory = metadata.getDirectory(MpfDirectory.class);
+        assertNotNull(directory);
+        assertFalse(directory.hasErrors());
+        assertEquals("1.00", directory.getDescription(MpfDirectory.TAG_MPF_VERSION));
+        assertEquals(2, directory.getInt(MpfDirectory.TAG_NUMBER_OF_IMAGES));
+
+        MpfEntry[] entries = directory.getEntries();
+        assertEquals(2, entries.length);
+
+        assertEquals(MpfEntry.TYPE_BASELINE_MP_PRIMARY_IMAGE, entries[0].getType());
+        assertTrue(entries[0].isRepresentativeImage());
+        assertTrue(entries[0].isDependentParentImage());
+        assertEquals(0, entries[0].getOffset());
+        assertEquals(2, entries[0].getDependentImage1EntryNumber());
+
+        assertEquals(MpfEntry.TYPE_LARGE_THUMBNAIL_FULL_HD, entries[1].getType());
+        assertTrue(entries[1].isDependentChildImage());
+        assertEquals(PREVIEW.length, entries[1].getSize());
+        assertEquals(0, entries[1].getDataFormat());
+
+        assertEquals(
+            "Baseline MP Primary Image of " + entries[0].getSize() + " bytes at offset 0, Large Thumbnail (Full HD) of 10 bytes at offset " + entries[1].getOffset(),
+            directory.getDescription(MpfDirectory.TAG_MP_ENTRY));
+    }
+
+    @Test
+    public void testGetImageReader() throws Exception
+    {
+        for (boolean isMotorolaByteOrder : new boolean[] { false, true }) {
+            byte[] jpeg = createJpegWithMpf(isMotorolaByteOrder);
+            Metadata metadata = JpegMetadataReader.readMetadata(new ByteArrayInputStream(jpeg));
+            MpfEntry[] entries = metadata.getDirectory(MpfDirectory.class).getEntries();
+
+            RandomAccessReader preview = MpfReader.getImageReader(new ByteArrayReader(jpeg), entries[1]);
+            assertArrayEquals(PREVIEW, preview.getBytes(0, (int)preview.getLength()));
+
+            RandomAccessReader primary = MpfReader.getImageReader(new ByteArrayReader(jpeg), entries[0]);
+            assertEquals(jpeg.length - PREVIEW.length, primary.getLength());
+            assertEquals(0xFFD8, primary.getUInt16(0));
+        }
+    }
+
+    @Test(expected = JpegProcessingException.class)
+    public void testGetImageReaderWithoutMpfSegment() throws Exception
+    {
+        byte[] jpeg = new byte[] { (byte)0xFF, (byte)0xD8, (byte)0xFF, (byte)0xDA, 0, 2, (byte)0xFF, (byte)0xD9 };
+        MpfReader.getImageReader(new ByteArrayReader(jpeg), new MpfEntry(1, MpfEntry.TYPE_LARGE_THUMBNAIL_VGA, 2, 4, 0, 0));
+    }
+
+    /**
+     * Creates a JPEG file whose primary image is followed by {@link #PREVIEW}, with an MPF segment indexing both.
+     */
+    private static byte[] createJpegWithMpf(boolean isMotorolaByteOrder) throws Exception
+    {
+        final int entryCount = 2;
+        final int ifdOffset = 8;
+        final int tagCount = 3;
+        final int entriesOffset = ifdOffset + 2 + tagCount * 12 + 4;
+        final int mpHeaderLength = entriesOffset + entryCount * 16;
+
+        // The primary image: SOI, then the MPF APP2 segment, then a minimal scan and EOI
+        final int app2Length = 2 + 4 + mpHeaderLength;
+        final int mpHeaderOffset = 2 + 4 + 4;
+        final byte[] scan = new byte[] { (byte)0xFF, (byte)0xDA, 0, 2, 9, 9, 9, (byte)0xFF, (byte)0xD9 };
+        final int primaryLength = 2 + 2 + app2Length + scan.length;
+
+        Writer mp = new Writer(isMotorolaByteOrder);
+        mp.write(isMotorolaByteOrder ? new byte[] { 'M', 'M' } : new byte[] { 'I', 'I' });
+        mp.write16(0x2A);
+        mp.write32(ifdOffset);
+        mp.write16(tagCount);
+        // MPF Version, UNDEFINED[4], inline
+        mp.write16(MpfDirectory.TAG_MPF_VERSION);
+        mp.write16(7);
+        mp.write32(4);
+        mp.write(new byte[] { '0', '1', '0', '0' });
+        // Number of Images, LONG
+        mp.write16(MpfDirectory.TAG_NUMBER_OF_IMAGES);
+        mp.write16(4);
+        mp.write32(1);
+        mp.write32(entryCount);
+        // MP Entry, UNDEFINED[32], at an offset
+        mp.write16(MpfDirectory.TAG_MP_ENTRY);
+        mp.write16(7);
+        mp.write32(entryCount * 16);
+        mp.write32(entriesOffset);
+        // No next IFD
+        mp.write32(0);
+        // Entry 1: representative, dependent parent, baseline primary image
+        mp.write32(0xA0000000 | MpfEntry.TYPE_BASELINE_MP_PRIMARY_IMAGE);
+        mp.write32(primaryLength);
+        mp.write32(0);
+        mp.write16(2);
+        mp.write16(0);
+        // Entry 2: dependent child, full HD large thumbnail
+        mp.write32(0x40000000 | MpfEntry.TYPE_LARGE_THUMBNAIL_FULL_HD);
+        mp.write32(PREVIEW.length);
+        mp.write32(primaryLength - mpHeaderOffset);
+        mp.write16(0);
+        mp.write16(0);
+
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        jpeg.write(new byte[] { (byte)0xFF, (byte)0xD8, (byte)0xFF, (byte)0xE2, (byte)(app2Length >> 8), (byte)app2Length });
+        jpeg.write(new byte[] { 'M', 'P', 'F', 0 });
+        jpeg.write(mp.toByteArray());
+        jpeg.write(scan);
+        assertEquals(primaryLength, jpeg.size());
+        jpeg.write(PREVIEW);
+        return jpeg.toByteArray();
+    }
+
+    private static class Writer extends ByteArrayOutputStream
+    {
+        private final boolean _isMotorolaByteOrder;
+
+        Writer(boolean isMotorolaByteOrder)
+        {
+            _isMotorolaByteOrder = isMotorolaByteOrder;
+        }
+
+        void write16(int value)
+        {
+            if (_isMotorolaByteOrder) {
+                write(value >> 8);
+                write(value);
+            } else {
+                write(value);
+                write(value >> 8);
+            }
+        }
+
+        void write32(int value)
+        {
+            if (_isMotorolaByteOrder) {
+                write16(value >>> 16);
+                write16(value);
+            } else {
+                write16(value);
+                write16(value >>> 16);
+            }
+        }
+    }
+}
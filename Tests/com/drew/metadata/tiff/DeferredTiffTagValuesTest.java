@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2013 Drew Noakes
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    http://drewnoakes.com/code/exif/
+ *    http://code.google.com/p/metadata-extractor/
+ */
+
+
+package com.drew.metadata.tiff;
+
+import com.drew.imaging.tiff.TiffDataFormat;
+import com.drew.lang.ByteArrayReader;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes http://drewnoakes.com
+ */
+public class DeferredTiffTagValuesTest
+{
+    @Test
+    public void testTagsRecordedOutOfOrderAreFound() throws Exception
+    {
+        ByteArrayReader reader = new ByteArrayReader(new byte[]{0, 1, 0, 2, 0, 3, 0, 4});
+        ExifIFD0Directory directory = new ExifIFD0Directory();
+        DeferredTiffTagValues values = new DeferredTiffTagValues();
+
+        values.add(directory, 5, TiffDataFormat.CODE_INT16_U, 1, 0, reader);
+        values.add(directory, 2, TiffDataFormat.CODE_INT16_U, 1, 2, reader);
+        values.add(directory, 9, TiffDataFormat.CODE_INT16_U, 1, 4, reader);
+        // a later entry for the same tag replaces the earlier one
+        values.add(directory, 2, TiffDataFormat.CODE_INT16_U, 1, 6, reader);
+
+        assertEquals(3, directory.getTagCount());
+        assertTrue(values.containsTag(2));
+        assertTrue(values.containsTag(5));
+        assertTrue(values.containsTag(9));
+        assertFalse(values.containsTag(3));
+        assertFalse(values.containsTag(10));
+
+        assertEquals(4, directory.getInt(2));
+        assertFalse(values.containsTag(2));
+        assertEquals(1, directory.getInt(5));
+        assertEquals(3, directory.getInt(9));
+        assertFalse(values.containsTag(5));
+        assertFalse(values.containsTag(9));
+
+        assertEquals(3, directory.getTagCount());
+        assertFalse(directory.hasErrors());
+    }
+}
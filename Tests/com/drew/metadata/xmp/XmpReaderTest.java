@@ -20,6 +20,7 @@
  */
 package com.drew.metadata.xmp;
 
+import com.drew.imaging.jpeg.JpegMetadataReader;
 import com.drew.imaging.jpeg.JpegSegmentType;
 import com.drew.lang.Rational;
 import com.drew.metadata.Metadata;
@@ -27,6 +28,8 @@ import com.drew.tools.FileUtil;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -224,4 +227,193 @@ public class XmpReaderTest
         assertTrue(propertyMap.containsKey("tiff:ImageLength"));
         assertEquals("900", propertyMap.get("tiff:ImageLength"));
     }
+
+    private static final String EXTENDED_XMP_GUID = "2B1E4A3D5C6F708192A3B4C5D6E7F809";
+
+    @Test
+    public void testExtractExtendedXmp() throws Exception
+    {
+        Metadata metadata = new Metadata();
+        XmpReader reader = new XmpReader();
+        byte[][] extendedSegments = createExtendedXmpSegments(EXTENDED_XMP_GUID, 3);
+
+        // Chunks may be stored before the standard packet, and in any order
+        reader.extract(extendedSegments[2], metadata, JpegSegmentType.APP1);
+        reader.extract(createStandardXmpSegment(EXTENDED_XMP_GUID), metadata, JpegSegmentType.APP1);
+        reader.extract(extendedSegments[0], metadata, JpegSegmentType.APP1);
+        assertNull(metadata.getDirectory(XmpDirectory.class).getXmpProperties().get("GDepth:Format"));
+        reader.extract(extendedSegments[1], metadata, JpegSegmentType.APP1);
+
+        XmpDirectory directory = metadata.getDirectory(XmpDirectory.class);
+        assertFalse(directory.hasErrors());
+        assertEquals("RangeInverse", directory.getXmpProperties().get("GDepth:Format"));
+        assertEquals("Canon", directory.getString(XmpDirectory.TAG_MAKE));
+        assertEquals("RangeInverse", directory.getXMPMeta().getPropertyString("http://ns.google.com/photos/1.0/depthmap/", "GDepth:Format"));
+    }
+
+    @Test
+    public void testExtractExtendedXmpFromMergedFragments() throws Exception
+    {
+        Metadata metadata = new Metadata();
+        List<byte[]> segments = new ArrayList<byte[]>();
+        segments.add(createStandardXmpSegment(EXTENDED_XMP_GUID));
+        segments.addAll(Arrays.asList(createExtendedXmpSegments(EXTENDED_XMP_GUID, 2)));
+
+        // As happens when segments are decoded concurrently, each segment is extracted into its own metadata
+        for (byte[] segment : segments) {
+            Metadata fragment = new Metadata();
+            new XmpReader().extract(segment, fragment, JpegSegmentType.APP1);
+            metadata.merge(fragment);
+        }
+
+        assertEquals("RangeInverse", metadata.getDirectory(XmpDirectory.class).getXmpProperties().get("GDepth:Format"));
+    }
+
+    @Test
+    public void testExtendedXmpWithOtherGuidIsIgnored() throws Exception
+    {
+        Metadata metadata = new Metadata();
+        XmpReader reader = new XmpReader();
+
+        reader.extract(createStandardXmpSegment(EXTENDED_XMP_GUID), metadata, JpegSegmentType.APP1);
+        for (byte[] segment : createExtendedXmpSegments("00000000000000000000000000000000", 2))
+            reader.extract(segment, metadata, JpegSegmentType.APP1);
+
+        XmpDirectory directory = metadata.getDirectory(XmpDirectory.class);
+        assertFalse(directory.hasErrors());
+        assertNull(directory.getXmpProperties().get("GDepth:Format"));
+    }
+
+    @Test
+    public void testOverlappingExtendedXmpChunksAreReported() throws Exception
+    {
+        Metadata metadata = new Metadata();
+        XmpReader reader = new XmpReader();
+        byte[][] halves = createExtendedXmpSegments(EXTENDED_XMP_GUID, 2);
+        byte[][] thirds = createExtendedXmpSegments(EXTENDED_XMP_GUID, 3);
+
+        // The second half overlaps the last two thirds. The chunk lengths sum to more than the packet, though its first
+        // third was never received.
+        reader.extract(createStandardXmpSegment(EXTENDED_XMP_GUID), metadata, JpegSegmentType.APP1);
+        reader.extract(halves[1], metadata, JpegSegmentType.APP1);
+        reader.extract(thirds[1], metadata, JpegSegmentType.APP1);
+        reader.extract(thirds[2], metadata, JpegSegmentType.APP1);
+
+        XmpDirectory directory = metadata.getDirectory(XmpDirectory.class);
+        assertEquals(2, directory.getErrorCount());
+        assertTrue(directory.getErrors().iterator().next().contains("overlaps"));
+        assertNull(directory.getXmpProperties().get("GDepth:Format"));
+
+        // A repeated chunk is not an overlap, and the packet completes once the missing bytes arrive
+        reader.extract(halves[1], metadata, JpegSegmentType.APP1);
+        reader.extract(halves[0], metadata, JpegSegmentType.APP1);
+        assertEquals(2, directory.getErrorCount());
+        assertEquals("RangeInverse", directory.getXmpProperties().get("GDepth:Format"));
+    }
+
+    @Test
+    public void testExtendedXmpIsNotAllocatedFromDeclaredLength() throws Exception
+    {
+        Metadata metadata = new Metadata();
+        XmpReader reader = new XmpReader();
+
+        // Each packet declares the largest permitted length, which together would exhaust the heap if allocated
+        for (int i = 0; i < 64; i++) {
+            String guid = String.format("%032X", i);
+            reader.extract(createExtendedXmpChunk(guid, 128 * 1024 * 1024, 0, new byte[16]), metadata, JpegSegmentType.APP1);
+        }
+
+        XmpDirectory directory = metadata.getDirectory(XmpDirectory.class);
+        assertFalse(directory.hasErrors());
+
+        // Reading the standard packet discards the chunks of packets it does not name
+        reader.extract(createStandardXmpSegment(EXTENDED_XMP_GUID), metadata, JpegSegmentType.APP1);
+        directory.discardPendingExtendedXmp();
+        assertFalse(directory.hasErrors());
+    }
+
+    @Test
+    public void testIncompleteExtendedXmpIsDiscardedOnceJpegIsRead() throws Exception
+    {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(new byte[]{(byte)0xFF, (byte)0xD8});
+        writeApp1Segment(stream, createStandardXmpSegment(EXTENDED_XMP_GUID));
+        // only the first of two chunks is present
+        writeApp1Segment(stream, createExtendedXmpSegments(EXTENDED_XMP_GUID, 2)[0]);
+        stream.write(new byte[]{(byte)0xFF, (byte)0xD9});
+
+        Metadata metadata = JpegMetadataReader.readMetadata(new ByteArrayInputStream(stream.toByteArray()));
+
+        XmpDirectory directory = metadata.getDirectory(XmpDirectory.class);
+        assertNotNull(directory);
+        assertEquals(1, directory.getErrorCount());
+        assertTrue(directory.getErrors().iterator().next().contains(EXTENDED_XMP_GUID));
+        assertEquals("Canon", directory.getString(XmpDirectory.TAG_MAKE));
+        assertNull(directory.getXmpProperties().get("GDepth:Format"));
+    }
+
+    private static void writeApp1Segment(ByteArrayOutputStream stream, byte[] segmentBytes)
+    {
+        int length = segmentBytes.length + 2;
+        stream.write(0xFF);
+        stream.write(0xE1);
+        stream.write(length >> 8);
+        stream.write(length);
+        stream.write(segmentBytes, 0, segmentBytes.length);
+    }
+
+    private static byte[] createExtendedXmpChunk(String guid, int fullLength, int offset, byte[] chunk) throws Exception
+    {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write("http://ns.adobe.com/xmp/extension/\0".getBytes("US-ASCII"));
+        stream.write(guid.getBytes("US-ASCII"));
+        stream.write(toBytes(fullLength));
+        stream.write(toBytes(offset));
+        stream.write(chunk);
+        return stream.toByteArray();
+    }
+
+    private static byte[] createStandardXmpSegment(String extendedXmpGuid) throws Exception
+    {
+        String xml = "<x:xmpmeta xmlns:x=\"adobe:ns:meta/\"><rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\">" +
+            "<rdf:Description rdf:about=\"\" xmlns:xmpNote=\"http://ns.adobe.com/xmp/note/\" xmlns:tiff=\"http://ns.adobe.com/tiff/1.0/\"" +
+            " xmpNote:HasExtendedXMP=\"" + extendedXmpGuid + "\" tiff:Make=\"Canon\"/></rdf:RDF></x:xmpmeta>";
+        return concat("http://ns.adobe.com/xap/1.0/\0".getBytes("US-ASCII"), xml.getBytes("UTF-8"));
+    }
+
+    private static byte[][] createExtendedXmpSegments(String guid, int count) throws Exception
+    {
+        String xml = "<x:xmpmeta xmlns:x=\"adobe:ns:meta/\"><rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\">" +
+            "<rdf:Description rdf:about=\"\" xmlns:GDepth=\"http://ns.google.com/photos/1.0/depthmap/\"" +
+            " GDepth:Format=\"RangeInverse\" GDepth:Near=\"0.5\" GDepth:Far=\"10.0\"/></rdf:RDF></x:xmpmeta>";
+        byte[] extendedXmp = xml.getBytes("UTF-8");
+
+        byte[][] segments = new byte[count][];
+        int chunkLength = (extendedXmp.length + count - 1) / count;
+        for (int i = 0; i < count; i++) {
+            int offset = i * chunkLength;
+            int length = Math.min(chunkLength, extendedXmp.length - offset);
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            stream.write("http://ns.adobe.com/xmp/extension/\0".getBytes("US-ASCII"));
+            stream.write(guid.getBytes("US-ASCII"));
+            stream.write(toBytes(extendedXmp.length));
+            stream.write(toBytes(offset));
+            stream.write(extendedXmp, offset, length);
+            segments[i] = stream.toByteArray();
+        }
+        return segments;
+    }
+
+    private static byte[] toBytes(int value)
+    {
+        return new byte[] { (byte)(value >> 24), (byte)(value >> 16), (byte)(value >> 8), (byte)value };
+    }
+
+    private static byte[] concat(byte[] a, byte[] b)
+    {
+        byte[] result = new byte[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
 }